@@ -0,0 +1,241 @@
+package com.viswa.memp;
+
+import android.os.Bundle;
+import android.view.View;
+import android.widget.AdapterView;
+import android.widget.ArrayAdapter;
+import android.widget.Spinner;
+import android.widget.TextView;
+import android.widget.Toast;
+import androidx.appcompat.app.AppCompatActivity;
+import com.google.android.material.appbar.MaterialToolbar;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.viswa.memp.analytics.RobBalance;
+import com.viswa.memp.data.DataCallback;
+import com.viswa.memp.data.FleetRepository;
+import com.viswa.memp.data.LookupCache;
+import com.viswa.memp.data.RobRepository;
+import com.viswa.memp.data.ScreenScope;
+import com.viswa.memp.models.Vessel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Fuel remaining on board of one vessel: each fuel type, what is left of each of
+ * its deliveries (BDN), and the fuel tanks holding it. Balances come from the
+ * on-device ledger, so they show at once and are refreshed behind them; tank
+ * quantities are the bunker-service lookup.
+ */
+public class BunkerManagementActivity extends AppCompatActivity {
+
+    private static final String FUEL_TYPES = "bunkering/lookup/fuel-types";
+    private static final String VESSEL_TANKS = "bunkering/lookup/vessel-tanks/";
+
+    private RobRepository repository;
+    private LookupCache lookups;
+    private Spinner vesselSpinner;
+    private TextView robText;
+    private TextView robStatus;
+
+    private final List<Vessel> vessels = new ArrayList<>();
+    private int selectedShipId = -1;
+    private List<RobBalance> balances;
+    private JsonElement tanks;
+    private ScreenScope scope;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_bunkers);
+        scope = ScreenScope.of(this);
+
+        MaterialToolbar toolbar = findViewById(R.id.toolbar);
+        setSupportActionBar(toolbar);
+        getSupportActionBar().setTitle(R.string.bunkers);
+        getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+
+        repository = RobRepository.getInstance(this);
+        lookups = LookupCache.getInstance(this);
+        vesselSpinner = findViewById(R.id.vesselSpinner);
+        robText = findViewById(R.id.robText);
+        robStatus = findViewById(R.id.robStatus);
+
+        vesselSpinner.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                int shipId = vessels.get(position).getId();
+                if (shipId != selectedShipId) {
+                    selectedShipId = shipId;
+                    loadRob(shipId);
+                }
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+            }
+        });
+        loadVessels();
+    }
+
+    private void loadVessels() {
+        FleetRepository.getInstance(this).getVessels(scope.wrap(new DataCallback<List<Vessel>>() {
+            @Override
+            public void onData(List<Vessel> data, boolean fromDisk) {
+                if (isFinishing()) {
+                    return;
+                }
+                vessels.clear();
+                vessels.addAll(data);
+                List<String> names = new ArrayList<>(data.size());
+                int selected = 0;
+                for (int i = 0; i < data.size(); i++) {
+                    names.add(data.get(i).getName());
+                    if (data.get(i).getId() == selectedShipId) {
+                        selected = i;
+                    }
+                }
+                ArrayAdapter<String> adapter =
+                    new ArrayAdapter<>(BunkerManagementActivity.this, android.R.layout.simple_spinner_item, names);
+                adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+                vesselSpinner.setAdapter(adapter);
+                vesselSpinner.setSelection(selected);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                showError("Unable to load vessels: ", t);
+            }
+        }));
+    }
+
+    private void loadRob(final int shipId) {
+        balances = null;
+        tanks = null;
+        robText.setText(R.string.loading);
+        robStatus.setText("");
+        repository.getBalances(shipId, scope.wrap(new DataCallback<List<RobBalance>>() {
+            @Override
+            public void onData(List<RobBalance> data, boolean fromDisk) {
+                if (isFinishing() || shipId != selectedShipId) {
+                    return;
+                }
+                balances = data;
+                robStatus.setText(fromDisk ? R.string.rob_stored : R.string.rob_synced);
+                render();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                if (shipId == selectedShipId) {
+                    robText.setText(R.string.no_data);
+                    showError("Unable to load ROB: ", t);
+                }
+            }
+        }));
+        lookups.get(VESSEL_TANKS + shipId, scope.wrap(new DataCallback<JsonElement>() {
+            @Override
+            public void onData(JsonElement data, boolean fromDisk) {
+                if (isFinishing() || shipId != selectedShipId) {
+                    return;
+                }
+                tanks = data;
+                render();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                // Balances are shown without tanks
+            }
+        }));
+    }
+
+    private void render() {
+        if (balances == null) {
+            return;
+        }
+        if (balances.isEmpty()) {
+            robText.setText(R.string.no_rob);
+            return;
+        }
+        Map<String, String> names = fuelTypeNames();
+        Map<String, List<String>> tanksByFuel = tanksByFuel();
+        StringBuilder text = new StringBuilder();
+        for (RobBalance balance : balances) {
+            if (text.length() > 0) {
+                text.append('\n');
+            }
+            String name = names.get(balance.getFuelTypeKey());
+            text.append(String.format(Locale.US, "%s: %.3f\n", name != null ? name : balance.getFuelTypeKey(),
+                balance.getTotal()));
+            for (int i = 0; i < balance.getBdnCount(); i++) {
+                text.append(String.format(Locale.US, "  BDN %s: %.3f\n", balance.getBdnNumber(i),
+                    balance.getBdnRob(i)));
+            }
+            List<String> fuelTanks = tanksByFuel.get(balance.getFuelTypeKey());
+            if (fuelTanks != null) {
+                for (String tank : fuelTanks) {
+                    text.append("  ").append(tank).append('\n');
+                }
+            }
+        }
+        robText.setText(text.toString().trim());
+    }
+
+    // Fuel type key -> description, from the lookup preloaded after login
+    private Map<String, String> fuelTypeNames() {
+        Map<String, String> names = new HashMap<>();
+        JsonElement types = lookups.get(FUEL_TYPES);
+        if (types != null && types.isJsonArray()) {
+            for (JsonElement type : types.getAsJsonArray()) {
+                JsonObject row = type.getAsJsonObject();
+                names.put(stringOf(row, "FuelTypeKey"), stringOf(row, "FuelTypeDescription"));
+            }
+        }
+        return names;
+    }
+
+    // Fuel type key -> "Tank: quantity" lines for the vessel's fuel tanks
+    private Map<String, List<String>> tanksByFuel() {
+        Map<String, List<String>> byFuel = new HashMap<>();
+        if (tanks == null || !tanks.isJsonArray()) {
+            return byFuel;
+        }
+        for (JsonElement element : tanks.getAsJsonArray()) {
+            JsonObject tank = element.getAsJsonObject();
+            if (!"FUEL".equals(stringOf(tank, "ContentCategory"))) {
+                continue;
+            }
+            String fuel = stringOf(tank, "ContentTypeKey");
+            List<String> lines = byFuel.get(fuel);
+            if (lines == null) {
+                lines = new ArrayList<>();
+                byFuel.put(fuel, lines);
+            }
+            JsonElement quantity = tank.get("CurrentQuantityMT");
+            lines.add(String.format(Locale.US, "Tank %s: %.3f", stringOf(tank, "Tank_Name"),
+                quantity == null || quantity.isJsonNull() ? 0 : quantity.getAsDouble()));
+        }
+        return byFuel;
+    }
+
+    private void showError(String message, Throwable t) {
+        if (!isFinishing()) {
+            Toast.makeText(this, message + t.getMessage(), Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    private static String stringOf(JsonObject object, String name) {
+        JsonElement value = object.get(name);
+        return value == null || value.isJsonNull() ? "" : value.getAsString();
+    }
+
+    @Override
+    public boolean onSupportNavigateUp() {
+        onBackPressed();
+        return true;
+    }
+}
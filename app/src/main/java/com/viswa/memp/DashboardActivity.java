@@ -2,78 +2,162 @@ package com.viswa.memp;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.view.LayoutInflater;
 import android.view.View;
-import android.widget.GridLayout;
+import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
 import android.widget.TextView;
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
-import androidx.cardview.widget.CardView;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.appbar.MaterialToolbar;
+import com.viswa.memp.data.FleetRepository;
+import com.viswa.memp.data.FleetSyncWorker;
+import com.viswa.memp.data.PrefetchScheduler;
+import com.viswa.memp.data.SessionHolder;
 
 public class DashboardActivity extends AppCompatActivity {
 
-    private GridLayout menuGrid;
+    private static final int COLUMNS = 2;
+
+    private static final String[] MENU_TITLES = {
+        "MEMP Overview", "Vessel Info", "Machinery", "Ports",
+        "Voyages", "Bunkering", "Vessel Reports", "Compliances",
+        "Additives", "User Management", "Fleet Management", "Team"
+    };
+
+    private static final Class<?>[] MENU_ACTIVITIES = {
+        MEMPOverviewActivity.class, VesselInfoActivity.class, MachineryActivity.class, PortManagementActivity.class,
+        VoyageManagementActivity.class, BunkerManagementActivity.class, VesselReportsActivity.class, CompliancesActivity.class,
+        AdditiveActivity.class, UserManagementActivity.class, FleetManagementActivity.class, TeamActivity.class
+    };
+
+    private RecyclerView menuGrid;
+    private PrefetchScheduler prefetchScheduler;
+    private SessionHolder session;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
-        super.onCreate(savedInstanceState);
-        setContentView(R.layout.activity_dashboard);
+        StartupTrace.begin("DashboardActivity.onCreate");
+        try {
+            super.onCreate(savedInstanceState);
+
+            StartupTrace.begin("DashboardActivity.inflate");
+            setContentView(R.layout.activity_dashboard);
+            StartupTrace.end();
+
+            MaterialToolbar toolbar = findViewById(R.id.toolbar);
+            setSupportActionBar(toolbar);
+            getSupportActionBar().setTitle("MEMP Dashboard");
+
+            menuGrid = findViewById(R.id.menuGrid);
+            prefetchScheduler = PrefetchScheduler.getInstance(this);
+
+            // This is the launch activity; the session is normally loaded by now, otherwise wait without blocking
+            session = SessionHolder.getInstance(this);
+            session.whenLoaded(loaded -> onSessionLoaded());
+        } finally {
+            StartupTrace.end();
+        }
+    }
 
-        MaterialToolbar toolbar = findViewById(R.id.toolbar);
-        setSupportActionBar(toolbar);
-        getSupportActionBar().setTitle("MEMP Dashboard");
+    private void onSessionLoaded() {
+        if (isFinishing()) {
+            return;
+        }
+        StartupTrace.mark("Session loaded");
+        if (!session.isLoggedIn()) {
+            startActivity(new Intent(this, LoginActivity.class));
+            finish();
+            return;
+        }
+        // Ship data loads on the repository's threads while the first frame is drawn
+        FleetRepository.getInstance(this).warmUp();
+        FleetSyncWorker.schedule(this);
 
-        menuGrid = findViewById(R.id.menuGrid);
+        StartupTrace.begin("DashboardActivity.setupMenuItems");
         setupMenuItems();
+        StartupTrace.end();
     }
 
-    private void setupMenuItems() {
-        String[] menuTitles = {
-            "MEMP Overview", "Vessel Info", "Machinery", "Ports",
-            "Voyages", "Bunkering", "Vessel Reports", "Compliances",
-            "Additives", "User Management", "Fleet Management", "Team"
-        };
-
-        Class<?>[] activities = {
-            MEMPOverviewActivity.class, VesselInfoActivity.class, MachineryActivity.class, PortManagementActivity.class,
-            VoyageManagementActivity.class, BunkerManagementActivity.class, VesselReportsActivity.class, CompliancesActivity.class,
-            AdditiveActivity.class, UserManagementActivity.class, FleetManagementActivity.class, TeamActivity.class
-        };
-
-        for (int i = 0; i < menuTitles.length; i++) {
-            CardView cardView = createMenuCard(menuTitles[i], activities[i]);
-            menuGrid.addView(cardView);
+    @Override
+    protected void onResume() {
+        super.onResume();
+        if (session.isLoggedIn()) {
+            prefetchScheduler.scheduleWhenIdle();
         }
     }
 
-    private CardView createMenuCard(String title, final Class<?> activityClass) {
-        CardView cardView = new CardView(this);
-        GridLayout.LayoutParams params = new GridLayout.LayoutParams();
-        params.width = 0;
-        params.height = GridLayout.LayoutParams.WRAP_CONTENT;
-        params.columnSpec = GridLayout.spec(GridLayout.UNDEFINED, 1f);
-        params.rowSpec = GridLayout.spec(GridLayout.UNDEFINED, 1f);
-        params.setMargins(8, 8, 8, 8);
-        cardView.setLayoutParams(params);
-        cardView.setCardElevation(4);
-        cardView.setRadius(8);
-        cardView.setCardBackgroundColor(getResources().getColor(R.color.primary));
-
-        TextView textView = new TextView(this);
-        textView.setText(title);
-        textView.setTextColor(getResources().getColor(R.color.white));
-        textView.setTextSize(14);
-        textView.setPadding(16, 16, 16, 16);
-        textView.setGravity(android.view.Gravity.CENTER);
-
-        cardView.addView(textView);
-        cardView.setOnClickListener(new View.OnClickListener() {
+    @Override
+    protected void onPause() {
+        prefetchScheduler.cancel();
+        super.onPause();
+    }
+
+    private void setupMenuItems() {
+        menuGrid.setLayoutManager(new GridLayoutManager(this, COLUMNS));
+        menuGrid.setHasFixedSize(true);
+        // Every card fits on screen, so keep enough recycled views for all of them
+        menuGrid.getRecycledViewPool().setMaxRecycledViews(0, MENU_TITLES.length);
+        menuGrid.setAdapter(new MenuAdapter());
+
+        // The dashboard is usable as soon as the first frame with the cards is drawn
+        menuGrid.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
             @Override
-            public void onClick(View v) {
-                Intent intent = new Intent(DashboardActivity.this, activityClass);
-                startActivity(intent);
+            public boolean onPreDraw() {
+                if (menuGrid.getChildCount() == 0) {
+                    return true;
+                }
+                menuGrid.getViewTreeObserver().removeOnPreDrawListener(this);
+                StartupTrace.reportInteractive(DashboardActivity.this);
+                return true;
             }
         });
+    }
+
+    private void openModule(int position) {
+        prefetchScheduler.recordOpen(MENU_TITLES[position]);
+        Intent intent = new Intent(DashboardActivity.this, MENU_ACTIVITIES[position]);
+        startActivity(intent);
+    }
+
+    private class MenuAdapter extends RecyclerView.Adapter<MenuAdapter.MenuViewHolder> {
+
+        @NonNull
+        @Override
+        public MenuViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            // Colours, radius and elevation come from the layout instead of being resolved per card
+            View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_dashboard_card, parent, false);
+            return new MenuViewHolder(view);
+        }
 
-        return cardView;
+        @Override
+        public void onBindViewHolder(@NonNull MenuViewHolder holder, int position) {
+            holder.title.setText(MENU_TITLES[position]);
+        }
+
+        @Override
+        public int getItemCount() {
+            return MENU_TITLES.length;
+        }
+
+        class MenuViewHolder extends RecyclerView.ViewHolder {
+            final TextView title;
+
+            MenuViewHolder(View itemView) {
+                super(itemView);
+                title = itemView.findViewById(R.id.menuTitle);
+                itemView.setOnClickListener(new View.OnClickListener() {
+                    @Override
+                    public void onClick(View v) {
+                        int position = getAdapterPosition();
+                        if (position != RecyclerView.NO_POSITION) {
+                            openModule(position);
+                        }
+                    }
+                });
+            }
+        }
     }
-}
\ No newline at end of file
+}
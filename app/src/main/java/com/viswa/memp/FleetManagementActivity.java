@@ -0,0 +1,240 @@
+package com.viswa.memp;
+
+import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+import android.widget.Toast;
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import com.google.android.material.appbar.MaterialToolbar;
+import com.viswa.memp.data.DataCallback;
+import com.viswa.memp.data.FleetRepository;
+import com.viswa.memp.data.ScreenScope;
+import com.viswa.memp.data.StreamCallback;
+import com.viswa.memp.data.TankRepository;
+import com.viswa.memp.models.Vessel;
+import com.viswa.memp.models.VesselTank;
+import com.viswa.memp.models.VesselTankStatus;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Tank status across the fleet, a card per vessel. Whenever the list comes to
+ * rest, the vessels on screen that have not been asked for within the quantity
+ * TTL go to TankRepository together, so a screenful costs one batched call
+ * rather than a call per vessel, and a screen left open keeps refreshing as it
+ * is scrolled. Cards fill in as the results stream back.
+ */
+public class FleetManagementActivity extends AppCompatActivity {
+
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss", Locale.US);
+
+    private TankRepository repository;
+    private ScreenScope scope;
+    private TextView statusText;
+    private RecyclerView recyclerView;
+    private LinearLayoutManager layoutManager;
+    private final VesselAdapter adapter = new VesselAdapter();
+
+    private final List<Vessel> vessels = new ArrayList<>();
+    private final Map<Integer, VesselTankStatus> statuses = new HashMap<>();
+    // Vessel -> when it was last asked for, or answered; a failed request takes its vessels out again
+    private final Map<Integer, Long> requestedAt = new HashMap<>();
+    private int loading;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_fleet_tanks);
+        scope = ScreenScope.of(this);
+
+        MaterialToolbar toolbar = findViewById(R.id.toolbar);
+        setSupportActionBar(toolbar);
+        getSupportActionBar().setTitle(R.string.fleet_tanks);
+        getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+
+        repository = TankRepository.getInstance(this);
+        statusText = findViewById(R.id.statusText);
+        recyclerView = findViewById(R.id.recyclerView);
+        layoutManager = new LinearLayoutManager(this);
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.setAdapter(adapter);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView view, int newState) {
+                if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                    requestVisible();
+                }
+            }
+        });
+        loadVessels();
+    }
+
+    private void loadVessels() {
+        FleetRepository.getInstance(this).getVessels(scope.wrap(new DataCallback<List<Vessel>>() {
+            @Override
+            public void onData(List<Vessel> data, boolean fromDisk) {
+                vessels.clear();
+                vessels.addAll(data);
+                adapter.notifyDataSetChanged();
+                recyclerView.post(() -> requestVisible());
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                statusText.setText(R.string.no_data);
+                showError("Unable to load vessels: ", t);
+            }
+        }));
+    }
+
+    private void requestVisible() {
+        int first = layoutManager.findFirstVisibleItemPosition();
+        int last = layoutManager.findLastVisibleItemPosition();
+        if (first == RecyclerView.NO_POSITION) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        final List<Vessel> batch = new ArrayList<>();
+        for (int i = first; i <= last && i < vessels.size(); i++) {
+            Long askedAt = requestedAt.get(vessels.get(i).getId());
+            // Still in flight, or answered recently enough that TankRepository would not call again
+            if (askedAt == null || now - askedAt > TankRepository.QUANTITY_TTL_MS) {
+                requestedAt.put(vessels.get(i).getId(), now);
+                batch.add(vessels.get(i));
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        loading++;
+        statusText.setText(R.string.tanks_refreshing);
+        repository.getTankStatus(batch, scope.wrap(new StreamCallback<VesselTankStatus>() {
+            @Override
+            public void onRows(List<VesselTankStatus> rows) {
+                for (VesselTankStatus status : rows) {
+                    statuses.put(status.getShipId(), status);
+                    int position = positionOf(status.getShipId());
+                    if (position >= 0) {
+                        adapter.notifyItemChanged(position);
+                    }
+                }
+            }
+
+            @Override
+            public void onComplete() {
+                // The quantities are as of now, so that is when they go stale
+                long now = System.currentTimeMillis();
+                for (Vessel vessel : batch) {
+                    requestedAt.put(vessel.getId(), now);
+                }
+                if (--loading == 0) {
+                    statusText.setText(getString(R.string.tanks_updated, timeFormat.format(new Date())));
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                for (Vessel vessel : batch) {
+                    requestedAt.remove(vessel.getId());
+                }
+                if (--loading == 0) {
+                    statusText.setText(R.string.no_data);
+                }
+                showError("Unable to load tank quantities: ", t);
+            }
+        }));
+    }
+
+    private int positionOf(int shipId) {
+        for (int i = 0; i < vessels.size(); i++) {
+            if (vessels.get(i).getId() == shipId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void showError(String message, Throwable t) {
+        if (!isFinishing()) {
+            Toast.makeText(this, message + t.getMessage(), Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    @Override
+    public boolean onSupportNavigateUp() {
+        onBackPressed();
+        return true;
+    }
+
+    private class VesselAdapter extends RecyclerView.Adapter<VesselViewHolder> {
+
+        @NonNull
+        @Override
+        public VesselViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            return new VesselViewHolder(LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.item_vessel_tanks, parent, false));
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull VesselViewHolder holder, int position) {
+            holder.bind(vessels.get(position));
+        }
+
+        @Override
+        public int getItemCount() {
+            return vessels.size();
+        }
+    }
+
+    private class VesselViewHolder extends RecyclerView.ViewHolder {
+        TextView nameText, totalText, tanksText;
+
+        VesselViewHolder(View itemView) {
+            super(itemView);
+            nameText = itemView.findViewById(R.id.vesselName);
+            totalText = itemView.findViewById(R.id.tankTotal);
+            tanksText = itemView.findViewById(R.id.tankLines);
+        }
+
+        void bind(Vessel vessel) {
+            nameText.setText(vessel.getName());
+            VesselTankStatus status = statuses.get(vessel.getId());
+            if (status == null) {
+                totalText.setText("");
+                tanksText.setText(R.string.loading);
+                return;
+            }
+            if (status.getTankCount() == 0) {
+                totalText.setText("");
+                tanksText.setText(R.string.no_tanks);
+                return;
+            }
+            totalText.setText(String.format(Locale.US, status.isStale() ? "%.1f MT ..." : "%.1f MT",
+                status.getTotalMt()));
+            StringBuilder lines = new StringBuilder();
+            for (int i = 0; i < status.getTankCount(); i++) {
+                VesselTank tank = status.getTank(i);
+                double quantity = status.getQuantityMt(i);
+                if (lines.length() > 0) {
+                    lines.append('\n');
+                }
+                lines.append(tank.getName());
+                if (tank.getContentCategory() != null) {
+                    lines.append(" (").append(tank.getContentCategory()).append(')');
+                }
+                lines.append(Double.isNaN(quantity) ? ": -" : String.format(Locale.US, ": %.3f MT", quantity));
+            }
+            tanksText.setText(lines.toString());
+        }
+    }
+}
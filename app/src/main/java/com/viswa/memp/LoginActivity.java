@@ -1,7 +1,6 @@
 package com.viswa.memp;
 
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.view.View;
 import android.widget.Button;
@@ -11,9 +10,13 @@ import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 import com.viswa.memp.api.ApiClient;
 import com.viswa.memp.api.ApiService;
+import com.viswa.memp.api.RequestDispatcher;
+import com.viswa.memp.data.LookupCache;
+import com.viswa.memp.data.ScreenScope;
+import com.viswa.memp.data.SessionHolder;
+import com.viswa.memp.models.LoginRequest;
 import com.viswa.memp.models.LoginResponse;
-import retrofit2.Call;
-import retrofit2.Callback;
+import java.io.IOException;
 import retrofit2.Response;
 
 public class LoginActivity extends AppCompatActivity {
@@ -22,11 +25,13 @@ public class LoginActivity extends AppCompatActivity {
     private EditText passwordInput;
     private Button loginButton;
     private ProgressBar progressBar;
+    private ScreenScope scope;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_login);
+        scope = ScreenScope.of(this);
 
         emailInput = findViewById(R.id.emailInput);
         passwordInput = findViewById(R.id.passwordInput);
@@ -52,38 +57,44 @@ public class LoginActivity extends AppCompatActivity {
 
         showLoading(true);
 
-        ApiService apiService = ApiClient.getClient().create(ApiService.class);
-        Call<LoginResponse> call = apiService.login(email, password);
+        final ApiService apiService = ApiClient.getClient().create(ApiService.class);
+        final LoginRequest credentials = new LoginRequest(email, password);
 
-        call.enqueue(new Callback<LoginResponse>() {
-            @Override
-            public void onResponse(Call<LoginResponse> call, Response<LoginResponse> response) {
-                showLoading(false);
-                if (response.isSuccessful() && response.body() != null) {
-                    // Save login state
-                    SharedPreferences prefs = getSharedPreferences("MEMP", MODE_PRIVATE);
-                    prefs.edit()
-                        .putBoolean("isLoggedIn", true)
-                        .putString("userToken", response.body().getToken())
-                        .apply();
-
-                    // Navigate to dashboard
-                    Intent intent = new Intent(LoginActivity.this, DashboardActivity.class);
-                    startActivity(intent);
-                    finish();
-                } else {
-                    Toast.makeText(LoginActivity.this, "Login failed", Toast.LENGTH_SHORT).show();
-                }
-            }
-
-            @Override
-            public void onFailure(Call<LoginResponse> call, Throwable t) {
-                showLoading(false);
-                Toast.makeText(LoginActivity.this, "Network error: " + t.getMessage(), Toast.LENGTH_SHORT).show();
+        // Leaving the screen cancels the call and drops the result
+        RequestDispatcher dispatcher = RequestDispatcher.getInstance();
+        dispatcher.execute(RequestDispatcher.Priority.VISIBLE, RequestDispatcher.AUTH, scope, () -> {
+            try {
+                final Response<LoginResponse> response = apiService.login(credentials).execute();
+                scope.post(() -> onLoginResponse(response, credentials));
+            } catch (IOException | RuntimeException e) {
+                scope.post(() -> onLoginFailed(e));
             }
         });
     }
 
+    private void onLoginResponse(Response<LoginResponse> response, LoginRequest credentials) {
+        showLoading(false);
+        if (response.isSuccessful() && response.body() != null) {
+            // Save login state
+            SessionHolder.getInstance(this).signIn(response.body().getToken(), credentials);
+
+            // Warm every report lookup in parallel while the dashboard opens
+            LookupCache.getInstance(this).preloadAll();
+
+            // Navigate to dashboard
+            Intent intent = new Intent(this, DashboardActivity.class);
+            startActivity(intent);
+            finish();
+        } else {
+            Toast.makeText(this, "Login failed", Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    private void onLoginFailed(Throwable t) {
+        showLoading(false);
+        Toast.makeText(this, "Network error: " + t.getMessage(), Toast.LENGTH_SHORT).show();
+    }
+
     private void showLoading(boolean show) {
         progressBar.setVisibility(show ? View.VISIBLE : View.GONE);
         loginButton.setVisibility(show ? View.GONE : View.VISIBLE);
@@ -0,0 +1,44 @@
+package com.viswa.memp;
+
+import android.app.Application;
+import android.content.ComponentCallbacks2;
+import android.util.Log;
+import com.viswa.memp.api.ApiClient;
+import com.viswa.memp.data.LookupCache;
+import com.viswa.memp.data.SessionHolder;
+import com.viswa.memp.image.ImageLoader;
+
+public class MEMPApplication extends Application {
+
+    private static final String TAG = "Network";
+
+    @Override
+    public void onCreate() {
+        StartupTrace.markProcessStart();
+        StartupTrace.begin("MEMPApplication.onCreate");
+        try {
+            super.onCreate();
+            // Reads the login state off the main thread while the launch activity is created
+            SessionHolder session = SessionHolder.getInstance(this);
+            ApiClient.init(this);
+            ApiClient.setSession(session);
+            // Restores persisted lookups in the background so they survive restarts. Nothing here builds
+            // an HTTP client; that waits for the first request, off the launch path.
+            LookupCache.getInstance(this);
+        } finally {
+            StartupTrace.end();
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        // Decoded photos are the largest thing the app keeps that it can rebuild
+        ImageLoader.trimMemory(level);
+        if (level == ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            // Once per trip to the background: what the response cache and coalescing saved so far
+            Log.i(TAG, "HTTP cache " + ApiClient.getCacheStats());
+            Log.i(TAG, "Single-flight " + ApiClient.getSingleFlight());
+        }
+    }
+}
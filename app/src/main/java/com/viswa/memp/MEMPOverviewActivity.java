@@ -7,13 +7,22 @@ import android.widget.TextView;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.cardview.widget.CardView;
 import com.google.android.material.appbar.MaterialToolbar;
+import com.viswa.memp.analytics.KpiSnapshot;
+import com.viswa.memp.data.DataCallback;
+import com.viswa.memp.data.FleetRepository;
+import com.viswa.memp.data.ScreenScope;
+import java.util.Locale;
 
 public class MEMPOverviewActivity extends AppCompatActivity {
 
+    private TextView[] statValues;
+    private ScreenScope scope;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_overview);
+        scope = ScreenScope.of(this);
 
         MaterialToolbar toolbar = findViewById(R.id.toolbar);
         setSupportActionBar(toolbar);
@@ -27,15 +36,53 @@ public class MEMPOverviewActivity extends AppCompatActivity {
     private void setupStatisticsCards() {
         LinearLayout statsContainer = findViewById(R.id.statsContainer);
 
-        String[] stats = {"25", "12", "156", "94.2%"};
         String[] labels = {"Total Vessels", "Active Voyages", "Total Reports", "Compliance Rate"};
+        statValues = new TextView[labels.length];
 
-        for (int i = 0; i < stats.length; i++) {
-            CardView card = createStatCard(stats[i], labels[i]);
+        for (int i = 0; i < labels.length; i++) {
+            CardView card = createStatCard("-", labels[i]);
+            statValues[i] = (TextView) ((LinearLayout) card.getChildAt(0)).getChildAt(0);
             statsContainer.addView(card);
         }
+        loadStatistics();
+    }
+
+    private void loadStatistics() {
+        final FleetRepository repository = FleetRepository.getInstance(this);
+        repository.getKpis(scope.wrap(kpiCallback));
+        // The counts follow the sync, so a changed ship or voyage list only needs a fresh snapshot
+        DataCallback<Boolean> onSynced = new DataCallback<Boolean>() {
+            @Override
+            public void onData(Boolean changed, boolean fromDisk) {
+                if (changed && !isFinishing()) {
+                    repository.getKpis(scope.wrap(kpiCallback));
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                // The stored counts stay on screen
+            }
+        };
+        repository.refreshVessels(scope.wrap(onSynced));
+        repository.refreshVoyages(scope.wrap(onSynced));
     }
 
+    private final DataCallback<KpiSnapshot> kpiCallback = new DataCallback<KpiSnapshot>() {
+        @Override
+        public void onData(KpiSnapshot kpis, boolean fromDisk) {
+            statValues[0].setText(String.valueOf(kpis.getTotalVessels()));
+            statValues[1].setText(String.valueOf(kpis.getActiveVoyages()));
+            statValues[2].setText(String.valueOf(kpis.getTotalReports()));
+            double rate = kpis.getComplianceRate();
+            statValues[3].setText(Double.isNaN(rate) ? "-" : String.format(Locale.US, "%.1f%%", rate));
+        }
+
+        @Override
+        public void onError(Throwable t) {
+        }
+    };
+
     private CardView createStatCard(String value, String label) {
         CardView cardView = new CardView(this);
         LinearLayout.LayoutParams params = new LinearLayout.LayoutParams(0, LinearLayout.LayoutParams.WRAP_CONTENT, 1);
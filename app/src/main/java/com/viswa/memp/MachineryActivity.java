@@ -1,19 +1,298 @@
 package com.viswa.memp;
 
+import android.graphics.Color;
 import android.os.Bundle;
+import android.view.View;
+import android.widget.AdapterView;
+import android.widget.ArrayAdapter;
+import android.widget.Spinner;
+import android.widget.TextView;
+import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 import com.google.android.material.appbar.MaterialToolbar;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.viswa.memp.chart.SeriesChartView;
+import com.viswa.memp.data.DataCallback;
+import com.viswa.memp.data.FleetRepository;
+import com.viswa.memp.data.MachineryRepository;
+import com.viswa.memp.data.ScreenScope;
+import com.viswa.memp.models.MachinerySeries;
+import com.viswa.memp.models.Vessel;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
 
+/**
+ * SFOC and power of one machinery over the last year. The year is fetched once;
+ * the range buttons, pinch and pan only move the charts' viewport over it, and
+ * only the period totals in the summary are fetched per range.
+ */
 public class MachineryActivity extends AppCompatActivity {
+
+    private static final int SERIES_DAYS = 365;
+    private static final long MINUTES_PER_DAY = 24 * 60;
+
+    private final SimpleDateFormat queryFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+    private final SimpleDateFormat labelFormat = new SimpleDateFormat("dd MMM yy", Locale.US);
+
+    private MachineryRepository repository;
+    private Spinner vesselSpinner;
+    private Spinner machinerySpinner;
+    private TextView summaryText;
+    private SeriesChartView sfocChart;
+    private SeriesChartView powerChart;
+
+    private final List<Vessel> vessels = new ArrayList<>();
+    private final List<Integer> machineryIds = new ArrayList<>();
+    private int selectedShipId = -1;
+    private int selectedMachineryId = -1;
+    private int rangeDays = 90;
+    private MachinerySeries series;
+    private ScreenScope scope;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        setContentView(R.layout.activity_placeholder);
+        setContentView(R.layout.activity_machinery);
+        scope = ScreenScope.of(this);
 
         MaterialToolbar toolbar = findViewById(R.id.toolbar);
         setSupportActionBar(toolbar);
         getSupportActionBar().setTitle("Machinery");
         getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+
+        repository = MachineryRepository.getInstance(this);
+        vesselSpinner = findViewById(R.id.vesselSpinner);
+        machinerySpinner = findViewById(R.id.machinerySpinner);
+        summaryText = findViewById(R.id.summaryText);
+        sfocChart = findViewById(R.id.sfocChart);
+        powerChart = findViewById(R.id.powerChart);
+
+        setupCharts();
+        findViewById(R.id.range30).setOnClickListener(v -> selectRange(30));
+        findViewById(R.id.range90).setOnClickListener(v -> selectRange(90));
+        findViewById(R.id.range365).setOnClickListener(v -> selectRange(SERIES_DAYS));
+        setupSpinners();
+        loadVessels();
+    }
+
+    private void setupCharts() {
+        SeriesChartView.LabelFormatter dateLabel = minutes -> series == null ? ""
+            : labelFormat.format(new Date((series.getOriginMinute() + (long) minutes) * 60000L));
+        sfocChart.setLabelFormatters(dateLabel, value -> String.format(Locale.US, "%.0f", value));
+        powerChart.setLabelFormatters(dateLabel, value -> String.format(Locale.US, "%.0f", value));
+        powerChart.setLineColor(Color.parseColor("#28a745"));
+        // Both charts show the same period
+        sfocChart.setOnViewportChangeListener(powerChart::setViewport);
+        powerChart.setOnViewportChangeListener(sfocChart::setViewport);
+    }
+
+    private void setupSpinners() {
+        vesselSpinner.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                int shipId = vessels.get(position).getId();
+                if (shipId != selectedShipId) {
+                    selectedShipId = shipId;
+                    loadMachinery(shipId);
+                }
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+            }
+        });
+        machinerySpinner.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                if (position < machineryIds.size() && machineryIds.get(position) != selectedMachineryId) {
+                    selectedMachineryId = machineryIds.get(position);
+                    loadSeries(selectedMachineryId);
+                    loadSummary();
+                }
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+            }
+        });
+    }
+
+    private void loadVessels() {
+        FleetRepository.getInstance(this).getVessels(scope.wrap(new DataCallback<List<Vessel>>() {
+            @Override
+            public void onData(List<Vessel> data, boolean fromDisk) {
+                if (isFinishing()) {
+                    return;
+                }
+                vessels.clear();
+                vessels.addAll(data);
+                List<String> names = new ArrayList<>(data.size());
+                int selected = 0;
+                for (int i = 0; i < data.size(); i++) {
+                    names.add(data.get(i).getName());
+                    if (data.get(i).getId() == selectedShipId) {
+                        selected = i;
+                    }
+                }
+                vesselSpinner.setAdapter(spinnerAdapter(names));
+                vesselSpinner.setSelection(selected);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                showError("Unable to load vessels: ", t);
+            }
+        }));
+    }
+
+    private void loadMachinery(final int shipId) {
+        machineryIds.clear();
+        machinerySpinner.setAdapter(spinnerAdapter(new ArrayList<String>()));
+        selectedMachineryId = -1;
+        clearCharts();
+        summaryText.setText(R.string.loading);
+        repository.getMachinery(shipId, scope.wrap(new DataCallback<JsonArray>() {
+            @Override
+            public void onData(JsonArray data, boolean fromDisk) {
+                if (isFinishing() || shipId != selectedShipId) {
+                    return;
+                }
+                List<String> names = new ArrayList<>(data.size());
+                for (JsonElement element : data) {
+                    JsonObject machinery = element.getAsJsonObject();
+                    machineryIds.add(machinery.get("MachineryRecordID").getAsInt());
+                    names.add(stringOf(machinery, "CustomMachineryName"));
+                }
+                if (names.isEmpty()) {
+                    summaryText.setText(R.string.no_machinery);
+                }
+                machinerySpinner.setAdapter(spinnerAdapter(names));
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                showError("Unable to load machinery: ", t);
+            }
+        }));
+    }
+
+    // The whole year; what the charts show of it is up to the viewport
+    private void loadSeries(final int machineryId) {
+        clearCharts();
+        long today = System.currentTimeMillis();
+        repository.getSeries(machineryId, queryFormat.format(new Date(today - SERIES_DAYS * MINUTES_PER_DAY * 60000L)),
+            queryFormat.format(new Date(today)), scope.wrap(new DataCallback<MachinerySeries>() {
+                @Override
+                public void onData(MachinerySeries data, boolean fromDisk) {
+                    if (isFinishing() || machineryId != selectedMachineryId) {
+                        return;
+                    }
+                    series = data;
+                    sfocChart.setSeries(data.getMinutes(), data.getSfoc(), data.size());
+                    powerChart.setSeries(data.getMinutes(), data.getPower(), data.size());
+                    applyRange();
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    showError("Unable to load SFOC: ", t);
+                }
+            }));
+    }
+
+    private void selectRange(int days) {
+        rangeDays = days;
+        applyRange();
+        loadSummary();
+    }
+
+    private void applyRange() {
+        if (series == null || series.size() == 0) {
+            return;
+        }
+        float to = System.currentTimeMillis() / 60000L - series.getOriginMinute();
+        float from = to - rangeDays * MINUTES_PER_DAY;
+        sfocChart.setViewport(from, to);
+        powerChart.setViewport(from, to);
+    }
+
+    private void loadSummary() {
+        if (selectedMachineryId < 0) {
+            return;
+        }
+        final int machineryId = selectedMachineryId;
+        final int days = rangeDays;
+        long today = System.currentTimeMillis();
+        repository.getAnalytics(machineryId, queryFormat.format(new Date(today - days * MINUTES_PER_DAY * 60000L)),
+            queryFormat.format(new Date(today)), scope.wrap(new DataCallback<JsonObject>() {
+                @Override
+                public void onData(JsonObject data, boolean fromDisk) {
+                    if (isFinishing() || machineryId != selectedMachineryId || days != rangeDays) {
+                        return;
+                    }
+                    summaryText.setText(summaryOf(data));
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    summaryText.setText(R.string.no_data);
+                }
+            }));
+    }
+
+    private static String summaryOf(JsonObject analytics) {
+        JsonObject power = analytics.has("powerStats") && analytics.get("powerStats").isJsonObject()
+            ? analytics.getAsJsonObject("powerStats") : new JsonObject();
+        double fuel = 0;
+        double co2 = 0;
+        if (analytics.has("fuelStats") && analytics.get("fuelStats").isJsonArray()) {
+            for (JsonElement element : analytics.getAsJsonArray("fuelStats")) {
+                fuel += numberOf(element.getAsJsonObject(), "Fuel_Consumed");
+                co2 += numberOf(element.getAsJsonObject(), "CO2_MT");
+            }
+        }
+        return String.format(Locale.US, "Running hours: %.1f\nAverage power: %.0f kW\nFuel: %.2f MT   CO2: %.2f MT",
+            numberOf(power, "Running_Hrs"), numberOf(power, "Avg_Power"), fuel, co2);
+    }
+
+    private void clearCharts() {
+        series = null;
+        sfocChart.setSeries(new float[0], new float[0], 0);
+        powerChart.setSeries(new float[0], new float[0], 0);
+    }
+
+    private ArrayAdapter<String> spinnerAdapter(List<String> items) {
+        ArrayAdapter<String> adapter = new ArrayAdapter<>(this, android.R.layout.simple_spinner_item, items);
+        adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        return adapter;
+    }
+
+    private void showError(String message, Throwable t) {
+        if (!isFinishing()) {
+            Toast.makeText(this, message + t.getMessage(), Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    private static String stringOf(JsonObject object, String name) {
+        JsonElement value = object.get(name);
+        return value == null || value.isJsonNull() ? "" : value.getAsString();
+    }
+
+    private static double numberOf(JsonObject object, String name) {
+        JsonElement value = object.get(name);
+        if (value == null || value.isJsonNull()) {
+            return 0;
+        }
+        try {
+            return value.getAsDouble();
+        } catch (NumberFormatException e) {
+            return 0;
+        }
     }
 
     @Override
@@ -21,4 +300,4 @@ public class MachineryActivity extends AppCompatActivity {
         onBackPressed();
         return true;
     }
-}
\ No newline at end of file
+}
@@ -1,28 +0,0 @@
-package com.viswa.memp;
-
-import android.content.Intent;
-import android.content.SharedPreferences;
-import android.os.Bundle;
-import androidx.appcompat.app.AppCompatActivity;
-
-public class MainActivity extends AppCompatActivity {
-
-    @Override
-    protected void onCreate(Bundle savedInstanceState) {
-        super.onCreate(savedInstanceState);
-
-        // Check if user is logged in
-        SharedPreferences prefs = getSharedPreferences("MEMP", MODE_PRIVATE);
-        boolean isLoggedIn = prefs.getBoolean("isLoggedIn", false);
-
-        Intent intent;
-        if (isLoggedIn) {
-            intent = new Intent(this, DashboardActivity.class);
-        } else {
-            intent = new Intent(this, LoginActivity.class);
-        }
-
-        startActivity(intent);
-        finish(); // Close this activity
-    }
-}
\ No newline at end of file
@@ -0,0 +1,61 @@
+package com.viswa.memp;
+
+import android.app.Activity;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+
+/**
+ * Launch-path instrumentation. Each step runs inside a named trace section
+ * (visible in Perfetto / systrace), and time-to-interactive is measured from
+ * Application.onCreate to the first frame of a usable dashboard. The result is
+ * logged under the "Startup" tag and passed to reportFullyDrawn() so it also
+ * shows up as "Fully drawn" in logcat and in Play vitals.
+ */
+public final class StartupTrace {
+
+    // Cold start, Application.onCreate to an interactive dashboard
+    public static final long INTERACTIVE_BUDGET_MS = 800;
+
+    private static final String TAG = "Startup";
+
+    private static long processStartedAt;
+    private static boolean reported;
+
+    private StartupTrace() {
+    }
+
+    static void markProcessStart() {
+        processStartedAt = SystemClock.elapsedRealtime();
+    }
+
+    public static void begin(String section) {
+        Trace.beginSection(section);
+    }
+
+    public static void end() {
+        Trace.endSection();
+    }
+
+    // Logs a launch milestone with the time since the process started
+    public static void mark(String event) {
+        if (processStartedAt != 0) {
+            Log.i(TAG, event + " at " + (SystemClock.elapsedRealtime() - processStartedAt) + " ms");
+        }
+    }
+
+    // Only the first call per process counts; later dashboards are warm starts
+    public static void reportInteractive(Activity activity) {
+        if (reported || processStartedAt == 0) {
+            return;
+        }
+        reported = true;
+        long elapsed = SystemClock.elapsedRealtime() - processStartedAt;
+        if (elapsed > INTERACTIVE_BUDGET_MS) {
+            Log.w(TAG, "Time to interactive " + elapsed + " ms, over the " + INTERACTIVE_BUDGET_MS + " ms budget");
+        } else {
+            Log.i(TAG, "Time to interactive " + elapsed + " ms");
+        }
+        activity.reportFullyDrawn();
+    }
+}
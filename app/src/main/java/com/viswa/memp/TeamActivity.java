@@ -0,0 +1,121 @@
+package com.viswa.memp;
+
+import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import android.widget.TextView;
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import com.google.android.material.appbar.MaterialToolbar;
+import com.viswa.memp.data.DataCallback;
+import com.viswa.memp.data.ScreenScope;
+import com.viswa.memp.data.TeamRepository;
+import com.viswa.memp.image.ImageLoader;
+import com.viswa.memp.models.TeamMember;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TeamActivity extends AppCompatActivity {
+
+    private final List<TeamMember> members = new ArrayList<>();
+    private MemberAdapter adapter;
+    private TextView emptyText;
+    private ImageLoader imageLoader;
+    private ScreenScope scope;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_team);
+        scope = ScreenScope.of(this);
+
+        MaterialToolbar toolbar = findViewById(R.id.toolbar);
+        setSupportActionBar(toolbar);
+        getSupportActionBar().setTitle("Team");
+        getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+
+        imageLoader = ImageLoader.getInstance(this);
+        emptyText = findViewById(R.id.emptyText);
+        RecyclerView recyclerView = findViewById(R.id.recyclerView);
+        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        recyclerView.setHasFixedSize(true);
+        adapter = new MemberAdapter();
+        recyclerView.setAdapter(adapter);
+
+        loadMembers();
+    }
+
+    private void loadMembers() {
+        TeamRepository.getInstance(this).getMembers(scope.wrap(new DataCallback<List<TeamMember>>() {
+            @Override
+            public void onData(List<TeamMember> data, boolean fromDisk) {
+                members.clear();
+                for (TeamMember member : data) {
+                    if (member.isActive()) {
+                        members.add(member);
+                    }
+                }
+                adapter.notifyDataSetChanged();
+                emptyText.setVisibility(members.isEmpty() ? View.VISIBLE : View.GONE);
+                emptyText.setText(R.string.no_team_members);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                emptyText.setText(getString(R.string.error) + ": " + t.getMessage());
+            }
+        }));
+    }
+
+    private class MemberAdapter extends RecyclerView.Adapter<MemberAdapter.MemberViewHolder> {
+
+        @NonNull
+        @Override
+        public MemberViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            View view = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.item_team_member, parent, false);
+            return new MemberViewHolder(view);
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull MemberViewHolder holder, int position) {
+            holder.bind(members.get(position));
+        }
+
+        @Override
+        public int getItemCount() {
+            return members.size();
+        }
+
+        class MemberViewHolder extends RecyclerView.ViewHolder {
+            ImageView photo;
+            TextView nameText, roleText, emailText;
+
+            MemberViewHolder(View itemView) {
+                super(itemView);
+                photo = itemView.findViewById(R.id.memberPhoto);
+                nameText = itemView.findViewById(R.id.memberName);
+                roleText = itemView.findViewById(R.id.memberRole);
+                emailText = itemView.findViewById(R.id.memberEmail);
+            }
+
+            void bind(TeamMember member) {
+                nameText.setText(member.getName());
+                roleText.setText(member.getRole());
+                emailText.setText(member.getEmail());
+                // A recycled row drops the photo it was loading for the member it showed before
+                imageLoader.load(TeamRepository.imageUrlOf(member), photo, R.drawable.member_placeholder);
+            }
+        }
+    }
+
+    @Override
+    public boolean onSupportNavigateUp() {
+        onBackPressed();
+        return true;
+    }
+}
@@ -2,28 +2,54 @@ package com.viswa.memp;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.SystemClock;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.EditText;
 import android.widget.TextView;
+import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.appbar.MaterialToolbar;
-import java.util.ArrayList;
+import com.viswa.memp.data.DataCallback;
+import com.viswa.memp.data.FleetRepository;
+import com.viswa.memp.data.LocalStore;
+import com.viswa.memp.data.PagedLoader;
+import com.viswa.memp.data.ScreenScope;
+import com.viswa.memp.models.Vessel;
+import com.viswa.memp.search.VesselSearchIndex;
+import java.math.BigDecimal;
 import java.util.List;
 
 public class VesselInfoActivity extends AppCompatActivity {
 
+    private static final int PAGE_SIZE = 50;
+    private static final int PREFETCH_DISTANCE = 15;
+
     private RecyclerView recyclerView;
     private VesselAdapter adapter;
-    private List<Vessel> vesselList;
+    private PagedLoader<Vessel> pager;
+    private List<Vessel> pagedItems;
+    private VesselSearchIndex searchIndex;
+    private String query = "";
+    private long createdAt;
+    private boolean firstContentLogged;
+    private ScreenScope scope;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        createdAt = SystemClock.elapsedRealtime();
         setContentView(R.layout.activity_vessel_info);
+        scope = ScreenScope.of(this);
 
         MaterialToolbar toolbar = findViewById(R.id.toolbar);
         setSupportActionBar(toolbar);
@@ -32,27 +58,112 @@ public class VesselInfoActivity extends AppCompatActivity {
 
         recyclerView = findViewById(R.id.recyclerView);
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        recyclerView.setHasFixedSize(true);
+
+        adapter = new VesselAdapter();
+        recyclerView.setAdapter(adapter);
 
         loadVesselData();
+        setupSearch();
+    }
+
+    // Results replace the paged list while there is a query; the index answers per keystroke on this thread
+    private void setupSearch() {
+        EditText searchInput = findViewById(R.id.searchInput);
+        searchInput.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                query = s.toString().trim();
+                showVessels();
+            }
+        });
+        FleetRepository.getInstance(this).getSearchIndex(scope.wrap(new DataCallback<VesselSearchIndex>() {
+            @Override
+            public void onData(VesselSearchIndex index, boolean fromDisk) {
+                searchIndex = index;
+                showVessels();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                // Typing does nothing until the index is there; the list itself still loads
+            }
+        }));
+    }
+
+    private void showVessels() {
+        if (query.isEmpty()) {
+            if (pagedItems != null) {
+                adapter.submitList(pagedItems);
+            }
+        } else if (searchIndex != null) {
+            adapter.submitList(searchIndex.search(query, null, null, VesselSearchIndex.NO_LIMIT));
+        }
     }
 
     private void loadVesselData() {
-        vesselList = new ArrayList<>();
-        // Mock data - in real app, this would come from API
-        vesselList.add(new Vessel(1, "MV Ocean Pride", "1234567", "Panama", "Container Ship", 50000));
-        vesselList.add(new Vessel(2, "MV Sea Explorer", "2345678", "Liberia", "Bulk Carrier", 80000));
-        vesselList.add(new Vessel(3, "MV Blue Wave", "3456789", "Marshall Islands", "Tanker", 60000));
+        final FleetRepository repository = FleetRepository.getInstance(this);
+        final LocalStore store = repository.getStore();
+
+        // Pages come from the local store; the diff against the previous list runs off the main thread
+        pager = new PagedLoader<>(store::getVessels, repository.getExecutor(), PAGE_SIZE, PREFETCH_DISTANCE,
+            items -> {
+                pagedItems = items;
+                showVessels();
+                // Time to first content, to compare opens with and without a dashboard prefetch
+                if (!firstContentLogged && !items.isEmpty()) {
+                    firstContentLogged = true;
+                    Log.d("TTFC", "Vessel Info: " + (SystemClock.elapsedRealtime() - createdAt) + " ms");
+                }
+            });
+        pager.loadInitial();
+
+        repository.refreshVessels(scope.wrap(new DataCallback<Boolean>() {
+            @Override
+            public void onData(Boolean changed, boolean fromDisk) {
+                if (changed && !isFinishing()) {
+                    // The search index was brought up to date by the same sync
+                    pager.reload();
+                    showVessels();
+                }
+            }
 
-        adapter = new VesselAdapter(vesselList);
-        recyclerView.setAdapter(adapter);
+            @Override
+            public void onError(Throwable t) {
+                if (!isFinishing() && adapter.getItemCount() == 0) {
+                    Toast.makeText(VesselInfoActivity.this, "Unable to load vessels: " + t.getMessage(),
+                        Toast.LENGTH_SHORT).show();
+                }
+            }
+        }));
     }
 
+    private static final DiffUtil.ItemCallback<Vessel> DIFF_CALLBACK = new DiffUtil.ItemCallback<Vessel>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Vessel oldItem, @NonNull Vessel newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Vessel oldItem, @NonNull Vessel newItem) {
+            return oldItem.hasSameListContents(newItem);
+        }
+    };
+
     private class VesselAdapter extends RecyclerView.Adapter<VesselAdapter.VesselViewHolder> {
 
-        private List<Vessel> vessels;
+        private final AsyncListDiffer<Vessel> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
 
-        VesselAdapter(List<Vessel> vessels) {
-            this.vessels = vessels;
+        void submitList(List<Vessel> vessels) {
+            differ.submitList(vessels);
         }
 
         @NonNull
@@ -65,13 +176,16 @@ public class VesselInfoActivity extends AppCompatActivity {
 
         @Override
         public void onBindViewHolder(@NonNull VesselViewHolder holder, int position) {
-            Vessel vessel = vessels.get(position);
+            Vessel vessel = differ.getCurrentList().get(position);
             holder.bind(vessel);
+            if (query.isEmpty()) {
+                pager.onItemBound(position);
+            }
         }
 
         @Override
         public int getItemCount() {
-            return vessels.size();
+            return differ.getCurrentList().size();
         }
 
         class VesselViewHolder extends RecyclerView.ViewHolder {
@@ -88,7 +202,7 @@ public class VesselInfoActivity extends AppCompatActivity {
                 itemView.setOnClickListener(v -> {
                     int position = getAdapterPosition();
                     if (position != RecyclerView.NO_POSITION) {
-                        Vessel vessel = vessels.get(position);
+                        Vessel vessel = differ.getCurrentList().get(position);
                         Intent intent = new Intent(VesselInfoActivity.this, VesselDetailsActivity.class);
                         intent.putExtra("vesselId", vessel.getId());
                         startActivity(intent);
@@ -101,36 +215,13 @@ public class VesselInfoActivity extends AppCompatActivity {
                 imoText.setText("IMO: " + vessel.getImo());
                 flagText.setText("Flag: " + vessel.getFlag());
                 typeText.setText("Type: " + vessel.getType());
-                tonnageText.setText("GT: " + vessel.getGrossTonnage());
+                // CapacityGT is a DECIMAL(18,2); whole tonnages show without the ".0"
+                tonnageText.setText("GT: " + BigDecimal.valueOf(vessel.getGrossTonnage()).stripTrailingZeros()
+                    .toPlainString());
             }
         }
     }
 
-    private static class Vessel {
-        private int id;
-        private String name;
-        private String imo;
-        private String flag;
-        private String type;
-        private int grossTonnage;
-
-        Vessel(int id, String name, String imo, String flag, String type, int grossTonnage) {
-            this.id = id;
-            this.name = name;
-            this.imo = imo;
-            this.flag = flag;
-            this.type = type;
-            this.grossTonnage = grossTonnage;
-        }
-
-        int getId() { return id; }
-        String getName() { return name; }
-        String getImo() { return imo; }
-        String getFlag() { return flag; }
-        String getType() { return type; }
-        int getGrossTonnage() { return grossTonnage; }
-    }
-
     @Override
     public boolean onSupportNavigateUp() {
         onBackPressed();
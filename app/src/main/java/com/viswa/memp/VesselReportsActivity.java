@@ -0,0 +1,263 @@
+package com.viswa.memp;
+
+import android.os.Bundle;
+import android.util.Log;
+import android.view.View;
+import android.widget.AdapterView;
+import android.widget.ArrayAdapter;
+import android.widget.ScrollView;
+import android.widget.Spinner;
+import android.widget.TextView;
+import android.widget.Toast;
+import androidx.appcompat.app.AppCompatActivity;
+import com.google.android.material.appbar.MaterialToolbar;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.viswa.memp.data.DataCallback;
+import com.viswa.memp.data.FleetRepository;
+import com.viswa.memp.data.ReportNavigator;
+import com.viswa.memp.data.ScreenScope;
+import com.viswa.memp.data.StreamCallback;
+import com.viswa.memp.models.Vessel;
+import com.viswa.memp.models.VesselReport;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// One full report at a time, newest first; older and newer reports are prefetched by the navigator
+public class VesselReportsActivity extends AppCompatActivity {
+
+    private FleetRepository repository;
+    private ReportNavigator navigator;
+    private ScreenScope scope;
+    private Spinner vesselSpinner;
+    private View olderButton;
+    private View newerButton;
+    private TextView positionText;
+    private TextView reportText;
+    private ScrollView reportScroll;
+
+    private final List<Vessel> vessels = new ArrayList<>();
+    // The selected vessel's report summaries by id, as they stream in
+    private final Map<Long, VesselReport> reports = new HashMap<>();
+    private int selectedShipId = -1;
+    private boolean opened;
+
+    private final DataCallback<JsonObject> showReport = new DataCallback<JsonObject>() {
+        @Override
+        public void onData(JsonObject report, boolean fromDisk) {
+            reportText.setText(render(report));
+            reportScroll.scrollTo(0, 0);
+            updateControls();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            updateControls();
+            if (!isFinishing()) {
+                Toast.makeText(VesselReportsActivity.this, "Unable to load report: " + t.getMessage(),
+                    Toast.LENGTH_SHORT).show();
+            }
+        }
+    };
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_reports);
+        scope = ScreenScope.of(this);
+
+        MaterialToolbar toolbar = findViewById(R.id.toolbar);
+        setSupportActionBar(toolbar);
+        getSupportActionBar().setTitle("Vessel Reports");
+        getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+
+        repository = FleetRepository.getInstance(this);
+        vesselSpinner = findViewById(R.id.vesselSpinner);
+        olderButton = findViewById(R.id.olderButton);
+        newerButton = findViewById(R.id.newerButton);
+        positionText = findViewById(R.id.positionText);
+        reportText = findViewById(R.id.reportText);
+        reportScroll = findViewById(R.id.reportScroll);
+
+        olderButton.setOnClickListener(v -> step(true));
+        newerButton.setOnClickListener(v -> step(false));
+        vesselSpinner.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                int shipId = vessels.get(position).getId();
+                if (shipId != selectedShipId) {
+                    selectedShipId = shipId;
+                    loadReports(shipId);
+                }
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+            }
+        });
+        loadVessels();
+    }
+
+    private void loadVessels() {
+        repository.getVessels(scope.wrap(new DataCallback<List<Vessel>>() {
+            @Override
+            public void onData(List<Vessel> data, boolean fromDisk) {
+                vessels.clear();
+                vessels.addAll(data);
+                List<String> names = new ArrayList<>(data.size());
+                int selected = 0;
+                for (int i = 0; i < data.size(); i++) {
+                    names.add(data.get(i).getName());
+                    if (data.get(i).getId() == selectedShipId) {
+                        selected = i;
+                    }
+                }
+                ArrayAdapter<String> adapter =
+                    new ArrayAdapter<>(VesselReportsActivity.this, android.R.layout.simple_spinner_item, names);
+                adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+                vesselSpinner.setAdapter(adapter);
+                vesselSpinner.setSelection(selected);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                Toast.makeText(VesselReportsActivity.this, "Unable to load vessels: " + t.getMessage(),
+                    Toast.LENGTH_SHORT).show();
+            }
+        }));
+    }
+
+    /**
+     * A new navigator per vessel: its window only ever holds one vessel's reports.
+     * The newest report opens as soon as the first rows arrive, stored or not; the
+     * rest of the list fills in underneath it while the sync is still downloading.
+     */
+    private void loadReports(final int shipId) {
+        logWindowStats();
+        navigator = new ReportNavigator(this, scope);
+        reports.clear();
+        opened = false;
+        reportText.setText(R.string.loading);
+        updateControls();
+        final ReportNavigator forNavigator = navigator;
+        repository.getReports(shipId, scope.wrap(new StreamCallback<VesselReport>() {
+            @Override
+            public void onRows(List<VesselReport> rows) {
+                if (forNavigator != navigator) {
+                    return;
+                }
+                for (VesselReport report : rows) {
+                    reports.put(report.getId(), report);
+                }
+                navigator.setReports(newestFirst());
+                if (!opened && !reports.isEmpty()) {
+                    opened = true;
+                    navigator.openNewest(showReport);
+                }
+                updateControls();
+            }
+
+            @Override
+            public void onComplete() {
+                if (forNavigator == navigator && reports.isEmpty()) {
+                    reportText.setText(R.string.no_reports);
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                // Stored reports, if any, stay on screen
+                if (forNavigator == navigator && reports.isEmpty()) {
+                    reportText.setText(R.string.no_data);
+                }
+            }
+        }));
+    }
+
+    // In the store's order: report date, then id, newest first
+    private List<VesselReport> newestFirst() {
+        List<VesselReport> sorted = new ArrayList<>(reports.values());
+        Collections.sort(sorted, (a, b) -> {
+            String dateA = a.getReportDateUtc() != null ? a.getReportDateUtc() : "";
+            String dateB = b.getReportDateUtc() != null ? b.getReportDateUtc() : "";
+            int byDate = dateB.compareTo(dateA);
+            return byDate != 0 ? byDate : Long.compare(b.getId(), a.getId());
+        });
+        return sorted;
+    }
+
+    private void step(boolean older) {
+        if (navigator == null) {
+            return;
+        }
+        if (older) {
+            navigator.older(showReport);
+        } else {
+            navigator.newer(showReport);
+        }
+        updateControls();
+    }
+
+    private void updateControls() {
+        boolean ready = navigator != null && navigator.currentId() != null;
+        olderButton.setEnabled(ready && navigator.hasOlder());
+        newerButton.setEnabled(ready && navigator.hasNewer());
+        positionText.setText(ready ? String.format(Locale.US, "Report %d", navigator.getPosition()) : "");
+    }
+
+    // Header fields as "name: value", then each tab's rows
+    private static String render(JsonObject report) {
+        StringBuilder text = new StringBuilder();
+        List<Map.Entry<String, JsonElement>> tabs = new ArrayList<>();
+        for (Map.Entry<String, JsonElement> field : report.entrySet()) {
+            JsonElement value = field.getValue();
+            if (value.isJsonArray()) {
+                tabs.add(field);
+            } else if (value.isJsonPrimitive()) {
+                text.append(field.getKey()).append(": ").append(value.getAsString()).append('\n');
+            }
+        }
+        for (Map.Entry<String, JsonElement> tab : tabs) {
+            JsonArray rows = tab.getValue().getAsJsonArray();
+            text.append('\n').append(tab.getKey()).append(" (").append(rows.size()).append(")\n");
+            for (JsonElement row : rows) {
+                if (!row.isJsonObject()) {
+                    continue;
+                }
+                text.append(' ');
+                for (Map.Entry<String, JsonElement> cell : row.getAsJsonObject().entrySet()) {
+                    if (cell.getValue().isJsonPrimitive()) {
+                        text.append(' ').append(cell.getKey()).append('=').append(cell.getValue().getAsString());
+                    }
+                }
+                text.append('\n');
+            }
+        }
+        return text.toString();
+    }
+
+    // How well the prefetch window served this screen's navigation
+    private void logWindowStats() {
+        if (navigator != null && navigator.getOpenCount() > 0) {
+            Log.d("ReportNavigator", String.format(Locale.US, "%d reports shown, %.0f%% from the window, %d KB held",
+                navigator.getOpenCount(), navigator.getHitRate() * 100, navigator.getWindowBytes() / 1024));
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        logWindowStats();
+        super.onDestroy();
+    }
+
+    @Override
+    public boolean onSupportNavigateUp() {
+        onBackPressed();
+        return true;
+    }
+}
@@ -0,0 +1,437 @@
+package com.viswa.memp;
+
+import android.content.ActivityNotFoundException;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AdapterView;
+import android.widget.ArrayAdapter;
+import android.widget.Spinner;
+import android.widget.TextView;
+import android.widget.Toast;
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AlertDialog;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.content.FileProvider;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import com.google.android.material.appbar.MaterialToolbar;
+import com.viswa.memp.data.AttachmentRepository;
+import com.viswa.memp.data.DataCallback;
+import com.viswa.memp.data.FleetRepository;
+import com.viswa.memp.data.ScreenScope;
+import com.viswa.memp.models.Attachment;
+import com.viswa.memp.models.Vessel;
+import com.viswa.memp.models.Voyage;
+import com.viswa.memp.models.VoyageLeg;
+import com.viswa.memp.timeline.VoyageTimeline;
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TimeZone;
+
+/**
+ * A vessel's voyage history, latest first, each voyage followed by its legs.
+ * Only the voyages are fetched up front; the legs of the voyages on screen, and
+ * of those within EXPAND_MARGIN of it, are fetched as the list scrolls there.
+ * Tapping a voyage or leg lists its attachments; the one picked is downloaded
+ * through AttachmentRepository and handed to a viewer.
+ */
+public class VoyageManagementActivity extends AppCompatActivity {
+
+    private static final int TYPE_VOYAGE = 0;
+    private static final int TYPE_LEG = 1;
+    // Legs are loaded this far beyond both ends of the time span on screen
+    private static final long EXPAND_MARGIN = 60L * 24 * 60;
+
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("dd MMM yyyy HH:mm", Locale.US);
+
+    private FleetRepository repository;
+    private AttachmentRepository attachments;
+    private ScreenScope scope;
+    private Spinner vesselSpinner;
+    private TextView currentLegText;
+    private RecyclerView recyclerView;
+    private LinearLayoutManager layoutManager;
+    private final RowAdapter adapter = new RowAdapter();
+
+    private final List<Vessel> vessels = new ArrayList<>();
+    private int selectedShipId = -1;
+    private VoyageTimeline timeline;
+    // Voyage and leg rows, in display order
+    private final List<Object> rows = new ArrayList<>();
+    // Voyages whose legs were requested for the current timeline; a failed one is not retried until reselected
+    private final Set<Long> requested = new HashSet<>();
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_voyages);
+        scope = ScreenScope.of(this);
+        dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+        MaterialToolbar toolbar = findViewById(R.id.toolbar);
+        setSupportActionBar(toolbar);
+        getSupportActionBar().setTitle("Voyage Management");
+        getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+
+        repository = FleetRepository.getInstance(this);
+        attachments = AttachmentRepository.getInstance(this);
+        vesselSpinner = findViewById(R.id.vesselSpinner);
+        currentLegText = findViewById(R.id.currentLegText);
+        recyclerView = findViewById(R.id.recyclerView);
+        layoutManager = new LinearLayoutManager(this);
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.setAdapter(adapter);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView view, int dx, int dy) {
+                expandVisible();
+            }
+        });
+
+        vesselSpinner.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                int shipId = vessels.get(position).getId();
+                if (shipId != selectedShipId) {
+                    selectedShipId = shipId;
+                    loadHistory(shipId);
+                }
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+            }
+        });
+        loadVessels();
+    }
+
+    private void loadVessels() {
+        repository.getVessels(scope.wrap(new DataCallback<List<Vessel>>() {
+            @Override
+            public void onData(List<Vessel> data, boolean fromDisk) {
+                vessels.clear();
+                vessels.addAll(data);
+                List<String> names = new ArrayList<>(data.size());
+                int selected = 0;
+                for (int i = 0; i < data.size(); i++) {
+                    names.add(data.get(i).getName());
+                    if (data.get(i).getId() == selectedShipId) {
+                        selected = i;
+                    }
+                }
+                ArrayAdapter<String> spinnerAdapter =
+                    new ArrayAdapter<>(VoyageManagementActivity.this, android.R.layout.simple_spinner_item, names);
+                spinnerAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+                vesselSpinner.setAdapter(spinnerAdapter);
+                vesselSpinner.setSelection(selected);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                showError("Unable to load vessels: ", t);
+            }
+        }));
+    }
+
+    private void loadHistory(final int shipId) {
+        timeline = null;
+        requested.clear();
+        rows.clear();
+        adapter.notifyDataSetChanged();
+        currentLegText.setText(R.string.loading);
+        repository.getVoyageHistory(shipId, scope.wrap(new DataCallback<List<Voyage>>() {
+            @Override
+            public void onData(List<Voyage> data, boolean fromDisk) {
+                if (shipId != selectedShipId) {
+                    return;
+                }
+                timeline = new VoyageTimeline(data);
+                rows.addAll(timeline.getHistory());
+                adapter.notifyDataSetChanged();
+                showCurrentLeg();
+                recyclerView.post(() -> expandVisible());
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                currentLegText.setText(R.string.no_data);
+                showError("Unable to load voyages: ", t);
+            }
+        }));
+    }
+
+    private void showCurrentLeg() {
+        if (timeline.getHistory().isEmpty()) {
+            currentLegText.setText(R.string.no_voyages);
+            return;
+        }
+        long now = System.currentTimeMillis() / 60000L;
+        Voyage voyage = timeline.voyageAt(now);
+        if (voyage == null) {
+            currentLegText.setText(R.string.not_under_way);
+            return;
+        }
+        VoyageLeg leg = timeline.legAt(now);
+        if (leg == null) {
+            // Its legs may not be loaded yet; this runs again when they are
+            requestLegs(voyage);
+            currentLegText.setText("Under way: voyage " + voyage.getVoyageNumber());
+        } else {
+            currentLegText.setText("Under way: voyage " + voyage.getVoyageNumber() + ", leg " + leg.getLegNumber()
+                + " (" + route(leg.getDeparturePort(), leg.getArrivalPort()) + ")");
+        }
+    }
+
+    // Requests the legs of the voyages overlapping the time span on screen, widened by EXPAND_MARGIN
+    private void expandVisible() {
+        int first = layoutManager.findFirstVisibleItemPosition();
+        int last = layoutManager.findLastVisibleItemPosition();
+        if (timeline == null || first == RecyclerView.NO_POSITION) {
+            return;
+        }
+        long from = Long.MAX_VALUE;
+        long to = Long.MIN_VALUE;
+        for (int i = first; i <= last && i < rows.size(); i++) {
+            Object row = rows.get(i);
+            if (row instanceof Voyage) {
+                from = Math.min(from, VoyageTimeline.startOf((Voyage) row));
+                to = Math.max(to, VoyageTimeline.endOf((Voyage) row));
+            } else {
+                from = Math.min(from, VoyageTimeline.startOf((VoyageLeg) row));
+                to = Math.max(to, VoyageTimeline.endOf((VoyageLeg) row));
+            }
+        }
+        if (from == Long.MAX_VALUE) {
+            return;
+        }
+        to = to >= VoyageTimeline.OPEN - EXPAND_MARGIN ? VoyageTimeline.OPEN : to + EXPAND_MARGIN;
+        for (Voyage voyage : timeline.unexpandedBetween(from - EXPAND_MARGIN, to)) {
+            requestLegs(voyage);
+        }
+    }
+
+    private void requestLegs(final Voyage voyage) {
+        if (!requested.add(voyage.getId())) {
+            return;
+        }
+        final VoyageTimeline forTimeline = timeline;
+        repository.getVoyageLegs(voyage.getId(), scope.wrap(new DataCallback<List<VoyageLeg>>() {
+            @Override
+            public void onData(List<VoyageLeg> data, boolean fromDisk) {
+                if (forTimeline == timeline) {
+                    timeline.addLegs(voyage.getId(), data);
+                    insertLegRows(voyage, data);
+                    showCurrentLeg();
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                // The voyage row keeps saying its legs are loading; reselecting the vessel retries
+            }
+        }));
+    }
+
+    // Inserted under the voyage with specific notifications, so the rows on screen do not jump
+    private void insertLegRows(Voyage voyage, List<VoyageLeg> legs) {
+        int position = rows.indexOf(voyage);
+        if (position < 0) {
+            return;
+        }
+        List<VoyageLeg> sorted = new ArrayList<>(legs);
+        Collections.sort(sorted, (a, b) -> Integer.compare(a.getLegNumber(), b.getLegNumber()));
+        rows.addAll(position + 1, sorted);
+        adapter.notifyItemChanged(position);
+        adapter.notifyItemRangeInserted(position + 1, sorted.size());
+    }
+
+    private void showAttachments(final String title, long id, boolean leg) {
+        DataCallback<List<Attachment>> callback = scope.wrap(new DataCallback<List<Attachment>>() {
+            @Override
+            public void onData(final List<Attachment> data, boolean fromDisk) {
+                if (data.isEmpty()) {
+                    Toast.makeText(VoyageManagementActivity.this, R.string.no_attachments, Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                String[] names = new String[data.size()];
+                for (int i = 0; i < names.length; i++) {
+                    names[i] = data.get(i).getOriginalName();
+                }
+                new AlertDialog.Builder(VoyageManagementActivity.this)
+                    .setTitle(title)
+                    .setItems(names, (dialog, which) -> openAttachment(data.get(which)))
+                    .show();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                showError("Unable to load attachments: ", t);
+            }
+        });
+        if (leg) {
+            attachments.getLegAttachments(id, callback);
+        } else {
+            attachments.getVoyageAttachments(id, callback);
+        }
+    }
+
+    // Closing the dialog only stops the viewer from opening; the download goes on for next time
+    private void openAttachment(final Attachment attachment) {
+        final AlertDialog dialog = new AlertDialog.Builder(this)
+            .setTitle(attachment.getOriginalName())
+            .setMessage(R.string.loading)
+            .show();
+        attachments.download(attachment, (bytes, total) -> {
+            if (!isFinishing() && dialog.isShowing() && total > 0) {
+                dialog.setMessage(getString(R.string.downloading_attachment, (int) (bytes * 100 / total)));
+            }
+        }, scope.wrap(new DataCallback<File>() {
+            @Override
+            public void onData(File file, boolean fromDisk) {
+                if (dialog.isShowing()) {
+                    dialog.dismiss();
+                    viewFile(file, attachment.getMimeType());
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                dialog.dismiss();
+                showError("Unable to download attachment: ", t);
+            }
+        }));
+    }
+
+    private void viewFile(File file, String mimeType) {
+        Uri uri = FileProvider.getUriForFile(this, getPackageName() + ".attachments", file);
+        Intent intent = new Intent(Intent.ACTION_VIEW)
+            .setDataAndType(uri, mimeType != null ? mimeType : "*/*")
+            .addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
+        try {
+            startActivity(intent);
+        } catch (ActivityNotFoundException e) {
+            Toast.makeText(this, R.string.no_viewer, Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    private String span(long start, long end) {
+        String from = start == Long.MIN_VALUE ? "?" : dateFormat.format(new Date(start * 60000L));
+        String to = end == VoyageTimeline.OPEN ? "under way" : dateFormat.format(new Date(end * 60000L));
+        return from + " - " + to;
+    }
+
+    private static String route(String from, String to) {
+        return (from != null ? from : "?") + " to " + (to != null ? to : "?");
+    }
+
+    private void showError(String message, Throwable t) {
+        if (!isFinishing()) {
+            Toast.makeText(this, message + t.getMessage(), Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    private class RowAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+        @Override
+        public int getItemViewType(int position) {
+            return rows.get(position) instanceof Voyage ? TYPE_VOYAGE : TYPE_LEG;
+        }
+
+        @NonNull
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            LayoutInflater inflater = LayoutInflater.from(parent.getContext());
+            if (viewType == TYPE_VOYAGE) {
+                return new VoyageViewHolder(inflater.inflate(R.layout.item_voyage, parent, false));
+            }
+            return new LegViewHolder(inflater.inflate(R.layout.item_voyage_leg, parent, false));
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+            Object row = rows.get(position);
+            if (holder instanceof VoyageViewHolder) {
+                ((VoyageViewHolder) holder).bind((Voyage) row, position);
+            } else {
+                ((LegViewHolder) holder).bind((VoyageLeg) row);
+            }
+        }
+
+        @Override
+        public int getItemCount() {
+            return rows.size();
+        }
+    }
+
+    private class VoyageViewHolder extends RecyclerView.ViewHolder {
+        TextView numberText, statusText, routeText, datesText;
+
+        VoyageViewHolder(View itemView) {
+            super(itemView);
+            numberText = itemView.findViewById(R.id.voyageNumber);
+            statusText = itemView.findViewById(R.id.voyageStatus);
+            routeText = itemView.findViewById(R.id.voyageRoute);
+            datesText = itemView.findViewById(R.id.voyageDates);
+            itemView.setOnClickListener(v -> {
+                int position = getAdapterPosition();
+                if (position != RecyclerView.NO_POSITION) {
+                    Voyage voyage = (Voyage) rows.get(position);
+                    showAttachments("Voyage " + voyage.getVoyageNumber(), voyage.getId(), false);
+                }
+            });
+        }
+
+        void bind(Voyage voyage, int position) {
+            numberText.setText(voyage.getVoyageNumber());
+            statusText.setText(voyage.getStatus());
+            routeText.setText(route(voyage.getDeparturePort(), voyage.getArrivalPort()));
+            String dates = span(VoyageTimeline.startOf(voyage), VoyageTimeline.endOf(voyage));
+            boolean hasLegRows = position + 1 < rows.size() && rows.get(position + 1) instanceof VoyageLeg;
+            if (!timeline.isExpanded(voyage.getId())) {
+                dates += "\n" + getString(R.string.legs_loading);
+            } else if (!hasLegRows) {
+                dates += "\n" + getString(R.string.no_legs);
+            }
+            datesText.setText(dates);
+        }
+    }
+
+    private class LegViewHolder extends RecyclerView.ViewHolder {
+        TextView nameText, datesText;
+
+        LegViewHolder(View itemView) {
+            super(itemView);
+            nameText = itemView.findViewById(R.id.legName);
+            datesText = itemView.findViewById(R.id.legDates);
+            itemView.setOnClickListener(v -> {
+                int position = getAdapterPosition();
+                if (position != RecyclerView.NO_POSITION) {
+                    VoyageLeg leg = (VoyageLeg) rows.get(position);
+                    showAttachments("Leg " + leg.getLegNumber(), leg.getId(), true);
+                }
+            });
+        }
+
+        void bind(VoyageLeg leg) {
+            nameText.setText("Leg " + leg.getLegNumber() + ": " + route(leg.getDeparturePort(), leg.getArrivalPort()));
+            datesText.setText(span(VoyageTimeline.startOf(leg), VoyageTimeline.endOf(leg)));
+        }
+    }
+
+    @Override
+    public boolean onSupportNavigateUp() {
+        onBackPressed();
+        return true;
+    }
+}
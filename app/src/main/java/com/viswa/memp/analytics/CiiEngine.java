@@ -0,0 +1,225 @@
+package com.viswa.memp.analytics;
+
+import com.viswa.memp.models.ReportMetrics;
+import com.viswa.memp.models.Vessel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Attained CII and A-E rating per vessel and year, computed on the device from
+ * report distance and fuel totals so ratings and what-if projections work offline.
+ *
+ * Attained CII is grams of CO2 per capacity-mile: CO2 t * 10^6 / (capacity * nm),
+ * capacity being deadweight where known, as in the reports-service. Totals are kept
+ * per vessel and year in flat arrays and updated report by report; rating the whole
+ * fleet is a pass over those arrays plus one band lookup per vessel. Each report
+ * counts once: adding one again, e.g. an edited copy, replaces what the earlier
+ * copy added. Thread-safe.
+ */
+public class CiiEngine {
+
+    public static final char NO_RATING = '-';
+
+    // IMO DCS data starts in 2019; years outside the window are ignored
+    public static final int FIRST_YEAR = 2019;
+    public static final int YEARS = 16;
+
+    private final CiiTables tables;
+    private final Map<Integer, Integer> slotOf = new HashMap<>();
+    // Report id -> what it added, so a later copy of the report can take it back out
+    private final Map<Long, Contribution> contributions = new HashMap<>();
+    private final double[] band = new double[5];
+
+    private int[] shipIds = new int[16];
+    private int[] typeCodes = new int[16];
+    private double[] capacities = new double[16];
+    private double[] distanceNm = new double[16 * YEARS];
+    private double[] co2Tonnes = new double[16 * YEARS];
+    private int size;
+
+    public CiiEngine(CiiTables tables) {
+        this.tables = tables;
+    }
+
+    public synchronized void setVessels(List<Vessel> vessels) {
+        for (Vessel vessel : vessels) {
+            setVessel(vessel.getId(), vessel.getType(), vessel.getCiiCapacity());
+        }
+    }
+
+    public synchronized void setVessel(int shipId, String vesselTypeKey, double capacity) {
+        int slot = slotFor(shipId);
+        typeCodes[slot] = tables.typeCode(vesselTypeKey);
+        capacities[slot] = capacity;
+    }
+
+    // Replaces what an earlier copy of the same report added
+    public synchronized void addReport(ReportMetrics report) {
+        removeReport(report.getReportId());
+        Contribution added = new Contribution(report.getShipId(), report.getYear(), report.getDistanceNm(),
+            report.getCo2Tonnes());
+        contributions.put(report.getReportId(), added);
+        addActivity(added.shipId, added.year, added.distanceNm, added.co2Tonnes);
+    }
+
+    // Takes out what the report added, if anything
+    public synchronized void removeReport(long reportId) {
+        Contribution previous = contributions.remove(reportId);
+        if (previous != null) {
+            addActivity(previous.shipId, previous.year, -previous.distanceNm, -previous.co2Tonnes);
+        }
+    }
+
+    public synchronized void addActivity(int shipId, int year, double distance, double co2) {
+        if (year < FIRST_YEAR || year >= FIRST_YEAR + YEARS) {
+            return;
+        }
+        int cell = slotFor(shipId) * YEARS + (year - FIRST_YEAR);
+        distanceNm[cell] += distance;
+        co2Tonnes[cell] += co2;
+    }
+
+    public synchronized void clearActivity() {
+        contributions.clear();
+        Arrays.fill(distanceNm, 0);
+        Arrays.fill(co2Tonnes, 0);
+    }
+
+    // Attained CII for the year, NaN without distance or capacity
+    public synchronized double attained(int shipId, int year) {
+        return attainedWith(shipId, year, 0, 0);
+    }
+
+    /**
+     * Attained CII if the year also included extraCo2 tonnes over extraDistance nm,
+     * e.g. the rest of the year at the current rate, or a slower passage.
+     */
+    public synchronized double attainedWith(int shipId, int year, double extraCo2, double extraDistance) {
+        Integer slot = slotOf.get(shipId);
+        if (slot == null || year < FIRST_YEAR || year >= FIRST_YEAR + YEARS) {
+            return attainedOf(extraCo2, extraDistance, slot != null ? capacities[slot] : 0);
+        }
+        int cell = slot * YEARS + (year - FIRST_YEAR);
+        return attainedOf(co2Tonnes[cell] + extraCo2, distanceNm[cell] + extraDistance, capacities[slot]);
+    }
+
+    public synchronized char rating(int shipId, int year) {
+        return ratingFor(shipId, year, attained(shipId, year));
+    }
+
+    // Rating an attained value would get for this vessel in this year
+    public synchronized char ratingFor(int shipId, int year, double attained) {
+        Integer slot = slotOf.get(shipId);
+        if (slot == null || Double.isNaN(attained)
+                || !tables.lookup(typeCodes[slot], capacities[slot], year, band)) {
+            return NO_RATING;
+        }
+        return grade(attained, band);
+    }
+
+    // RequiredCII for the vessel and year, NaN if the tables do not cover it
+    public synchronized double required(int shipId, int year) {
+        Integer slot = slotOf.get(shipId);
+        if (slot == null || !tables.lookup(typeCodes[slot], capacities[slot], year, band)) {
+            return Double.NaN;
+        }
+        return band[0];
+    }
+
+    /**
+     * Rates every known vessel for the year in one pass. Arrays must hold at least
+     * vesselCount() entries; unrated vessels get NaN and NO_RATING. Returns the count.
+     */
+    public synchronized int rateFleet(int year, int[] outShipIds, double[] outAttained, double[] outRequired,
+                                      char[] outRatings) {
+        boolean inWindow = year >= FIRST_YEAR && year < FIRST_YEAR + YEARS;
+        for (int slot = 0; slot < size; slot++) {
+            int cell = slot * YEARS + (year - FIRST_YEAR);
+            double attained = inWindow ? attainedOf(co2Tonnes[cell], distanceNm[cell], capacities[slot]) : Double.NaN;
+            boolean banded = tables.lookup(typeCodes[slot], capacities[slot], year, band);
+            outShipIds[slot] = shipIds[slot];
+            outAttained[slot] = attained;
+            if (outRequired != null) {
+                outRequired[slot] = banded ? band[0] : Double.NaN;
+            }
+            outRatings[slot] = banded && !Double.isNaN(attained) ? grade(attained, band) : NO_RATING;
+        }
+        return size;
+    }
+
+    public synchronized List<CiiRating> rateFleet(int year) {
+        int[] ids = new int[size];
+        double[] attained = new double[size];
+        double[] required = new double[size];
+        char[] ratings = new char[size];
+        rateFleet(year, ids, attained, required, ratings);
+        List<CiiRating> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(new CiiRating(ids[i], year, attained[i], required[i], ratings[i]));
+        }
+        return result;
+    }
+
+    public synchronized int vesselCount() {
+        return size;
+    }
+
+    private static double attainedOf(double co2, double distance, double capacity) {
+        if (distance <= 0 || capacity <= 0) {
+            return Double.NaN;
+        }
+        return co2 * 1_000_000 / (capacity * distance);
+    }
+
+    private static char grade(double attained, double[] band) {
+        if (attained <= band[1]) {
+            return 'A';
+        }
+        if (attained <= band[2]) {
+            return 'B';
+        }
+        if (attained <= band[3]) {
+            return 'C';
+        }
+        if (attained <= band[4]) {
+            return 'D';
+        }
+        return 'E';
+    }
+
+    private static final class Contribution {
+        final int shipId;
+        final int year;
+        final double distanceNm;
+        final double co2Tonnes;
+
+        Contribution(int shipId, int year, double distanceNm, double co2Tonnes) {
+            this.shipId = shipId;
+            this.year = year;
+            this.distanceNm = distanceNm;
+            this.co2Tonnes = co2Tonnes;
+        }
+    }
+
+    private int slotFor(int shipId) {
+        Integer slot = slotOf.get(shipId);
+        if (slot != null) {
+            return slot;
+        }
+        if (size == shipIds.length) {
+            int capacity = size * 2;
+            shipIds = Arrays.copyOf(shipIds, capacity);
+            typeCodes = Arrays.copyOf(typeCodes, capacity);
+            capacities = Arrays.copyOf(capacities, capacity);
+            distanceNm = Arrays.copyOf(distanceNm, capacity * YEARS);
+            co2Tonnes = Arrays.copyOf(co2Tonnes, capacity * YEARS);
+        }
+        shipIds[size] = shipId;
+        typeCodes[size] = -1;
+        slotOf.put(shipId, size);
+        return size++;
+    }
+}
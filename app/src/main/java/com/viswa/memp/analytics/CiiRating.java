@@ -0,0 +1,24 @@
+package com.viswa.memp.analytics;
+
+// One vessel's CII result for a year; attained and required are NaN when unknown
+public final class CiiRating {
+    private final int shipId;
+    private final int year;
+    private final double attained;
+    private final double required;
+    private final char rating;
+
+    public CiiRating(int shipId, int year, double attained, double required, char rating) {
+        this.shipId = shipId;
+        this.year = year;
+        this.attained = attained;
+        this.required = required;
+        this.rating = rating;
+    }
+
+    public int getShipId() { return shipId; }
+    public int getYear() { return year; }
+    public double getAttained() { return attained; }
+    public double getRequired() { return required; }
+    public char getRating() { return rating; }
+}
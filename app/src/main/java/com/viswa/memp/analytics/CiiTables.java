@@ -0,0 +1,260 @@
+package com.viswa.memp.analytics;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CII_Required_Master and CII_Reduction_Factors held as sorted primitive columns.
+ * Rows are ordered by (vessel type, year, CapacityMin) so a band lookup is one
+ * binary search plus a scan over the few capacity bands of that type and year.
+ *
+ * Years past the last tabulated one are projected from it with the reduction
+ * factors: required(y) = required(base) * (1 - Z(y)) / (1 - Z(base)), and the
+ * A-D boundaries scale with it.
+ */
+public final class CiiTables {
+
+    private static final List<String> REQUIRED_COLUMNS = Arrays.asList("CalendarYear", "CapacityMin", "CapacityMax",
+        "RequiredCII", "Boundary_A", "Boundary_B", "Boundary_C", "Boundary_D");
+
+    // One CII_Required_Master row while parsing; values follow REQUIRED_COLUMNS
+    private static final class Row {
+        String type;
+        final double[] values = new double[REQUIRED_COLUMNS.size()];
+    }
+
+    private final Map<String, Integer> typeCodes;
+    private final long[] keys;
+    private final double[] capacityMin;
+    private final double[] capacityMax;
+    private final double[] required;
+    private final double[] boundaryA;
+    private final double[] boundaryB;
+    private final double[] boundaryC;
+    private final double[] boundaryD;
+    private final int[] factorYears;
+    private final double[] factors;
+
+    private CiiTables(Map<String, Integer> typeCodes, long[] keys, double[][] columns,
+                      int[] factorYears, double[] factors) {
+        this.typeCodes = typeCodes;
+        this.keys = keys;
+        this.capacityMin = columns[0];
+        this.capacityMax = columns[1];
+        this.required = columns[2];
+        this.boundaryA = columns[3];
+        this.boundaryB = columns[4];
+        this.boundaryC = columns[5];
+        this.boundaryD = columns[6];
+        this.factorYears = factorYears;
+        this.factors = factors;
+    }
+
+    /**
+     * Reads { "requiredCii": [...], "reductionFactors": [...] } whose rows carry the
+     * backend column names (VesselTypeKey, CapacityMin, ..., Boundary_D).
+     */
+    public static CiiTables read(Reader in) throws IOException {
+        List<Row> rows = new ArrayList<>();
+        List<double[]> reduction = new ArrayList<>();
+        JsonReader reader = new JsonReader(in);
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if ("requiredCii".equals(name)) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        Row row = readRequiredRow(reader);
+                        if (row.type != null) {
+                            rows.add(row);
+                        }
+                    }
+                    reader.endArray();
+                } else if ("reductionFactors".equals(name)) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        reduction.add(readFactorRow(reader));
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } finally {
+            reader.close();
+        }
+        return build(rows, reduction);
+    }
+
+    // Code for a VesselTypeKey, or -1 when the tables have no rows for it; resolve once per vessel
+    public int typeCode(String vesselTypeKey) {
+        Integer code = vesselTypeKey != null ? typeCodes.get(vesselTypeKey) : null;
+        return code != null ? code : -1;
+    }
+
+    // Z for the year as a fraction (0.09 = 9%), or NaN if not tabulated
+    public double reductionFactor(int year) {
+        int i = Arrays.binarySearch(factorYears, year);
+        return i >= 0 ? factors[i] : Double.NaN;
+    }
+
+    /**
+     * Fills out[0..4] with RequiredCII and Boundary_A..D for the type, capacity and
+     * year, projecting beyond the last tabulated year. Returns false if neither a
+     * row nor a projection is available.
+     */
+    public boolean lookup(int typeCode, double capacity, int year, double[] out) {
+        if (typeCode < 0) {
+            return false;
+        }
+        int row = findRow(typeCode, year, capacity);
+        if (row >= 0) {
+            copyRow(row, 1, out);
+            return true;
+        }
+        // Latest tabulated year before the one asked for
+        int i = lowerBound(key(typeCode, year)) - 1;
+        if (i < 0 || typeOf(keys[i]) != typeCode) {
+            return false;
+        }
+        int baseYear = yearOf(keys[i]);
+        double zBase = reductionFactor(baseYear);
+        double zYear = reductionFactor(year);
+        row = findRow(typeCode, baseYear, capacity);
+        if (row < 0 || Double.isNaN(zBase) || Double.isNaN(zYear)) {
+            return false;
+        }
+        copyRow(row, (1 - zYear) / (1 - zBase), out);
+        return true;
+    }
+
+    private int findRow(int typeCode, int year, double capacity) {
+        long key = key(typeCode, year);
+        for (int i = lowerBound(key); i < keys.length && keys[i] == key; i++) {
+            if (capacity >= capacityMin[i] && capacity <= capacityMax[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void copyRow(int row, double scale, double[] out) {
+        out[0] = required[row] * scale;
+        out[1] = boundaryA[row] * scale;
+        out[2] = boundaryB[row] * scale;
+        out[3] = boundaryC[row] * scale;
+        out[4] = boundaryD[row] * scale;
+    }
+
+    private int lowerBound(long key) {
+        int lo = 0;
+        int hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static long key(int typeCode, int year) {
+        return ((long) typeCode << 32) | (year & 0xffffffffL);
+    }
+
+    private static int typeOf(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int yearOf(long key) {
+        return (int) key;
+    }
+
+    private static Row readRequiredRow(JsonReader reader) throws IOException {
+        Row row = new Row();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            int column = REQUIRED_COLUMNS.indexOf(name);
+            if ("VesselTypeKey".equals(name) && reader.peek() == JsonToken.STRING) {
+                row.type = reader.nextString();
+            } else if (column >= 0 && reader.peek() != JsonToken.NULL) {
+                row.values[column] = reader.nextDouble();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return row;
+    }
+
+    private static double[] readFactorRow(JsonReader reader) throws IOException {
+        double[] row = new double[2];
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("CalendarYear".equals(name) && reader.peek() == JsonToken.NUMBER) {
+                row[0] = reader.nextDouble();
+            } else if ("ReductionFactor".equals(name) && reader.peek() == JsonToken.NUMBER) {
+                row[1] = reader.nextDouble();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return row;
+    }
+
+    private static CiiTables build(final List<Row> rows, List<double[]> reduction) {
+        Map<String, Integer> typeCodes = new HashMap<>();
+        final long[] rowKeys = new long[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            Integer code = typeCodes.get(row.type);
+            if (code == null) {
+                code = typeCodes.size();
+                typeCodes.put(row.type, code);
+            }
+            rowKeys[i] = key(code, (int) row.values[0]);
+        }
+        Integer[] order = new Integer[rows.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (x, y) -> {
+            int byKey = Long.compare(rowKeys[x], rowKeys[y]);
+            return byKey != 0 ? byKey : Double.compare(rows.get(x).values[1], rows.get(y).values[1]);
+        });
+
+        long[] keys = new long[order.length];
+        double[][] columns = new double[7][order.length];
+        for (int i = 0; i < order.length; i++) {
+            keys[i] = rowKeys[order[i]];
+            double[] values = rows.get(order[i]).values;
+            for (int c = 0; c < 7; c++) {
+                columns[c][i] = values[c + 1];
+            }
+        }
+
+        double[][] sortedFactors = reduction.toArray(new double[0][]);
+        Arrays.sort(sortedFactors, (x, y) -> Double.compare(x[0], y[0]));
+        int[] factorYears = new int[sortedFactors.length];
+        double[] factors = new double[sortedFactors.length];
+        for (int i = 0; i < sortedFactors.length; i++) {
+            factorYears[i] = (int) sortedFactors[i][0];
+            factors[i] = sortedFactors[i][1];
+        }
+        return new CiiTables(typeCodes, keys, columns, factorYears, factors);
+    }
+}
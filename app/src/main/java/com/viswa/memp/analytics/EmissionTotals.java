@@ -0,0 +1,24 @@
+package com.viswa.memp.analytics;
+
+// Fuel, CO2 and SOx in tonnes per group (voyage, leg or ship), in first-seen order
+public final class EmissionTotals {
+    private final long[] keys;
+    private final double[] fuelMt;
+    private final double[] co2;
+    private final double[] sox;
+    private final int size;
+
+    EmissionTotals(long[] keys, double[] fuelMt, double[] co2, double[] sox, int size) {
+        this.keys = keys;
+        this.fuelMt = fuelMt;
+        this.co2 = co2;
+        this.sox = sox;
+        this.size = size;
+    }
+
+    public int size() { return size; }
+    public long getKey(int i) { return keys[i]; }
+    public double getFuelMt(int i) { return fuelMt[i]; }
+    public double getCo2(int i) { return co2[i]; }
+    public double getSox(int i) { return sox[i]; }
+}
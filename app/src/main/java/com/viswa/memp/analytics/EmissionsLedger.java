@@ -0,0 +1,210 @@
+package com.viswa.memp.analytics;
+
+import com.viswa.memp.models.ReportMetrics;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * CO2 and SOx from reported fuel consumption, per voyage, leg or period, for one
+ * vessel or the whole fleet. Each fuel consumption row is one entry in a set of
+ * parallel primitive columns (ship, voyage, leg, day, fuel, CO2, SOx), so a
+ * fleet-year total is a single sequential scan with no per-report objects.
+ *
+ * addReport() applies a new or edited report incrementally: an earlier copy's rows
+ * are zeroed in place and the new rows appended; the columns are compacted once
+ * dead rows make up half of them. SOx uses the Fuel_Sulphur_Master default
+ * sulphur content, since the bunker delivery note figure the server prefers is not
+ * kept on the device. Thread-safe.
+ */
+public class EmissionsLedger {
+
+    public static final int GROUP_BY_SHIP = 0;
+    public static final int GROUP_BY_VOYAGE = 1;
+    public static final int GROUP_BY_LEG = 2;
+
+    public static final int ALL_SHIPS = -1;
+
+    private long[] reportIds = new long[256];
+    private int[] shipIds = new int[256];
+    private long[] voyageIds = new long[256];
+    private long[] legIds = new long[256];
+    private int[] days = new int[256];
+    private double[] fuelMt = new double[256];
+    private double[] co2 = new double[256];
+    private double[] sox = new double[256];
+    private int rowCount;
+    private int deadRows;
+
+    // Report id -> { first row, row count }
+    private final Map<Long, int[]> rowsOfReport = new HashMap<>();
+
+    public synchronized void addReport(ReportMetrics report) {
+        int[] previous = rowsOfReport.remove(report.getReportId());
+        if (previous != null) {
+            for (int row = previous[0]; row < previous[0] + previous[1]; row++) {
+                fuelMt[row] = 0;
+                co2[row] = 0;
+                sox[row] = 0;
+                shipIds[row] = Integer.MIN_VALUE;
+            }
+            deadRows += previous[1];
+        }
+        int count = report.getFuelCount();
+        ensureCapacity(rowCount + count);
+        int day = epochDay(report.getReportDateUtc());
+        int first = rowCount;
+        for (int i = 0; i < count; i++) {
+            String fuelType = report.getFuelType(i);
+            double mt = report.getConsumedMt(i);
+            reportIds[rowCount] = report.getReportId();
+            shipIds[rowCount] = report.getShipId();
+            voyageIds[rowCount] = report.getVoyageId();
+            legIds[rowCount] = report.getVoyageLegId();
+            days[rowCount] = day;
+            fuelMt[rowCount] = mt;
+            co2[rowCount] = mt * FuelFactors.co2Factor(fuelType);
+            sox[rowCount] = mt * FuelFactors.soxFactor(fuelType);
+            rowCount++;
+        }
+        rowsOfReport.put(report.getReportId(), new int[]{first, count});
+        if (deadRows * 2 > rowCount) {
+            compact();
+        }
+    }
+
+    public synchronized int rowCount() {
+        return rowCount - deadRows;
+    }
+
+    /**
+     * Sums fuel, CO2 and SOx into out[0..2] for one ship (or ALL_SHIPS) over the
+     * epoch days fromDay..toDay inclusive.
+     */
+    public synchronized void totals(int shipId, int fromDay, int toDay, double[] out) {
+        double fuel = 0;
+        double totalCo2 = 0;
+        double totalSox = 0;
+        for (int row = 0; row < rowCount; row++) {
+            int day = days[row];
+            if (day < fromDay || day > toDay || (shipId != ALL_SHIPS && shipIds[row] != shipId)) {
+                continue;
+            }
+            fuel += fuelMt[row];
+            totalCo2 += co2[row];
+            totalSox += sox[row];
+        }
+        out[0] = fuel;
+        out[1] = totalCo2;
+        out[2] = totalSox;
+    }
+
+    // Totals per ship, voyage or leg for one ship (or ALL_SHIPS) over fromDay..toDay inclusive
+    public synchronized EmissionTotals totalsBy(int groupBy, int shipId, int fromDay, int toDay) {
+        Map<Long, Integer> groups = new HashMap<>();
+        long[] keys = new long[16];
+        double[] groupFuel = new double[16];
+        double[] groupCo2 = new double[16];
+        double[] groupSox = new double[16];
+        int size = 0;
+        long lastKey = 0;
+        int lastGroup = -1;
+        for (int row = 0; row < rowCount; row++) {
+            int day = days[row];
+            int ship = shipIds[row];
+            if (day < fromDay || day > toDay || ship == Integer.MIN_VALUE
+                    || (shipId != ALL_SHIPS && ship != shipId)) {
+                continue;
+            }
+            long key = groupBy == GROUP_BY_VOYAGE ? voyageIds[row] : groupBy == GROUP_BY_LEG ? legIds[row] : ship;
+            // Rows of one voyage arrive together, so the map is only consulted when the group changes
+            if (lastGroup < 0 || key != lastKey) {
+                Integer group = groups.get(key);
+                if (group == null) {
+                    if (size == keys.length) {
+                        keys = Arrays.copyOf(keys, size * 2);
+                        groupFuel = Arrays.copyOf(groupFuel, size * 2);
+                        groupCo2 = Arrays.copyOf(groupCo2, size * 2);
+                        groupSox = Arrays.copyOf(groupSox, size * 2);
+                    }
+                    keys[size] = key;
+                    group = size++;
+                    groups.put(key, group);
+                }
+                lastKey = key;
+                lastGroup = group;
+            }
+            groupFuel[lastGroup] += fuelMt[row];
+            groupCo2[lastGroup] += co2[row];
+            groupSox[lastGroup] += sox[row];
+        }
+        return new EmissionTotals(keys, groupFuel, groupCo2, groupSox, size);
+    }
+
+    // Days since 1970-01-01 for an ISO date or date-time; Integer.MIN_VALUE if it cannot be read
+    public static int epochDay(String isoDate) {
+        if (isoDate == null || isoDate.length() < 10) {
+            return Integer.MIN_VALUE;
+        }
+        try {
+            return epochDay(Integer.parseInt(isoDate.substring(0, 4)), Integer.parseInt(isoDate.substring(5, 7)),
+                Integer.parseInt(isoDate.substring(8, 10)));
+        } catch (NumberFormatException e) {
+            return Integer.MIN_VALUE;
+        }
+    }
+
+    // Proleptic Gregorian days since 1970-01-01 (java.time needs API 26)
+    public static int epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    // Drops dead rows; a report's rows stay contiguous, so its range is rebuilt in the same pass
+    private void compact() {
+        rowsOfReport.clear();
+        int to = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (shipIds[row] == Integer.MIN_VALUE) {
+                continue;
+            }
+            long reportId = reportIds[row];
+            int[] range = rowsOfReport.get(reportId);
+            if (range == null) {
+                rowsOfReport.put(reportId, new int[]{to, 1});
+            } else {
+                range[1]++;
+            }
+            reportIds[to] = reportId;
+            shipIds[to] = shipIds[row];
+            voyageIds[to] = voyageIds[row];
+            legIds[to] = legIds[row];
+            days[to] = days[row];
+            fuelMt[to] = fuelMt[row];
+            co2[to] = co2[row];
+            sox[to] = sox[row];
+            to++;
+        }
+        rowCount = to;
+        deadRows = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= shipIds.length) {
+            return;
+        }
+        int grown = Math.max(capacity, shipIds.length * 2);
+        reportIds = Arrays.copyOf(reportIds, grown);
+        shipIds = Arrays.copyOf(shipIds, grown);
+        voyageIds = Arrays.copyOf(voyageIds, grown);
+        legIds = Arrays.copyOf(legIds, grown);
+        days = Arrays.copyOf(days, grown);
+        fuelMt = Arrays.copyOf(fuelMt, grown);
+        co2 = Arrays.copyOf(co2, grown);
+        sox = Arrays.copyOf(sox, grown);
+    }
+}
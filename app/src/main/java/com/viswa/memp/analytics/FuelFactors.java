@@ -0,0 +1,70 @@
+package com.viswa.memp.analytics;
+
+/**
+ * Per-fuel conversion factors keyed by FuelTypeKey. CO2 factors (Cf, t CO2 per t
+ * fuel) are the IMO values from MEPC.364(79); unknown fuels fall back to the
+ * diesel/gas oil factor, as the reports-service does. Default sulphur contents
+ * mirror Fuel_Sulphur_Master, which no service exposes.
+ */
+public final class FuelFactors {
+
+    public static final double DEFAULT_CO2_FACTOR = 3.206;
+    // Used by the reports-service when a fuel has no Fuel_Sulphur_Master row
+    public static final double DEFAULT_SULPHUR_PERCENT = 0.5;
+
+    private FuelFactors() {
+    }
+
+    public static double co2Factor(String fuelTypeKey) {
+        if (fuelTypeKey == null) {
+            return DEFAULT_CO2_FACTOR;
+        }
+        switch (fuelTypeKey) {
+            case "HFO":
+                return 3.114;
+            case "LFO":
+                return 3.151;
+            case "DIESEL_GAS_OIL":
+                return 3.206;
+            case "LNG":
+                return 2.750;
+            case "LPG_PROPANE":
+                return 3.000;
+            case "LPG_BUTANE":
+                return 3.030;
+            case "METHANOL":
+                return 1.375;
+            case "ETHANOL":
+                return 1.913;
+            default:
+                return DEFAULT_CO2_FACTOR;
+        }
+    }
+
+    // Fuel_Sulphur_Master.DefaultSulphurPercent
+    public static double defaultSulphurPercent(String fuelTypeKey) {
+        if (fuelTypeKey == null) {
+            return DEFAULT_SULPHUR_PERCENT;
+        }
+        switch (fuelTypeKey) {
+            case "DIESEL_GAS_OIL":
+                return 0.1;
+            case "HFO":
+            case "LFO":
+                return 3.5;
+            case "LNG":
+            case "LPG_BUTANE":
+            case "LPG_PROPANE":
+            case "METHANOL":
+            case "ETHANOL":
+                return 0;
+            default:
+                return DEFAULT_SULPHUR_PERCENT;
+        }
+    }
+
+    // Tonnes of SOx (as SO2) per tonne of fuel: sulphur mass doubled, as in the reports-service
+    public static double soxFactor(String fuelTypeKey) {
+        return defaultSulphurPercent(fuelTypeKey) / 100.0 * 2.0;
+    }
+}
@@ -0,0 +1,79 @@
+package com.viswa.memp.analytics;
+
+import com.viswa.memp.models.Vessel;
+import com.viswa.memp.models.VesselReport;
+import com.viswa.memp.models.Voyage;
+import java.util.List;
+
+/**
+ * Keeps the MEMP Overview KPIs current as ships, voyages and reports are synced,
+ * so opening the screen reads a few counters instead of scanning every record.
+ *
+ * Every update is idempotent: the same voyage or report applied twice counts once,
+ * and a record that changes state (a voyage completing, a draft report being
+ * submitted) moves between counts. Seeding from the LocalStore and applying live
+ * sync results may therefore overlap safely. Thread-safe.
+ */
+public class KpiAggregator {
+
+    public static final String REPORT_SUBMITTED = "Submitted";
+
+    private final LongHashSet vessels = new LongHashSet();
+    private final LongHashSet activeVoyages = new LongHashSet();
+    private final LongHashSet reports = new LongHashSet();
+    private final LongHashSet submittedReports = new LongHashSet();
+
+    public synchronized KpiSnapshot snapshot() {
+        return new KpiSnapshot(vessels.size(), activeVoyages.size(), reports.size(), submittedReports.size());
+    }
+
+    public synchronized void clear() {
+        vessels.clear();
+        activeVoyages.clear();
+        reports.clear();
+        submittedReports.clear();
+    }
+
+    // The ship list is always synced whole
+    public synchronized void replaceVessels(List<Vessel> list) {
+        vessels.clear();
+        for (Vessel vessel : list) {
+            vessels.add(vessel.getId());
+        }
+    }
+
+    public synchronized void putVessel(int shipId) {
+        vessels.add(shipId);
+    }
+
+    // Voyages are synced fleet-wide too; ones missing from the new list are dropped
+    public synchronized void replaceVoyages(List<Voyage> list) {
+        activeVoyages.clear();
+        for (Voyage voyage : list) {
+            putVoyage(voyage.getId(), !voyage.isCompleted());
+        }
+    }
+
+    public synchronized void putVoyage(long voyageId, boolean active) {
+        if (active) {
+            activeVoyages.add(voyageId);
+        } else {
+            activeVoyages.remove(voyageId);
+        }
+    }
+
+    public synchronized void putReports(List<VesselReport> list) {
+        for (VesselReport report : list) {
+            putReport(report.getId(), REPORT_SUBMITTED.equalsIgnoreCase(report.getStatus()));
+        }
+    }
+
+    public synchronized void putReport(long reportId, boolean submitted) {
+        reports.add(reportId);
+        if (submitted) {
+            submittedReports.add(reportId);
+        } else {
+            submittedReports.remove(reportId);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.viswa.memp.analytics;
+
+// Fleet KPIs shown on the MEMP Overview screen, as of one moment
+public final class KpiSnapshot {
+    private final int totalVessels;
+    private final int activeVoyages;
+    private final int totalReports;
+    private final int submittedReports;
+
+    KpiSnapshot(int totalVessels, int activeVoyages, int totalReports, int submittedReports) {
+        this.totalVessels = totalVessels;
+        this.activeVoyages = activeVoyages;
+        this.totalReports = totalReports;
+        this.submittedReports = submittedReports;
+    }
+
+    public int getTotalVessels() { return totalVessels; }
+    public int getActiveVoyages() { return activeVoyages; }
+    public int getTotalReports() { return totalReports; }
+    public int getSubmittedReports() { return submittedReports; }
+
+    // Share of reports that have been submitted rather than left in draft, as a percentage; NaN without reports
+    public double getComplianceRate() {
+        return totalReports == 0 ? Double.NaN : submittedReports * 100.0 / totalReports;
+    }
+}
@@ -0,0 +1,137 @@
+package com.viswa.memp.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing set of long ids. Costs about 8-16 bytes per id against roughly
+ * 50 for a HashSet<Long>, which matters once every report in the fleet is tracked.
+ * 0 is a valid id; it is kept in a flag of its own rather than in the table.
+ */
+final class LongHashSet {
+
+    private static final long EMPTY = 0;
+
+    private long[] table;
+    private int size;
+    private boolean hasZero;
+
+    LongHashSet() {
+        table = new long[16];
+    }
+
+    int size() {
+        return size + (hasZero ? 1 : 0);
+    }
+
+    boolean contains(long id) {
+        if (id == EMPTY) {
+            return hasZero;
+        }
+        int mask = table.length - 1;
+        for (int i = index(id, mask); ; i = (i + 1) & mask) {
+            long current = table[i];
+            if (current == id) {
+                return true;
+            }
+            if (current == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    // Returns true if the id was not already present
+    boolean add(long id) {
+        if (id == EMPTY) {
+            boolean added = !hasZero;
+            hasZero = true;
+            return added;
+        }
+        if ((size + 1) * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        int mask = table.length - 1;
+        for (int i = index(id, mask); ; i = (i + 1) & mask) {
+            long current = table[i];
+            if (current == id) {
+                return false;
+            }
+            if (current == EMPTY) {
+                table[i] = id;
+                size++;
+                return true;
+            }
+        }
+    }
+
+    // Returns true if the id was present
+    boolean remove(long id) {
+        if (id == EMPTY) {
+            boolean removed = hasZero;
+            hasZero = false;
+            return removed;
+        }
+        int mask = table.length - 1;
+        int i = index(id, mask);
+        while (table[i] != id) {
+            if (table[i] == EMPTY) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        // Shift later entries of the probe run back so lookups never stop at the gap
+        int gap = i;
+        for (int j = (gap + 1) & mask; table[j] != EMPTY; j = (j + 1) & mask) {
+            int home = index(table[j], mask);
+            boolean movable = gap <= j ? (home <= gap || home > j) : (home <= gap && home > j);
+            if (movable) {
+                table[gap] = table[j];
+                gap = j;
+            }
+        }
+        table[gap] = EMPTY;
+        size--;
+        return true;
+    }
+
+    long[] toArray() {
+        long[] ids = new long[size()];
+        int n = 0;
+        if (hasZero) {
+            ids[n++] = EMPTY;
+        }
+        for (long id : table) {
+            if (id != EMPTY) {
+                ids[n++] = id;
+            }
+        }
+        return ids;
+    }
+
+    void clear() {
+        Arrays.fill(table, EMPTY);
+        size = 0;
+        hasZero = false;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = table;
+        table = new long[capacity];
+        size = 0;
+        int mask = capacity - 1;
+        for (long id : old) {
+            if (id != EMPTY) {
+                int i = index(id, mask);
+                while (table[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = id;
+                size++;
+            }
+        }
+    }
+
+    private static int index(long id, int mask) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
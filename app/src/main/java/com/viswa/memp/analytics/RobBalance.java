@@ -0,0 +1,23 @@
+package com.viswa.memp.analytics;
+
+// Remaining on board of one fuel on one ship, in MT: the total and what is left of each delivery (BDN)
+public final class RobBalance {
+    private final String fuelTypeKey;
+    private final double total;
+    private final String[] bdnNumbers;
+    private final double[] bdnRob;
+
+    RobBalance(String fuelTypeKey, double total, String[] bdnNumbers, double[] bdnRob) {
+        this.fuelTypeKey = fuelTypeKey;
+        this.total = total;
+        this.bdnNumbers = bdnNumbers;
+        this.bdnRob = bdnRob;
+    }
+
+    public String getFuelTypeKey() { return fuelTypeKey; }
+    public double getTotal() { return total; }
+    // Deliveries with fuel left, by BDN number
+    public int getBdnCount() { return bdnNumbers.length; }
+    public String getBdnNumber(int i) { return bdnNumbers[i]; }
+    public double getBdnRob(int i) { return bdnRob[i]; }
+}
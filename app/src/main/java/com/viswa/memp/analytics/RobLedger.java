@@ -0,0 +1,391 @@
+package com.viswa.memp.analytics;
+
+import com.viswa.memp.api.ReportStreamParser;
+import com.viswa.memp.models.BunkerRecord;
+import com.viswa.memp.models.ReportMetrics;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Fuel remaining on board per ship, fuel type and bunker delivery note (BDN),
+ * replayed on the device from the synced bunker records and report fuel rows,
+ * so ROB views render offline and without round trips.
+ *
+ * The rules are those bunker-service and reports-service keep Bunker_ROB (per
+ * BDN) and MEMP_DailyROB (per fuel type) by:
+ * - BUNKER, LO_TOPUP and INITIAL_FILL add to the fuel type and start their BDN
+ *   at the delivered quantity;
+ * - DEBUNKER takes from both;
+ * - report consumption takes from the fuel type, and from the BDN a row names
+ *   when it consumed more than zero.
+ * A CORRECTION's sign is not kept with the bunker record, so corrections are not
+ * replayed; reconcile() against the server's balances accounts for them and for
+ * anything else the device has not seen.
+ *
+ * Movements are kept per ship in (time, kind, source) order. One that sorts
+ * after everything replayed so far is applied at once; an edited source or a
+ * late arrival marks the ship for a full replay on its next read. Thread-safe.
+ */
+public class RobLedger {
+
+    // Quantities are stored to three decimals; anything smaller is nothing left
+    public static final double EPSILON = 0.0005;
+    // The key of the fuel type total in getAdjustments()
+    public static final String TOTAL = "";
+
+    private static final int KIND_BUNKER = 0;
+    private static final int KIND_DEBUNKER = 1;
+    private static final int KIND_CONSUMPTION = 2;
+
+    private static final class Movement implements Comparable<Movement> {
+        final long minute;
+        final int kind;
+        final long sourceId;
+        final String fuel;
+        final String bdn;
+        final double quantity;
+
+        Movement(long minute, int kind, long sourceId, String fuel, String bdn, double quantity) {
+            this.minute = minute;
+            this.kind = kind;
+            this.sourceId = sourceId;
+            this.fuel = fuel;
+            this.bdn = bdn;
+            this.quantity = quantity;
+        }
+
+        @Override
+        public int compareTo(Movement other) {
+            if (minute != other.minute) {
+                return minute < other.minute ? -1 : 1;
+            }
+            if (kind != other.kind) {
+                return kind - other.kind;
+            }
+            return Long.compare(sourceId, other.sourceId);
+        }
+
+        boolean sameAs(Movement other) {
+            return minute == other.minute && kind == other.kind && quantity == other.quantity
+                && fuel.equals(other.fuel) && (bdn == null ? other.bdn == null : bdn.equals(other.bdn));
+        }
+    }
+
+    private static final class Fuel {
+        double total;
+        final Map<String, Double> bdns = new TreeMap<>();
+
+        void add(String bdn, double quantity) {
+            Double rob = bdns.get(bdn);
+            bdns.put(bdn, rob == null ? quantity : rob + quantity);
+        }
+    }
+
+    private static final class Book {
+        // "R" + report id or "B" + bunker record id -> its movements, sorted
+        final Map<String, List<Movement>> sources = new HashMap<>();
+        final Map<String, Fuel> balances = new TreeMap<>();
+        // Server balance minus replayed balance, from the last reconcile()
+        final Map<String, Fuel> adjustments = new HashMap<>();
+        Movement last;
+        boolean stale;
+    }
+
+    private final Map<Integer, Book> books = new HashMap<>();
+
+    // Applies a new or edited report; rows without a fuel type are skipped
+    public synchronized void addReport(ReportMetrics report) {
+        long minute = ReportStreamParser.epochMinute(report.getReportDateUtc());
+        Map<String, Double> consumed = new HashMap<>();
+        for (int i = 0; i < report.getFuelCount(); i++) {
+            String fuel = report.getFuelType(i);
+            if (fuel == null) {
+                continue;
+            }
+            double mt = report.getConsumedMt(i);
+            String bdn = report.getBdnNumber(i);
+            // "fuel\nbdn", or just the fuel for rows that only count towards the type
+            String key = bdn != null && mt > 0 ? fuel + '\n' + bdn : fuel;
+            Double sum = consumed.get(key);
+            consumed.put(key, sum == null ? mt : sum + mt);
+        }
+        List<Movement> movements = new ArrayList<>(consumed.size());
+        for (Map.Entry<String, Double> entry : consumed.entrySet()) {
+            String key = entry.getKey();
+            int split = key.indexOf('\n');
+            movements.add(new Movement(minute, KIND_CONSUMPTION, report.getReportId(),
+                split < 0 ? key : key.substring(0, split), split < 0 ? null : key.substring(split + 1),
+                entry.getValue()));
+        }
+        put(book(report.getShipId()), "R" + report.getReportId(), movements);
+    }
+
+    // Replaces the ship's bunker records with the current list; records no longer in it are dropped
+    public synchronized void replaceBunkerings(int shipId, List<BunkerRecord> records) {
+        Book book = book(shipId);
+        Set<String> listed = new HashSet<>();
+        for (BunkerRecord record : records) {
+            String key = "B" + record.getId();
+            listed.add(key);
+            put(book, key, movementsOf(record));
+        }
+        for (Iterator<String> it = book.sources.keySet().iterator(); it.hasNext(); ) {
+            String key = it.next();
+            if (key.startsWith("B") && !listed.contains(key)) {
+                it.remove();
+                book.stale = true;
+            }
+        }
+    }
+
+    // Fuel types with anything on board, or with a delivery that has, ordered by key
+    public synchronized List<RobBalance> balances(int shipId) {
+        Book book = books.get(shipId);
+        List<RobBalance> result = new ArrayList<>();
+        if (book == null) {
+            return result;
+        }
+        if (book.stale) {
+            replay(book);
+        }
+        Set<String> fuels = new HashSet<>(book.balances.keySet());
+        fuels.addAll(book.adjustments.keySet());
+        List<String> sorted = new ArrayList<>(fuels);
+        Collections.sort(sorted);
+        for (String fuel : sorted) {
+            Fuel replayed = book.balances.get(fuel);
+            Fuel adjustment = book.adjustments.get(fuel);
+            Map<String, Double> bdns = new TreeMap<>();
+            double total = 0;
+            for (Fuel part : new Fuel[] {replayed, adjustment}) {
+                if (part == null) {
+                    continue;
+                }
+                total += part.total;
+                for (Map.Entry<String, Double> entry : part.bdns.entrySet()) {
+                    Double rob = bdns.get(entry.getKey());
+                    bdns.put(entry.getKey(), rob == null ? entry.getValue() : rob + entry.getValue());
+                }
+            }
+            List<String> numbers = new ArrayList<>();
+            List<Double> robs = new ArrayList<>();
+            for (Map.Entry<String, Double> entry : bdns.entrySet()) {
+                if (entry.getValue() > EPSILON) {
+                    numbers.add(entry.getKey());
+                    robs.add(entry.getValue());
+                }
+            }
+            if (total <= EPSILON && numbers.isEmpty()) {
+                continue;
+            }
+            double[] bdnRob = new double[robs.size()];
+            for (int i = 0; i < bdnRob.length; i++) {
+                bdnRob[i] = robs.get(i);
+            }
+            result.add(new RobBalance(fuel, total, numbers.toArray(new String[0]), bdnRob));
+        }
+        return result;
+    }
+
+    /**
+     * Aligns one fuel of the ship with the balances the server computed: its fuel
+     * type total and the BDNs it lists with fuel left (any BDN it does not list has
+     * none). Run it once every synced report and bunker record is in the ledger.
+     * The ledger keeps the difference and adds later movements on top of it. Returns
+     * how far the ledger was off before, in MT, at the worst BDN or the total.
+     */
+    public synchronized double reconcile(int shipId, String fuel, double serverTotal, Map<String, Double> serverBdns) {
+        Book book = book(shipId);
+        if (book.stale) {
+            replay(book);
+        }
+        Fuel replayed = book.balances.get(fuel);
+        Fuel previous = book.adjustments.get(fuel);
+        Fuel adjustment = new Fuel();
+        double replayedTotal = replayed != null ? replayed.total : 0;
+        adjustment.total = serverTotal - replayedTotal;
+        double drift = Math.abs(adjustment.total - (previous != null ? previous.total : 0));
+        Set<String> bdns = new HashSet<>(serverBdns.keySet());
+        if (replayed != null) {
+            bdns.addAll(replayed.bdns.keySet());
+        }
+        if (previous != null) {
+            bdns.addAll(previous.bdns.keySet());
+        }
+        for (String bdn : bdns) {
+            Double server = serverBdns.get(bdn);
+            double shown = valueOf(replayed, bdn) + valueOf(previous, bdn);
+            // The server lists only deliveries with fuel left
+            double target = server != null ? server : 0;
+            double difference = target - valueOf(replayed, bdn);
+            if (Math.abs(difference) > EPSILON) {
+                adjustment.bdns.put(bdn, difference);
+            }
+            drift = Math.max(drift, Math.abs(target - Math.max(shown, 0)));
+        }
+        book.adjustments.put(fuel, adjustment);
+        return drift;
+    }
+
+    // Fuel types the ship has movements or adjustments for
+    public synchronized Set<String> fuelsOf(int shipId) {
+        Book book = books.get(shipId);
+        Set<String> fuels = new HashSet<>();
+        if (book != null) {
+            if (book.stale) {
+                replay(book);
+            }
+            fuels.addAll(book.balances.keySet());
+            fuels.addAll(book.adjustments.keySet());
+        }
+        return fuels;
+    }
+
+    // Fuel type -> BDN (or TOTAL) -> MT, for keeping the reconciled state across restarts
+    public synchronized Map<String, Map<String, Double>> getAdjustments(int shipId) {
+        Map<String, Map<String, Double>> copy = new HashMap<>();
+        Book book = books.get(shipId);
+        if (book != null) {
+            for (Map.Entry<String, Fuel> entry : book.adjustments.entrySet()) {
+                Map<String, Double> fuel = new HashMap<>(entry.getValue().bdns);
+                fuel.put(TOTAL, entry.getValue().total);
+                copy.put(entry.getKey(), fuel);
+            }
+        }
+        return copy;
+    }
+
+    public synchronized void setAdjustments(int shipId, Map<String, Map<String, Double>> adjustments) {
+        Book book = book(shipId);
+        book.adjustments.clear();
+        for (Map.Entry<String, Map<String, Double>> entry : adjustments.entrySet()) {
+            Fuel fuel = new Fuel();
+            for (Map.Entry<String, Double> value : entry.getValue().entrySet()) {
+                if (TOTAL.equals(value.getKey())) {
+                    fuel.total = value.getValue();
+                } else {
+                    fuel.bdns.put(value.getKey(), value.getValue());
+                }
+            }
+            book.adjustments.put(entry.getKey(), fuel);
+        }
+    }
+
+    private static List<Movement> movementsOf(BunkerRecord record) {
+        List<Movement> movements = new ArrayList<>(1);
+        String operation = record.getOperationType();
+        if (!record.isActive() || !"FUEL".equals(record.getCategory()) || record.getFuelTypeKey() == null
+                || operation == null) {
+            return movements;
+        }
+        int kind;
+        switch (operation) {
+            case "BUNKER":
+            case "LO_TOPUP":
+            case "INITIAL_FILL":
+                kind = KIND_BUNKER;
+                break;
+            case "DEBUNKER":
+                kind = KIND_DEBUNKER;
+                break;
+            default:
+                return movements; // CORRECTION: the sign is not in the record
+        }
+        movements.add(new Movement(ReportStreamParser.epochMinute(record.getDate()), kind, record.getId(),
+            record.getFuelTypeKey(), record.getBdnNumber(), record.getQuantity()));
+        return movements;
+    }
+
+    private Book book(int shipId) {
+        Book book = books.get(shipId);
+        if (book == null) {
+            book = new Book();
+            books.put(shipId, book);
+        }
+        return book;
+    }
+
+    private static void put(Book book, String key, List<Movement> movements) {
+        Collections.sort(movements);
+        List<Movement> previous = movements.isEmpty() ? book.sources.remove(key) : book.sources.put(key, movements);
+        if (previous != null) {
+            if (!sameMovements(previous, movements)) {
+                book.stale = true;
+            }
+            return;
+        }
+        if (movements.isEmpty() || book.stale) {
+            return;
+        }
+        if (book.last != null && movements.get(0).compareTo(book.last) < 0) {
+            book.stale = true;
+            return;
+        }
+        for (Movement movement : movements) {
+            apply(book.balances, movement);
+        }
+        book.last = movements.get(movements.size() - 1);
+    }
+
+    private static void replay(Book book) {
+        List<Movement> all = new ArrayList<>();
+        for (List<Movement> movements : book.sources.values()) {
+            all.addAll(movements);
+        }
+        Collections.sort(all);
+        book.balances.clear();
+        for (Movement movement : all) {
+            apply(book.balances, movement);
+        }
+        book.last = all.isEmpty() ? null : all.get(all.size() - 1);
+        book.stale = false;
+    }
+
+    private static void apply(Map<String, Fuel> balances, Movement movement) {
+        Fuel fuel = balances.get(movement.fuel);
+        if (fuel == null) {
+            fuel = new Fuel();
+            balances.put(movement.fuel, fuel);
+        }
+        switch (movement.kind) {
+            case KIND_BUNKER:
+                fuel.total += movement.quantity;
+                if (movement.bdn != null) {
+                    // A delivery is a batch of its own: its ROB starts at what was delivered
+                    fuel.bdns.put(movement.bdn, movement.quantity);
+                }
+                break;
+            default:
+                // Debunkering and consumption
+                fuel.total -= movement.quantity;
+                if (movement.bdn != null) {
+                    fuel.add(movement.bdn, -movement.quantity);
+                }
+                break;
+        }
+    }
+
+    private static boolean sameMovements(List<Movement> a, List<Movement> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (!a.get(i).sameAs(b.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double valueOf(Fuel fuel, String bdn) {
+        Double value = fuel != null ? fuel.bdns.get(bdn) : null;
+        return value != null ? value : 0;
+    }
+}
@@ -1,5 +1,8 @@
 package com.viswa.memp.api;
 
+import android.content.Context;
+import java.io.File;
+import okhttp3.Cache;
 import okhttp3.OkHttpClient;
 import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
@@ -7,23 +10,108 @@ import retrofit2.converter.gson.GsonConverterFactory;
 
 public class ApiClient {
     private static final String BASE_URL = "http://localhost:7000/api/"; // Change for production
+    private static final long CACHE_SIZE = 10 * 1024 * 1024; // 10 MB
     private static Retrofit retrofit = null;
+    private static Retrofit cacheOnlyRetrofit = null;
+    private static Retrofit streamingRetrofit = null;
+    private static OkHttpClient httpClient = null;
+    private static Cache cache = null;
+    private static final CacheStatsInterceptor cacheStats = new CacheStatsInterceptor();
+    private static final SingleFlightCallAdapterFactory singleFlight = new SingleFlightCallAdapterFactory();
+    private static final TokenAuthenticator tokenAuthenticator = new TokenAuthenticator();
+    private static HttpLoggingInterceptor loggingInterceptor = null;
 
-    public static Retrofit getClient() {
-        if (retrofit == null) {
-            HttpLoggingInterceptor interceptor = new HttpLoggingInterceptor();
-            interceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
-
-            OkHttpClient client = new OkHttpClient.Builder()
-                .addInterceptor(interceptor)
-                .build();
+    // Must be called once from Application.onCreate() so responses are cached on disk
+    public static synchronized void init(Context context) {
+        if (cache == null) {
+            cache = new Cache(new File(context.getCacheDir(), "http"), CACHE_SIZE);
+        }
+    }
 
-            retrofit = new Retrofit.Builder()
-                .baseUrl(BASE_URL)
-                .addConverterFactory(GsonConverterFactory.create())
-                .client(client)
+    public static synchronized Retrofit getClient() {
+        if (retrofit == null) {
+            // Only the main client coalesces; cache-only reads and streamed bodies cannot be shared between callers
+            retrofit = newRetrofitBuilder(getHttpClient())
+                .addCallAdapterFactory(singleFlight)
                 .build();
         }
         return retrofit;
     }
-}
\ No newline at end of file
+
+    // Serves responses from the disk cache only, for StaleWhileRevalidate
+    public static synchronized Retrofit getCacheOnlyClient() {
+        if (cacheOnlyRetrofit == null) {
+            // No coalescing: a cache read must never share a flight with a network read
+            cacheOnlyRetrofit = newRetrofitBuilder(StaleWhileRevalidate.cacheOnly(getHttpClient())).build();
+        }
+        return cacheOnlyRetrofit;
+    }
+
+    // For @Streaming calls: BODY logging would buffer the whole response before we could parse it
+    public static synchronized Retrofit getStreamingClient() {
+        if (streamingRetrofit == null) {
+            // Streamed bodies go straight into the local store, not through the disk cache
+            OkHttpClient.Builder builder = getHttpClient().newBuilder().cache(null);
+            builder.interceptors().remove(loggingInterceptor);
+            streamingRetrofit = newRetrofitBuilder(builder.build()).build();
+        }
+        return streamingRetrofit;
+    }
+
+    // The streaming client's OkHttpClient, for downloads that are not Retrofit calls
+    public static synchronized OkHttpClient getStreamingHttpClient() {
+        return (OkHttpClient) getStreamingClient().callFactory();
+    }
+
+    // An absolute URL for a path relative to the gateway, such as a static image
+    public static String resolveUrl(String path) {
+        return getClient().baseUrl().resolve(path).toString();
+    }
+
+    public static synchronized OkHttpClient getHttpClient() {
+        if (httpClient == null) {
+            loggingInterceptor = new HttpLoggingInterceptor();
+            loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
+
+            // The token is added first so the cache and the log see the request as sent
+            OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .addInterceptor(RequestDispatcher.getInstance().callTracker())
+                .addInterceptor(tokenAuthenticator)
+                .addInterceptor(cacheStats)
+                .addInterceptor(loggingInterceptor)
+                .authenticator(tokenAuthenticator);
+            if (cache != null) {
+                // The gateway sends ETag/Last-Modified but no Cache-Control, so OkHttp
+                // revalidates every cached GET with If-None-Match / If-Modified-Since.
+                builder.cache(cache);
+            }
+            httpClient = builder.build();
+        }
+        return httpClient;
+    }
+
+    public static CacheStatsInterceptor getCacheStats() {
+        return cacheStats;
+    }
+
+    // Set once the session is known; until then requests go out without a token
+    public static void setSession(TokenAuthenticator.Session session) {
+        tokenAuthenticator.setSession(session);
+        singleFlight.setSession(session);
+    }
+
+    public static TokenAuthenticator getTokenAuthenticator() {
+        return tokenAuthenticator;
+    }
+
+    public static SingleFlightCallAdapterFactory getSingleFlight() {
+        return singleFlight;
+    }
+
+    private static Retrofit.Builder newRetrofitBuilder(OkHttpClient client) {
+        return new Retrofit.Builder()
+            .baseUrl(BASE_URL)
+            .addConverterFactory(GsonConverterFactory.create())
+            .client(client);
+    }
+}
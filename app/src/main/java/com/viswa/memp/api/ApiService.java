@@ -1,17 +1,128 @@
 package com.viswa.memp.api;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.viswa.memp.models.Attachment;
+import com.viswa.memp.models.BunkerRecord;
 import com.viswa.memp.models.LoginRequest;
 import com.viswa.memp.models.LoginResponse;
+import com.viswa.memp.models.ReportPage;
+import com.viswa.memp.models.TankQuantitiesRequest;
+import com.viswa.memp.models.TeamMember;
+import com.viswa.memp.models.Vessel;
+import com.viswa.memp.models.VesselLocation;
+import com.viswa.memp.models.VesselReport;
+import com.viswa.memp.models.Voyage;
+import com.viswa.memp.models.VoyageLeg;
+import java.util.List;
+import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.http.Body;
+import retrofit2.http.GET;
 import retrofit2.http.POST;
+import retrofit2.http.Path;
+import retrofit2.http.Query;
+import retrofit2.http.Streaming;
+import retrofit2.http.Url;
 
 public interface ApiService {
 
     @POST("auth/login")
     Call<LoginResponse> login(@Body LoginRequest loginRequest);
 
-    // Add more API endpoints as needed
-    // @GET("ships/vessels")
-    // Call<List<Vessel>> getVessels();
-}
\ No newline at end of file
+    // ships-service
+    @GET("ships")
+    Call<List<Vessel>> getShips();
+
+    @GET("ships/active")
+    Call<List<Vessel>> getActiveShips();
+
+    @GET("ships/recent-locations")
+    Call<List<VesselLocation>> getRecentLocations();
+
+    @GET("ships/details/{id}")
+    Call<JsonObject> getShipDetails(@Path("id") int shipId);
+
+    // voyage-service
+    @GET("voyages")
+    Call<List<Voyage>> getAllVoyages();
+
+    @GET("voyages/ship/{shipId}")
+    Call<List<Voyage>> getVoyagesForShip(@Path("shipId") int shipId);
+
+    @GET("voyages/{id}/legs")
+    Call<List<VoyageLeg>> getVoyageLegs(@Path("id") long voyageId);
+
+    // Attachment files themselves are fetched by AttachmentRepository, resumably
+    @GET("voyages/{id}/attachments")
+    Call<List<Attachment>> getVoyageAttachments(@Path("id") long voyageId);
+
+    @GET("voyages/legs/{legId}/attachments")
+    Call<List<Attachment>> getVoyageLegAttachments(@Path("legId") long legId);
+
+    // reports-service
+    @GET("reporting/ship/{shipId}/reports")
+    Call<ReportPage> getReportsForShip(@Path("shipId") int shipId, @Query("page") int page,
+                                       @Query("limit") int limit, @Query("fromDate") String fromDate);
+
+    // Same endpoint, read incrementally through ReportStreamParser
+    @Streaming
+    @GET("reporting/ship/{shipId}/reports")
+    Call<ResponseBody> streamReportsForShip(@Path("shipId") int shipId, @Query("page") int page,
+                                            @Query("limit") int limit, @Query("fromDate") String fromDate);
+
+    @Streaming
+    @GET("reporting/reports/{reportId}")
+    Call<ResponseBody> streamFullReport(@Path("reportId") long reportId);
+
+    // The ship's report dated before this one; 404 when it is the first
+    @GET("reporting/reports/preceding/{reportId}")
+    Call<VesselReport> getPrecedingReport(@Path("reportId") long reportId);
+
+    @GET("reporting/ship/{shipId}/reports/latest")
+    Call<VesselReport> getLatestReport(@Path("shipId") int shipId);
+
+    @GET("reporting/latest-vessel-reports")
+    Call<JsonElement> getLatestVesselReports();
+
+    // Fuel types with fuel left on board: [{FuelTypeKey, FuelTypeDescription, Final_Quantity}]
+    @GET("reporting/ship/{shipId}/fuel-types-with-rob")
+    Call<JsonElement> getFuelTypesWithRob(@Path("shipId") int shipId);
+
+    // Deliveries of the fuel type with fuel left on board: [{BDN_Number, Final_Quantity}]
+    @GET("reporting/ship/{shipId}/bdn-numbers-with-rob/{fuelTypeKey}")
+    Call<JsonElement> getBdnNumbersWithRob(@Path("shipId") int shipId, @Path("fuelTypeKey") String fuelTypeKey);
+
+    // machinery-service
+    @GET("machinery/ship/{shipId}")
+    Call<JsonElement> getMachineryForShip(@Path("shipId") int shipId);
+
+    @GET("machinery/{id}/analytics")
+    Call<JsonObject> getMachineryAnalytics(@Path("id") int machineryId, @Query("fromDate") String fromDate,
+                                           @Query("toDate") String toDate);
+
+    // Report rows ordered by date, read through ReportStreamParser.readSfocSeries
+    @Streaming
+    @GET("machinery/{id}/sfoc")
+    Call<ResponseBody> streamSfoc(@Path("id") int machineryId, @Query("fromDate") String fromDate,
+                                  @Query("toDate") String toDate);
+
+    // bunker-service; rows name the fuel by description, bunkering/lookup/fuel-types has the keys
+    @GET("bunkering/vessel/{vesselId}")
+    Call<List<BunkerRecord>> getBunkersForVessel(@Path("vesselId") int vesselId);
+
+    @GET("bunkering/{bunkerRecordId}/attachments")
+    Call<List<Attachment>> getBunkerAttachments(@Path("bunkerRecordId") long bunkerRecordId);
+
+    // tank-service; rows are {VesselTankID, CurrentQuantityMT} for the tanks asked for
+    @POST("tanks/current-quantities")
+    Call<JsonElement> getCurrentTankQuantities(@Body TankQuantitiesRequest request);
+
+    // team-service; photos are static files under team/member_images/
+    @GET("team")
+    Call<List<TeamMember>> getTeamMembers();
+
+    // Reference lists such as reporting/sea-states or tanks/metadata/definitions
+    @GET
+    Call<JsonElement> getLookup(@Url String path);
+}
@@ -0,0 +1,65 @@
+package com.viswa.memp.api;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Counts how often GET responses came from the disk cache instead of the network
+ * and roughly how many body bytes that saved.
+ */
+public class CacheStatsInterceptor implements Interceptor {
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong networkCount = new AtomicLong();
+    private final AtomicLong cacheHitCount = new AtomicLong();
+    private final AtomicLong notModifiedCount = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Response response = chain.proceed(request);
+
+        // Only-if-cached reads never reach the network, so there is nothing to save
+        if (!"GET".equals(request.method()) || request.cacheControl().onlyIfCached()) {
+            return response;
+        }
+
+        requestCount.incrementAndGet();
+        Response networkResponse = response.networkResponse();
+        if (networkResponse == null) {
+            if (response.cacheResponse() != null) {
+                cacheHitCount.incrementAndGet();
+                addSavedBytes(response);
+            }
+        } else if (networkResponse.code() == 304) {
+            notModifiedCount.incrementAndGet();
+            addSavedBytes(response);
+        } else {
+            networkCount.incrementAndGet();
+        }
+        return response;
+    }
+
+    private void addSavedBytes(Response response) {
+        long length = response.body() != null ? response.body().contentLength() : -1;
+        if (length > 0) {
+            bytesSaved.addAndGet(length);
+        }
+    }
+
+    public long getRequestCount() { return requestCount.get(); }
+    public long getNetworkCount() { return networkCount.get(); }
+    public long getCacheHitCount() { return cacheHitCount.get(); }
+    public long getNotModifiedCount() { return notModifiedCount.get(); }
+    public long getBytesSaved() { return bytesSaved.get(); }
+
+    @Override
+    public String toString() {
+        return "requests=" + requestCount + " network=" + networkCount + " cacheHits=" + cacheHitCount
+            + " notModified=" + notModifiedCount + " bytesSaved=" + bytesSaved;
+    }
+}
@@ -0,0 +1,170 @@
+package com.viswa.memp.api;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.viswa.memp.analytics.EmissionsLedger;
+import com.viswa.memp.models.MachinerySeries;
+import com.viswa.memp.models.VesselReport;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pull-parses report payloads with a JsonReader so rows can be handed on while
+ * the body is still downloading. Only the current batch is ever held in memory,
+ * however many reports the response carries.
+ */
+public final class ReportStreamParser {
+
+    public interface RowListener<T> {
+        // The list is not reused after the call returns
+        void onRows(List<T> rows) throws IOException;
+    }
+
+    public interface SectionListener {
+        // Top-level scalar or object fields of the report header
+        void onField(String name, JsonElement value) throws IOException;
+
+        // One row of an array tab such as fuelConsumptions or machineryData
+        void onSectionRow(String section, JsonObject row) throws IOException;
+    }
+
+    private ReportStreamParser() {
+    }
+
+    /**
+     * Reads a /reporting/ship/:shipId/reports body ({ totalCount, reports: [...] }),
+     * emitting rows in batches of batchSize. Returns totalCount, or -1 if absent.
+     */
+    public static int readReportPage(Reader in, Gson gson, int batchSize, RowListener<VesselReport> listener)
+            throws IOException {
+        TypeAdapter<VesselReport> adapter = gson.getAdapter(VesselReport.class);
+        JsonReader reader = new JsonReader(in);
+        int totalCount = -1;
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if ("totalCount".equals(name) && reader.peek() == JsonToken.NUMBER) {
+                    totalCount = reader.nextInt();
+                } else if ("reports".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    List<VesselReport> batch = new ArrayList<>(batchSize);
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        batch.add(adapter.read(reader));
+                        if (batch.size() == batchSize) {
+                            listener.onRows(batch);
+                            batch = new ArrayList<>(batchSize);
+                        }
+                    }
+                    reader.endArray();
+                    if (!batch.isEmpty()) {
+                        listener.onRows(batch);
+                    }
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } finally {
+            reader.close();
+        }
+        return totalCount;
+    }
+
+    /**
+     * Reads a /reporting/reports/:reportId body. Array-valued fields are treated as
+     * tabs and emitted row by row; everything else is passed through as a header field.
+     */
+    public static void readFullReport(Reader in, Gson gson, SectionListener listener) throws IOException {
+        TypeAdapter<JsonElement> adapter = gson.getAdapter(JsonElement.class);
+        JsonReader reader = new JsonReader(in);
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        JsonElement row = adapter.read(reader);
+                        if (row.isJsonObject()) {
+                            listener.onSectionRow(name, row.getAsJsonObject());
+                        }
+                    }
+                    reader.endArray();
+                } else {
+                    listener.onField(name, adapter.read(reader));
+                }
+            }
+            reader.endObject();
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reads a /machinery/:id/sfoc body (an array of report rows ordered by date)
+     * straight into columns, without building an object per row. Rows whose
+     * ReportDate cannot be read are dropped; a null SFOC is kept as NaN.
+     */
+    public static MachinerySeries readSfocSeries(Reader in) throws IOException {
+        MachinerySeries series = new MachinerySeries();
+        JsonReader reader = new JsonReader(in);
+        try {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                long minute = Long.MIN_VALUE;
+                float sfoc = Float.NaN;
+                float power = Float.NaN;
+                float fuel = Float.NaN;
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    if (reader.peek() == JsonToken.NULL) {
+                        reader.skipValue();
+                    } else if ("ReportDate".equals(name)) {
+                        minute = epochMinute(reader.nextString());
+                    } else if ("SFOC".equals(name)) {
+                        sfoc = (float) reader.nextDouble();
+                    } else if ("Power".equals(name)) {
+                        power = (float) reader.nextDouble();
+                    } else if ("Fuel Consumption".equals(name)) {
+                        fuel = (float) reader.nextDouble();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+                if (minute != Long.MIN_VALUE) {
+                    series.add(minute, sfoc, power, fuel);
+                }
+            }
+            reader.endArray();
+        } finally {
+            reader.close();
+        }
+        return series;
+    }
+
+    // Minutes since the epoch of an ISO "yyyy-MM-ddTHH:mm..." timestamp, Long.MIN_VALUE if unreadable
+    public static long epochMinute(String isoDate) {
+        int day = EmissionsLedger.epochDay(isoDate);
+        if (day == Integer.MIN_VALUE) {
+            return Long.MIN_VALUE;
+        }
+        long minute = day * 1440L;
+        if (isoDate.length() >= 16) {
+            try {
+                minute += Integer.parseInt(isoDate.substring(11, 13)) * 60 + Integer.parseInt(isoDate.substring(14, 16));
+            } catch (NumberFormatException e) {
+                // Date only; midnight
+            }
+        }
+        return minute;
+    }
+}
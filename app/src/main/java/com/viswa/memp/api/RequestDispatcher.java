@@ -0,0 +1,373 @@
+package com.viswa.memp.api;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import okhttp3.Call;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * Runs the app's blocking request work by priority class.
+ *
+ * The shape follows OkHttp's own Dispatcher: tasks wait in ready queues and are
+ * promoted to a thread when a limit allows. Three things are added:
+ *
+ * - Priority. VISIBLE work (what a screen is waiting for) is always promoted
+ *   first. PREFETCH and SYNC together may hold at most MAX_RUNNING - VISIBLE_RESERVE
+ *   threads, so a screen opened during a background sync gets a thread at once.
+ * - Per-service limits. Every call goes to the one gateway host, so the limit
+ *   is kept per backend service behind it (ships, reporting, ...). A slow
+ *   service cannot take every thread. VISIBLE work counts against its own
+ *   MAX_PER_HOST per service and background work against
+ *   BACKGROUND_PER_HOST, so a sync hammering one service never holds the
+ *   slots a screen needs on it.
+ * - Cancellation by tag. cancel(tag) drops the tag's queued tasks and cancels
+ *   the OkHttp calls its running tasks have open. The calls are seen by
+ *   callTracker(), which must be installed on the client; it also meters the
+ *   response bytes each task reads, see bytesRead().
+ *
+ * Queue depth, wait time and run counts are metered per class; see getStats().
+ */
+public class RequestDispatcher {
+
+    public enum Priority { VISIBLE, PREFETCH, SYNC }
+
+    // Implemented by callbacks that carry the tag their work is cancelled with
+    public interface Tagged {
+        Object getTag();
+    }
+
+    // Service keys; anything the gateway routes on works
+    public static final String SHIPS = "ships";
+    public static final String VOYAGES = "voyages";
+    public static final String REPORTING = "reporting";
+    public static final String MACHINERY = "machinery";
+    public static final String AUTH = "auth";
+    public static final String TEAM = "team";
+    public static final String BUNKER = "bunkering";
+    public static final String TANKS = "tanks";
+    // Photo downloads, kept apart so a list of them cannot hold the slots of its own service
+    public static final String IMAGES = "images";
+    // Attachment downloads; the per-service limits are what caps how many run at once
+    public static final String ATTACHMENTS = "attachments";
+    // Work that only touches the local store
+    public static final String STORE = "store";
+
+    static final int MAX_RUNNING = 8;
+    static final int VISIBLE_RESERVE = 4;
+    static final int MAX_PER_HOST = 3;
+    static final int BACKGROUND_PER_HOST = 2;
+
+    public static final class Stats {
+        public final Priority priority;
+        public final int queued;
+        public final int running;
+        public final long started;
+        public final long cancelled;
+        public final long totalWaitMs;
+        public final long maxWaitMs;
+
+        Stats(Priority priority, int queued, int running, long started, long cancelled, long totalWaitMs,
+              long maxWaitMs) {
+            this.priority = priority;
+            this.queued = queued;
+            this.running = running;
+            this.started = started;
+            this.cancelled = cancelled;
+            this.totalWaitMs = totalWaitMs;
+            this.maxWaitMs = maxWaitMs;
+        }
+
+        public long averageWaitMs() {
+            return started == 0 ? 0 : totalWaitMs / started;
+        }
+
+        @Override
+        public String toString() {
+            return priority + ": " + queued + " queued, " + running + " running, " + started + " started, "
+                + cancelled + " cancelled, wait avg " + averageWaitMs() + " ms, max " + maxWaitMs + " ms";
+        }
+    }
+
+    private final class Task implements Runnable {
+        final Priority priority;
+        final String host;
+        final Object tag;
+        final Runnable work;
+        final long queuedAt = System.nanoTime();
+        // Guarded by RequestDispatcher.this
+        final List<Call> calls = new ArrayList<>(1);
+        boolean cancelled;
+        long bytesRead;
+
+        Task(Priority priority, String host, Object tag, Runnable work) {
+            this.priority = priority;
+            this.host = host;
+            this.tag = tag;
+            this.work = work;
+        }
+
+        @Override
+        public void run() {
+            Thread thread = Thread.currentThread();
+            thread.setPriority(priority == Priority.VISIBLE ? Thread.NORM_PRIORITY : Thread.MIN_PRIORITY);
+            CURRENT.set(this);
+            try {
+                work.run();
+            } finally {
+                CURRENT.remove();
+                finished(this);
+            }
+        }
+    }
+
+    private static final ThreadLocal<Task> CURRENT = new ThreadLocal<>();
+
+    private static RequestDispatcher instance;
+
+    private final ExecutorService threads;
+    // Guarded by this
+    private final Map<Priority, ArrayDeque<Task>> ready = new HashMap<>();
+    private final List<Task> running = new ArrayList<>();
+    // Per service: running VISIBLE tasks, running background tasks
+    private final Map<String, int[]> runningPerHost = new HashMap<>();
+    private final int[] runningPerPriority = new int[Priority.values().length];
+    private final long[] startedCount = new long[Priority.values().length];
+    private final long[] cancelledCount = new long[Priority.values().length];
+    private final long[] totalWaitMs = new long[Priority.values().length];
+    private final long[] maxWaitMs = new long[Priority.values().length];
+
+    public static synchronized RequestDispatcher getInstance() {
+        if (instance == null) {
+            instance = new RequestDispatcher();
+        }
+        return instance;
+    }
+
+    RequestDispatcher() {
+        for (Priority priority : Priority.values()) {
+            ready.put(priority, new ArrayDeque<Task>());
+        }
+        // Threads are only started on promotion, which never exceeds MAX_RUNNING
+        threads = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "RequestDispatcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    // Queues work to run on a dispatcher thread; tag may be null when nothing cancels it
+    public void execute(Priority priority, String host, Object tag, Runnable work) {
+        synchronized (this) {
+            ready.get(priority).add(new Task(priority, host, tag, work));
+        }
+        promote();
+    }
+
+    // For code written against an Executor; the work cannot be cancelled by tag
+    public Executor executor(final Priority priority, final String host) {
+        return work -> execute(priority, host, null, work);
+    }
+
+    // The tag of a callback that carries one, else null
+    public static Object tagOf(Object callback) {
+        return callback instanceof Tagged ? ((Tagged) callback).getTag() : null;
+    }
+
+    /**
+     * Drops the queued work of the tag and cancels the calls its running work has
+     * open; those see an IOException. Work that is not in a call finishes, but
+     * isCancelled() turns true for it.
+     */
+    public void cancel(Object tag) {
+        if (tag == null) {
+            return;
+        }
+        List<Call> calls = new ArrayList<>();
+        synchronized (this) {
+            for (ArrayDeque<Task> queue : ready.values()) {
+                for (Iterator<Task> it = queue.iterator(); it.hasNext(); ) {
+                    Task task = it.next();
+                    if (task.tag == tag) {
+                        it.remove();
+                        cancelledCount[task.priority.ordinal()]++;
+                    }
+                }
+            }
+            for (Task task : running) {
+                if (task.tag == tag && !task.cancelled) {
+                    task.cancelled = true;
+                    cancelledCount[task.priority.ordinal()]++;
+                    calls.addAll(task.calls);
+                }
+            }
+        }
+        for (Call call : calls) {
+            call.cancel();
+        }
+    }
+
+    // True on a dispatcher thread whose work was cancelled; long loops can stop early
+    public boolean isCancelled() {
+        Task task = CURRENT.get();
+        if (task == null) {
+            return false;
+        }
+        synchronized (this) {
+            return task.cancelled;
+        }
+    }
+
+    // Response body bytes the current task has read over all its calls, cached ones included; 0 off a dispatcher thread
+    public long bytesRead() {
+        Task task = CURRENT.get();
+        if (task == null) {
+            return 0;
+        }
+        synchronized (this) {
+            return task.bytesRead;
+        }
+    }
+
+    // Ties every OkHttp call made on a dispatcher thread to the task making it, and meters what it reads
+    public Interceptor callTracker() {
+        return chain -> {
+            final Task task = CURRENT.get();
+            if (task == null) {
+                return chain.proceed(chain.request());
+            }
+            final Call call = chain.call();
+            synchronized (this) {
+                if (task.cancelled) {
+                    throw new IOException("Canceled");
+                }
+                task.calls.add(call);
+            }
+            Response response;
+            try {
+                response = chain.proceed(chain.request());
+            } catch (IOException | RuntimeException e) {
+                untrack(task, call);
+                throw e;
+            }
+            ResponseBody body = response.body();
+            if (body == null) {
+                untrack(task, call);
+                return response;
+            }
+            // A streamed body is read after the call returns; it stays cancellable, and is metered, until closed
+            Source counted = new ForwardingSource(body.source()) {
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                    long read = super.read(sink, byteCount);
+                    if (read > 0) {
+                        synchronized (RequestDispatcher.this) {
+                            task.bytesRead += read;
+                        }
+                    }
+                    return read;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        untrack(task, call);
+                    }
+                }
+            };
+            return response.newBuilder()
+                .body(ResponseBody.create(Okio.buffer(counted), body.contentType(), body.contentLength()))
+                .build();
+        };
+    }
+
+    private synchronized void untrack(Task task, Call call) {
+        task.calls.remove(call);
+    }
+
+    public synchronized List<Stats> getStats() {
+        List<Stats> stats = new ArrayList<>(Priority.values().length);
+        for (Priority priority : Priority.values()) {
+            int i = priority.ordinal();
+            stats.add(new Stats(priority, ready.get(priority).size(), runningPerPriority[i], startedCount[i],
+                cancelledCount[i], totalWaitMs[i], maxWaitMs[i]));
+        }
+        return stats;
+    }
+
+    private void finished(Task task) {
+        synchronized (this) {
+            running.remove(task);
+            runningPerPriority[task.priority.ordinal()]--;
+            runningPerHost.get(task.host)[task.priority == Priority.VISIBLE ? 0 : 1]--;
+        }
+        promote();
+    }
+
+    // Moves every task the limits allow from the ready queues to threads, highest class first
+    private void promote() {
+        List<Task> promoted = new ArrayList<>();
+        synchronized (this) {
+            for (Priority priority : Priority.values()) {
+                ArrayDeque<Task> queue = ready.get(priority);
+                for (Iterator<Task> it = queue.iterator(); it.hasNext() && running.size() < MAX_RUNNING; ) {
+                    Task task = it.next();
+                    if (!mayStart(task)) {
+                        continue;
+                    }
+                    it.remove();
+                    start(task);
+                    promoted.add(task);
+                }
+            }
+        }
+        for (Task task : promoted) {
+            threads.execute(task);
+        }
+    }
+
+    // Caller holds the lock
+    private boolean mayStart(Task task) {
+        int[] host = runningPerHost.get(task.host);
+        if (task.priority == Priority.VISIBLE) {
+            return host == null || host[0] < MAX_PER_HOST;
+        }
+        int background = runningPerPriority[Priority.PREFETCH.ordinal()] + runningPerPriority[Priority.SYNC.ordinal()];
+        return background < MAX_RUNNING - VISIBLE_RESERVE && (host == null || host[1] < BACKGROUND_PER_HOST);
+    }
+
+    // Caller holds the lock
+    private void start(Task task) {
+        running.add(task);
+        int i = task.priority.ordinal();
+        runningPerPriority[i]++;
+        int[] host = runningPerHost.get(task.host);
+        if (host == null) {
+            host = new int[2];
+            runningPerHost.put(task.host, host);
+        }
+        host[task.priority == Priority.VISIBLE ? 0 : 1]++;
+        long waitMs = (System.nanoTime() - task.queuedAt) / 1000000L;
+        startedCount[i]++;
+        totalWaitMs[i] += waitMs;
+        maxWaitMs[i] = Math.max(maxWaitMs[i], waitMs);
+    }
+}
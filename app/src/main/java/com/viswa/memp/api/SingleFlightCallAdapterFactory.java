@@ -0,0 +1,293 @@
+package com.viswa.memp.api;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.http.GET;
+
+/**
+ * Coalesces identical GETs that are in flight at the same time: the first caller
+ * makes the request and everyone who asks for the same URL before it completes
+ * gets the same Response, parsed once. Bodies are therefore shared and must be
+ * treated as read-only.
+ *
+ * Callbacks run on Retrofit's callback executor (the main thread on Android),
+ * so this factory replaces the default adapter for the methods it handles.
+ *
+ * The bearer token is added by an OkHttp interceptor after the call is adapted,
+ * so requests are told apart by the session's token instead of their headers:
+ * a request made after a sign-in never joins one made with the previous token.
+ */
+public class SingleFlightCallAdapterFactory extends CallAdapter.Factory {
+
+    private final Map<String, Flight<?>> flights = new HashMap<>();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private volatile TokenAuthenticator.Session session;
+
+    // Set once the session is known, as for the TokenAuthenticator
+    public void setSession(TokenAuthenticator.Session session) {
+        this.session = session;
+    }
+
+    @Override
+    public CallAdapter<?, ?> get(Type returnType, Annotation[] annotations, Retrofit retrofit) {
+        if (getRawType(returnType) != Call.class || !(returnType instanceof ParameterizedType)) {
+            return null;
+        }
+        boolean isGet = false;
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof GET) {
+                isGet = true;
+            }
+        }
+        final Type responseType = getParameterUpperBound(0, (ParameterizedType) returnType);
+        // Raw bodies can only be read once, so they are never shared
+        if (!isGet || getRawType(responseType) == ResponseBody.class) {
+            return null;
+        }
+        final Executor callbackExecutor = retrofit.callbackExecutor();
+        return new CallAdapter<Object, Call<?>>() {
+            @Override
+            public Type responseType() {
+                return responseType;
+            }
+
+            @Override
+            public Call<?> adapt(Call<Object> call) {
+                return new SingleFlightCall<>(call, callbackExecutor);
+            }
+        };
+    }
+
+    // Calls made, counting coalesced ones
+    public long getRequestCount() { return requestCount.get(); }
+
+    // Calls that piggybacked on a request already in flight
+    public long getCoalescedCount() { return coalescedCount.get(); }
+
+    public synchronized int getInFlightCount() { return flights.size(); }
+
+    @Override
+    public String toString() {
+        return "requests=" + requestCount + " coalesced=" + coalescedCount;
+    }
+
+    // Only a header set on the call itself is seen here; otherwise the token the interceptor will add
+    private String keyOf(Request request) {
+        String auth = request.header("Authorization");
+        TokenAuthenticator.Session current = session;
+        if (auth == null && current != null) {
+            auth = current.getToken();
+        }
+        return request.method() + ' ' + request.url() + (auth != null ? ' ' + auth : "");
+    }
+
+    private final class Flight<T> implements Callback<T> {
+        private final String key;
+        private final Call<T> call;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private final List<SingleFlightCall<T>> participants = new ArrayList<>();
+        private Response<T> response;
+        private Throwable failure;
+
+        Flight(String key, Call<T> call) {
+            this.key = key;
+            this.call = call;
+        }
+
+        @Override
+        public void onResponse(Call<T> call, Response<T> response) {
+            complete(response, null);
+        }
+
+        @Override
+        public void onFailure(Call<T> call, Throwable t) {
+            complete(null, t);
+        }
+
+        void complete(Response<T> response, Throwable failure) {
+            List<SingleFlightCall<T>> waiting;
+            synchronized (SingleFlightCallAdapterFactory.this) {
+                if (flights.get(key) == this) {
+                    flights.remove(key);
+                }
+                this.response = response;
+                this.failure = failure;
+                waiting = new ArrayList<>(participants);
+            }
+            done.countDown();
+            for (SingleFlightCall<T> participant : waiting) {
+                participant.deliver(response, failure);
+            }
+        }
+
+        // Cancels the shared request once every participant has given up on it
+        void onParticipantCanceled() {
+            boolean cancel;
+            synchronized (SingleFlightCallAdapterFactory.this) {
+                cancel = done.getCount() > 0;
+                for (SingleFlightCall<T> participant : participants) {
+                    cancel &= participant.canceled;
+                }
+                if (cancel && flights.get(key) == this) {
+                    flights.remove(key);
+                }
+            }
+            if (cancel) {
+                call.cancel();
+            }
+        }
+    }
+
+    private final class SingleFlightCall<T> implements Call<T> {
+        private final Call<T> delegate;
+        private final Executor callbackExecutor;
+        private volatile boolean executed;
+        private volatile boolean canceled;
+        private Flight<T> flight;
+        private Callback<T> callback;
+
+        SingleFlightCall(Call<T> delegate, Executor callbackExecutor) {
+            this.delegate = delegate;
+            this.callbackExecutor = callbackExecutor;
+        }
+
+        // Joins the flight for this request, starting one if needed; returns true for the leader
+        @SuppressWarnings("unchecked")
+        private boolean join() {
+            synchronized (SingleFlightCallAdapterFactory.this) {
+                if (executed) {
+                    throw new IllegalStateException("Already executed.");
+                }
+                executed = true;
+                requestCount.incrementAndGet();
+                String key = keyOf(delegate.request());
+                Flight<T> existing = (Flight<T>) flights.get(key);
+                if (existing != null) {
+                    coalescedCount.incrementAndGet();
+                    flight = existing;
+                    flight.participants.add(this);
+                    return false;
+                }
+                flight = new Flight<>(key, delegate);
+                flight.participants.add(this);
+                flights.put(key, flight);
+                return true;
+            }
+        }
+
+        @Override
+        public void enqueue(Callback<T> callback) {
+            this.callback = callback;
+            if (join()) {
+                delegate.enqueue(flight);
+            }
+        }
+
+        @Override
+        public Response<T> execute() throws IOException {
+            if (join()) {
+                try {
+                    flight.complete(delegate.execute(), null);
+                } catch (IOException | RuntimeException e) {
+                    flight.complete(null, e);
+                }
+            } else {
+                try {
+                    flight.done.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    cancel();
+                    throw new IOException("Interrupted", e);
+                }
+            }
+            if (canceled) {
+                throw new IOException("Canceled");
+            }
+            if (flight.failure instanceof IOException) {
+                throw (IOException) flight.failure;
+            }
+            if (flight.failure != null) {
+                throw new IOException(flight.failure);
+            }
+            return flight.response;
+        }
+
+        void deliver(final Response<T> response, final Throwable failure) {
+            final Callback<T> callback = this.callback;
+            if (callback == null) {
+                return; // synchronous caller, woken by the latch
+            }
+            Runnable dispatch = () -> {
+                if (canceled) {
+                    callback.onFailure(SingleFlightCall.this, new IOException("Canceled"));
+                } else if (failure != null) {
+                    callback.onFailure(SingleFlightCall.this, failure);
+                } else {
+                    callback.onResponse(SingleFlightCall.this, response);
+                }
+            };
+            if (callbackExecutor != null) {
+                callbackExecutor.execute(dispatch);
+            } else {
+                dispatch.run();
+            }
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return executed;
+        }
+
+        @Override
+        public void cancel() {
+            canceled = true;
+            Flight<T> current;
+            synchronized (SingleFlightCallAdapterFactory.this) {
+                current = flight;
+            }
+            if (current != null) {
+                current.onParticipantCanceled();
+            } else {
+                delegate.cancel();
+            }
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled;
+        }
+
+        @Override
+        public Call<T> clone() {
+            return new SingleFlightCall<>(delegate.clone(), callbackExecutor);
+        }
+
+        @Override
+        public Request request() {
+            return delegate.request();
+        }
+
+        @Override
+        public Timeout timeout() {
+            return delegate.timeout();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.viswa.memp.api;
+
+import java.io.IOException;
+import okhttp3.CacheControl;
+import okhttp3.OkHttpClient;
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Hands over the cached copy of a GET at once, however stale, then revalidates
+ * it against the server. The network result is handed over as well unless the
+ * server answered 304, which means the caller already has it.
+ *
+ * load() blocks, so it runs on a dispatcher thread like every other request.
+ * The two services must share one disk cache; see cacheOnly().
+ */
+public final class StaleWhileRevalidate {
+
+    public interface CallFactory<T> {
+        Call<T> create(ApiService service);
+    }
+
+    public interface Listener<T> {
+        void onData(T body, boolean fromCache);
+    }
+
+    private StaleWhileRevalidate() {
+    }
+
+    /**
+     * A client that serves responses from the given client's disk cache only,
+     * however stale; a miss comes back as 504. The cache control is set ahead of
+     * every other interceptor, so CacheStatsInterceptor does not count the read.
+     */
+    public static OkHttpClient cacheOnly(OkHttpClient client) {
+        OkHttpClient.Builder builder = client.newBuilder();
+        builder.interceptors().add(0, chain -> chain.proceed(chain.request().newBuilder()
+            .cacheControl(CacheControl.FORCE_CACHE)
+            .build()));
+        return builder.build();
+    }
+
+    // Throws only when there was nothing to show: no cached copy and no answer from the server
+    public static <T> void load(ApiService cacheOnly, ApiService network, CallFactory<T> factory,
+                                Listener<T> listener) throws IOException {
+        boolean cachedDelivered = false;
+        try {
+            Response<T> cached = factory.create(cacheOnly).execute();
+            // 504 means nothing is cached yet; the network answer is all there is
+            if (cached.isSuccessful() && cached.body() != null) {
+                listener.onData(cached.body(), true);
+                cachedDelivered = true;
+            }
+        } catch (IOException e) {
+            // A corrupt cache entry is not worth surfacing
+        }
+
+        Response<T> response;
+        try {
+            response = factory.create(network).execute();
+        } catch (IOException e) {
+            // Offline: the cached copy, if any, stays on screen
+            if (cachedDelivered) {
+                return;
+            }
+            throw e;
+        }
+        if (!response.isSuccessful() || response.body() == null) {
+            if (cachedDelivered) {
+                return;
+            }
+            throw new IOException("HTTP " + response.code());
+        }
+        okhttp3.Response networkResponse = response.raw().networkResponse();
+        if (cachedDelivered && networkResponse != null && networkResponse.code() == 304) {
+            return;
+        }
+        listener.onData(response.body(), false);
+    }
+}
@@ -0,0 +1,126 @@
+package com.viswa.memp.api;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.Authenticator;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.Route;
+
+/**
+ * Adds the session's bearer token to every request and renews it on a 401.
+ *
+ * Renewal is single-flight: the first 401 renews while holding the lock, and
+ * every other request that hits a 401 or is about to be sent queues on the same
+ * lock, then goes out (again) with the new token. A hundred parallel requests
+ * on an expired token therefore cost one renewal, not a hundred logins. A request
+ * is replayed at most once. If renewal fails, the requests queued on that token
+ * give up with their 401 and nothing retries it for RETRY_AFTER_MS.
+ *
+ * auth/ requests are passed through untouched, so the login a renewal makes
+ * cannot recurse into this class.
+ */
+public class TokenAuthenticator implements Interceptor, Authenticator {
+
+    public interface Session {
+        // The token to send, or null when nobody is signed in
+        String getToken();
+
+        // Blocks until a new token is issued; null when the user has to sign in again
+        String renewToken() throws IOException;
+    }
+
+    static final long RETRY_AFTER_MS = 30 * 1000L;
+
+    private static final String HEADER = "Authorization";
+    private static final String BEARER = "Bearer ";
+
+    // Held for the whole renewal; requests queue on it until the new token is there
+    private final Object lock = new Object();
+    private volatile Session session;
+    // Guarded by lock: the token whose renewal failed last, and when
+    private String failedToken;
+    private long failedAt;
+    private final AtomicLong renewalCount = new AtomicLong();
+
+    public void setSession(Session session) {
+        this.session = session;
+    }
+
+    public long getRenewalCount() {
+        return renewalCount.get();
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Session current = session;
+        if (current == null || request.header(HEADER) != null || isAuthRequest(request)) {
+            return chain.proceed(request);
+        }
+        String token;
+        synchronized (lock) {
+            token = current.getToken();
+        }
+        if (token == null) {
+            return chain.proceed(request);
+        }
+        return chain.proceed(withToken(request, token));
+    }
+
+    @Override
+    public Request authenticate(Route route, Response response) throws IOException {
+        Request request = response.request();
+        Session current = session;
+        // One replay only: a second 401 means the new token is not accepted either
+        if (current == null || isAuthRequest(request) || response.priorResponse() != null) {
+            return null;
+        }
+        String sent = tokenOf(request);
+        synchronized (lock) {
+            String token = current.getToken();
+            if (token != null && !token.equals(sent)) {
+                return withToken(request, token); // renewed while this request was out
+            }
+            if (token == null && sent == null) {
+                return null; // not signed in
+            }
+            if (sent != null && sent.equals(failedToken) && System.currentTimeMillis() - failedAt < RETRY_AFTER_MS) {
+                return null;
+            }
+            renewalCount.incrementAndGet();
+            String renewed;
+            try {
+                renewed = current.renewToken();
+            } catch (IOException e) {
+                renewalFailed(sent);
+                throw e;
+            }
+            if (renewed == null) {
+                renewalFailed(sent);
+                return null;
+            }
+            failedToken = null;
+            return withToken(request, renewed);
+        }
+    }
+
+    private void renewalFailed(String sent) {
+        failedToken = sent;
+        failedAt = System.currentTimeMillis();
+    }
+
+    private static Request withToken(Request request, String token) {
+        return request.newBuilder().header(HEADER, BEARER + token).build();
+    }
+
+    private static String tokenOf(Request request) {
+        String header = request.header(HEADER);
+        return header != null && header.startsWith(BEARER) ? header.substring(BEARER.length()) : null;
+    }
+
+    private static boolean isAuthRequest(Request request) {
+        return request.url().encodedPath().contains("/auth/");
+    }
+}
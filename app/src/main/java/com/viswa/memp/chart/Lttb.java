@@ -0,0 +1,118 @@
+package com.viswa.memp.chart;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling on primitive arrays. Keeps the
+ * first and last point of the range and, from each of threshold - 2 equal
+ * buckets in between, the point forming the largest triangle with the point kept
+ * before it and the average of the next bucket. Peaks and dips survive, which
+ * plain decimation or averaging would flatten. Allocation free.
+ */
+public final class Lttb {
+
+    private Lttb() {
+    }
+
+    /**
+     * Downsamples x/y[from, to) into outX/outY and returns the number of points
+     * written, at most threshold. x must be ascending. A range that already fits
+     * is copied as is.
+     */
+    public static int downsample(float[] x, float[] y, int from, int to, int threshold, float[] outX, float[] outY) {
+        int count = to - from;
+        if (count <= 0 || threshold <= 0) {
+            return 0;
+        }
+        if (threshold >= count) {
+            System.arraycopy(x, from, outX, 0, count);
+            System.arraycopy(y, from, outY, 0, count);
+            return count;
+        }
+        if (threshold < 3) {
+            // No room for a middle bucket; keep the ends
+            outX[0] = x[from];
+            outY[0] = y[from];
+            if (threshold == 1) {
+                return 1;
+            }
+            outX[1] = x[to - 1];
+            outY[1] = y[to - 1];
+            return 2;
+        }
+
+        double bucketSize = (double) (count - 2) / (threshold - 2);
+        int kept = from;
+        int written = 0;
+        outX[written] = x[from];
+        outY[written++] = y[from];
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int start = from + 1 + (int) (bucket * bucketSize);
+            int end = from + 1 + (int) ((bucket + 1) * bucketSize);
+
+            // Average of the next bucket, or the last point for the final bucket
+            int nextStart = end;
+            int nextEnd = Math.min(from + 1 + (int) ((bucket + 2) * bucketSize), to);
+            double avgX = 0;
+            double avgY = 0;
+            if (nextStart >= to - 1 || nextEnd <= nextStart) {
+                avgX = x[to - 1];
+                avgY = y[to - 1];
+            } else {
+                for (int i = nextStart; i < nextEnd; i++) {
+                    avgX += x[i];
+                    avgY += y[i];
+                }
+                avgX /= nextEnd - nextStart;
+                avgY /= nextEnd - nextStart;
+            }
+
+            double keptX = x[kept];
+            double keptY = y[kept];
+            double maxArea = -1;
+            int chosen = start;
+            for (int i = start; i < end; i++) {
+                // Twice the triangle area; only the comparison matters
+                double area = Math.abs((keptX - avgX) * (y[i] - keptY) - (keptX - x[i]) * (avgY - keptY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            outX[written] = x[chosen];
+            outY[written++] = y[chosen];
+            kept = chosen;
+        }
+        outX[written] = x[to - 1];
+        outY[written++] = y[to - 1];
+        return written;
+    }
+
+    // First index in x[0, size) whose value is >= value; size if there is none
+    public static int lowerBound(float[] x, int size, float value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (x[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // First index in x[0, size) whose value is > value; size if there is none
+    public static int upperBound(float[] x, int size, float value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (x[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,313 @@
+package com.viswa.memp.chart;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+import android.view.View;
+import java.util.Locale;
+
+/**
+ * Line chart for long time series. Whatever the zoom level, at most one point per
+ * horizontal pixel is drawn: the visible slice of the raw series is found by
+ * binary search and reduced with Lttb into buffers sized to the view's width, so
+ * a pinch, pan or double tap (reset) only re-samples the points already held.
+ * Nothing is allocated per frame.
+ */
+public class SeriesChartView extends View {
+
+    public interface LabelFormatter {
+        String format(float value);
+    }
+
+    public interface OnViewportChangeListener {
+        void onViewportChanged(float fromX, float toX);
+    }
+
+    private static final int GRID_LINES = 3;
+
+    private final Paint linePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint gridPaint = new Paint();
+    private final Paint labelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final ScaleGestureDetector scaleDetector;
+    private final GestureDetector gestureDetector;
+    private final float labelWidth;
+
+    // Finite points only, ascending x
+    private float[] rawX = new float[0];
+    private float[] rawY = new float[0];
+    private int rawSize;
+
+    private float viewFrom;
+    private float viewTo;
+
+    // Sized to the plot width in onSizeChanged
+    private float[] sampleX = new float[0];
+    private float[] sampleY = new float[0];
+    private float[] segments = new float[0];
+    private int sampleCount;
+    private float yMin;
+    private float yMax;
+    private final String[] yLabels = new String[GRID_LINES];
+    private String fromLabel = "";
+    private String toLabel = "";
+
+    private LabelFormatter xFormatter = value -> String.valueOf((int) value);
+    private LabelFormatter yFormatter = value -> String.format(Locale.US, "%.0f", value);
+    private OnViewportChangeListener viewportListener;
+
+    public SeriesChartView(Context context) {
+        this(context, null);
+    }
+
+    public SeriesChartView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        float density = getResources().getDisplayMetrics().density;
+        linePaint.setStyle(Paint.Style.STROKE);
+        linePaint.setStrokeWidth(1.5f * density);
+        linePaint.setColor(Color.parseColor("#007bff"));
+        gridPaint.setColor(Color.parseColor("#DDDDDD"));
+        gridPaint.setStrokeWidth(density);
+        labelPaint.setColor(Color.parseColor("#666666"));
+        labelPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 10,
+            getResources().getDisplayMetrics()));
+        labelWidth = 40 * density;
+
+        scaleDetector = new ScaleGestureDetector(context, new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+            @Override
+            public boolean onScaleBegin(ScaleGestureDetector detector) {
+                getParent().requestDisallowInterceptTouchEvent(true);
+                return true;
+            }
+
+            @Override
+            public boolean onScale(ScaleGestureDetector detector) {
+                float focus = xAt(detector.getFocusX());
+                float scale = detector.getCurrentSpanX() > 0 && detector.getPreviousSpanX() > 0
+                    ? detector.getPreviousSpanX() / detector.getCurrentSpanX() : 1 / detector.getScaleFactor();
+                moveViewport(focus - (focus - viewFrom) * scale, focus + (viewTo - focus) * scale);
+                return true;
+            }
+        });
+        gestureDetector = new GestureDetector(context, new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onDown(MotionEvent e) {
+                return true;
+            }
+
+            @Override
+            public boolean onScroll(MotionEvent e1, MotionEvent e2, float distanceX, float distanceY) {
+                if (Math.abs(distanceX) < Math.abs(distanceY)) {
+                    return false; // vertical drags scroll the screen
+                }
+                // From here on the gesture belongs to the chart, not an enclosing ScrollView
+                getParent().requestDisallowInterceptTouchEvent(true);
+                float shift = distanceX * (viewTo - viewFrom) / Math.max(1, plotWidth());
+                moveViewport(viewFrom + shift, viewTo + shift);
+                return true;
+            }
+
+            @Override
+            public boolean onDoubleTap(MotionEvent e) {
+                if (rawSize > 0) {
+                    moveViewport(rawX[0], rawX[rawSize - 1]);
+                }
+                return true;
+            }
+        });
+    }
+
+    public void setLineColor(int color) {
+        linePaint.setColor(color);
+        invalidate();
+    }
+
+    public void setLabelFormatters(LabelFormatter x, LabelFormatter y) {
+        xFormatter = x;
+        yFormatter = y;
+        resample();
+    }
+
+    public void setOnViewportChangeListener(OnViewportChangeListener listener) {
+        viewportListener = listener;
+    }
+
+    /**
+     * Takes the first size points of x/y, x ascending. Points with a non-finite y
+     * are dropped; the rest are copied once here so later re-sampling never has
+     * to look at them again. The viewport resets to the whole series.
+     */
+    public void setSeries(float[] x, float[] y, int size) {
+        float[] keptX = new float[size];
+        float[] keptY = new float[size];
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!Float.isNaN(y[i]) && !Float.isInfinite(y[i])) {
+                keptX[kept] = x[i];
+                keptY[kept++] = y[i];
+            }
+        }
+        rawX = keptX;
+        rawY = keptY;
+        rawSize = kept;
+        if (kept > 0) {
+            viewFrom = rawX[0];
+            viewTo = rawX[kept - 1];
+        }
+        resample();
+    }
+
+    // Shows [fromX, toX], clamped to the series; does not notify the listener
+    public void setViewport(float fromX, float toX) {
+        if (clampViewport(fromX, toX)) {
+            resample();
+        }
+    }
+
+    public float getViewportFrom() {
+        return viewFrom;
+    }
+
+    public float getViewportTo() {
+        return viewTo;
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        int points = Math.max(2, (int) plotWidth());
+        if (points != sampleX.length) {
+            sampleX = new float[points];
+            sampleY = new float[points];
+            segments = new float[(points - 1) * 4];
+        }
+        resample();
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (rawSize < 2) {
+            return false;
+        }
+        boolean handled = scaleDetector.onTouchEvent(event);
+        handled |= gestureDetector.onTouchEvent(event);
+        return handled || super.onTouchEvent(event);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        float left = getPaddingLeft() + labelWidth;
+        float top = getPaddingTop();
+        float bottom = getHeight() - getPaddingBottom() - labelPaint.getTextSize() * 1.5f;
+        float right = getWidth() - getPaddingRight();
+        for (int i = 0; i < GRID_LINES; i++) {
+            float y = bottom - (bottom - top) * i / (GRID_LINES - 1);
+            canvas.drawLine(left, y, right, y, gridPaint);
+            if (yLabels[i] != null) {
+                canvas.drawText(yLabels[i], getPaddingLeft(), y - 2, labelPaint);
+            }
+        }
+        float baseline = getHeight() - getPaddingBottom() - labelPaint.getTextSize() * 0.3f;
+        canvas.drawText(fromLabel, left, baseline, labelPaint);
+        canvas.drawText(toLabel, right - labelPaint.measureText(toLabel), baseline, labelPaint);
+        if (sampleCount < 2) {
+            return;
+        }
+
+        float xScale = (right - left) / Math.max(viewTo - viewFrom, Float.MIN_VALUE);
+        float yScale = (bottom - top) / (yMax - yMin);
+        int n = 0;
+        float prevX = left + (sampleX[0] - viewFrom) * xScale;
+        float prevY = bottom - (sampleY[0] - yMin) * yScale;
+        for (int i = 1; i < sampleCount; i++) {
+            float px = left + (sampleX[i] - viewFrom) * xScale;
+            float py = bottom - (sampleY[i] - yMin) * yScale;
+            segments[n++] = prevX;
+            segments[n++] = prevY;
+            segments[n++] = px;
+            segments[n++] = py;
+            prevX = px;
+            prevY = py;
+        }
+        canvas.save();
+        canvas.clipRect(left, top, right, bottom);
+        canvas.drawLines(segments, 0, n, linePaint);
+        canvas.restore();
+    }
+
+    private float plotWidth() {
+        return getWidth() - getPaddingLeft() - getPaddingRight() - labelWidth;
+    }
+
+    private float xAt(float pixel) {
+        float left = getPaddingLeft() + labelWidth;
+        return viewFrom + (pixel - left) * (viewTo - viewFrom) / Math.max(1, plotWidth());
+    }
+
+    private void moveViewport(float fromX, float toX) {
+        if (clampViewport(fromX, toX)) {
+            resample();
+            if (viewportListener != null) {
+                viewportListener.onViewportChanged(viewFrom, viewTo);
+            }
+        }
+    }
+
+    // Keeps the viewport inside the series and at least a few points wide; true if it moved
+    private boolean clampViewport(float fromX, float toX) {
+        if (rawSize < 2) {
+            return false;
+        }
+        float first = rawX[0];
+        float last = rawX[rawSize - 1];
+        float minSpan = Math.min(last - first, (last - first) / rawSize * 4);
+        float span = Math.min(Math.max(toX - fromX, minSpan), last - first);
+        float from = Math.max(first, Math.min(fromX, last - span));
+        float to = from + span;
+        if (from == viewFrom && to == viewTo) {
+            return false;
+        }
+        viewFrom = from;
+        viewTo = to;
+        return true;
+    }
+
+    private void resample() {
+        sampleCount = 0;
+        if (rawSize > 0 && sampleX.length >= 2) {
+            // One point either side of the viewport so the line runs to the edges
+            int from = Math.max(0, Lttb.lowerBound(rawX, rawSize, viewFrom) - 1);
+            int to = Math.min(rawSize, Lttb.upperBound(rawX, rawSize, viewTo) + 1);
+            sampleCount = Lttb.downsample(rawX, rawY, from, to, sampleX.length, sampleX, sampleY);
+        }
+        if (sampleCount > 0) {
+            float min = Float.MAX_VALUE;
+            float max = -Float.MAX_VALUE;
+            for (int i = 0; i < sampleCount; i++) {
+                min = Math.min(min, sampleY[i]);
+                max = Math.max(max, sampleY[i]);
+            }
+            float pad = max > min ? (max - min) * 0.05f : Math.max(1, Math.abs(max) * 0.05f);
+            yMin = min - pad;
+            yMax = max + pad;
+            for (int i = 0; i < GRID_LINES; i++) {
+                yLabels[i] = yFormatter.format(yMin + (yMax - yMin) * i / (GRID_LINES - 1));
+            }
+            fromLabel = xFormatter.format(viewFrom);
+            toLabel = xFormatter.format(viewTo);
+        } else {
+            for (int i = 0; i < GRID_LINES; i++) {
+                yLabels[i] = null;
+            }
+            fromLabel = "";
+            toLabel = "";
+        }
+        invalidate();
+    }
+}
@@ -0,0 +1,161 @@
+package com.viswa.memp.data;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import com.viswa.memp.analytics.CiiEngine;
+import com.viswa.memp.analytics.CiiRating;
+import com.viswa.memp.analytics.CiiTables;
+import com.viswa.memp.analytics.EmissionTotals;
+import com.viswa.memp.analytics.EmissionsLedger;
+import com.viswa.memp.api.RequestDispatcher;
+import com.viswa.memp.models.ReportMetrics;
+import com.viswa.memp.models.Vessel;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.List;
+
+/**
+ * Fleet CII ratings and CO2/SOx emissions worked out on the device. The CII tables
+ * ship with the app (assets/cii_tables.json, from CII_Required_Master and
+ * CII_Reduction_Factors) since no service exposes them; report distance and fuel
+ * come from the LocalStore and are topped up from the full reports that have not
+ * been fetched yet. Both the engine and the ledger see every report exactly once.
+ */
+public class AnalyticsRepository {
+
+    private static final String TABLES_ASSET = "cii_tables.json";
+
+    private static AnalyticsRepository instance;
+
+    private final Context context;
+    private final FleetRepository fleet;
+    private final LocalStore store;
+    private final RequestDispatcher dispatcher = RequestDispatcher.getInstance();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private CiiEngine engine;
+    private EmissionsLedger ledger;
+
+    public static synchronized AnalyticsRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new AnalyticsRepository(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private AnalyticsRepository(Context context) {
+        this.context = context;
+        this.fleet = FleetRepository.getInstance(context);
+        this.store = fleet.getStore();
+    }
+
+    /**
+     * Rates every vessel for the year: first from what is stored (fromDisk true),
+     * then again once any missing report metrics have been fetched.
+     */
+    public void getFleetRatings(final int year, final DataCallback<List<CiiRating>> callback) {
+        visible(callback, () -> {
+            final CiiEngine engine;
+            List<Vessel> vessels;
+            try {
+                engine = getEngine();
+                vessels = store.getVessels();
+                engine.setVessels(vessels);
+            } catch (IOException e) {
+                mainHandler.post(() -> callback.onError(e));
+                return;
+            }
+            deliver(callback, engine.rateFleet(year), true);
+            if (topUp(vessels, engine, getLedger())) {
+                deliver(callback, engine.rateFleet(year), false);
+            }
+        });
+    }
+
+    /**
+     * Emission totals for one ship (or EmissionsLedger.ALL_SHIPS) between two epoch
+     * days inclusive, grouped with one of the EmissionsLedger.GROUP_BY_* constants.
+     * Delivered from stored data first, then again if missing reports were fetched.
+     */
+    public void getEmissions(final int groupBy, final int shipId, final int fromDay, final int toDay,
+                             final DataCallback<EmissionTotals> callback) {
+        visible(callback, () -> {
+            final CiiEngine engine;
+            final EmissionsLedger ledger;
+            try {
+                engine = getEngine();
+                ledger = getLedger();
+            } catch (IOException e) {
+                mainHandler.post(() -> callback.onError(e));
+                return;
+            }
+            deliver(callback, ledger.totalsBy(groupBy, shipId, fromDay, toDay), true);
+            if (topUp(store.getVessels(), engine, ledger)) {
+                deliver(callback, ledger.totalsBy(groupBy, shipId, fromDay, toDay), false);
+            }
+        });
+    }
+
+    /**
+     * Fetches the metrics of the ship's reports not seen yet, keeping the engine and
+     * the ledger in step; for screens that need one ship's reports current. Returns
+     * what was added.
+     */
+    public List<ReportMetrics> syncReportMetrics(int shipId) throws IOException {
+        CiiEngine engine = getEngine();
+        EmissionsLedger ledger = getLedger();
+        List<ReportMetrics> added = fleet.syncReportMetrics(shipId);
+        for (ReportMetrics metrics : added) {
+            engine.addReport(metrics);
+            ledger.addReport(metrics);
+        }
+        return added;
+    }
+
+    // Loaded once per process together with the ledger; afterwards only new reports are added
+    public synchronized CiiEngine getEngine() throws IOException {
+        if (engine == null) {
+            InputStreamReader in = new InputStreamReader(context.getAssets().open(TABLES_ASSET), "UTF-8");
+            final CiiEngine loaded = new CiiEngine(CiiTables.read(in));
+            final EmissionsLedger loadedLedger = new EmissionsLedger();
+            store.forEachReportMetrics(metrics -> {
+                loaded.addReport(metrics);
+                loadedLedger.addReport(metrics);
+            });
+            engine = loaded;
+            ledger = loadedLedger;
+        }
+        return engine;
+    }
+
+    private synchronized EmissionsLedger getLedger() {
+        return ledger;
+    }
+
+    // Fetches the metrics of reports not seen yet or edited since; an edited one replaces its old figures
+    private boolean topUp(List<Vessel> vessels, CiiEngine engine, EmissionsLedger ledger) {
+        boolean changed = false;
+        try {
+            for (Vessel vessel : vessels) {
+                for (ReportMetrics metrics : fleet.syncReportMetrics(vessel.getId())) {
+                    engine.addReport(metrics);
+                    ledger.addReport(metrics);
+                    changed = true;
+                }
+            }
+        } catch (IOException e) {
+            // Results from the stored data have already been delivered
+        }
+        return changed;
+    }
+
+    // Cancelled with the screen when the callback came from a ScreenScope
+    private void visible(Object callback, Runnable work) {
+        dispatcher.execute(RequestDispatcher.Priority.VISIBLE, RequestDispatcher.REPORTING,
+            RequestDispatcher.tagOf(callback), work);
+    }
+
+    private <T> void deliver(final DataCallback<T> callback, final T data, final boolean fromDisk) {
+        mainHandler.post(() -> callback.onData(data, fromDisk));
+    }
+}
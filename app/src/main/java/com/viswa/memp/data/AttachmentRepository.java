@@ -0,0 +1,181 @@
+package com.viswa.memp.data;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import com.viswa.memp.api.ApiClient;
+import com.viswa.memp.api.ApiService;
+import com.viswa.memp.api.RequestDispatcher;
+import com.viswa.memp.models.Attachment;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import okhttp3.OkHttpClient;
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Voyage, leg and bunker attachments (BDN scans, PDFs): the lists, and the files.
+ *
+ * Files are downloaded into the app's files dir with ResumableDownload, so a
+ * transfer that breaks off, or is cut short when the app is stopped, continues
+ * from where it stopped the next time the attachment is opened. Downloads run
+ * as ATTACHMENTS work on the dispatcher, whose per-service limits cap how many
+ * run at once. Asking for an attachment that is already downloading joins that
+ * download. Downloads are not tagged: one goes on when the screen that asked
+ * for it is closed, so the file is there next time, and the screen's scoped
+ * callback is simply not called.
+ */
+public class AttachmentRepository {
+
+    public interface ProgressListener {
+        // Main thread; total is -1 when the server did not say
+        void onProgress(long bytes, long total);
+    }
+
+    private static final String BUNKER_FILES = "bunkering/uploads/bunker_attachments/";
+    private static final long PROGRESS_INTERVAL_MS = 100;
+
+    // The callers of a download under way
+    private static final class Waiting {
+        final List<DataCallback<File>> callbacks = new ArrayList<>(1);
+        final List<ProgressListener> listeners = new ArrayList<>(1);
+    }
+
+    private static AttachmentRepository instance;
+
+    private final ApiService api;
+    private final OkHttpClient client;
+    private final File dir;
+    private final RequestDispatcher dispatcher = RequestDispatcher.getInstance();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Main thread only, keyed by target path
+    private final Map<String, Waiting> downloading = new HashMap<>();
+
+    public static synchronized AttachmentRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new AttachmentRepository(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private AttachmentRepository(Context context) {
+        this.api = ApiClient.getClient().create(ApiService.class);
+        this.client = ApiClient.getStreamingHttpClient();
+        this.dir = new File(context.getFilesDir(), "attachments");
+    }
+
+    public void getVoyageAttachments(long voyageId, DataCallback<List<Attachment>> callback) {
+        list(api.getVoyageAttachments(voyageId), RequestDispatcher.VOYAGES, callback);
+    }
+
+    public void getLegAttachments(long legId, DataCallback<List<Attachment>> callback) {
+        list(api.getVoyageLegAttachments(legId), RequestDispatcher.VOYAGES, callback);
+    }
+
+    public void getBunkerAttachments(long bunkerRecordId, DataCallback<List<Attachment>> callback) {
+        list(api.getBunkerAttachments(bunkerRecordId), RequestDispatcher.BUNKER, callback);
+    }
+
+    // Where the attachment is kept once downloaded; it exists only then
+    public File fileOf(Attachment attachment) {
+        String name = attachment.getOriginalName();
+        if (name == null || name.isEmpty()) {
+            name = String.valueOf(attachment.getId());
+        }
+        String folder = (attachment.isBunkerAttachment() ? "bunker-" : "voyage-") + attachment.getId();
+        return new File(new File(dir, folder), name.replaceAll("[^A-Za-z0-9._-]", "_"));
+    }
+
+    /**
+     * Delivers the downloaded file, fetching what is missing of it first. An
+     * attachment on disk is delivered at once with fromDisk = true. Call on the
+     * main thread; progress may be null.
+     */
+    public void download(Attachment attachment, ProgressListener progress, final DataCallback<File> callback) {
+        final File target = fileOf(attachment);
+        if (target.exists()) {
+            callback.onData(target, true);
+            return;
+        }
+        final String key = target.getPath();
+        Waiting waiting = downloading.get(key);
+        if (waiting != null) {
+            waiting.callbacks.add(callback);
+            if (progress != null) {
+                waiting.listeners.add(progress);
+            }
+            return;
+        }
+        final Waiting started = new Waiting();
+        started.callbacks.add(callback);
+        if (progress != null) {
+            started.listeners.add(progress);
+        }
+        downloading.put(key, started);
+        final ResumableDownload download = new ResumableDownload(client, urlOf(attachment), target);
+        dispatcher.execute(RequestDispatcher.Priority.VISIBLE, RequestDispatcher.ATTACHMENTS, null, () -> {
+            final long[] lastPosted = {0};
+            try {
+                final File file = download.run((bytes, total) -> {
+                    long now = SystemClock.elapsedRealtime();
+                    if (now - lastPosted[0] >= PROGRESS_INTERVAL_MS || bytes == total) {
+                        lastPosted[0] = now;
+                        mainHandler.post(() -> {
+                            for (ProgressListener listener : started.listeners) {
+                                listener.onProgress(bytes, total);
+                            }
+                        });
+                    }
+                });
+                mainHandler.post(() -> {
+                    downloading.remove(key);
+                    for (DataCallback<File> waiter : started.callbacks) {
+                        waiter.onData(file, false);
+                    }
+                });
+            } catch (final IOException e) {
+                mainHandler.post(() -> {
+                    downloading.remove(key);
+                    for (DataCallback<File> waiter : started.callbacks) {
+                        waiter.onError(e);
+                    }
+                });
+            }
+        });
+    }
+
+    private String urlOf(Attachment attachment) {
+        if (attachment.isBunkerAttachment()) {
+            return ApiClient.resolveUrl(BUNKER_FILES + attachment.getFilename());
+        }
+        return ApiClient.resolveUrl("voyages/attachments/" + attachment.getId() + "/download");
+    }
+
+    private void list(final Call<List<Attachment>> call, String service,
+                      final DataCallback<List<Attachment>> callback) {
+        dispatcher.execute(RequestDispatcher.Priority.VISIBLE, service, RequestDispatcher.tagOf(callback), () -> {
+            try {
+                Response<List<Attachment>> response = call.execute();
+                if (!response.isSuccessful() || response.body() == null) {
+                    throw new IOException("HTTP " + response.code());
+                }
+                deliver(callback, response.body());
+            } catch (IOException e) {
+                fail(callback, e);
+            }
+        });
+    }
+
+    private <T> void deliver(final DataCallback<T> callback, final T data) {
+        mainHandler.post(() -> callback.onData(data, false));
+    }
+
+    private <T> void fail(final DataCallback<T> callback, final Throwable t) {
+        mainHandler.post(() -> callback.onError(t));
+    }
+}
@@ -0,0 +1,8 @@
+package com.viswa.memp.data;
+
+public interface DataCallback<T> {
+    // Called once with the on-disk copy (fromDisk = true) and again if the server had newer data
+    void onData(T data, boolean fromDisk);
+
+    void onError(Throwable t);
+}
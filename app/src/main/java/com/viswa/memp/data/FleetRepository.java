@@ -0,0 +1,513 @@
+package com.viswa.memp.data;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.viswa.memp.analytics.KpiAggregator;
+import com.viswa.memp.analytics.KpiSnapshot;
+import com.viswa.memp.api.ApiClient;
+import com.viswa.memp.api.ApiService;
+import com.viswa.memp.api.ReportStreamParser;
+import com.viswa.memp.api.RequestDispatcher;
+import com.viswa.memp.models.ReportMetrics;
+import com.viswa.memp.models.Vessel;
+import com.viswa.memp.models.VesselReport;
+import com.viswa.memp.models.Voyage;
+import com.viswa.memp.models.VoyageLeg;
+import com.viswa.memp.search.VesselSearchIndex;
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import okhttp3.ResponseBody;
+import retrofit2.Response;
+
+/**
+ * Offline-first access to ships, voyages and reports. Screens get the local copy
+ * straight away; the repository then pulls only what changed on the server.
+ *
+ * Ships and voyages have no modified timestamps, so they are re-fetched whole but
+ * the HTTP cache turns an unchanged list into a 304 and the store is left alone.
+ * Reports are synced as a delta: /reports/latest tells us whether anything is new
+ * and only reports dated on or after the newest local one are streamed in. Reports
+ * are edited after they are filed (a draft is submitted, a figure corrected), so
+ * at most every REPORT_RECHECK_MS the sync also re-pages the REPORT_EDIT_WINDOW_DAYS
+ * before the newest report and keeps the rows that differ from the stored ones.
+ */
+public class FleetRepository {
+
+    public interface ReportMetricsListener {
+        // Called on the syncing thread right after the metrics are stored
+        void onReportMetrics(ReportMetrics metrics);
+    }
+
+    private static final int REPORT_PAGE_SIZE = 500;
+    private static final int REPORT_BATCH_SIZE = 100;
+    private static final int REPORT_EDIT_WINDOW_DAYS = 30;
+    private static final long REPORT_RECHECK_MS = 60 * 60 * 1000L;
+    private static final List<String> METRIC_FIELDS =
+        Arrays.asList("VoyageID", "VoyageLegID", "ReportDateTimeUTC", "DistanceSinceLastReportNM");
+
+    private static FleetRepository instance;
+
+    private final LocalStore store;
+    private final ApiService api;
+    private final ApiService streamingApi;
+    private final Gson gson = new Gson();
+    private final RequestDispatcher dispatcher = RequestDispatcher.getInstance();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final KpiAggregator kpis = new KpiAggregator();
+    private boolean kpisSeeded;
+    private final VesselSearchIndex searchIndex = new VesselSearchIndex();
+    private boolean searchIndexSeeded;
+    private final List<ReportMetricsListener> metricsListeners = new CopyOnWriteArrayList<>();
+
+    public static synchronized FleetRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new FleetRepository(LocalStore.getInstance(context));
+        }
+        return instance;
+    }
+
+    private FleetRepository(LocalStore store) {
+        this.store = store;
+        this.api = ApiClient.getClient().create(ApiService.class);
+        this.streamingApi = ApiClient.getStreamingClient().create(ApiService.class);
+    }
+
+    public LocalStore getStore() {
+        return store;
+    }
+
+    // Screen-driven work against the local store; network work goes through the dispatcher by service
+    public Executor getExecutor() {
+        return dispatcher.executor(RequestDispatcher.Priority.VISIBLE, RequestDispatcher.STORE);
+    }
+
+    /**
+     * Overview KPIs. The first call per process seeds the aggregator from the
+     * store; after that every sync below keeps it current and this is a read of
+     * a few counters.
+     */
+    public void getKpis(final DataCallback<KpiSnapshot> callback) {
+        visible(RequestDispatcher.STORE, callback, () -> {
+            synchronized (kpis) {
+                // Held while seeding so a sync finishing meanwhile is applied after, not lost
+                if (!kpisSeeded) {
+                    store.loadKpis(kpis);
+                    kpisSeeded = true;
+                }
+            }
+            deliver(callback, kpis.snapshot(), true);
+        });
+    }
+
+    /**
+     * The vessel search index, seeded from the store on first use and kept in step
+     * with every ship list sync after that. Queries are cheap enough to run on the
+     * main thread per keystroke.
+     */
+    public void getSearchIndex(final DataCallback<VesselSearchIndex> callback) {
+        visible(RequestDispatcher.STORE, callback, () -> {
+            synchronized (searchIndex) {
+                if (!searchIndexSeeded) {
+                    searchIndex.replaceAll(store.getVessels());
+                    searchIndexSeeded = true;
+                }
+            }
+            deliver(callback, searchIndex, true);
+        });
+    }
+
+    public void getVessels(final DataCallback<List<Vessel>> callback) {
+        visible(RequestDispatcher.SHIPS, callback, () -> {
+            List<Vessel> local = store.getVessels();
+            if (!local.isEmpty()) {
+                deliver(callback, local, true);
+            }
+            try {
+                if (syncVessels()) {
+                    deliver(callback, store.getVessels(), false);
+                }
+            } catch (IOException e) {
+                if (local.isEmpty()) {
+                    fail(callback, e);
+                }
+            }
+        });
+    }
+
+    // Opens the database and syncs the ship list in the background; failures are left to the screens
+    public void warmUp() {
+        dispatcher.execute(RequestDispatcher.Priority.PREFETCH, RequestDispatcher.SHIPS, null, () -> {
+            try {
+                syncVessels();
+            } catch (IOException e) {
+                Log.d("FleetRepository", "Warm-up sync failed: " + e.getMessage());
+            }
+        });
+    }
+
+    // Syncs the ship list without reading it back; reports whether the store changed
+    public void refreshVessels(final DataCallback<Boolean> callback) {
+        visible(RequestDispatcher.SHIPS, callback, () -> {
+            try {
+                deliver(callback, syncVessels(), false);
+            } catch (IOException e) {
+                fail(callback, e);
+            }
+        });
+    }
+
+    public void getShipDetails(final int shipId, final DataCallback<JsonObject> callback) {
+        visible(RequestDispatcher.SHIPS, callback, () -> {
+            String local = store.getShipDetailsJson(shipId);
+            if (local != null) {
+                deliver(callback, gson.fromJson(local, JsonObject.class), true);
+            }
+            try {
+                Response<JsonObject> response = api.getShipDetails(shipId).execute();
+                if (!response.isSuccessful() || response.body() == null) {
+                    throw new IOException("HTTP " + response.code());
+                }
+                if (!isNotModified(response) || local == null) {
+                    store.putShipDetailsJson(shipId, response.body().toString());
+                    deliver(callback, response.body(), false);
+                }
+            } catch (IOException e) {
+                if (local == null) {
+                    fail(callback, e);
+                }
+            }
+        });
+    }
+
+    // Syncs the fleet's voyages without reading them back; reports whether the store changed
+    public void refreshVoyages(final DataCallback<Boolean> callback) {
+        visible(RequestDispatcher.VOYAGES, callback, () -> {
+            try {
+                deliver(callback, syncVoyages(), false);
+            } catch (IOException e) {
+                fail(callback, e);
+            }
+        });
+    }
+
+    /**
+     * Every voyage of the ship, completed ones included, for the voyage timeline.
+     * voyages/ship/{id} lists only open voyages, so this filters the fleet-wide
+     * list, leaving out deleted voyages; an unchanged list comes back from the
+     * HTTP cache as a 304. A changed one is stored as a voyage sync would store it.
+     */
+    public void getVoyageHistory(final int shipId, final DataCallback<List<Voyage>> callback) {
+        visible(RequestDispatcher.VOYAGES, callback, () -> {
+            try {
+                Response<List<Voyage>> response = api.getAllVoyages().execute();
+                storeVoyages(response);
+                List<Voyage> voyages = new ArrayList<>();
+                for (Voyage voyage : response.body()) {
+                    if (voyage.getShipId() == shipId && voyage.isActive()) {
+                        voyages.add(voyage);
+                    }
+                }
+                deliver(callback, voyages, false);
+            } catch (IOException e) {
+                fail(callback, e);
+            }
+        });
+    }
+
+    public void getVoyageLegs(final long voyageId, final DataCallback<List<VoyageLeg>> callback) {
+        visible(RequestDispatcher.VOYAGES, callback, () -> {
+            try {
+                Response<List<VoyageLeg>> response = api.getVoyageLegs(voyageId).execute();
+                if (!response.isSuccessful() || response.body() == null) {
+                    throw new IOException("HTTP " + response.code());
+                }
+                deliver(callback, response.body(), false);
+            } catch (IOException e) {
+                fail(callback, e);
+            }
+        });
+    }
+
+    /**
+     * The ship's reports: the stored ones first, newest first, then every new or
+     * edited row a batch at a time while the sync is still reading the body, each
+     * batch in server order and already stored. onComplete follows the last page.
+     */
+    public void getReports(final int shipId, final StreamCallback<VesselReport> callback) {
+        visible(RequestDispatcher.REPORTING, callback, () -> {
+            final List<VesselReport> local = store.getReports(shipId);
+            if (!local.isEmpty()) {
+                mainHandler.post(() -> callback.onRows(local));
+            }
+            try {
+                syncReports(shipId, rows -> mainHandler.post(() -> callback.onRows(rows)));
+                mainHandler.post(callback::onComplete);
+            } catch (IOException e) {
+                mainHandler.post(() -> callback.onError(e));
+            }
+        });
+    }
+
+    // The sync* methods block; they return true when the local store changed
+
+    public boolean syncVessels() throws IOException {
+        return storeVessels(api.getShips().execute());
+    }
+
+    // Applies a /ships response fetched elsewhere, e.g. by the PrefetchScheduler
+    boolean storeVessels(Response<List<Vessel>> response) throws IOException {
+        if (!response.isSuccessful() || response.body() == null) {
+            throw new IOException("HTTP " + response.code());
+        }
+        if (isNotModified(response) && !store.getVessels().isEmpty()) {
+            return false;
+        }
+        store.replaceVessels(response.body());
+        kpis.replaceVessels(response.body());
+        searchIndex.replaceAll(response.body());
+        store.putSyncState("ships", String.valueOf(System.currentTimeMillis()));
+        return true;
+    }
+
+    // voyages/ship/{id} lists only open voyages, so the fleet-wide list is what shows one completing
+    public boolean syncVoyages() throws IOException {
+        return storeVoyages(api.getAllVoyages().execute());
+    }
+
+    // Applies a /voyages response fetched elsewhere, e.g. by the PrefetchScheduler
+    boolean storeVoyages(Response<List<Voyage>> response) throws IOException {
+        if (!response.isSuccessful() || response.body() == null) {
+            throw new IOException("HTTP " + response.code());
+        }
+        if (isNotModified(response) && store.getSyncState("voyages") != null) {
+            return false;
+        }
+        // Deleted voyages are still listed, flagged inactive; they must not count as under way
+        List<Voyage> voyages = new ArrayList<>(response.body().size());
+        for (Voyage voyage : response.body()) {
+            if (voyage.isActive()) {
+                voyages.add(voyage);
+            }
+        }
+        store.replaceVoyages(voyages);
+        kpis.replaceVoyages(voyages);
+        store.putSyncState("voyages", String.valueOf(System.currentTimeMillis()));
+        return true;
+    }
+
+    public boolean syncReports(int shipId) throws IOException {
+        return syncReports(shipId, null);
+    }
+
+    // rowListener, if given, sees each batch of new or edited rows on the calling thread right after it is stored
+    public boolean syncReports(int shipId, final ReportStreamParser.RowListener<VesselReport> rowListener)
+            throws IOException {
+        VesselReport newest = store.getNewestReport(shipId);
+        String windowKey = "reports:window:" + shipId;
+        String windowSynced = store.getSyncState(windowKey);
+        boolean recheck = windowSynced == null
+            || System.currentTimeMillis() - Long.parseLong(windowSynced) > REPORT_RECHECK_MS;
+        if (newest != null && !recheck) {
+            Response<VesselReport> latest = api.getLatestReport(shipId).execute();
+            if (latest.isSuccessful() && latest.body() != null && latest.body().getId() == newest.getId()) {
+                return false;
+            }
+        }
+
+        // fromDate is inclusive, so the boundary report is fetched again; unchanged rows are skipped below
+        String fromDate = newest == null ? null
+            : recheck ? editWindowStart(newest.getReportDateUtc()) : newest.getReportDateUtc();
+        final Map<Long, String> stored = fromDate != null
+            ? store.getReportJsonSince(shipId, fromDate) : new HashMap<Long, String>();
+
+        // Rows are decoded and stored a batch at a time while the body is still arriving
+        final int[] received = {0};
+        ReportStreamParser.RowListener<VesselReport> sink = rows -> {
+            List<VesselReport> changed = new ArrayList<>(rows.size());
+            for (VesselReport row : rows) {
+                if (!gson.toJson(row).equals(stored.get(row.getId()))) {
+                    changed.add(row);
+                }
+            }
+            if (changed.isEmpty()) {
+                return;
+            }
+            store.upsertReports(changed);
+            kpis.putReports(changed);
+            received[0] += changed.size();
+            if (rowListener != null) {
+                rowListener.onRows(changed);
+            }
+        };
+
+        for (int page = 1; ; page++) {
+            Response<ResponseBody> response = streamingApi
+                .streamReportsForShip(shipId, page, REPORT_PAGE_SIZE, fromDate).execute();
+            if (!response.isSuccessful() || response.body() == null) {
+                if (response.errorBody() != null) {
+                    response.errorBody().close();
+                }
+                throw new IOException("HTTP " + response.code());
+            }
+            final int[] pageRows = {0};
+            int totalCount;
+            ResponseBody body = response.body();
+            try {
+                totalCount = ReportStreamParser.readReportPage(body.charStream(), gson, REPORT_BATCH_SIZE, rows -> {
+                    pageRows[0] += rows.size();
+                    sink.onRows(rows);
+                });
+            } finally {
+                body.close();
+            }
+            if (pageRows[0] < REPORT_PAGE_SIZE || (totalCount >= 0 && page * REPORT_PAGE_SIZE >= totalCount)) {
+                break;
+            }
+        }
+        String now = String.valueOf(System.currentTimeMillis());
+        if (recheck) {
+            store.putSyncState(windowKey, now);
+        }
+        if (received[0] == 0) {
+            return false;
+        }
+        store.putSyncState("reports:" + shipId, now);
+        return true;
+    }
+
+    // The day REPORT_EDIT_WINDOW_DAYS before the report date, as the yyyy-MM-dd fromDate takes
+    private static String editWindowStart(String reportDateUtc) {
+        if (reportDateUtc == null) {
+            return null;
+        }
+        SimpleDateFormat day = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+        day.setTimeZone(TimeZone.getTimeZone("UTC"));
+        try {
+            Date date = day.parse(reportDateUtc);
+            return day.format(new Date(date.getTime() - REPORT_EDIT_WINDOW_DAYS * 24L * 60 * 60 * 1000));
+        } catch (ParseException e) {
+            return reportDateUtc;
+        }
+    }
+
+    // Registered before reading the store, a listener misses no metrics stored afterwards
+    public void addReportMetricsListener(ReportMetricsListener listener) {
+        metricsListeners.add(listener);
+    }
+
+    /**
+     * Fetches distance and fuel for every stored report of the ship that does not
+     * have them yet, one full report at a time, and returns what was stored.
+     * A report is fetched again only after syncReports stores an edit of it.
+     */
+    public List<ReportMetrics> syncReportMetrics(int shipId) throws IOException {
+        List<ReportMetrics> stored = new ArrayList<>();
+        for (long reportId : store.getReportIdsWithoutMetrics(shipId)) {
+            Response<ResponseBody> response = streamingApi.streamFullReport(reportId).execute();
+            if (!response.isSuccessful() || response.body() == null) {
+                if (response.errorBody() != null) {
+                    response.errorBody().close();
+                }
+                if (response.code() == 404) {
+                    continue; // deleted on the server since the list was synced
+                }
+                throw new IOException("HTTP " + response.code());
+            }
+            ReportMetrics metrics;
+            ResponseBody body = response.body();
+            try {
+                metrics = readReportMetrics(reportId, shipId, body);
+            } finally {
+                body.close();
+            }
+            store.putReportMetrics(metrics);
+            for (ReportMetricsListener listener : metricsListeners) {
+                listener.onReportMetrics(metrics);
+            }
+            stored.add(metrics);
+        }
+        return stored;
+    }
+
+    // Keeps only the header fields and fuel rows the analytics need from a full report
+    private ReportMetrics readReportMetrics(long reportId, int shipId, ResponseBody body) throws IOException {
+        final JsonObject header = new JsonObject();
+        final List<String> fuelTypes = new ArrayList<>();
+        final List<Double> consumed = new ArrayList<>();
+        final List<String> bdns = new ArrayList<>();
+        ReportStreamParser.readFullReport(body.charStream(), gson, new ReportStreamParser.SectionListener() {
+            @Override
+            public void onField(String name, JsonElement value) {
+                if (METRIC_FIELDS.contains(name) && value.isJsonPrimitive()) {
+                    header.add(name, value);
+                }
+            }
+
+            @Override
+            public void onSectionRow(String section, JsonObject row) {
+                if ("fuelConsumptions".equals(section)) {
+                    JsonElement fuelType = row.get("FuelTypeKey");
+                    fuelTypes.add(fuelType != null && !fuelType.isJsonNull() ? fuelType.getAsString() : null);
+                    consumed.add(numberOf(row, "ConsumedMT"));
+                    JsonElement bdn = row.get("BDN_Number");
+                    bdns.add(bdn != null && !bdn.isJsonNull() ? bdn.getAsString() : null);
+                }
+            }
+        });
+        double[] consumedMt = new double[consumed.size()];
+        for (int i = 0; i < consumedMt.length; i++) {
+            consumedMt[i] = consumed.get(i);
+        }
+        JsonElement date = header.get("ReportDateTimeUTC");
+        return new ReportMetrics(reportId, shipId, (long) numberOf(header, "VoyageID"),
+            (long) numberOf(header, "VoyageLegID"), date != null ? date.getAsString() : null,
+            numberOf(header, "DistanceSinceLastReportNM"), fuelTypes.toArray(new String[0]), consumedMt,
+            bdns.toArray(new String[0]));
+    }
+
+    private static double numberOf(JsonObject object, String name) {
+        JsonElement value = object.get(name);
+        if (value == null || value.isJsonNull()) {
+            return 0;
+        }
+        try {
+            return value.getAsDouble();
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static boolean isNotModified(Response<?> response) {
+        okhttp3.Response networkResponse = response.raw().networkResponse();
+        return networkResponse != null && networkResponse.code() == 304;
+    }
+
+    // Cancelled with the screen when the callback came from a ScreenScope
+    private void visible(String service, Object callback, Runnable work) {
+        dispatcher.execute(RequestDispatcher.Priority.VISIBLE, service, RequestDispatcher.tagOf(callback), work);
+    }
+
+    private <T> void deliver(final DataCallback<T> callback, final T data, final boolean fromDisk) {
+        mainHandler.post(() -> callback.onData(data, fromDisk));
+    }
+
+    private <T> void fail(final DataCallback<T> callback, final Throwable t) {
+        mainHandler.post(() -> callback.onError(t));
+    }
+}
@@ -0,0 +1,171 @@
+package com.viswa.memp.data;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One pass of the periodic background sync over every vessel the user can see.
+ *
+ * Ships are worked off by at most MAX_CONCURRENT lanes pulling from a shared
+ * cursor, so a fleet of hundreds costs a handful of open connections rather than
+ * one per ship. A ship whose sync fails is left alone for an exponentially growing
+ * delay (BASE_BACKOFF_MS doubling up to MAX_BACKOFF_MS) and retried on a later
+ * pass; one success clears it. The backoff lives in memory only: a fresh process
+ * starts clean and WorkManager's own backoff covers passes that fail outright.
+ *
+ * Free of Android types so it can be driven with a stand-in server and a fake clock.
+ */
+public class FleetSync {
+
+    // Brings one ship's local copy up to date; true if the store changed
+    public interface ShipSyncer {
+        boolean sync(int shipId) throws IOException;
+    }
+
+    public interface Clock {
+        long now();
+    }
+
+    public static final Clock SYSTEM_CLOCK = System::currentTimeMillis;
+
+    public static final int MAX_CONCURRENT = 3;
+    public static final long BASE_BACKOFF_MS = 60 * 1000L;
+    public static final long MAX_BACKOFF_MS = 6 * 60 * 60 * 1000L;
+
+    public static final class Result {
+        public final int synced;
+        public final int changed;
+        public final int failed;
+        public final int backedOff;
+
+        Result(int synced, int changed, int failed, int backedOff) {
+            this.synced = synced;
+            this.changed = changed;
+            this.failed = failed;
+            this.backedOff = backedOff;
+        }
+
+        // Nothing got through although something was attempted, e.g. the gateway is down
+        public boolean allFailed() {
+            return failed > 0 && synced == 0;
+        }
+    }
+
+    private static final class Backoff {
+        int failures;
+        long retryAt;
+    }
+
+    private final ShipSyncer syncer;
+    private final Clock clock;
+    private final Executor executor;
+    // Guarded by itself
+    private final Map<Integer, Backoff> backoff = new HashMap<>();
+
+    public FleetSync(ShipSyncer syncer, Clock clock) {
+        this(syncer, clock, Executors.newFixedThreadPool(MAX_CONCURRENT, runnable -> {
+            Thread thread = new Thread(runnable, "FleetSync");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    // Lanes run on the executor, which may hold them back further, e.g. behind on-screen work
+    public FleetSync(ShipSyncer syncer, Clock clock, Executor executor) {
+        this.syncer = syncer;
+        this.clock = clock;
+        this.executor = executor;
+    }
+
+    // Blocks until every due ship has been tried
+    public Result run(List<Integer> shipIds) throws InterruptedException {
+        long now = clock.now();
+        final List<Integer> due = new ArrayList<>(shipIds.size());
+        synchronized (backoff) {
+            for (Integer shipId : shipIds) {
+                Backoff state = backoff.get(shipId);
+                if (state == null || state.retryAt <= now) {
+                    due.add(shipId);
+                }
+            }
+        }
+
+        final AtomicInteger cursor = new AtomicInteger();
+        final AtomicInteger synced = new AtomicInteger();
+        final AtomicInteger changed = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        Runnable lane = () -> {
+            for (int i = cursor.getAndIncrement(); i < due.size(); i = cursor.getAndIncrement()) {
+                int shipId = due.get(i);
+                try {
+                    if (syncer.sync(shipId)) {
+                        changed.incrementAndGet();
+                    }
+                    synced.incrementAndGet();
+                    succeeded(shipId);
+                } catch (IOException | RuntimeException e) {
+                    failed.incrementAndGet();
+                    failed(shipId);
+                }
+            }
+        };
+
+        List<Future<?>> lanes = new ArrayList<>(MAX_CONCURRENT);
+        for (int i = 0; i < Math.min(MAX_CONCURRENT, due.size()); i++) {
+            FutureTask<?> future = new FutureTask<>(lane, null);
+            executor.execute(future);
+            lanes.add(future);
+        }
+        try {
+            for (Future<?> future : lanes) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            // Lanes catch everything a ship can throw; anything else is a bug
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            for (Future<?> future : lanes) {
+                future.cancel(true);
+            }
+            throw e;
+        }
+        return new Result(synced.get(), changed.get(), failed.get(), shipIds.size() - due.size());
+    }
+
+    // Milliseconds until the ship is tried again, 0 when it is not backing off
+    public long retryDelay(int shipId) {
+        synchronized (backoff) {
+            Backoff state = backoff.get(shipId);
+            return state == null ? 0 : Math.max(0, state.retryAt - clock.now());
+        }
+    }
+
+    private void succeeded(int shipId) {
+        synchronized (backoff) {
+            backoff.remove(shipId);
+        }
+    }
+
+    private void failed(int shipId) {
+        synchronized (backoff) {
+            Backoff state = backoff.get(shipId);
+            if (state == null) {
+                state = new Backoff();
+                backoff.put(shipId, state);
+            }
+            state.failures++;
+            long delay = state.failures > 20
+                ? MAX_BACKOFF_MS : Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << (state.failures - 1));
+            state.retryAt = clock.now() + delay;
+        }
+    }
+}
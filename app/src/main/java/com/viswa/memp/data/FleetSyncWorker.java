@@ -0,0 +1,112 @@
+package com.viswa.memp.data;
+
+import android.content.Context;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+import com.viswa.memp.api.RequestDispatcher;
+import com.viswa.memp.models.Vessel;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodic background sync: refreshes the ship list, then runs a FleetSync pass
+ * that applies each vessel's new reports to the LocalStore. The per-ship check
+ * is /reports/latest, revalidated through the HTTP cache, so an unchanged ship
+ * costs one conditional request. Screens then open on data that is already local.
+ */
+public class FleetSyncWorker extends Worker {
+
+    private static final String TAG = "FleetSyncWorker";
+    private static final String WORK_NAME = "fleet-sync";
+    private static final long INTERVAL_MINUTES = 30;
+    private static final long SESSION_WAIT_SECONDS = 5;
+
+    private static FleetSync sync;
+
+    // Idempotent; call whenever a signed-in session is known
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+            .setRequiredNetworkType(NetworkType.CONNECTED)
+            .setRequiresBatteryNotLow(true)
+            .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                FleetSyncWorker.class, INTERVAL_MINUTES, TimeUnit.MINUTES)
+            .setConstraints(constraints)
+            .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, FleetSync.BASE_BACKOFF_MS, TimeUnit.MILLISECONDS)
+            .build();
+        WorkManager.getInstance(context)
+            .enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    public static void cancel(Context context) {
+        WorkManager.getInstance(context).cancelUniqueWork(WORK_NAME);
+    }
+
+    // One per process so backoff carries over between passes
+    private static synchronized FleetSync getSync(final FleetRepository repository) {
+        if (sync == null) {
+            sync = new FleetSync(repository::syncReports, FleetSync.SYSTEM_CLOCK,
+                RequestDispatcher.getInstance().executor(RequestDispatcher.Priority.SYNC, RequestDispatcher.REPORTING));
+        }
+        return sync;
+    }
+
+    public FleetSyncWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        if (!isSignedIn()) {
+            return Result.success();
+        }
+        FleetRepository repository = FleetRepository.getInstance(getApplicationContext());
+        try {
+            repository.syncVessels();
+        } catch (IOException e) {
+            // The stored list is still worth syncing; the gateway being down shows up below
+            Log.d(TAG, "Ship list sync failed: " + e.getMessage());
+        }
+        List<Vessel> vessels = repository.getStore().getVessels();
+        List<Integer> shipIds = new ArrayList<>(vessels.size());
+        for (Vessel vessel : vessels) {
+            shipIds.add(vessel.getId());
+        }
+        try {
+            FleetSync.Result result = getSync(repository).run(shipIds);
+            Log.d(TAG, "Synced " + result.synced + " ships, " + result.changed + " changed, "
+                + result.failed + " failed, " + result.backedOff + " backing off");
+            return result.allFailed() ? Result.retry() : Result.success();
+        } catch (InterruptedException e) {
+            // Stopped by WorkManager; what was stored so far stays
+            return Result.retry();
+        }
+    }
+
+    // A cold start for a periodic run may reach here before the session has been read
+    private boolean isSignedIn() {
+        SessionHolder session = SessionHolder.getInstance(getApplicationContext());
+        if (!session.isLoaded()) {
+            final CountDownLatch latch = new CountDownLatch(1);
+            session.whenLoaded(loaded -> latch.countDown());
+            try {
+                latch.await(SESSION_WAIT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }
+        return session.isLoggedIn();
+    }
+}
@@ -0,0 +1,448 @@
+package com.viswa.memp.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import com.google.gson.Gson;
+import com.viswa.memp.analytics.KpiAggregator;
+import com.viswa.memp.models.BunkerRecord;
+import com.viswa.memp.models.ReportMetrics;
+import com.viswa.memp.models.Vessel;
+import com.viswa.memp.models.VesselReport;
+import com.viswa.memp.models.Voyage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * On-device copy of ships, voyages, report summaries and bunkerings. Each row keeps the
+ * indexed columns it is queried by plus the server JSON it was decoded from.
+ */
+public class LocalStore extends SQLiteOpenHelper {
+
+    private static final String DB_NAME = "memp_local.db";
+    private static final int DB_VERSION = 6;
+
+    private static LocalStore instance;
+
+    private final Gson gson = new Gson();
+
+    public static synchronized LocalStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new LocalStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private LocalStore(Context context) {
+        super(context, DB_NAME, null, DB_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE ships (id INTEGER PRIMARY KEY, name TEXT, json TEXT NOT NULL)");
+        db.execSQL("CREATE INDEX idx_ships_name ON ships (name, id)");
+        db.execSQL("CREATE TABLE ship_details (id INTEGER PRIMARY KEY, json TEXT NOT NULL)");
+        db.execSQL("CREATE TABLE voyages (id INTEGER PRIMARY KEY, ship_id INTEGER NOT NULL, active INTEGER NOT NULL, "
+            + "json TEXT NOT NULL)");
+        db.execSQL("CREATE INDEX idx_voyages_ship ON voyages (ship_id)");
+        db.execSQL("CREATE TABLE reports (id INTEGER PRIMARY KEY, ship_id INTEGER NOT NULL, "
+            + "report_date TEXT, status TEXT, json TEXT NOT NULL)");
+        db.execSQL("CREATE INDEX idx_reports_ship_date ON reports (ship_id, report_date)");
+        db.execSQL("CREATE TABLE report_metrics (report_id INTEGER PRIMARY KEY, ship_id INTEGER NOT NULL, "
+            + "voyage_id INTEGER, leg_id INTEGER, report_date TEXT, distance_nm REAL NOT NULL)");
+        db.execSQL("CREATE INDEX idx_report_metrics_ship ON report_metrics (ship_id, report_date)");
+        db.execSQL("CREATE TABLE report_fuel (report_id INTEGER NOT NULL, fuel_type TEXT, consumed_mt REAL NOT NULL, "
+            + "bdn TEXT)");
+        db.execSQL("CREATE INDEX idx_report_fuel_report ON report_fuel (report_id)");
+        db.execSQL("CREATE TABLE bunkerings (id INTEGER PRIMARY KEY, ship_id INTEGER NOT NULL, json TEXT NOT NULL)");
+        db.execSQL("CREATE INDEX idx_bunkerings_ship ON bunkerings (ship_id)");
+        db.execSQL("CREATE TABLE lookups (path TEXT PRIMARY KEY, loaded_at INTEGER NOT NULL, json TEXT NOT NULL)");
+        db.execSQL("CREATE TABLE sync_state (key TEXT PRIMARY KEY, value TEXT)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Everything here can be re-synced from the server
+        db.execSQL("DROP TABLE IF EXISTS ships");
+        db.execSQL("DROP TABLE IF EXISTS ship_details");
+        db.execSQL("DROP TABLE IF EXISTS voyages");
+        db.execSQL("DROP TABLE IF EXISTS reports");
+        db.execSQL("DROP TABLE IF EXISTS report_metrics");
+        db.execSQL("DROP TABLE IF EXISTS report_fuel");
+        db.execSQL("DROP TABLE IF EXISTS bunkerings");
+        db.execSQL("DROP TABLE IF EXISTS lookups");
+        db.execSQL("DROP TABLE IF EXISTS sync_state");
+        onCreate(db);
+    }
+
+    // Ships
+
+    public List<Vessel> getVessels() {
+        return getVessels(0, -1);
+    }
+
+    // A negative limit returns every ship from offset onwards
+    public List<Vessel> getVessels(int offset, int limit) {
+        List<Vessel> vessels = new ArrayList<>();
+        Cursor cursor = getReadableDatabase().rawQuery(
+            "SELECT json FROM ships ORDER BY name, id LIMIT " + limit + " OFFSET " + offset, null);
+        try {
+            while (cursor.moveToNext()) {
+                vessels.add(gson.fromJson(cursor.getString(0), Vessel.class));
+            }
+        } finally {
+            cursor.close();
+        }
+        return vessels;
+    }
+
+    public void replaceVessels(List<Vessel> vessels) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete("ships", null, null);
+            ContentValues values = new ContentValues();
+            for (Vessel vessel : vessels) {
+                values.clear();
+                values.put("id", vessel.getId());
+                values.put("name", vessel.getName());
+                values.put("json", gson.toJson(vessel));
+                db.insert("ships", null, values);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    public String getShipDetailsJson(int shipId) {
+        Cursor cursor = getReadableDatabase().rawQuery("SELECT json FROM ship_details WHERE id = ?",
+            new String[]{String.valueOf(shipId)});
+        try {
+            return cursor.moveToFirst() ? cursor.getString(0) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    public void putShipDetailsJson(int shipId, String json) {
+        ContentValues values = new ContentValues();
+        values.put("id", shipId);
+        values.put("json", json);
+        getWritableDatabase().insertWithOnConflict("ship_details", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    // Voyages
+
+    // The fleet-wide list replaces what was stored
+    public void replaceVoyages(List<Voyage> voyages) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete("voyages", null, null);
+            ContentValues values = new ContentValues();
+            for (Voyage voyage : voyages) {
+                values.clear();
+                values.put("id", voyage.getId());
+                values.put("ship_id", voyage.getShipId());
+                values.put("active", voyage.isCompleted() ? 0 : 1);
+                values.put("json", gson.toJson(voyage));
+                db.insert("voyages", null, values);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // Reports
+
+    public List<VesselReport> getReports(int shipId) {
+        List<VesselReport> reports = new ArrayList<>();
+        Cursor cursor = getReadableDatabase().rawQuery(
+            "SELECT json FROM reports WHERE ship_id = ? ORDER BY report_date DESC, id DESC",
+            new String[]{String.valueOf(shipId)});
+        try {
+            while (cursor.moveToNext()) {
+                reports.add(gson.fromJson(cursor.getString(0), VesselReport.class));
+            }
+        } finally {
+            cursor.close();
+        }
+        return reports;
+    }
+
+    public void upsertReports(List<VesselReport> reports) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            ContentValues values = new ContentValues();
+            for (VesselReport report : reports) {
+                values.clear();
+                values.put("id", report.getId());
+                values.put("ship_id", report.getShipId());
+                values.put("report_date", report.getReportDateUtc());
+                values.put("status", report.getStatus());
+                values.put("json", gson.toJson(report));
+                db.insertWithOnConflict("reports", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+                // An edited report's distance and fuel are fetched again
+                String[] reportId = {String.valueOf(report.getId())};
+                db.delete("report_metrics", "report_id = ?", reportId);
+                db.delete("report_fuel", "report_id = ?", reportId);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    public VesselReport getNewestReport(int shipId) {
+        Cursor cursor = getReadableDatabase().rawQuery(
+            "SELECT json FROM reports WHERE ship_id = ? ORDER BY report_date DESC, id DESC LIMIT 1",
+            new String[]{String.valueOf(shipId)});
+        try {
+            return cursor.moveToFirst() ? gson.fromJson(cursor.getString(0), VesselReport.class) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // Report distance and fuel, from the full report
+
+    public interface ReportMetricsVisitor {
+        void onReport(ReportMetrics metrics);
+    }
+
+    // The stored JSON of the ship's reports dated on or after fromDate, by report id
+    public Map<Long, String> getReportJsonSince(int shipId, String fromDate) {
+        Map<Long, String> reports = new HashMap<>();
+        Cursor cursor = getReadableDatabase().rawQuery(
+            "SELECT id, json FROM reports WHERE ship_id = ? AND report_date >= ?",
+            new String[]{String.valueOf(shipId), fromDate});
+        try {
+            while (cursor.moveToNext()) {
+                reports.put(cursor.getLong(0), cursor.getString(1));
+            }
+        } finally {
+            cursor.close();
+        }
+        return reports;
+    }
+
+    // Stored reports of the ship whose distance and fuel have not been fetched yet
+    public List<Long> getReportIdsWithoutMetrics(int shipId) {
+        List<Long> ids = new ArrayList<>();
+        Cursor cursor = getReadableDatabase().rawQuery(
+            "SELECT id FROM reports WHERE ship_id = ? AND id NOT IN (SELECT report_id FROM report_metrics) "
+                + "ORDER BY report_date",
+            new String[]{String.valueOf(shipId)});
+        try {
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getLong(0));
+            }
+        } finally {
+            cursor.close();
+        }
+        return ids;
+    }
+
+    public void putReportMetrics(ReportMetrics metrics) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            ContentValues values = new ContentValues();
+            values.put("report_id", metrics.getReportId());
+            values.put("ship_id", metrics.getShipId());
+            values.put("voyage_id", metrics.getVoyageId());
+            values.put("leg_id", metrics.getVoyageLegId());
+            values.put("report_date", metrics.getReportDateUtc());
+            values.put("distance_nm", metrics.getDistanceNm());
+            db.insertWithOnConflict("report_metrics", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            String[] reportId = {String.valueOf(metrics.getReportId())};
+            db.delete("report_fuel", "report_id = ?", reportId);
+            for (int i = 0; i < metrics.getFuelCount(); i++) {
+                values.clear();
+                values.put("report_id", metrics.getReportId());
+                values.put("fuel_type", metrics.getFuelType(i));
+                values.put("consumed_mt", metrics.getConsumedMt(i));
+                values.put("bdn", metrics.getBdnNumber(i));
+                db.insert("report_fuel", null, values);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // Streams every stored report's metrics, fuel rows included, in report id order
+    public void forEachReportMetrics(ReportMetricsVisitor visitor) {
+        Cursor cursor = getReadableDatabase().rawQuery(
+            "SELECT m.report_id, m.ship_id, m.voyage_id, m.leg_id, m.report_date, m.distance_nm, "
+                + "f.fuel_type, f.consumed_mt, f.bdn FROM report_metrics m "
+                + "LEFT JOIN report_fuel f ON f.report_id = m.report_id ORDER BY m.report_id", null);
+        try {
+            List<String> fuelTypes = new ArrayList<>();
+            List<Double> consumed = new ArrayList<>();
+            List<String> bdns = new ArrayList<>();
+            boolean more = cursor.moveToNext();
+            while (more) {
+                long reportId = cursor.getLong(0);
+                int shipId = cursor.getInt(1);
+                long voyageId = cursor.getLong(2);
+                long legId = cursor.getLong(3);
+                String reportDate = cursor.getString(4);
+                double distance = cursor.getDouble(5);
+                fuelTypes.clear();
+                consumed.clear();
+                bdns.clear();
+                do {
+                    if (!cursor.isNull(7)) {
+                        fuelTypes.add(cursor.getString(6));
+                        consumed.add(cursor.getDouble(7));
+                        bdns.add(cursor.getString(8));
+                    }
+                    more = cursor.moveToNext();
+                } while (more && cursor.getLong(0) == reportId);
+                double[] consumedMt = new double[consumed.size()];
+                for (int i = 0; i < consumedMt.length; i++) {
+                    consumedMt[i] = consumed.get(i);
+                }
+                visitor.onReport(new ReportMetrics(reportId, shipId, voyageId, legId, reportDate, distance,
+                    fuelTypes.toArray(new String[0]), consumedMt, bdns.toArray(new String[0])));
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // Feeds every stored ship, voyage and report into the aggregator from the indexed columns alone
+    public void loadKpis(KpiAggregator kpis) {
+        SQLiteDatabase db = getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT id FROM ships", null);
+        try {
+            while (cursor.moveToNext()) {
+                kpis.putVessel(cursor.getInt(0));
+            }
+        } finally {
+            cursor.close();
+        }
+        cursor = db.rawQuery("SELECT id, active FROM voyages", null);
+        try {
+            while (cursor.moveToNext()) {
+                kpis.putVoyage(cursor.getLong(0), cursor.getInt(1) != 0);
+            }
+        } finally {
+            cursor.close();
+        }
+        cursor = db.rawQuery("SELECT id, status FROM reports", null);
+        try {
+            while (cursor.moveToNext()) {
+                kpis.putReport(cursor.getLong(0), KpiAggregator.REPORT_SUBMITTED.equalsIgnoreCase(cursor.getString(1)));
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // Bunkerings
+
+    public List<BunkerRecord> getBunkerings(int shipId) {
+        List<BunkerRecord> records = new ArrayList<>();
+        Cursor cursor = getReadableDatabase().rawQuery("SELECT json FROM bunkerings WHERE ship_id = ? ORDER BY id",
+            new String[]{String.valueOf(shipId)});
+        try {
+            while (cursor.moveToNext()) {
+                records.add(gson.fromJson(cursor.getString(0), BunkerRecord.class));
+            }
+        } finally {
+            cursor.close();
+        }
+        return records;
+    }
+
+    public void replaceBunkerings(int shipId, List<BunkerRecord> records) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete("bunkerings", "ship_id = ?", new String[]{String.valueOf(shipId)});
+            ContentValues values = new ContentValues();
+            for (BunkerRecord record : records) {
+                values.clear();
+                values.put("id", record.getId());
+                values.put("ship_id", shipId);
+                values.put("json", gson.toJson(record));
+                db.insert("bunkerings", null, values);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // Lookups
+
+    public static class LookupRow {
+        public final String path;
+        public final long loadedAt;
+        public final String json;
+
+        LookupRow(String path, long loadedAt, String json) {
+            this.path = path;
+            this.loadedAt = loadedAt;
+            this.json = json;
+        }
+    }
+
+    public List<LookupRow> getLookups() {
+        List<LookupRow> rows = new ArrayList<>();
+        Cursor cursor = getReadableDatabase().rawQuery("SELECT path, loaded_at, json FROM lookups", null);
+        try {
+            while (cursor.moveToNext()) {
+                rows.add(new LookupRow(cursor.getString(0), cursor.getLong(1), cursor.getString(2)));
+            }
+        } finally {
+            cursor.close();
+        }
+        return rows;
+    }
+
+    public void putLookup(String path, long loadedAt, String json) {
+        ContentValues values = new ContentValues();
+        values.put("path", path);
+        values.put("loaded_at", loadedAt);
+        values.put("json", json);
+        getWritableDatabase().insertWithOnConflict("lookups", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    // A null path clears every lookup
+    public void deleteLookups(String path) {
+        if (path == null) {
+            getWritableDatabase().delete("lookups", null, null);
+        } else {
+            getWritableDatabase().delete("lookups", "path = ?", new String[]{path});
+        }
+    }
+
+    // Sync bookkeeping
+
+    public String getSyncState(String key) {
+        Cursor cursor = getReadableDatabase().rawQuery("SELECT value FROM sync_state WHERE key = ?",
+            new String[]{key});
+        try {
+            return cursor.moveToFirst() ? cursor.getString(0) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    public void putSyncState(String key, String value) {
+        ContentValues values = new ContentValues();
+        values.put("key", key);
+        values.put("value", value);
+        getWritableDatabase().insertWithOnConflict("sync_state", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+}
@@ -0,0 +1,216 @@
+package com.viswa.memp.data;
+
+import android.content.Context;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.viswa.memp.api.ApiClient;
+import com.viswa.memp.api.ApiService;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * In-memory cache of the small reference lists report screens need (report types,
+ * sea states, tank content types, ...), backed by a copy in the LocalStore.
+ * preloadAll() is kicked off right after login so a screen never waits on a lookup.
+ * Entries older than TTL_MS are still served but refreshed in the background.
+ * Creating the cache only starts the restore from disk; the HTTP client is
+ * built on the first lookup that needs the network.
+ */
+public class LookupCache {
+
+    public static final String[] PRELOAD_PATHS = {
+        "reporting/report-types",
+        "reporting/wind-directions",
+        "reporting/sea-states",
+        "reporting/swell-directions",
+        "reporting/disposal-methods",
+        "reporting/vessel-activities",
+        "reporting/cargo-activities",
+        "reporting/lube-oil-types",
+        "ships/metadata/shiptypes",
+        "bunkering/lookup/fuel-types",
+        "tanks/metadata/definitions",
+        "tanks/metadata/content-types/fuel",
+        "tanks/metadata/content-types/water",
+        "tanks/metadata/content-types/lubeoil",
+        "tanks/metadata/content-types/oilyresidue"
+    };
+
+    // Bump with the backend schema of the lookups; copies loaded under another version are dropped at startup
+    public static final String SCHEMA_VERSION = "1";
+
+    private static final long TTL_MS = 12 * 60 * 60 * 1000L;
+    private static final String SCHEMA_KEY = "lookups:schema";
+
+    private static LookupCache instance;
+
+    private final LocalStore store;
+    // Guarded by this; built on first use
+    private ApiService api;
+    private final ConcurrentHashMap<String, Entry> memory = new ConcurrentHashMap<>();
+    private final ExecutorService diskExecutor = Executors.newSingleThreadExecutor();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong loadCount = new AtomicLong();
+
+    private static final class Entry {
+        final JsonElement value;
+        final long loadedAt;
+
+        Entry(JsonElement value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    public static synchronized LookupCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new LookupCache(LocalStore.getInstance(context));
+        }
+        return instance;
+    }
+
+    private LookupCache(LocalStore store) {
+        this.store = store;
+        invalidateIfVersionChanged(SCHEMA_VERSION);
+        diskExecutor.execute(this::restoreFromDisk);
+    }
+
+    // Fetches every lookup in parallel; identical requests already in flight are shared
+    public void preloadAll() {
+        for (String path : PRELOAD_PATHS) {
+            load(path, null);
+        }
+    }
+
+    // Returns the cached value or null; a miss or an expired entry triggers a background load
+    public JsonElement get(String path) {
+        Entry entry = memory.get(path);
+        if (entry == null) {
+            missCount.incrementAndGet();
+            load(path, null);
+            return null;
+        }
+        hitCount.incrementAndGet();
+        if (System.currentTimeMillis() - entry.loadedAt > TTL_MS) {
+            load(path, null);
+        }
+        return entry.value;
+    }
+
+    // Callback runs on the main thread, immediately when the lookup is cached
+    public void get(String path, DataCallback<JsonElement> callback) {
+        if (memory.containsKey(path)) {
+            callback.onData(get(path), true);
+        } else {
+            missCount.incrementAndGet();
+            load(path, callback);
+        }
+    }
+
+    /**
+     * Blocking form for repository work already on a dispatcher thread: the cached
+     * value, refreshed in the background when expired, or else fetched right here.
+     */
+    public JsonElement getBlocking(String path) throws IOException {
+        Entry entry = memory.get(path);
+        if (entry != null) {
+            hitCount.incrementAndGet();
+            if (System.currentTimeMillis() - entry.loadedAt > TTL_MS) {
+                load(path, null);
+            }
+            return entry.value;
+        }
+        missCount.incrementAndGet();
+        Response<JsonElement> response = api().getLookup(path).execute();
+        if (!response.isSuccessful() || response.body() == null) {
+            throw new IOException("HTTP " + response.code());
+        }
+        return put(path, response.body());
+    }
+
+    // When the cached value was fetched, or 0 when nothing is cached
+    public long getLoadedAt(String path) {
+        Entry entry = memory.get(path);
+        return entry != null ? entry.loadedAt : 0;
+    }
+
+    /**
+     * Versioned invalidation hook: drops every cached and persisted lookup when the
+     * given version differs from the one they were loaded under. It runs on the
+     * disk thread; the constructor queues it ahead of the restore, so a persisted
+     * copy from another version is never read back.
+     */
+    public void invalidateIfVersionChanged(final String version) {
+        diskExecutor.execute(() -> {
+            if (!version.equals(store.getSyncState(SCHEMA_KEY))) {
+                memory.clear();
+                store.deleteLookups(null);
+                store.putSyncState(SCHEMA_KEY, version);
+            }
+        });
+    }
+
+    public void invalidate(final String path) {
+        memory.remove(path);
+        diskExecutor.execute(() -> store.deleteLookups(path));
+    }
+
+    public long getHitCount() { return hitCount.get(); }
+    public long getMissCount() { return missCount.get(); }
+    public long getLoadCount() { return loadCount.get(); }
+
+    private void load(final String path, final DataCallback<JsonElement> callback) {
+        api().getLookup(path).enqueue(new Callback<JsonElement>() {
+            @Override
+            public void onResponse(Call<JsonElement> call, Response<JsonElement> response) {
+                if (!response.isSuccessful() || response.body() == null) {
+                    if (callback != null) {
+                        callback.onError(new IllegalStateException("HTTP " + response.code()));
+                    }
+                    return;
+                }
+                JsonElement value = put(path, response.body());
+                if (callback != null) {
+                    callback.onData(value, false);
+                }
+            }
+
+            @Override
+            public void onFailure(Call<JsonElement> call, Throwable t) {
+                if (callback != null) {
+                    callback.onError(t);
+                }
+            }
+        });
+    }
+
+    private synchronized ApiService api() {
+        if (api == null) {
+            api = ApiClient.getClient().create(ApiService.class);
+        }
+        return api;
+    }
+
+    private JsonElement put(final String path, final JsonElement value) {
+        final long now = System.currentTimeMillis();
+        loadCount.incrementAndGet();
+        memory.put(path, new Entry(value, now));
+        diskExecutor.execute(() -> store.putLookup(path, now, value.toString()));
+        return value;
+    }
+
+    private void restoreFromDisk() {
+        JsonParser parser = new JsonParser();
+        for (LocalStore.LookupRow row : store.getLookups()) {
+            // A fresher network copy may already be in memory
+            memory.putIfAbsent(row.path, new Entry(parser.parse(row.json), row.loadedAt));
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.viswa.memp.data;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.viswa.memp.api.ApiClient;
+import com.viswa.memp.api.ApiService;
+import com.viswa.memp.api.ReportStreamParser;
+import com.viswa.memp.api.RequestDispatcher;
+import com.viswa.memp.models.MachinerySeries;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import okhttp3.ResponseBody;
+import retrofit2.Response;
+
+/**
+ * Machinery lists, period analytics and raw SFOC series from machinery-service.
+ *
+ * A series is fetched once per machinery and date range and kept in memory, so
+ * zooming and panning the charts only re-sample it. The few most recently used
+ * series are kept; a year of daily reports is a few kilobytes of floats.
+ */
+public class MachineryRepository {
+
+    private static final int CACHED_SERIES = 4;
+
+    private static MachineryRepository instance;
+
+    private final ApiService api;
+    private final ApiService streamingApi;
+    private final RequestDispatcher dispatcher = RequestDispatcher.getInstance();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Access order, guarded by itself
+    private final Map<String, MachinerySeries> series =
+        new LinkedHashMap<String, MachinerySeries>(8, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MachinerySeries> eldest) {
+                return size() > CACHED_SERIES;
+            }
+        };
+
+    public static synchronized MachineryRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new MachineryRepository();
+        }
+        return instance;
+    }
+
+    private MachineryRepository() {
+        this.api = ApiClient.getClient().create(ApiService.class);
+        this.streamingApi = ApiClient.getStreamingClient().create(ApiService.class);
+    }
+
+    public void getMachinery(final int shipId, final DataCallback<JsonArray> callback) {
+        visible(callback, () -> {
+            try {
+                Response<JsonElement> response = api.getMachineryForShip(shipId).execute();
+                if (!response.isSuccessful() || response.body() == null || !response.body().isJsonArray()) {
+                    throw new IOException("HTTP " + response.code());
+                }
+                deliver(callback, response.body().getAsJsonArray(), false);
+            } catch (IOException e) {
+                fail(callback, e);
+            }
+        });
+    }
+
+    // Power, fuel and audit totals for the period; dates are yyyy-MM-dd
+    public void getAnalytics(final int machineryId, final String fromDate, final String toDate,
+                             final DataCallback<JsonObject> callback) {
+        visible(callback, () -> {
+            try {
+                Response<JsonObject> response = api.getMachineryAnalytics(machineryId, fromDate, toDate).execute();
+                if (!response.isSuccessful() || response.body() == null) {
+                    throw new IOException("HTTP " + response.code());
+                }
+                deliver(callback, response.body(), false);
+            } catch (IOException e) {
+                fail(callback, e);
+            }
+        });
+    }
+
+    // Raw SFOC, power and fuel points for the period, from memory when the same range was loaded before
+    public void getSeries(final int machineryId, final String fromDate, final String toDate,
+                          final DataCallback<MachinerySeries> callback) {
+        final String key = machineryId + "|" + fromDate + "|" + toDate;
+        synchronized (series) {
+            MachinerySeries cached = series.get(key);
+            if (cached != null) {
+                deliver(callback, cached, true);
+                return;
+            }
+        }
+        visible(callback, () -> {
+            try {
+                Response<ResponseBody> response = streamingApi.streamSfoc(machineryId, fromDate, toDate).execute();
+                if (!response.isSuccessful() || response.body() == null) {
+                    if (response.errorBody() != null) {
+                        response.errorBody().close();
+                    }
+                    throw new IOException("HTTP " + response.code());
+                }
+                MachinerySeries loaded;
+                ResponseBody body = response.body();
+                try {
+                    loaded = ReportStreamParser.readSfocSeries(body.charStream());
+                } finally {
+                    body.close();
+                }
+                synchronized (series) {
+                    series.put(key, loaded);
+                }
+                deliver(callback, loaded, false);
+            } catch (IOException | RuntimeException e) {
+                fail(callback, e);
+            }
+        });
+    }
+
+    // Cancelled with the screen when the callback came from a ScreenScope
+    private void visible(Object callback, Runnable work) {
+        dispatcher.execute(RequestDispatcher.Priority.VISIBLE, RequestDispatcher.MACHINERY,
+            RequestDispatcher.tagOf(callback), work);
+    }
+
+    private <T> void deliver(final DataCallback<T> callback, final T data, final boolean fromDisk) {
+        mainHandler.post(() -> callback.onData(data, fromDisk));
+    }
+
+    private <T> void fail(final DataCallback<T> callback, final Throwable t) {
+        mainHandler.post(() -> callback.onError(t));
+    }
+}
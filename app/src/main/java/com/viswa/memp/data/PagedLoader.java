@@ -0,0 +1,104 @@
+package com.viswa.memp.data;
+
+import android.os.Handler;
+import android.os.Looper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Loads a list a page at a time from a PageSource on a background executor.
+ * The adapter reports each bound position through onItemBound(); once that is
+ * within prefetchDistance of the end, the next page is requested. Every delivery
+ * is a fresh list so it can be handed straight to an AsyncListDiffer.
+ *
+ * Not thread safe: call everything from the main thread.
+ */
+public class PagedLoader<T> {
+
+    public interface PageSource<T> {
+        // Runs on the executor
+        List<T> loadPage(int offset, int limit);
+    }
+
+    public interface Listener<T> {
+        void onListChanged(List<T> items);
+    }
+
+    private final PageSource<T> source;
+    private final Executor executor;
+    private final int pageSize;
+    private final int prefetchDistance;
+    private final Listener<T> listener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private List<T> items = new ArrayList<>();
+    private boolean loading;
+    private boolean endReached;
+    private int generation;
+
+    public PagedLoader(PageSource<T> source, Executor executor, int pageSize, int prefetchDistance,
+                       Listener<T> listener) {
+        this.source = source;
+        this.executor = executor;
+        this.pageSize = pageSize;
+        this.prefetchDistance = prefetchDistance;
+        this.listener = listener;
+    }
+
+    public void loadInitial() {
+        if (items.isEmpty() && !loading) {
+            loadNextPage();
+        }
+    }
+
+    public void onItemBound(int position) {
+        if (!loading && !endReached && position >= items.size() - prefetchDistance) {
+            loadNextPage();
+        }
+    }
+
+    // Re-reads everything loaded so far, e.g. after a sync changed the source
+    public void reload() {
+        final int myGeneration = ++generation;
+        final int count = Math.max(items.size(), pageSize);
+        loading = true;
+        executor.execute(() -> {
+            final List<T> page = source.loadPage(0, count);
+            mainHandler.post(() -> {
+                if (myGeneration != generation) {
+                    return;
+                }
+                loading = false;
+                endReached = page.size() < count;
+                items = new ArrayList<>(page);
+                listener.onListChanged(items);
+            });
+        });
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    private void loadNextPage() {
+        final int myGeneration = generation;
+        final int offset = items.size();
+        loading = true;
+        executor.execute(() -> {
+            final List<T> page = source.loadPage(offset, pageSize);
+            mainHandler.post(() -> {
+                if (myGeneration != generation) {
+                    return;
+                }
+                loading = false;
+                endReached = page.size() < pageSize;
+                List<T> next = new ArrayList<>(items.size() + page.size());
+                next.addAll(items);
+                next.addAll(page);
+                items = next;
+                listener.onListChanged(items);
+            });
+        });
+    }
+}
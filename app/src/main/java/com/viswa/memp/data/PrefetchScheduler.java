@@ -0,0 +1,326 @@
+package com.viswa.memp.data;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.SharedPreferences;
+import android.net.ConnectivityManager;
+import android.os.BatteryManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.util.Log;
+import com.viswa.memp.api.ApiClient;
+import com.viswa.memp.api.ApiService;
+import com.viswa.memp.api.RequestDispatcher;
+import com.viswa.memp.models.Vessel;
+import com.viswa.memp.models.Voyage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Warms the data behind the dashboard module the user is most likely to open next.
+ *
+ * Every card tap is recorded (how often each module is opened and which module
+ * tends to follow which). Once the dashboard has been idle for IDLE_DELAY_MS the
+ * best guess is fetched as PREFETCH work on the RequestDispatcher, one module at
+ * a time, with the calls its screen makes when it opens. Ships, voyages and the
+ * first vessel's reports are written into the LocalStore, so they are on screen
+ * at once, and the voyage list also warms the HTTP cache. Nothing is fetched
+ * on low battery or in power-save mode, and a daily byte budget (smaller on
+ * metered networks) caps what speculation may cost.
+ */
+public class PrefetchScheduler {
+
+    public static final String VESSEL_INFO = "Vessel Info";
+    public static final String MEMP_OVERVIEW = "MEMP Overview";
+    public static final String VESSEL_REPORTS = "Vessel Reports";
+    public static final String VOYAGES = "Voyages";
+
+    private static final String TAG = "PrefetchScheduler";
+    private static final String PREFS = "MEMP_PREFETCH";
+
+    private static final long IDLE_DELAY_MS = 1500;
+    private static final int MIN_OPENS = 2;
+    private static final int MAX_MODULES = 2;
+    private static final int MIN_BATTERY_PERCENT = 20;
+    private static final long DAILY_BUDGET_BYTES = 5L * 1024 * 1024;
+    private static final long METERED_DAILY_BUDGET_BYTES = 1024 * 1024;
+    // Charged when a response does not say how big it was
+    private static final long UNKNOWN_SIZE_BYTES = 32 * 1024;
+
+    private static final String[] PREFETCHABLE = { VESSEL_INFO, MEMP_OVERVIEW, VESSEL_REPORTS, VOYAGES };
+
+    private static PrefetchScheduler instance;
+
+    private final Context context;
+    private final SharedPreferences prefs;
+    private final FleetRepository repository;
+    private final ApiService api;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final RequestDispatcher dispatcher = RequestDispatcher.getInstance();
+    private final Runnable idleTask = this::startPrefetch;
+
+    // Guarded by this; generation is bumped on every cancel so stale work stops early
+    private int generation;
+    // The dispatcher tag of the current run; cancelling it aborts the calls its work has open
+    private Object runTag;
+    private String inFlightModule;
+    private String openingModule;
+
+    public static synchronized PrefetchScheduler getInstance(Context context) {
+        if (instance == null) {
+            instance = new PrefetchScheduler(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private PrefetchScheduler(Context context) {
+        this.context = context;
+        this.prefs = context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        this.repository = FleetRepository.getInstance(context);
+        this.api = ApiClient.getClient().create(ApiService.class);
+    }
+
+    // Call when the user opens a module from the dashboard
+    public void recordOpen(String module) {
+        String last = prefs.getString("last", null);
+        SharedPreferences.Editor editor = prefs.edit()
+            .putInt("open:" + module, prefs.getInt("open:" + module, 0) + 1)
+            .putString("last", module);
+        if (last != null) {
+            String key = "next:" + last + "|" + module;
+            editor.putInt(key, prefs.getInt(key, 0) + 1);
+        }
+        editor.apply();
+        synchronized (this) {
+            openingModule = module;
+        }
+    }
+
+    // Call from onResume; the prefetch starts only if the dashboard stays put
+    public void scheduleWhenIdle() {
+        synchronized (this) {
+            openingModule = null;
+        }
+        mainHandler.removeCallbacks(idleTask);
+        mainHandler.postDelayed(idleTask, IDLE_DELAY_MS);
+    }
+
+    /**
+     * Call from onPause. Drops anything scheduled and cancels the calls the run
+     * has open, streamed report syncs included, unless it is working on the
+     * module being opened: that screen is about to ask for the same URL and will
+     * share the response.
+     */
+    public void cancel() {
+        mainHandler.removeCallbacks(idleTask);
+        Object tag;
+        synchronized (this) {
+            generation++;
+            tag = openingModule != null && openingModule.equals(inFlightModule) ? null : runTag;
+            runTag = null;
+        }
+        dispatcher.cancel(tag);
+    }
+
+    // Modules most likely to be opened next, best guess first
+    public List<String> predictNext() {
+        String last = prefs.getString("last", null);
+        List<String> ranked = new ArrayList<>();
+        List<Integer> scores = new ArrayList<>();
+        for (String module : PREFETCHABLE) {
+            int opens = prefs.getInt("open:" + module, 0);
+            if (opens < MIN_OPENS) {
+                continue;
+            }
+            // What usually follows the last module outweighs plain popularity
+            int follows = last != null ? prefs.getInt("next:" + last + "|" + module, 0) : 0;
+            int score = opens + follows * 10;
+            int at = 0;
+            while (at < scores.size() && scores.get(at) >= score) {
+                at++;
+            }
+            ranked.add(at, module);
+            scores.add(at, score);
+        }
+        return ranked.size() > MAX_MODULES ? ranked.subList(0, MAX_MODULES) : ranked;
+    }
+
+    private void startPrefetch() {
+        final List<String> modules = predictNext();
+        if (modules.isEmpty() || !withinPowerBudget()) {
+            return;
+        }
+        final int started;
+        final Object tag = new Object();
+        synchronized (this) {
+            started = generation;
+            runTag = tag;
+        }
+        prefetchFrom(modules, 0, started, tag);
+    }
+
+    // Each module is queued only once the one before it is done
+    private void prefetchFrom(final List<String> modules, final int index, final int started, final Object tag) {
+        if (index == modules.size()) {
+            return;
+        }
+        final String module = modules.get(index);
+        dispatcher.execute(RequestDispatcher.Priority.PREFETCH, serviceOf(module), tag, () -> {
+            if (prefetch(module, started)) {
+                prefetchFrom(modules, index + 1, started, tag);
+            }
+        });
+    }
+
+    private static String serviceOf(String module) {
+        switch (module) {
+            case VESSEL_REPORTS:
+                return RequestDispatcher.REPORTING;
+            case VOYAGES:
+                return RequestDispatcher.VOYAGES;
+            default:
+                return RequestDispatcher.SHIPS;
+        }
+    }
+
+    // Returns false once the run has been cancelled or the budget is spent
+    private boolean prefetch(String module, int started) {
+        if (remainingBytes() <= 0) {
+            return false;
+        }
+        Call<?> call;
+        switch (module) {
+            case VESSEL_INFO:
+            case MEMP_OVERVIEW:
+            case VESSEL_REPORTS:
+                // All three open on the stored ship list; the overview counts it
+                call = api.getShips();
+                break;
+            case VOYAGES:
+                call = api.getAllVoyages();
+                break;
+            default:
+                return true;
+        }
+        synchronized (this) {
+            if (generation != started) {
+                return false;
+            }
+            inFlightModule = module;
+        }
+        try {
+            Response<?> response = call.execute();
+            chargeBudget(response);
+            if (VOYAGES.equals(module)) {
+                @SuppressWarnings("unchecked")
+                Response<List<Voyage>> voyages = (Response<List<Voyage>>) response;
+                repository.storeVoyages(voyages);
+            } else {
+                @SuppressWarnings("unchecked")
+                Response<List<Vessel>> ships = (Response<List<Vessel>>) response;
+                repository.storeVessels(ships);
+            }
+            if (MEMP_OVERVIEW.equals(module)) {
+                prefetchVoyages(started);
+            } else if (VESSEL_REPORTS.equals(module)) {
+                prefetchFirstVesselReports(started);
+            }
+        } catch (IOException | RuntimeException e) {
+            Log.d(TAG, "Prefetch of " + module + " stopped: " + e.getMessage());
+        } finally {
+            synchronized (this) {
+                inFlightModule = null;
+            }
+        }
+        synchronized (this) {
+            return generation == started;
+        }
+    }
+
+    // The overview counts active voyages as well as ships
+    private void prefetchVoyages(int started) throws IOException {
+        synchronized (this) {
+            if (generation != started || remainingBytes() <= 0) {
+                return;
+            }
+        }
+        Response<List<Voyage>> response = api.getAllVoyages().execute();
+        chargeBudget(response);
+        repository.storeVoyages(response);
+    }
+
+    // The reports screen opens on the first vessel of the stored list, as its spinner does
+    private void prefetchFirstVesselReports(int started) throws IOException {
+        List<Vessel> vessels = repository.getStore().getVessels(0, 1);
+        final long remaining;
+        synchronized (this) {
+            remaining = remainingBytes();
+            if (vessels.isEmpty() || generation != started || remaining <= 0) {
+                return;
+            }
+        }
+        // The rows are streamed straight into the store, so the dispatcher meters what the sync reads
+        final long before = dispatcher.bytesRead();
+        try {
+            repository.syncReports(vessels.get(0).getId(), rows -> {
+                if (dispatcher.bytesRead() - before >= remaining) {
+                    throw new IOException("Prefetch budget spent");
+                }
+            });
+        } finally {
+            charge(dispatcher.bytesRead() - before);
+        }
+    }
+
+    // Only bytes that actually came over the network count; a 304 is close to free
+    private void chargeBudget(Response<?> response) {
+        okhttp3.Response network = response.raw().networkResponse();
+        if (network == null || network.code() == 304) {
+            return;
+        }
+        long length = response.raw().body() != null ? response.raw().body().contentLength() : -1;
+        charge(length >= 0 ? length : UNKNOWN_SIZE_BYTES);
+    }
+
+    private void charge(long bytes) {
+        prefs.edit().putLong("budget_day", today()).putLong("budget_bytes", spentToday() + bytes).apply();
+    }
+
+    private boolean withinPowerBudget() {
+        PowerManager power = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        if (power != null && power.isPowerSaveMode()) {
+            return false;
+        }
+        Intent battery = context.registerReceiver(null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+        if (battery == null) {
+            return true;
+        }
+        int status = battery.getIntExtra(BatteryManager.EXTRA_STATUS, -1);
+        boolean charging = status == BatteryManager.BATTERY_STATUS_CHARGING
+            || status == BatteryManager.BATTERY_STATUS_FULL;
+        int level = battery.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+        int scale = battery.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+        return charging || level < 0 || scale <= 0 || level * 100 / scale >= MIN_BATTERY_PERCENT;
+    }
+
+    private long remainingBytes() {
+        ConnectivityManager connectivity =
+            (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        boolean metered = connectivity == null || connectivity.isActiveNetworkMetered();
+        long budget = metered ? METERED_DAILY_BUDGET_BYTES : DAILY_BUDGET_BYTES;
+        return budget - spentToday();
+    }
+
+    private long spentToday() {
+        return today() == prefs.getLong("budget_day", -1) ? prefs.getLong("budget_bytes", 0) : 0;
+    }
+
+    private static long today() {
+        return System.currentTimeMillis() / (24 * 60 * 60 * 1000L);
+    }
+}
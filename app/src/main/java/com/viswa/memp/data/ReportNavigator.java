@@ -0,0 +1,314 @@
+package com.viswa.memp.data;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.viswa.memp.api.ApiClient;
+import com.viswa.memp.api.ApiService;
+import com.viswa.memp.api.RequestDispatcher;
+import com.viswa.memp.image.LruByteCache;
+import com.viswa.memp.models.VesselReport;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import okhttp3.ResponseBody;
+import retrofit2.Response;
+
+/**
+ * Steps through one vessel's full reports one at a time, newest first, the way
+ * crews and superintendents page through a voyage's noon reports.
+ *
+ * Decoded reports around the cursor are kept in a window bounded by their
+ * estimated size, least recently used out first. Whenever a report is shown,
+ * its predecessor and successor are fetched in the background, so a step
+ * either way is normally served from the window. Past the oldest synced report
+ * the predecessor is looked up with reports/preceding/:id.
+ *
+ * One per screen, used from the main thread. Fetches are tagged with the
+ * screen's scope and end with it. A report that arrives after the cursor moved
+ * on is kept in the window but not delivered.
+ */
+public class ReportNavigator {
+
+    static final long WINDOW_BYTES = 2L * 1024 * 1024;
+    // A parsed JsonObject tree takes a few times the bytes of its text
+    private static final int DECODED_BYTES_PER_CHAR = 4;
+
+    private static final class Decoded {
+        final JsonObject report;
+        final long bytes;
+
+        Decoded(JsonObject report, long bytes) {
+            this.report = report;
+            this.bytes = bytes;
+        }
+    }
+
+    // A fetch under way and the callbacks waiting for it
+    private static final class Flight {
+        final List<DataCallback<JsonObject>> waiting = new ArrayList<>(1);
+        boolean visible;
+    }
+
+    private final ApiService api;
+    private final ApiService streamingApi;
+    private final Gson gson = new Gson();
+    private final RequestDispatcher dispatcher = RequestDispatcher.getInstance();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Object tag;
+    private final LruByteCache<Long, Decoded> window =
+        new LruByteCache<>(WINDOW_BYTES, decoded -> decoded.bytes, (id, decoded) -> { });
+    private final Map<Long, Flight> inFlight = new HashMap<>();
+
+    // Report ids, newest first; older ones found through reports/preceding are appended
+    private final List<Long> ids = new ArrayList<>();
+    private int cursor = -1;
+    private boolean reachedOldest;
+    private boolean findingOlder;
+    private DataCallback<JsonObject> waitingForOlder;
+    private long opens;
+    private long hits;
+
+    public ReportNavigator(Context context, Object tag) {
+        this.tag = tag;
+        this.api = ApiClient.getClient().create(ApiService.class);
+        this.streamingApi = ApiClient.getStreamingClient().create(ApiService.class);
+    }
+
+    // The synced summaries, newest first; the cursor stays on the report it was on
+    public void setReports(List<VesselReport> newestFirst) {
+        Long current = currentId();
+        ids.clear();
+        for (VesselReport report : newestFirst) {
+            ids.add(report.getId());
+        }
+        reachedOldest = false;
+        cursor = current == null ? -1 : ids.indexOf(current);
+    }
+
+    public Long currentId() {
+        return cursor < 0 ? null : ids.get(cursor);
+    }
+
+    // Position of the current report, 1 being the newest
+    public int getPosition() {
+        return cursor + 1;
+    }
+
+    public boolean hasNewer() {
+        return cursor > 0;
+    }
+
+    public boolean hasOlder() {
+        return cursor >= 0 && (cursor < ids.size() - 1 || !reachedOldest);
+    }
+
+    public void openNewest(DataCallback<JsonObject> callback) {
+        if (!ids.isEmpty()) {
+            cursor = 0;
+            show(callback);
+        }
+    }
+
+    public void newer(DataCallback<JsonObject> callback) {
+        if (hasNewer()) {
+            cursor--;
+            show(callback);
+        }
+    }
+
+    // May have to look the predecessor up first; the callback gets an error if there is none
+    public void older(final DataCallback<JsonObject> callback) {
+        if (cursor < 0) {
+            return;
+        }
+        if (cursor < ids.size() - 1) {
+            cursor++;
+            show(callback);
+        } else if (!reachedOldest) {
+            waitingForOlder = callback;
+            findOlder(RequestDispatcher.Priority.VISIBLE);
+        }
+    }
+
+    // Share of the reports shown that came straight from the window
+    public double getHitRate() {
+        return opens == 0 ? 0 : (double) hits / opens;
+    }
+
+    public long getOpenCount() {
+        return opens;
+    }
+
+    public long getWindowBytes() {
+        return window.bytes();
+    }
+
+    private void show(DataCallback<JsonObject> callback) {
+        long id = ids.get(cursor);
+        opens++;
+        Decoded decoded = window.get(id);
+        if (decoded != null) {
+            hits++;
+            callback.onData(decoded.report, true);
+        } else {
+            fetch(id, RequestDispatcher.Priority.VISIBLE, whileCurrent(id, callback));
+        }
+        prefetchNeighbours();
+    }
+
+    // Drops the result if the cursor moved on before it arrived
+    private DataCallback<JsonObject> whileCurrent(final long id, final DataCallback<JsonObject> callback) {
+        return new DataCallback<JsonObject>() {
+            @Override
+            public void onData(JsonObject report, boolean fromDisk) {
+                if (isCurrent(id)) {
+                    callback.onData(report, fromDisk);
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                if (isCurrent(id)) {
+                    callback.onError(t);
+                }
+            }
+        };
+    }
+
+    private boolean isCurrent(long id) {
+        Long current = currentId();
+        return current != null && current == id;
+    }
+
+    private void prefetchNeighbours() {
+        if (cursor > 0) {
+            prefetch(ids.get(cursor - 1));
+        }
+        if (cursor < ids.size() - 1) {
+            prefetch(ids.get(cursor + 1));
+        } else if (!reachedOldest) {
+            findOlder(RequestDispatcher.Priority.PREFETCH);
+        }
+    }
+
+    private void prefetch(long id) {
+        if (window.get(id) == null) {
+            fetch(id, RequestDispatcher.Priority.PREFETCH, null);
+        }
+    }
+
+    /**
+     * Joins a fetch of the same report under way. A prefetch may still be queued
+     * behind background work, so a visible request for it starts a VISIBLE fetch
+     * as well; whichever finishes first is delivered.
+     */
+    private void fetch(final long id, RequestDispatcher.Priority priority, DataCallback<JsonObject> callback) {
+        Flight flight = inFlight.get(id);
+        boolean visible = priority == RequestDispatcher.Priority.VISIBLE;
+        if (flight == null) {
+            flight = new Flight();
+            inFlight.put(id, flight);
+        } else if (flight.visible || !visible) {
+            if (callback != null) {
+                flight.waiting.add(callback);
+            }
+            return;
+        }
+        flight.visible |= visible;
+        if (callback != null) {
+            flight.waiting.add(callback);
+        }
+        dispatcher.execute(priority, RequestDispatcher.REPORTING, tag, () -> {
+            try {
+                final Decoded decoded = download(id);
+                mainHandler.post(() -> loaded(id, decoded, null));
+            } catch (IOException | RuntimeException e) {
+                mainHandler.post(() -> loaded(id, null, e));
+            }
+        });
+    }
+
+    private Decoded download(long id) throws IOException {
+        Response<ResponseBody> response = streamingApi.streamFullReport(id).execute();
+        if (!response.isSuccessful() || response.body() == null) {
+            if (response.errorBody() != null) {
+                response.errorBody().close();
+            }
+            throw new IOException("HTTP " + response.code());
+        }
+        String json = response.body().string();
+        return new Decoded(gson.fromJson(json, JsonObject.class), (long) json.length() * DECODED_BYTES_PER_CHAR);
+    }
+
+    private void loaded(long id, Decoded decoded, Throwable error) {
+        Flight flight = inFlight.remove(id);
+        if (decoded != null) {
+            window.put(id, decoded);
+        }
+        if (flight == null) {
+            return; // the other fetch of a raced pair delivered already
+        }
+        for (DataCallback<JsonObject> callback : flight.waiting) {
+            if (decoded != null) {
+                callback.onData(decoded.report, false);
+            } else {
+                callback.onError(error);
+            }
+        }
+    }
+
+    // Asks reports-service for the report before the oldest one known, then steps or prefetches
+    private void findOlder(RequestDispatcher.Priority priority) {
+        if (findingOlder || ids.isEmpty()) {
+            return;
+        }
+        findingOlder = true;
+        final long oldest = ids.get(ids.size() - 1);
+        dispatcher.execute(priority, RequestDispatcher.REPORTING, tag, () -> {
+            try {
+                Response<VesselReport> response = api.getPrecedingReport(oldest).execute();
+                final VesselReport preceding = response.isSuccessful() ? response.body() : null;
+                if (preceding == null && response.code() != 404) {
+                    throw new IOException("HTTP " + response.code());
+                }
+                mainHandler.post(() -> foundOlder(oldest, preceding, null));
+            } catch (IOException e) {
+                mainHandler.post(() -> foundOlder(oldest, null, e));
+            }
+        });
+    }
+
+    private void foundOlder(long oldest, VesselReport preceding, Throwable error) {
+        findingOlder = false;
+        DataCallback<JsonObject> callback = waitingForOlder;
+        waitingForOlder = null;
+        if (ids.isEmpty() || ids.get(ids.size() - 1) != oldest) {
+            return; // the list was replaced meanwhile
+        }
+        if (error != null) {
+            if (callback != null) {
+                callback.onError(error);
+            }
+            return;
+        }
+        if (preceding == null) {
+            reachedOldest = true;
+            if (callback != null) {
+                callback.onError(new IOException("No older report"));
+            }
+            return;
+        }
+        ids.add(preceding.getId());
+        if (callback != null && cursor == ids.size() - 2) {
+            cursor++;
+            show(callback);
+        } else if (cursor >= ids.size() - 3) {
+            prefetch(preceding.getId());
+        }
+    }
+}
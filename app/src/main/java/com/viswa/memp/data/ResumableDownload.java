@@ -0,0 +1,242 @@
+package com.viswa.memp.data;
+
+import com.viswa.memp.api.RequestDispatcher;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Okio;
+
+/**
+ * Fetches one URL into a file, surviving dropped connections and restarts.
+ *
+ * The body goes through an Okio sink straight into target.part as it arrives,
+ * so no more than a buffer segment of it is ever in memory. When a transfer
+ * breaks off, the next attempt asks for the rest with a Range header, guarded
+ * by If-Range with the validator the first response carried; if the file has
+ * changed since, the server sends it whole and the part is started over. The
+ * validator and expected length are kept next to the part in target.meta, so
+ * a download interrupted by a restart resumes too.
+ *
+ * The part becomes the target only once its length matches the one the server
+ * announced. Attempts that add bytes are retried at once; MAX_ATTEMPTS in a row
+ * that add none give up. Run it on a dispatcher thread; cancelling the task
+ * stops it, and the part is kept for next time.
+ */
+final class ResumableDownload {
+
+    interface Progress {
+        // Called on the downloading thread; total is -1 when the server did not say
+        void onProgress(long bytes, long total);
+    }
+
+    static final int MAX_ATTEMPTS = 4;
+    static final long RETRY_DELAY_MS = 1000;
+    private static final long READ_SIZE = 8192;
+
+    private final OkHttpClient client;
+    private final String url;
+    private final File target;
+    private final File part;
+    private final File meta;
+    private final RequestDispatcher dispatcher = RequestDispatcher.getInstance();
+
+    ResumableDownload(OkHttpClient client, String url, File target) {
+        this.client = client;
+        this.url = url;
+        this.target = target;
+        this.part = new File(target.getPath() + ".part");
+        this.meta = new File(target.getPath() + ".meta");
+    }
+
+    // Blocks until the target is complete; the target is returned as is if it already exists
+    File run(Progress progress) throws IOException {
+        if (target.exists()) {
+            return target;
+        }
+        File dir = target.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        int failures = 0;
+        while (true) {
+            long before = part.length();
+            try {
+                fetch(progress);
+                break;
+            } catch (IOException e) {
+                if (dispatcher.isCancelled() || e instanceof StatusException) {
+                    throw e;
+                }
+                boolean progressed = part.length() > before;
+                failures = progressed ? 0 : failures + 1;
+                if (failures >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                if (!progressed) {
+                    pause(RETRY_DELAY_MS * failures);
+                }
+            }
+        }
+        if (target.exists() && !target.delete() || !part.renameTo(target)) {
+            throw new IOException("Cannot move " + part + " to " + target);
+        }
+        meta.delete();
+        return target;
+    }
+
+    // One request for whatever the part still lacks; returns once the part is complete
+    private void fetch(Progress progress) throws IOException {
+        long offset = part.length();
+        String[] saved = offset > 0 ? readMeta() : null;
+        if (offset > 0 && saved == null) {
+            // Nothing to check the bytes we have against, so they are not worth keeping
+            part.delete();
+            offset = 0;
+        }
+        Request.Builder builder = new Request.Builder().url(url)
+            // Ranges must count bytes of the file, not of a compressed body
+            .header("Accept-Encoding", "identity");
+        if (offset > 0) {
+            builder.header("Range", "bytes=" + offset + "-").header("If-Range", saved[0]);
+        }
+        try (Response response = client.newCall(builder.build()).execute()) {
+            ResponseBody body = response.body();
+            long total;
+            boolean append;
+            if (response.code() == 206) {
+                long[] range = contentRange(response.header("Content-Range"));
+                if (range == null || range[0] != offset || range[1] != Long.parseLong(saved[1])) {
+                    discard();
+                    throw new IOException("Unexpected Content-Range " + response.header("Content-Range"));
+                }
+                total = range[1];
+                append = true;
+            } else if (response.isSuccessful()) {
+                // A first request, or the file changed and If-Range got us all of it
+                total = body.contentLength();
+                append = false;
+                offset = 0;
+                writeMeta(validatorOf(response), total);
+            } else if (response.code() == 416 && offset > 0) {
+                // The part may already hold everything, e.g. when the rename was interrupted
+                long[] range = contentRange(response.header("Content-Range"));
+                if (range != null && range[1] == offset && offset == Long.parseLong(saved[1])) {
+                    return;
+                }
+                discard();
+                throw new IOException("HTTP 416");
+            } else if (response.code() >= 500 || response.code() == 408) {
+                throw new IOException("HTTP " + response.code());
+            } else {
+                throw new StatusException(response.code());
+            }
+            long written = offset;
+            if (progress != null) {
+                progress.onProgress(written, total);
+            }
+            BufferedSource source = body.source();
+            // Closing flushes what was read before a failure, so the next attempt resumes after it
+            try (BufferedSink sink = Okio.buffer(append ? Okio.appendingSink(part) : Okio.sink(part))) {
+                long read;
+                while ((read = source.read(sink.getBuffer(), READ_SIZE)) != -1) {
+                    sink.emitCompleteSegments();
+                    written += read;
+                    if (progress != null) {
+                        progress.onProgress(written, total);
+                    }
+                }
+            }
+            if (total >= 0 && written != total || part.length() != written) {
+                if (total >= 0 && written > total) {
+                    discard();
+                }
+                throw new IOException("Expected " + total + " bytes, have " + part.length());
+            }
+        }
+    }
+
+    private void discard() {
+        part.delete();
+        meta.delete();
+    }
+
+    // "bytes first-last/total" or "bytes */total" as {first, total}; null if malformed or the total is unknown
+    static long[] contentRange(String header) {
+        if (header == null || !header.startsWith("bytes ")) {
+            return null;
+        }
+        int slash = header.indexOf('/');
+        int dash = header.indexOf('-');
+        try {
+            long total = Long.parseLong(header.substring(slash + 1).trim());
+            long first = header.charAt(6) == '*' ? -1 : Long.parseLong(header.substring(6, dash).trim());
+            return new long[] {first, total};
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    // A strong ETag, else Last-Modified; weak ETags may not be used with If-Range
+    private static String validatorOf(Response response) {
+        String etag = response.header("ETag");
+        if (etag != null && !etag.startsWith("W/")) {
+            return etag;
+        }
+        return response.header("Last-Modified");
+    }
+
+    private void writeMeta(String validator, long total) throws IOException {
+        if (validator == null || total < 0) {
+            meta.delete(); // cannot be resumed safely
+            return;
+        }
+        try (BufferedSink sink = Okio.buffer(Okio.sink(meta))) {
+            sink.writeUtf8(validator).writeUtf8("\n").writeUtf8(Long.toString(total)).writeUtf8("\n");
+        }
+    }
+
+    // {validator, total}, or null when there is none to resume against
+    private String[] readMeta() {
+        if (!meta.isFile()) {
+            return null;
+        }
+        try (BufferedSource source = Okio.buffer(Okio.source(meta))) {
+            String validator = source.readUtf8Line();
+            String total = source.readUtf8Line();
+            if (validator == null || total == null) {
+                return null;
+            }
+            Long.parseLong(total);
+            return new String[] {validator, total};
+        } catch (IOException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void pause(long ms) throws IOException {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted");
+        }
+    }
+
+    // A response no retry will change, such as 404
+    static final class StatusException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        final int code;
+
+        StatusException(int code) {
+            super("HTTP " + code);
+            this.code = code;
+        }
+    }
+}
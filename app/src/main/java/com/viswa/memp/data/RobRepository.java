@@ -0,0 +1,206 @@
+package com.viswa.memp.data;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.reflect.TypeToken;
+import com.viswa.memp.analytics.RobBalance;
+import com.viswa.memp.analytics.RobLedger;
+import com.viswa.memp.api.ApiClient;
+import com.viswa.memp.api.ApiService;
+import com.viswa.memp.api.RequestDispatcher;
+import com.viswa.memp.models.BunkerRecord;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import retrofit2.Response;
+
+/**
+ * Fuel remaining on board per ship, fuel type and BDN, kept by a RobLedger on the
+ * device instead of asked of reports-service each time a screen opens.
+ *
+ * The ledger is seeded from the stored report fuel rows and bunker records, so
+ * balances show at once and offline. A refresh then syncs the ship's bunker list
+ * and any report metrics not fetched yet, and reconciles the ledger with the
+ * server's own ROB for the ship: what the device cannot replay (corrections,
+ * reports it has not seen) is kept as an adjustment, stored with the sync state
+ * so the reconciled figures survive a restart.
+ */
+public class RobRepository {
+
+    private static final String TAG = "RobLedger";
+    private static final String FUEL_TYPES = "bunkering/lookup/fuel-types";
+    private static final String ADJUSTMENTS_KEY = "rob:adjust:";
+    // Drift worth a log line, in MT
+    private static final double DRIFT_LOGGED = 0.01;
+    private static final Type ADJUSTMENTS_TYPE = new TypeToken<Map<String, Map<String, Double>>>() { }.getType();
+
+    private static RobRepository instance;
+
+    private final FleetRepository fleet;
+    private final AnalyticsRepository analytics;
+    private final LookupCache lookups;
+    private final LocalStore store;
+    private final ApiService api;
+    private final Gson gson = new Gson();
+    private final RobLedger ledger = new RobLedger();
+    private final RequestDispatcher dispatcher = RequestDispatcher.getInstance();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Guarded by ledger
+    private boolean reportsSeeded;
+    private final Set<Integer> shipsSeeded = new HashSet<>();
+
+    public static synchronized RobRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new RobRepository(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private RobRepository(Context context) {
+        this.fleet = FleetRepository.getInstance(context);
+        this.analytics = AnalyticsRepository.getInstance(context);
+        this.lookups = LookupCache.getInstance(context);
+        this.store = fleet.getStore();
+        this.api = ApiClient.getClient().create(ApiService.class);
+    }
+
+    /**
+     * The ship's balances by fuel type key: from the stored data first (fromDisk
+     * true) when there are any, then again once bunkerings and reports are synced
+     * and reconciled. A failed refresh is an error only when nothing was stored.
+     */
+    public void getBalances(final int shipId, final DataCallback<List<RobBalance>> callback) {
+        dispatcher.execute(RequestDispatcher.Priority.VISIBLE, RequestDispatcher.BUNKER,
+            RequestDispatcher.tagOf(callback), () -> {
+                seed(shipId);
+                List<RobBalance> stored = ledger.balances(shipId);
+                if (!stored.isEmpty()) {
+                    deliver(callback, stored, true);
+                }
+                try {
+                    syncBunkerings(shipId);
+                    analytics.syncReportMetrics(shipId);
+                    reconcile(shipId);
+                } catch (IOException | RuntimeException e) {
+                    if (stored.isEmpty()) {
+                        fail(callback, e);
+                    } else {
+                        Log.d(TAG, "ROB refresh failed for ship " + shipId + ": " + e.getMessage());
+                    }
+                    return;
+                }
+                deliver(callback, ledger.balances(shipId), false);
+            });
+    }
+
+    private void seed(int shipId) {
+        synchronized (ledger) {
+            if (!reportsSeeded) {
+                // Listening first, so metrics stored while the store is read are not missed; adding twice is harmless
+                fleet.addReportMetricsListener(ledger::addReport);
+                store.forEachReportMetrics(ledger::addReport);
+                reportsSeeded = true;
+            }
+            if (shipsSeeded.add(shipId)) {
+                ledger.replaceBunkerings(shipId, store.getBunkerings(shipId));
+                String adjustments = store.getSyncState(ADJUSTMENTS_KEY + shipId);
+                if (adjustments != null) {
+                    ledger.setAdjustments(shipId, gson.<Map<String, Map<String, Double>>>fromJson(adjustments,
+                        ADJUSTMENTS_TYPE));
+                }
+            }
+        }
+    }
+
+    private void syncBunkerings(int shipId) throws IOException {
+        Response<List<BunkerRecord>> response = api.getBunkersForVessel(shipId).execute();
+        if (!response.isSuccessful() || response.body() == null) {
+            throw new IOException("HTTP " + response.code());
+        }
+        Map<String, String> keys = fuelTypeKeys();
+        List<BunkerRecord> records = response.body();
+        for (BunkerRecord record : records) {
+            if (record.getFuelTypeKey() == null) {
+                record.setFuelTypeKey(keys.get(record.getFuelTypeDescription()));
+            }
+        }
+        store.replaceBunkerings(shipId, records);
+        ledger.replaceBunkerings(shipId, records);
+    }
+
+    // Fuel type description -> key
+    private Map<String, String> fuelTypeKeys() throws IOException {
+        JsonElement types = lookups.getBlocking(FUEL_TYPES);
+        Map<String, String> keys = new HashMap<>();
+        if (types.isJsonArray()) {
+            for (JsonElement type : types.getAsJsonArray()) {
+                JsonObject row = type.getAsJsonObject();
+                String key = stringOf(row, "FuelTypeKey");
+                if (key != null) {
+                    keys.put(stringOf(row, "FuelTypeDescription"), key);
+                }
+            }
+        }
+        return keys;
+    }
+
+    private void reconcile(int shipId) throws IOException {
+        Map<String, Double> totals = quantities(api.getFuelTypesWithRob(shipId).execute(), "FuelTypeKey");
+        Set<String> fuels = new HashSet<>(totals.keySet());
+        fuels.addAll(ledger.fuelsOf(shipId));
+        for (String fuel : fuels) {
+            Double total = totals.get(fuel);
+            Map<String, Double> bdns = total != null
+                ? quantities(api.getBdnNumbersWithRob(shipId, fuel).execute(), "BDN_Number")
+                : new HashMap<String, Double>();
+            double drift = ledger.reconcile(shipId, fuel, total != null ? total : 0, bdns);
+            if (drift > DRIFT_LOGGED) {
+                Log.i(TAG, String.format(Locale.US, "Ship %d %s was %.3f MT off the server", shipId, fuel, drift));
+            }
+        }
+        store.putSyncState(ADJUSTMENTS_KEY + shipId, gson.toJson(ledger.getAdjustments(shipId)));
+    }
+
+    // [{<keyField>, Final_Quantity}] as key -> quantity
+    private static Map<String, Double> quantities(Response<JsonElement> response, String keyField)
+            throws IOException {
+        if (!response.isSuccessful() || response.body() == null || !response.body().isJsonArray()) {
+            throw new IOException("HTTP " + response.code());
+        }
+        JsonArray rows = response.body().getAsJsonArray();
+        Map<String, Double> quantities = new HashMap<>();
+        for (JsonElement element : rows) {
+            JsonObject row = element.getAsJsonObject();
+            String key = stringOf(row, keyField);
+            JsonElement quantity = row.get("Final_Quantity");
+            if (key != null && quantity != null && !quantity.isJsonNull()) {
+                quantities.put(key, quantity.getAsDouble());
+            }
+        }
+        return quantities;
+    }
+
+    private static String stringOf(JsonObject row, String name) {
+        JsonElement value = row.get(name);
+        return value != null && !value.isJsonNull() ? value.getAsString() : null;
+    }
+
+    private <T> void deliver(final DataCallback<T> callback, final T data, final boolean fromDisk) {
+        mainHandler.post(() -> callback.onData(data, fromDisk));
+    }
+
+    private <T> void fail(final DataCallback<T> callback, final Throwable t) {
+        mainHandler.post(() -> callback.onError(t));
+    }
+}
@@ -0,0 +1,123 @@
+package com.viswa.memp.data;
+
+import android.os.Handler;
+import android.os.Looper;
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+import com.viswa.memp.api.RequestDispatcher;
+import java.util.List;
+
+/**
+ * Ties a screen's requests to its lifecycle. Callbacks wrapped here carry the
+ * scope as their RequestDispatcher tag, so when the screen is destroyed its
+ * queued work is dropped, its open calls are cancelled and nothing is delivered
+ * to it any more.
+ */
+public class ScreenScope implements LifecycleEventObserver {
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private volatile boolean destroyed;
+
+    // Call from onCreate
+    public static ScreenScope of(LifecycleOwner owner) {
+        ScreenScope scope = new ScreenScope();
+        owner.getLifecycle().addObserver(scope);
+        return scope;
+    }
+
+    private ScreenScope() {
+    }
+
+    public boolean isDestroyed() {
+        return destroyed;
+    }
+
+    public <T> DataCallback<T> wrap(DataCallback<T> callback) {
+        return new ScopedCallback<>(callback);
+    }
+
+    public <T> StreamCallback<T> wrap(StreamCallback<T> callback) {
+        return new ScopedStreamCallback<>(callback);
+    }
+
+    // Runs on the main thread unless the screen is gone by then
+    public void post(final Runnable runnable) {
+        mainHandler.post(() -> {
+            if (!destroyed) {
+                runnable.run();
+            }
+        });
+    }
+
+    @Override
+    public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+        if (event == Lifecycle.Event.ON_DESTROY) {
+            destroyed = true;
+            source.getLifecycle().removeObserver(this);
+            RequestDispatcher.getInstance().cancel(this);
+        }
+    }
+
+    private class ScopedCallback<T> implements DataCallback<T>, RequestDispatcher.Tagged {
+        private final DataCallback<T> delegate;
+
+        ScopedCallback(DataCallback<T> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Object getTag() {
+            return ScreenScope.this;
+        }
+
+        @Override
+        public void onData(T data, boolean fromDisk) {
+            if (!destroyed) {
+                delegate.onData(data, fromDisk);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (!destroyed) {
+                delegate.onError(t);
+            }
+        }
+    }
+
+    private class ScopedStreamCallback<T> implements StreamCallback<T>, RequestDispatcher.Tagged {
+        private final StreamCallback<T> delegate;
+
+        ScopedStreamCallback(StreamCallback<T> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Object getTag() {
+            return ScreenScope.this;
+        }
+
+        @Override
+        public void onRows(List<T> rows) {
+            if (!destroyed) {
+                delegate.onRows(rows);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (!destroyed) {
+                delegate.onComplete();
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (!destroyed) {
+                delegate.onError(t);
+            }
+        }
+    }
+}
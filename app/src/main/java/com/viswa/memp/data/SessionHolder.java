@@ -0,0 +1,154 @@
+package com.viswa.memp.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import com.viswa.memp.api.ApiClient;
+import com.viswa.memp.api.ApiService;
+import com.viswa.memp.api.TokenAuthenticator;
+import com.viswa.memp.models.LoginRequest;
+import com.viswa.memp.models.LoginResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import retrofit2.Response;
+
+/**
+ * In-memory copy of the login state kept in the "MEMP" preferences. The
+ * preferences file is read on a background thread as soon as the process starts,
+ * so the launch activity can usually decide where to go without touching disk,
+ * and never blocks when it cannot.
+ *
+ * auth-service tokens expire after an hour and there is no refresh endpoint, so
+ * the token is renewed by signing in again with the credentials of this process's
+ * login. Those are kept in memory only; after a restart an expired token sends
+ * the user back to the login screen.
+ */
+public class SessionHolder implements TokenAuthenticator.Session {
+
+    public interface Listener {
+        void onSessionLoaded(SessionHolder session);
+    }
+
+    private static final String PREFS = "MEMP";
+
+    private static SessionHolder instance;
+
+    private final Context context;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final List<Listener> waiting = new ArrayList<>();
+
+    private volatile boolean loaded;
+    private volatile boolean loggedIn;
+    private volatile String token;
+    // Guarded by this; never written to disk
+    private LoginRequest credentials;
+
+    public static synchronized SessionHolder getInstance(Context context) {
+        if (instance == null) {
+            instance = new SessionHolder(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private SessionHolder(Context context) {
+        this.context = context;
+        executor.execute(this::load);
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public boolean isLoggedIn() {
+        return loggedIn;
+    }
+
+    @Override
+    public String getToken() {
+        return token;
+    }
+
+    // Runs the listener on the main thread once the session is known; right away if it already is
+    public void whenLoaded(Listener listener) {
+        synchronized (this) {
+            if (!loaded) {
+                waiting.add(listener);
+                return;
+            }
+        }
+        listener.onSessionLoaded(this);
+    }
+
+    public synchronized void signIn(String token, LoginRequest credentials) {
+        this.credentials = credentials;
+        this.token = token;
+        this.loggedIn = true;
+        preferences().edit()
+            .putBoolean("isLoggedIn", true)
+            .putString("userToken", token)
+            .apply();
+    }
+
+    public synchronized void signOut() {
+        this.credentials = null;
+        this.token = null;
+        this.loggedIn = false;
+        preferences().edit()
+            .remove("isLoggedIn")
+            .remove("userToken")
+            .apply();
+        FleetSyncWorker.cancel(context);
+    }
+
+    // Called by TokenAuthenticator on an OkHttp thread, at most one at a time
+    @Override
+    public String renewToken() throws IOException {
+        LoginRequest login;
+        synchronized (this) {
+            login = credentials;
+        }
+        if (login == null) {
+            return null;
+        }
+        Response<LoginResponse> response =
+            ApiClient.getClient().create(ApiService.class).login(login).execute();
+        if (response.isSuccessful() && response.body() != null && response.body().getToken() != null) {
+            signIn(response.body().getToken(), login);
+            return response.body().getToken();
+        }
+        int code = response.code();
+        if (code == 400 || code == 401 || code == 403 || code == 404) {
+            // Password changed or account disabled since the login
+            signOut();
+            return null;
+        }
+        throw new IOException("HTTP " + code);
+    }
+
+    private void load() {
+        SharedPreferences prefs = preferences();
+        final List<Listener> ready;
+        synchronized (this) {
+            // A sign-in that raced the read wins
+            if (!loggedIn) {
+                loggedIn = prefs.getBoolean("isLoggedIn", false);
+                token = prefs.getString("userToken", null);
+            }
+            loaded = true;
+            ready = new ArrayList<>(waiting);
+            waiting.clear();
+        }
+        for (final Listener listener : ready) {
+            mainHandler.post(() -> listener.onSessionLoaded(this));
+        }
+    }
+
+    private SharedPreferences preferences() {
+        return context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+}
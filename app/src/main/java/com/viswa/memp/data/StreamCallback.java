@@ -0,0 +1,12 @@
+package com.viswa.memp.data;
+
+import java.util.List;
+
+public interface StreamCallback<T> {
+    // Called for every batch as it arrives; rows are in server order
+    void onRows(List<T> rows);
+
+    void onComplete();
+
+    void onError(Throwable t);
+}
@@ -0,0 +1,212 @@
+package com.viswa.memp.data;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.viswa.memp.models.TankQuantitiesRequest;
+import com.viswa.memp.models.Vessel;
+import com.viswa.memp.models.VesselTank;
+import com.viswa.memp.models.VesselTankStatus;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * TankRepository's batching without the Android parts: the tank list indexed
+ * by IMO, the per-tank quantity cache and its TTL, and the stream of a fleet's
+ * status as whole-vessel batches of at most maxTanksPerCall tanks are
+ * refreshed. Where work runs and where results are delivered are Executors, so
+ * the repository passes the dispatcher and the main thread and tests pass
+ * their own.
+ */
+public class TankQuantities {
+
+    // POST /tanks/current-quantities, however it is called
+    public interface Service {
+        // A JSON array of {VesselTankID, CurrentQuantityMT}; throws on anything else
+        JsonElement currentQuantities(TankQuantitiesRequest request) throws IOException;
+    }
+
+    private final Service service;
+    private final int maxTanksPerCall;
+    private final long ttlMs;
+    private final Gson gson = new Gson();
+    // Tank id -> {quantity MT, epoch ms it was read}
+    private final Map<Long, double[]> quantities = new ConcurrentHashMap<>();
+    // The tank list by IMO, parsed from tankList; guarded by this
+    private JsonElement tankList;
+    private Map<String, List<VesselTank>> tanksByImo = Collections.emptyMap();
+
+    public TankQuantities(Service service, int maxTanksPerCall, long ttlMs) {
+        this.service = service;
+        this.maxTanksPerCall = maxTanksPerCall;
+        this.ttlMs = ttlMs;
+    }
+
+    // The tank list by IMO; parsed again only when the list is a new one
+    public synchronized Map<String, List<VesselTank>> index(JsonElement list, long loadedAt) {
+        if (list == tankList) {
+            return tanksByImo;
+        }
+        Map<String, List<VesselTank>> byImo = new HashMap<>();
+        if (list.isJsonArray()) {
+            for (JsonElement element : list.getAsJsonArray()) {
+                VesselTank tank = gson.fromJson(element, VesselTank.class);
+                List<VesselTank> tanks = byImo.get(tank.getImo());
+                if (tanks == null) {
+                    tanks = new ArrayList<>();
+                    byImo.put(tank.getImo(), tanks);
+                }
+                tanks.add(tank);
+                // The list carries the quantities as of its loading, which is as good as a read then
+                double[] known = quantities.get(tank.getId());
+                if (tank.getQuantityMt() != null && (known == null || known[1] < loadedAt)) {
+                    quantities.put(tank.getId(), new double[] {tank.getQuantityMt(), loadedAt});
+                }
+            }
+        }
+        tankList = list;
+        tanksByImo = byImo;
+        return byImo;
+    }
+
+    /**
+     * Delivers every vessel at once with the quantities at hand (stale ones
+     * flagged), then the refreshed ones batch by batch. The first batch is
+     * refreshed on the calling thread and the rest are handed to lanes.
+     * onComplete follows the last batch; a failed batch ends the stream with
+     * onError instead, after the others have delivered.
+     */
+    public void stream(List<Vessel> vessels, Map<String, List<VesselTank>> byImo, final long now, Executor lanes,
+                       final Executor delivery, final StreamCallback<VesselTankStatus> callback) {
+        final List<VesselTankStatus> known = new ArrayList<>(vessels.size());
+        for (Vessel vessel : vessels) {
+            List<VesselTank> tanks = byImo.get(vessel.getImo());
+            known.add(statusOf(vessel.getId(), tanks != null ? tanks : new ArrayList<VesselTank>(), now));
+        }
+        List<List<VesselTankStatus>> batches = batches(known);
+        delivery.execute(() -> callback.onRows(known));
+        if (batches.isEmpty()) {
+            delivery.execute(callback::onComplete);
+            return;
+        }
+        final AtomicInteger pending = new AtomicInteger(batches.size());
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int i = batches.size() - 1; i >= 0; i--) {
+            final List<VesselTankStatus> stale = batches.get(i);
+            Runnable refresh = () -> refresh(stale, now, pending, failure, delivery, callback);
+            if (i > 0) {
+                lanes.execute(refresh);
+            } else {
+                refresh.run();
+            }
+        }
+    }
+
+    // Drops the cached quantities so the next stream reads them all again
+    public void clear() {
+        quantities.clear();
+    }
+
+    // The stale vessels in calls of at most maxTanksPerCall tanks, each call covering whole vessels
+    private List<List<VesselTankStatus>> batches(List<VesselTankStatus> known) {
+        List<List<VesselTankStatus>> batches = new ArrayList<>();
+        List<VesselTankStatus> batch = new ArrayList<>();
+        int batchTanks = 0;
+        for (VesselTankStatus status : known) {
+            if (!status.isStale()) {
+                continue;
+            }
+            if (batchTanks > 0 && batchTanks + status.getTankCount() > maxTanksPerCall) {
+                batches.add(batch);
+                batch = new ArrayList<>();
+                batchTanks = 0;
+            }
+            batch.add(status);
+            batchTanks += status.getTankCount();
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    private void refresh(List<VesselTankStatus> stale, long now, AtomicInteger pending,
+                         AtomicReference<Throwable> failure, Executor delivery,
+                         final StreamCallback<VesselTankStatus> callback) {
+        try {
+            List<Long> ids = new ArrayList<>();
+            for (VesselTankStatus status : stale) {
+                for (int i = 0; i < status.getTankCount(); i++) {
+                    ids.add(status.getTank(i).getId());
+                }
+            }
+            // A vessel with more tanks than one call takes is the only reason for more than one here
+            for (int from = 0; from < ids.size(); from += maxTanksPerCall) {
+                fetch(ids.subList(from, Math.min(ids.size(), from + maxTanksPerCall)), now);
+            }
+            final List<VesselTankStatus> fresh = new ArrayList<>(stale.size());
+            for (VesselTankStatus status : stale) {
+                List<VesselTank> tanks = new ArrayList<>(status.getTankCount());
+                for (int i = 0; i < status.getTankCount(); i++) {
+                    tanks.add(status.getTank(i));
+                }
+                fresh.add(statusOf(status.getShipId(), tanks, now));
+            }
+            delivery.execute(() -> callback.onRows(fresh));
+        } catch (IOException | RuntimeException e) {
+            failure.compareAndSet(null, e);
+        }
+        if (pending.decrementAndGet() == 0) {
+            final Throwable t = failure.get();
+            delivery.execute(() -> {
+                if (t == null) {
+                    callback.onComplete();
+                } else {
+                    callback.onError(t);
+                }
+            });
+        }
+    }
+
+    // Quantities are stamped with the time the stream started, so they expire no later than they should
+    private void fetch(List<Long> ids, long now) throws IOException {
+        if (ids.isEmpty()) {
+            return;
+        }
+        JsonElement body = service.currentQuantities(new TankQuantitiesRequest(new ArrayList<>(ids)));
+        if (body == null || !body.isJsonArray()) {
+            throw new IOException("Unexpected tank quantities");
+        }
+        for (JsonElement element : body.getAsJsonArray()) {
+            JsonObject row = element.getAsJsonObject();
+            JsonElement quantity = row.get("CurrentQuantityMT");
+            quantities.put(row.get("VesselTankID").getAsLong(),
+                new double[] {quantity == null || quantity.isJsonNull() ? Double.NaN : quantity.getAsDouble(), now});
+        }
+        // A tank the service left out was deactivated meanwhile; it is not asked for again until the list reloads
+        for (Long id : ids) {
+            if (!quantities.containsKey(id)) {
+                quantities.put(id, new double[] {Double.NaN, now});
+            }
+        }
+    }
+
+    private VesselTankStatus statusOf(int shipId, List<VesselTank> tanks, long now) {
+        double[] mt = new double[tanks.size()];
+        boolean stale = false;
+        for (int i = 0; i < mt.length; i++) {
+            double[] quantity = quantities.get(tanks.get(i).getId());
+            mt[i] = quantity != null ? quantity[0] : Double.NaN;
+            stale |= quantity == null || now - (long) quantity[1] > ttlMs;
+        }
+        return new VesselTankStatus(shipId, tanks, mt, stale);
+    }
+}
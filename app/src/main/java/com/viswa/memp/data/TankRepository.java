@@ -0,0 +1,92 @@
+package com.viswa.memp.data;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import com.google.gson.JsonElement;
+import com.viswa.memp.api.ApiClient;
+import com.viswa.memp.api.ApiService;
+import com.viswa.memp.api.RequestDispatcher;
+import com.viswa.memp.models.Vessel;
+import com.viswa.memp.models.VesselTank;
+import com.viswa.memp.models.VesselTankStatus;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import retrofit2.Response;
+
+/**
+ * Tank quantities across the fleet, without a request per vessel.
+ *
+ * Which tanks a vessel has changes rarely, so the fleet's whole tank list
+ * (GET /tanks, one call) is kept as a lookup. Quantities change with every
+ * report; they are kept per tank for QUANTITY_TTL_MS and refreshed through
+ * POST /tanks/current-quantities, which takes any set of tank ids. A screen
+ * asks for the vessels it shows; their stale tanks go out in as few calls as
+ * MAX_TANKS_PER_CALL allows, each call covering whole vessels. Every vessel is
+ * delivered at once with what is known, then again as its call returns.
+ * The batching itself is TankQuantities; this class feeds it the lookup, the
+ * dispatcher and the main thread.
+ */
+public class TankRepository {
+
+    // The service binds one SQL parameter per id, and SQL Server takes at most 2100 per query
+    static final int MAX_TANKS_PER_CALL = 2000;
+    public static final long QUANTITY_TTL_MS = 60 * 1000L;
+    private static final String TANK_LIST = "tanks";
+
+    private static TankRepository instance;
+
+    private final ApiService api;
+    private final LookupCache lookups;
+    private final TankQuantities quantities;
+    private final RequestDispatcher dispatcher = RequestDispatcher.getInstance();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public static synchronized TankRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new TankRepository(LookupCache.getInstance(context));
+        }
+        return instance;
+    }
+
+    private TankRepository(LookupCache lookups) {
+        this.lookups = lookups;
+        this.api = ApiClient.getClient().create(ApiService.class);
+        this.quantities = new TankQuantities(request -> {
+            Response<JsonElement> response = api.getCurrentTankQuantities(request).execute();
+            if (!response.isSuccessful() || response.body() == null) {
+                throw new IOException("HTTP " + response.code());
+            }
+            return response.body();
+        }, MAX_TANKS_PER_CALL, QUANTITY_TTL_MS);
+    }
+
+    /**
+     * Streams the tank status of the vessels: all of them first with the quantities
+     * at hand (stale ones flagged), then the refreshed ones call by call. onComplete
+     * follows the last call; a failed call ends the stream with onError instead,
+     * after the others have delivered.
+     */
+    public void getTankStatus(final List<Vessel> vessels, final StreamCallback<VesselTankStatus> callback) {
+        final Object tag = RequestDispatcher.tagOf(callback);
+        dispatcher.execute(RequestDispatcher.Priority.VISIBLE, RequestDispatcher.TANKS, tag, () -> {
+            Map<String, List<VesselTank>> byImo;
+            try {
+                byImo = quantities.index(lookups.getBlocking(TANK_LIST), lookups.getLoadedAt(TANK_LIST));
+            } catch (IOException | RuntimeException e) {
+                mainHandler.post(() -> callback.onError(e));
+                return;
+            }
+            // The first batch runs here; the rest run next to it, as far as the service limit allows
+            quantities.stream(vessels, byImo, System.currentTimeMillis(),
+                work -> dispatcher.execute(RequestDispatcher.Priority.VISIBLE, RequestDispatcher.TANKS, tag, work),
+                mainHandler::post, callback);
+        });
+    }
+
+    // Drops the cached quantities so the next request reads them all again
+    public void invalidate() {
+        quantities.clear();
+    }
+}
@@ -0,0 +1,64 @@
+package com.viswa.memp.data;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import com.viswa.memp.api.ApiClient;
+import com.viswa.memp.api.ApiService;
+import com.viswa.memp.api.RequestDispatcher;
+import com.viswa.memp.api.StaleWhileRevalidate;
+import com.viswa.memp.models.TeamMember;
+import java.io.IOException;
+import java.util.List;
+
+// Team members from team-service; their photos go through ImageLoader
+public class TeamRepository {
+
+    private static final String IMAGE_PATH = "team/member_images/";
+
+    private static TeamRepository instance;
+
+    private final ApiService api;
+    private final ApiService cacheOnlyApi;
+    private final RequestDispatcher dispatcher = RequestDispatcher.getInstance();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public static synchronized TeamRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new TeamRepository();
+        }
+        return instance;
+    }
+
+    private TeamRepository() {
+        this.api = ApiClient.getClient().create(ApiService.class);
+        this.cacheOnlyApi = ApiClient.getCacheOnlyClient().create(ApiService.class);
+    }
+
+    // The cached list comes first with fromDisk set, then the server's if it changed
+    public void getMembers(final DataCallback<List<TeamMember>> callback) {
+        dispatcher.execute(RequestDispatcher.Priority.VISIBLE, RequestDispatcher.TEAM,
+            RequestDispatcher.tagOf(callback), () -> {
+                try {
+                    StaleWhileRevalidate.load(cacheOnlyApi, api, ApiService::getTeamMembers,
+                        (members, fromCache) -> deliver(callback, members, fromCache));
+                } catch (IOException e) {
+                    fail(callback, e);
+                }
+            });
+    }
+
+    // The photo's URL, or null when the member has none
+    public static String imageUrlOf(TeamMember member) {
+        String file = member.getImageFilename();
+        return file == null || file.isEmpty() ? null : ApiClient.resolveUrl(IMAGE_PATH + file);
+    }
+
+    private <T> void deliver(final DataCallback<T> callback, final T data, final boolean fromDisk) {
+        mainHandler.post(() -> callback.onData(data, fromDisk));
+    }
+
+    private <T> void fail(final DataCallback<T> callback, final Throwable t) {
+        mainHandler.post(() -> callback.onError(t));
+    }
+}
@@ -0,0 +1,394 @@
+package com.viswa.memp.geo;
+
+import com.viswa.memp.models.VesselLocation;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bucketed point quadtree over the last known vessel positions from
+ * /ships/recent-locations, kept in parallel primitive arrays so a fleet of tens of
+ * thousands of ships costs a few hundred KB and queries allocate nothing.
+ *
+ * Positions are plain latitude/longitude degrees; distances are great-circle
+ * nautical miles. Viewports and radius searches that cross the antimeridian are
+ * split into two boxes. Leaves split once they hold more than LEAF_CAPACITY points
+ * and are never merged back, so call clear() and re-add if most of the fleet
+ * disappears. Not thread-safe: confine an instance to one thread.
+ */
+public class FleetSpatialIndex {
+
+    public interface Visitor {
+        void visit(int vesselId, double latitude, double longitude);
+    }
+
+    public static final double EARTH_RADIUS_NM = 3440.065;
+
+    private static final int LEAF_CAPACITY = 16;
+    private static final int MAX_DEPTH = 20;
+
+    // Points, addressed by a dense slot number; removal moves the last slot into the gap
+    private int[] ids = new int[64];
+    private double[] lats = new double[64];
+    private double[] lons = new double[64];
+    private double[] cosLats = new double[64];
+    private int[] slotLeaf = new int[64];
+    private int[] slotPos = new int[64];
+    private int size;
+    private final Map<Integer, Integer> slotOf = new HashMap<>();
+
+    // Nodes: bounds, index of the first of four consecutive children (-1 for a leaf) and the leaf bucket
+    private double[] minLat = new double[64];
+    private double[] minLon = new double[64];
+    private double[] maxLat = new double[64];
+    private double[] maxLon = new double[64];
+    private int[] firstChild = new int[64];
+    private int[] depth = new int[64];
+    private int[][] bucket = new int[64][];
+    private int[] bucketSize = new int[64];
+    private int nodeCount;
+
+    private final int[] stack = new int[3 * MAX_DEPTH + 4];
+    private int[] candidateIds = new int[64];
+    private double[] candidateHav = new double[64];
+    private int candidateCount;
+
+    public FleetSpatialIndex() {
+        clear();
+    }
+
+    public void clear() {
+        size = 0;
+        slotOf.clear();
+        nodeCount = 0;
+        newNode(-90, -180, 90, 180, 0);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int vesselId) {
+        return slotOf.containsKey(vesselId);
+    }
+
+    // Adds every vessel that has a position; ones already indexed are moved
+    public void putAll(Iterable<VesselLocation> locations) {
+        for (VesselLocation location : locations) {
+            if (location.hasPosition()) {
+                put(location.getVesselId(), location.getLatitude(), location.getLongitude());
+            }
+        }
+    }
+
+    // Inserts a vessel or moves it to its new position
+    public void put(int vesselId, double latitude, double longitude) {
+        double lat = Math.max(-90, Math.min(90, latitude));
+        double lon = normalizeLongitude(longitude);
+        Integer existing = slotOf.get(vesselId);
+        if (existing != null) {
+            int slot = existing;
+            int leaf = findLeaf(lat, lon);
+            setPoint(slot, lat, lon);
+            if (leaf != slotLeaf[slot]) {
+                removeFromLeaf(slot);
+                addToLeaf(leaf, slot);
+            }
+            return;
+        }
+        int slot = size++;
+        ensureSlotCapacity(size);
+        ids[slot] = vesselId;
+        setPoint(slot, lat, lon);
+        slotOf.put(vesselId, slot);
+        addToLeaf(findLeaf(lat, lon), slot);
+    }
+
+    public boolean remove(int vesselId) {
+        Integer removed = slotOf.remove(vesselId);
+        if (removed == null) {
+            return false;
+        }
+        int slot = removed;
+        removeFromLeaf(slot);
+        int last = --size;
+        if (slot != last) {
+            ids[slot] = ids[last];
+            lats[slot] = lats[last];
+            lons[slot] = lons[last];
+            cosLats[slot] = cosLats[last];
+            slotLeaf[slot] = slotLeaf[last];
+            slotPos[slot] = slotPos[last];
+            bucket[slotLeaf[slot]][slotPos[slot]] = slot;
+            slotOf.put(ids[slot], slot);
+        }
+        return true;
+    }
+
+    /**
+     * Visits every vessel inside the box. A west edge greater than the east edge
+     * means the viewport crosses the antimeridian. Returns the number visited.
+     */
+    public int visitViewport(double south, double west, double north, double east, Visitor visitor) {
+        return searchWrapped(south, normalizeLongitude(west), north, normalizeLongitude(east), 0, 0, -1, visitor);
+    }
+
+    // Visits every vessel within radiusNm of the point and returns the number visited
+    public int visitWithinRadius(double latitude, double longitude, double radiusNm, Visitor visitor) {
+        double radius = radiusNm / EARTH_RADIUS_NM;
+        double lat = Math.max(-90, Math.min(90, latitude));
+        double lon = normalizeLongitude(longitude);
+        double halfAngle = Math.sin(Math.min(radius, Math.PI) / 2);
+        double maxHav = halfAngle * halfAngle;
+
+        double dLat = Math.toDegrees(radius);
+        double south = lat - dLat;
+        double north = lat + dLat;
+        if (south <= -90 || north >= 90) {
+            // The circle reaches a pole, so every longitude is in play
+            return searchBox(Math.max(south, -90), -180, Math.min(north, 90), 180, lat, lon, maxHav, visitor);
+        }
+        double sinRatio = Math.sin(radius) / Math.cos(Math.toRadians(lat));
+        double dLon = sinRatio >= 1 ? 180 : Math.toDegrees(Math.asin(sinRatio));
+        if (dLon >= 180) {
+            return searchBox(south, -180, north, 180, lat, lon, maxHav, visitor);
+        }
+        return searchWrapped(south, normalizeLongitude(lon - dLon), north, normalizeLongitude(lon + dLon),
+            lat, lon, maxHav, visitor);
+    }
+
+    /**
+     * Finds the n vessels closest to the point, e.g. a port position, nearest first.
+     * Ids go into outIds and distances in nautical miles into outDistancesNm (either
+     * may be null). Returns how many were found, at most n.
+     */
+    public int nearest(double latitude, double longitude, int n, int[] outIds, double[] outDistancesNm) {
+        if (n <= 0 || size == 0) {
+            return 0;
+        }
+        int wanted = Math.min(n, size);
+        // Start from the radius that would hold about n points if the fleet were spread evenly
+        double radiusNm = Math.max(1, 3 * Math.sqrt((double) wanted / size) * EARTH_RADIUS_NM);
+        while (true) {
+            candidateCount = 0;
+            visitWithinRadius(latitude, longitude, radiusNm, null);
+            if (candidateCount >= wanted || radiusNm >= Math.PI * EARTH_RADIUS_NM) {
+                break;
+            }
+            radiusNm = Math.min(radiusNm * 4, Math.PI * EARTH_RADIUS_NM);
+        }
+        // Everything outside the radius is farther than anything inside it, so the n best are here
+        int found = Math.min(wanted, candidateCount);
+        for (int i = 0; i < found; i++) {
+            int best = i;
+            for (int j = i + 1; j < candidateCount; j++) {
+                if (candidateHav[j] < candidateHav[best]) {
+                    best = j;
+                }
+            }
+            swapCandidates(i, best);
+            if (outIds != null) {
+                outIds[i] = candidateIds[i];
+            }
+            if (outDistancesNm != null) {
+                outDistancesNm[i] = 2 * Math.asin(Math.sqrt(Math.min(1, candidateHav[i]))) * EARTH_RADIUS_NM;
+            }
+        }
+        return found;
+    }
+
+    public static double distanceNm(double lat1, double lon1, double lat2, double lon2) {
+        double hav = haversine(Math.toRadians(lat1), Math.cos(Math.toRadians(lat1)),
+            Math.toRadians(lat2), Math.cos(Math.toRadians(lat2)), Math.toRadians(lon2 - lon1));
+        return 2 * Math.asin(Math.sqrt(Math.min(1, hav))) * EARTH_RADIUS_NM;
+    }
+
+    private int searchWrapped(double south, double west, double north, double east,
+                              double lat, double lon, double maxHav, Visitor visitor) {
+        if (west <= east) {
+            return searchBox(south, west, north, east, lat, lon, maxHav, visitor);
+        }
+        return searchBox(south, west, north, 180, lat, lon, maxHav, visitor)
+            + searchBox(south, -180, north, east, lat, lon, maxHav, visitor);
+    }
+
+    // A negative maxHav skips the distance test; a null visitor collects candidates for nearest()
+    private int searchBox(double south, double west, double north, double east,
+                          double lat, double lon, double maxHav, Visitor visitor) {
+        double latRad = Math.toRadians(lat);
+        double cosLat = Math.cos(latRad);
+        int visited = 0;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (maxLat[node] < south || minLat[node] > north || maxLon[node] < west || minLon[node] > east) {
+                continue;
+            }
+            if (firstChild[node] >= 0) {
+                for (int c = 0; c < 4; c++) {
+                    stack[top++] = firstChild[node] + c;
+                }
+                continue;
+            }
+            int[] items = bucket[node];
+            for (int i = 0, count = bucketSize[node]; i < count; i++) {
+                int slot = items[i];
+                double pLat = lats[slot];
+                double pLon = lons[slot];
+                if (pLat < south || pLat > north || pLon < west || pLon > east) {
+                    continue;
+                }
+                double hav = 0;
+                if (maxHav >= 0) {
+                    hav = haversine(latRad, cosLat, Math.toRadians(pLat), cosLats[slot], Math.toRadians(pLon - lon));
+                    if (hav > maxHav) {
+                        continue;
+                    }
+                }
+                if (visitor != null) {
+                    visitor.visit(ids[slot], pLat, pLon);
+                } else {
+                    addCandidate(ids[slot], hav);
+                }
+                visited++;
+            }
+        }
+        return visited;
+    }
+
+    // Haversine of the central angle, sin^2(angle / 2); comparing these avoids an asin per point
+    private static double haversine(double lat1, double cosLat1, double lat2, double cosLat2, double dLon) {
+        double sinLat = Math.sin((lat2 - lat1) / 2);
+        double sinLon = Math.sin(dLon / 2);
+        return sinLat * sinLat + cosLat1 * cosLat2 * sinLon * sinLon;
+    }
+
+    private void addCandidate(int vesselId, double hav) {
+        if (candidateCount == candidateIds.length) {
+            candidateIds = Arrays.copyOf(candidateIds, candidateCount * 2);
+            candidateHav = Arrays.copyOf(candidateHav, candidateCount * 2);
+        }
+        candidateIds[candidateCount] = vesselId;
+        candidateHav[candidateCount] = hav;
+        candidateCount++;
+    }
+
+    private void swapCandidates(int i, int j) {
+        int id = candidateIds[i];
+        candidateIds[i] = candidateIds[j];
+        candidateIds[j] = id;
+        double hav = candidateHav[i];
+        candidateHav[i] = candidateHav[j];
+        candidateHav[j] = hav;
+    }
+
+    private void setPoint(int slot, double lat, double lon) {
+        lats[slot] = lat;
+        lons[slot] = lon;
+        cosLats[slot] = Math.cos(Math.toRadians(lat));
+    }
+
+    private int findLeaf(double lat, double lon) {
+        int node = 0;
+        while (firstChild[node] >= 0) {
+            node = firstChild[node] + quadrant(node, lat, lon);
+        }
+        return node;
+    }
+
+    private int quadrant(int node, double lat, double lon) {
+        double midLat = (minLat[node] + maxLat[node]) / 2;
+        double midLon = (minLon[node] + maxLon[node]) / 2;
+        return (lat >= midLat ? 2 : 0) + (lon >= midLon ? 1 : 0);
+    }
+
+    private void addToLeaf(int leaf, int slot) {
+        int count = bucketSize[leaf];
+        if (count == bucket[leaf].length) {
+            bucket[leaf] = Arrays.copyOf(bucket[leaf], count * 2);
+        }
+        bucket[leaf][count] = slot;
+        bucketSize[leaf] = count + 1;
+        slotLeaf[slot] = leaf;
+        slotPos[slot] = count;
+        if (count + 1 > LEAF_CAPACITY && depth[leaf] < MAX_DEPTH) {
+            split(leaf);
+        }
+    }
+
+    private void removeFromLeaf(int slot) {
+        int leaf = slotLeaf[slot];
+        int pos = slotPos[slot];
+        int last = --bucketSize[leaf];
+        if (pos != last) {
+            int moved = bucket[leaf][last];
+            bucket[leaf][pos] = moved;
+            slotPos[moved] = pos;
+        }
+    }
+
+    private void split(int leaf) {
+        double midLat = (minLat[leaf] + maxLat[leaf]) / 2;
+        double midLon = (minLon[leaf] + maxLon[leaf]) / 2;
+        int childDepth = depth[leaf] + 1;
+        int first = newNode(minLat[leaf], minLon[leaf], midLat, midLon, childDepth);
+        newNode(minLat[leaf], midLon, midLat, maxLon[leaf], childDepth);
+        newNode(midLat, minLon[leaf], maxLat[leaf], midLon, childDepth);
+        newNode(midLat, midLon, maxLat[leaf], maxLon[leaf], childDepth);
+
+        int[] items = bucket[leaf];
+        int count = bucketSize[leaf];
+        firstChild[leaf] = first;
+        bucket[leaf] = null;
+        bucketSize[leaf] = 0;
+        for (int i = 0; i < count; i++) {
+            int slot = items[i];
+            addToLeaf(first + quadrant(leaf, lats[slot], lons[slot]), slot);
+        }
+    }
+
+    private int newNode(double south, double west, double north, double east, int nodeDepth) {
+        if (nodeCount == firstChild.length) {
+            int capacity = nodeCount * 2;
+            minLat = Arrays.copyOf(minLat, capacity);
+            minLon = Arrays.copyOf(minLon, capacity);
+            maxLat = Arrays.copyOf(maxLat, capacity);
+            maxLon = Arrays.copyOf(maxLon, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            depth = Arrays.copyOf(depth, capacity);
+            bucket = Arrays.copyOf(bucket, capacity);
+            bucketSize = Arrays.copyOf(bucketSize, capacity);
+        }
+        int node = nodeCount++;
+        minLat[node] = south;
+        minLon[node] = west;
+        maxLat[node] = north;
+        maxLon[node] = east;
+        firstChild[node] = -1;
+        depth[node] = nodeDepth;
+        bucket[node] = new int[LEAF_CAPACITY + 1];
+        bucketSize[node] = 0;
+        return node;
+    }
+
+    private void ensureSlotCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int grown = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, grown);
+        lats = Arrays.copyOf(lats, grown);
+        lons = Arrays.copyOf(lons, grown);
+        cosLats = Arrays.copyOf(cosLats, grown);
+        slotLeaf = Arrays.copyOf(slotLeaf, grown);
+        slotPos = Arrays.copyOf(slotPos, grown);
+    }
+
+    private static double normalizeLongitude(double lon) {
+        if (lon >= -180 && lon < 180) {
+            return lon;
+        }
+        return ((lon + 180) % 360 + 360) % 360 - 180;
+    }
+}
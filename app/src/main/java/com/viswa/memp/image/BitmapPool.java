@@ -0,0 +1,59 @@
+package com.viswa.memp.image;
+
+import android.graphics.Bitmap;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bitmaps that no view shows any more, kept for BitmapFactory.Options.inBitmap so
+ * a scrolling list decodes into existing allocations instead of churning the
+ * heap. Bounded by bytes; the oldest bitmap goes first.
+ */
+class BitmapPool {
+
+    // A larger allocation than this many times the request is not worth pinning for it
+    private static final int MAX_WASTE = 4;
+
+    private final long maxBytes;
+    // Guarded by this, oldest first
+    private final List<Bitmap> bitmaps = new ArrayList<>();
+    private long bytes;
+
+    BitmapPool(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    synchronized void put(Bitmap bitmap) {
+        if (bitmap.isRecycled() || !bitmap.isMutable() || bitmap.getAllocationByteCount() > maxBytes) {
+            return;
+        }
+        bitmaps.add(bitmap);
+        bytes += bitmap.getAllocationByteCount();
+        while (bytes > maxBytes) {
+            bytes -= bitmaps.remove(0).getAllocationByteCount();
+        }
+    }
+
+    // The smallest pooled bitmap holding at least byteCount, or null
+    synchronized Bitmap get(int byteCount) {
+        int best = -1;
+        for (int i = 0; i < bitmaps.size(); i++) {
+            int size = bitmaps.get(i).getAllocationByteCount();
+            if (size >= byteCount && size <= (long) byteCount * MAX_WASTE
+                && (best < 0 || size < bitmaps.get(best).getAllocationByteCount())) {
+                best = i;
+            }
+        }
+        if (best < 0) {
+            return null;
+        }
+        Bitmap bitmap = bitmaps.remove(best);
+        bytes -= bitmap.getAllocationByteCount();
+        return bitmap;
+    }
+
+    synchronized void clear() {
+        bitmaps.clear();
+        bytes = 0;
+    }
+}
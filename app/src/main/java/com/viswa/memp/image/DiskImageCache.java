@@ -0,0 +1,139 @@
+package com.viswa.memp.image;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Downloaded image files, one per URL, in a directory bounded by bytes. The
+ * index is rebuilt from the files' last-modified times on first use, so the
+ * least recently used files are deleted first across restarts too.
+ */
+class DiskImageCache {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final File dir;
+    private final LruByteCache<String, CachedFile> index;
+    private boolean indexed;
+
+    // The length is read once, when the file is indexed: a file deleted or replaced later must free what it took
+    private static final class CachedFile {
+        final File file;
+        final long length;
+
+        CachedFile(File file) {
+            this.file = file;
+            this.length = file.length();
+        }
+    }
+
+    DiskImageCache(File dir, long maxBytes) {
+        this.dir = dir;
+        this.index = new LruByteCache<>(maxBytes, cached -> cached.length, (name, cached) -> cached.file.delete());
+    }
+
+    // Bytes the index accounts for
+    synchronized long bytes() {
+        return index.bytes();
+    }
+
+    // The cached file for the URL, or null
+    synchronized File get(String url) {
+        ensureIndexed();
+        CachedFile cached = index.get(nameOf(url));
+        if (cached == null) {
+            return null;
+        }
+        File file = cached.file;
+        if (!file.exists()) {
+            index.remove(nameOf(url));
+            return null;
+        }
+        file.setLastModified(System.currentTimeMillis());
+        return file;
+    }
+
+    /**
+     * Copies the stream into the cache and returns the file. The copy is written
+     * beside the target and renamed, so a reader never sees half a file.
+     */
+    File put(String url, InputStream in) throws IOException {
+        String name = nameOf(url);
+        // Indexed before the copy starts: the first scan deletes every .tmp it finds
+        synchronized (this) {
+            ensureIndexed();
+        }
+        File tmp = File.createTempFile(name, ".tmp", ensureDir());
+        try {
+            OutputStream out = new FileOutputStream(tmp);
+            try {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            } finally {
+                out.close();
+            }
+            synchronized (this) {
+                // Drops (and deletes) a file another download of the same URL wrote meanwhile
+                index.remove(name);
+                File file = new File(dir, name);
+                if (!tmp.renameTo(file)) {
+                    throw new IOException("Cannot write " + file);
+                }
+                index.put(name, new CachedFile(file));
+                return file;
+            }
+        } finally {
+            tmp.delete();
+        }
+    }
+
+    private File ensureDir() throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        return dir;
+    }
+
+    // Caller holds the lock
+    private void ensureIndexed() {
+        if (indexed) {
+            return;
+        }
+        indexed = true;
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : files) {
+            if (file.getName().endsWith(".tmp")) {
+                file.delete(); // left by a process that died mid-download
+            } else {
+                index.put(file.getName(), new CachedFile(file));
+            }
+        }
+    }
+
+    static String nameOf(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(url.getBytes(UTF_8));
+            StringBuilder name = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                name.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return name.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
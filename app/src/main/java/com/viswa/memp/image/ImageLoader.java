@@ -0,0 +1,263 @@
+package com.viswa.memp.image;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.DisplayMetrics;
+import android.util.Log;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import com.viswa.memp.api.ApiClient;
+import com.viswa.memp.api.RequestDispatcher;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Loads photos into ImageViews, decoded to the size of the view.
+ *
+ * - Memory: decoded bitmaps in an LRU bounded by bytes (an eighth of the heap),
+ *   keyed by URL and target size.
+ * - Disk: the downloaded files, so a photo is fetched once across restarts.
+ * - De-duplication: views asking for the same image while it loads share one
+ *   fetch and decode. A view rebound (a recycled row) only gets the image it
+ *   asked for last, and a load nobody waits for any more is skipped.
+ * - Reuse: bitmaps the memory cache drops are decoded into again via inBitmap,
+ *   but only once no view shows them.
+ *
+ * Call load() on the main thread.
+ */
+public class ImageLoader {
+
+    private static final String TAG = "ImageLoader";
+    private static final long DISK_CACHE_BYTES = 50L * 1024 * 1024;
+
+    private static ImageLoader instance;
+
+    private final OkHttpClient client;
+    private final RequestDispatcher dispatcher = RequestDispatcher.getInstance();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final DisplayMetrics displayMetrics;
+    private final LruByteCache<String, Bitmap> memory;
+    private final BitmapPool pool;
+    private final DiskImageCache disk;
+    // Guarded by this: the views waiting per key, and the key each view asked for last
+    private final Map<String, List<ImageView>> pending = new HashMap<>();
+    private final WeakHashMap<ImageView, String> targets = new WeakHashMap<>();
+    // Main thread only: what each view shows and how many views show each bitmap
+    private final WeakHashMap<ImageView, Bitmap> shown = new WeakHashMap<>();
+    private final WeakHashMap<Bitmap, Integer> showCount = new WeakHashMap<>();
+    private final Set<Bitmap> evictedWhileShown = Collections.newSetFromMap(new WeakHashMap<Bitmap, Boolean>());
+
+    public static synchronized ImageLoader getInstance(Context context) {
+        if (instance == null) {
+            instance = new ImageLoader(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    // From Application.onTrimMemory; does nothing before the first image was loaded
+    public static synchronized void trimMemory(int level) {
+        if (instance != null) {
+            instance.trim(level);
+        }
+    }
+
+    private ImageLoader(Context context) {
+        client = ApiClient.getStreamingHttpClient();
+        displayMetrics = context.getResources().getDisplayMetrics();
+        long maxMemory = Runtime.getRuntime().maxMemory();
+        pool = new BitmapPool(maxMemory / 32);
+        memory = new LruByteCache<>(maxMemory / 8, Bitmap::getAllocationByteCount, (key, bitmap) -> evicted(bitmap));
+        disk = new DiskImageCache(new File(context.getCacheDir(), "images"), DISK_CACHE_BYTES);
+    }
+
+    // Shows the placeholder until the image is there; a null URL leaves the placeholder
+    public void load(final String url, final ImageView view, int placeholder) {
+        if (url == null) {
+            synchronized (this) {
+                targets.remove(view);
+            }
+            view.setImageResource(placeholder);
+            show(view, null);
+            return;
+        }
+        ViewGroup.LayoutParams params = view.getLayoutParams();
+        final int width = targetSide(view.getWidth(), params == null ? 0 : params.width, displayMetrics.widthPixels);
+        final int height = targetSide(view.getHeight(), params == null ? 0 : params.height,
+            displayMetrics.heightPixels);
+        final String key = url + '@' + width + 'x' + height;
+        Bitmap cached = memory.get(key);
+        synchronized (this) {
+            targets.put(view, key);
+        }
+        if (cached != null) {
+            show(view, cached);
+            return;
+        }
+        view.setImageResource(placeholder);
+        show(view, null);
+        synchronized (this) {
+            List<ImageView> waiting = pending.get(key);
+            if (waiting != null) {
+                if (!waiting.contains(view)) {
+                    waiting.add(view);
+                }
+                return;
+            }
+            waiting = new ArrayList<>(2);
+            waiting.add(view);
+            pending.put(key, waiting);
+        }
+        dispatcher.execute(RequestDispatcher.Priority.VISIBLE, RequestDispatcher.IMAGES, null, () -> {
+            final Bitmap bitmap = isWanted(key) ? fetch(url, width, height) : null;
+            mainHandler.post(() -> finished(key, bitmap));
+        });
+    }
+
+    private void finished(String key, Bitmap bitmap) {
+        List<ImageView> waiting;
+        List<ImageView> targeted = new ArrayList<>();
+        synchronized (this) {
+            waiting = pending.remove(key);
+            for (ImageView view : waiting) {
+                if (key.equals(targets.get(view))) {
+                    targeted.add(view);
+                }
+            }
+        }
+        if (bitmap == null) {
+            return;
+        }
+        // Shown before it is cached, so a bitmap too large for the cache is not pooled under the views
+        for (ImageView view : targeted) {
+            show(view, bitmap);
+        }
+        memory.put(key, bitmap);
+    }
+
+    // Worker thread: whether any view still waits for the key
+    private synchronized boolean isWanted(String key) {
+        List<ImageView> waiting = pending.get(key);
+        if (waiting != null) {
+            for (ImageView view : waiting) {
+                if (key.equals(targets.get(view))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private Bitmap fetch(String url, int width, int height) {
+        try {
+            File file = disk.get(url);
+            if (file == null) {
+                Response response = client.newCall(new Request.Builder().url(url).build()).execute();
+                try {
+                    if (!response.isSuccessful() || response.body() == null) {
+                        Log.w(TAG, "HTTP " + response.code() + " for " + url);
+                        return null;
+                    }
+                    file = disk.put(url, response.body().byteStream());
+                } finally {
+                    response.close();
+                }
+            }
+            return decode(file, width, height);
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Unable to load " + url, e);
+            return null;
+        }
+    }
+
+    // Decodes only as many pixels as the view shows, into a pooled bitmap where one fits
+    private Bitmap decode(File file, int width, int height) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getPath(), options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+        int sample = ImageSizing.sampleSize(options.outWidth, options.outHeight, width, height);
+        options.inSampleSize = sample;
+        options.inJustDecodeBounds = false;
+        options.inMutable = true;
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        options.inBitmap = pool.get(ImageSizing.sampledSide(options.outWidth, sample)
+            * ImageSizing.sampledSide(options.outHeight, sample) * 4);
+        try {
+            return BitmapFactory.decodeFile(file.getPath(), options);
+        } catch (IllegalArgumentException e) {
+            // The pooled bitmap did not suit this image after all
+            options.inBitmap = null;
+            return BitmapFactory.decodeFile(file.getPath(), options);
+        }
+    }
+
+    // Main thread; call after the view was given its new drawable
+    private void show(ImageView view, Bitmap bitmap) {
+        Bitmap previous;
+        if (bitmap == null) {
+            previous = shown.remove(view);
+        } else {
+            view.setImageBitmap(bitmap);
+            previous = shown.put(view, bitmap);
+            Integer count = showCount.get(bitmap);
+            showCount.put(bitmap, count == null ? 1 : count + 1);
+        }
+        if (previous != null) {
+            release(previous);
+        }
+    }
+
+    private void release(Bitmap bitmap) {
+        Integer count = showCount.get(bitmap);
+        if (count == null || count > 1) {
+            if (count != null) {
+                showCount.put(bitmap, count - 1);
+            }
+            return;
+        }
+        showCount.remove(bitmap);
+        if (evictedWhileShown.remove(bitmap)) {
+            pool.put(bitmap);
+        }
+    }
+
+    // Main thread, from the memory cache
+    private void evicted(Bitmap bitmap) {
+        if (showCount.containsKey(bitmap)) {
+            evictedWhileShown.add(bitmap);
+        } else {
+            pool.put(bitmap);
+        }
+    }
+
+    private void trim(final int level) {
+        mainHandler.post(() -> {
+            pool.clear();
+            memory.trimTo(level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE ? 0 : memory.maxBytes() / 2);
+        });
+    }
+
+    // The laid-out size, else the size in the layout, else the screen
+    private static int targetSide(int measured, int layout, int screen) {
+        if (measured > 0) {
+            return measured;
+        }
+        return layout > 0 ? layout : screen;
+    }
+}
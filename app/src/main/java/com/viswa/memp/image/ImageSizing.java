@@ -0,0 +1,30 @@
+package com.viswa.memp.image;
+
+// Sample-size arithmetic for decoding images no larger than the view they go into
+public final class ImageSizing {
+
+    private ImageSizing() {
+    }
+
+    /**
+     * The largest power of two the source can be divided by while both sides stay
+     * at least the requested size; BitmapFactory only honours powers of two.
+     * A request of 0 on a side leaves that side unconstrained.
+     */
+    public static int sampleSize(int sourceWidth, int sourceHeight, int width, int height) {
+        int sample = 1;
+        if (width <= 0 && height <= 0) {
+            return sample;
+        }
+        while ((width <= 0 || sourceWidth / (sample * 2) >= width)
+            && (height <= 0 || sourceHeight / (sample * 2) >= height)) {
+            sample *= 2;
+        }
+        return sample;
+    }
+
+    // Side length after decoding with the sample size; decoders round up
+    public static int sampledSide(int source, int sample) {
+        return (source + sample - 1) / sample;
+    }
+}
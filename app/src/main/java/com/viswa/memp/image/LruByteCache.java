@@ -0,0 +1,164 @@
+package com.viswa.memp.image;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Least-recently-used cache bounded by the bytes its values take rather than by
+ * entry count, so a handful of large photos cannot crowd out the memory budget
+ * the way a fixed number of entries would. Every value that leaves the cache
+ * (evicted, replaced, removed or too large to keep) is handed to the listener,
+ * outside the lock, so it can be recycled or deleted.
+ */
+public class LruByteCache<K, V> {
+
+    public interface Sizer<V> {
+        // Must not change while the value is cached, or the byte count drifts
+        long sizeOf(V value);
+    }
+
+    public interface EvictionListener<K, V> {
+        void onEvicted(K key, V value);
+    }
+
+    private final long maxBytes;
+    private final Sizer<V> sizer;
+    private final EvictionListener<K, V> listener;
+    // Access order: the eldest entry is the least recently used
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    public LruByteCache(long maxBytes, Sizer<V> sizer, EvictionListener<K, V> listener) {
+        this.maxBytes = maxBytes;
+        this.sizer = sizer;
+        this.listener = listener;
+    }
+
+    public V get(K key) {
+        synchronized (this) {
+            V value = entries.get(key);
+            if (value != null) {
+                hitCount++;
+            } else {
+                missCount++;
+            }
+            return value;
+        }
+    }
+
+    public void put(K key, V value) {
+        List<Map.Entry<K, V>> evicted = new ArrayList<>(1);
+        synchronized (this) {
+            long size = sizer.sizeOf(value);
+            V previous = entries.remove(key);
+            if (previous != null) {
+                bytes -= sizer.sizeOf(previous);
+                if (previous != value) {
+                    evicted.add(new Entry<>(key, previous));
+                }
+            }
+            if (size > maxBytes) {
+                evicted.add(new Entry<>(key, value));
+            } else {
+                entries.put(key, value);
+                bytes += size;
+                trim(maxBytes, evicted);
+            }
+        }
+        notifyEvicted(evicted);
+    }
+
+    public void remove(K key) {
+        V value;
+        synchronized (this) {
+            value = entries.remove(key);
+            if (value == null) {
+                return;
+            }
+            bytes -= sizer.sizeOf(value);
+        }
+        listener.onEvicted(key, value);
+    }
+
+    // Drops least recently used entries until at most targetBytes remain, e.g. on low memory
+    public void trimTo(long targetBytes) {
+        List<Map.Entry<K, V>> evicted = new ArrayList<>();
+        synchronized (this) {
+            trim(targetBytes, evicted);
+        }
+        notifyEvicted(evicted);
+    }
+
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long hitCount() {
+        return hitCount;
+    }
+
+    public synchronized long missCount() {
+        return missCount;
+    }
+
+    public synchronized long evictionCount() {
+        return evictionCount;
+    }
+
+    // Caller holds the lock
+    private void trim(long targetBytes, List<Map.Entry<K, V>> evicted) {
+        Iterator<Map.Entry<K, V>> it = entries.entrySet().iterator();
+        while (bytes > targetBytes && it.hasNext()) {
+            Map.Entry<K, V> eldest = it.next();
+            it.remove();
+            bytes -= sizer.sizeOf(eldest.getValue());
+            evictionCount++;
+            evicted.add(new Entry<>(eldest.getKey(), eldest.getValue()));
+        }
+    }
+
+    private void notifyEvicted(List<Map.Entry<K, V>> evicted) {
+        for (Map.Entry<K, V> entry : evicted) {
+            listener.onEvicted(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private static final class Entry<K, V> implements Map.Entry<K, V> {
+        private final K key;
+        private final V value;
+
+        Entry(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.viswa.memp.models;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * A file attached to a voyage, a voyage leg or a bunker record. voyage-service
+ * lists them with VoyageID and serves them through /voyages/attachments/:id/download;
+ * bunker-service lists them with the stored Filename, served as a static file.
+ */
+public class Attachment {
+    @SerializedName("Attachment_Id")
+    private long id;
+    @SerializedName("VoyageID")
+    private Long voyageId;
+    @SerializedName("VoyageLegID")
+    private Long voyageLegId;
+    @SerializedName("Filename")
+    private String filename;
+    @SerializedName("OriginalName")
+    private String originalName;
+    @SerializedName("MimeType")
+    private String mimeType;
+    @SerializedName("UploadDate")
+    private String uploadDate;
+
+    public long getId() { return id; }
+    public Long getVoyageId() { return voyageId; }
+    public Long getVoyageLegId() { return voyageLegId; }
+    // Bunker attachments only: the stored file under bunkering/uploads/bunker_attachments/
+    public String getFilename() { return filename; }
+    public String getOriginalName() { return originalName; }
+    public String getMimeType() { return mimeType; }
+    public String getUploadDate() { return uploadDate; }
+
+    public boolean isBunkerAttachment() { return filename != null; }
+}
@@ -0,0 +1,40 @@
+package com.viswa.memp.models;
+
+import com.google.gson.annotations.SerializedName;
+
+// A bunkering operation as listed by bunker-service's GET /bunker/vessel/:vesselId; dates are UTC
+public class BunkerRecord {
+    @SerializedName("BunkerRecordID")
+    private long id;
+    @SerializedName("BunkerDate")
+    private String date;
+    @SerializedName("BDN_Number")
+    private String bdnNumber;
+    @SerializedName("FuelTypeKey")
+    private String fuelTypeKey;
+    @SerializedName("FuelTypeDescription")
+    private String fuelTypeDescription;
+    @SerializedName("Bunkered_Quantity")
+    private double quantity;
+    // BUNKER, LO_TOPUP, INITIAL_FILL, DEBUNKER or CORRECTION
+    @SerializedName("OperationType")
+    private String operationType;
+    // FUEL or LUBE_OIL
+    @SerializedName("BunkerCategory")
+    private String category;
+    @SerializedName("IsActive")
+    private Integer active;
+
+    public long getId() { return id; }
+    public String getDate() { return date; }
+    public String getBdnNumber() { return bdnNumber; }
+    public String getFuelTypeKey() { return fuelTypeKey; }
+    public String getFuelTypeDescription() { return fuelTypeDescription; }
+    public double getQuantity() { return quantity; }
+    public String getOperationType() { return operationType; }
+    public String getCategory() { return category; }
+    public boolean isActive() { return active == null || active != 0; }
+
+    // The vessel list names the fuel by description only; the key is filled in from the fuel type lookup
+    public void setFuelTypeKey(String fuelTypeKey) { this.fuelTypeKey = fuelTypeKey; }
+}
@@ -1,6 +1,10 @@
 package com.viswa.memp.models;
 
+import com.google.gson.annotations.SerializedName;
+
 public class LoginRequest {
+    // auth-service accepts an email or username as "identifier"
+    @SerializedName("identifier")
     private String email;
     private String password;
 
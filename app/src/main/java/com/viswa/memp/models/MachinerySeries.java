@@ -0,0 +1,47 @@
+package com.viswa.memp.models;
+
+import java.util.Arrays;
+
+/**
+ * SFOC, power and fuel of one machinery over time, read from /machinery/:id/sfoc
+ * and kept as parallel float columns for the charts. Time is stored as minutes
+ * after the first row (originMinute, minutes since the epoch): a year is about
+ * half a million minutes, well inside a float's exact integer range, whereas
+ * epoch minutes would not be. Rows arrive ordered by report date, so minutes
+ * never decrease.
+ */
+public class MachinerySeries {
+    private long originMinute = Long.MIN_VALUE;
+    private float[] minutes = new float[64];
+    private float[] sfoc = new float[64];
+    private float[] power = new float[64];
+    private float[] fuelMt = new float[64];
+    private int size;
+
+    public void add(long epochMinute, float sfocGkWh, float powerKw, float consumedMt) {
+        if (size == 0) {
+            originMinute = epochMinute;
+        }
+        if (size == minutes.length) {
+            int capacity = size * 2;
+            minutes = Arrays.copyOf(minutes, capacity);
+            sfoc = Arrays.copyOf(sfoc, capacity);
+            power = Arrays.copyOf(power, capacity);
+            fuelMt = Arrays.copyOf(fuelMt, capacity);
+        }
+        minutes[size] = epochMinute - originMinute;
+        sfoc[size] = sfocGkWh;
+        power[size] = powerKw;
+        fuelMt[size] = consumedMt;
+        size++;
+    }
+
+    public int size() { return size; }
+    public long getOriginMinute() { return originMinute; }
+
+    // The arrays may be longer than size(); only [0, size()) is filled
+    public float[] getMinutes() { return minutes; }
+    public float[] getSfoc() { return sfoc; }
+    public float[] getPower() { return power; }
+    public float[] getFuelMt() { return fuelMt; }
+}
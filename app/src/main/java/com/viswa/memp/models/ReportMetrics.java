@@ -0,0 +1,66 @@
+package com.viswa.memp.models;
+
+import com.viswa.memp.analytics.FuelFactors;
+
+// Distance and fuel burnt for one report, read from /reporting/reports/:reportId
+public class ReportMetrics {
+    private final long reportId;
+    private final int shipId;
+    private final long voyageId;
+    private final long voyageLegId;
+    private final String reportDateUtc;
+    private final double distanceNm;
+    private final String[] fuelTypes;
+    private final double[] consumedMt;
+    // The bunker delivery each fuel row was drawn from; null when rows name none
+    private final String[] bdnNumbers;
+
+    public ReportMetrics(long reportId, int shipId, long voyageId, long voyageLegId, String reportDateUtc,
+                         double distanceNm, String[] fuelTypes, double[] consumedMt) {
+        this(reportId, shipId, voyageId, voyageLegId, reportDateUtc, distanceNm, fuelTypes, consumedMt, null);
+    }
+
+    public ReportMetrics(long reportId, int shipId, long voyageId, long voyageLegId, String reportDateUtc,
+                         double distanceNm, String[] fuelTypes, double[] consumedMt, String[] bdnNumbers) {
+        this.reportId = reportId;
+        this.shipId = shipId;
+        this.voyageId = voyageId;
+        this.voyageLegId = voyageLegId;
+        this.reportDateUtc = reportDateUtc;
+        this.distanceNm = distanceNm;
+        this.fuelTypes = fuelTypes;
+        this.consumedMt = consumedMt;
+        this.bdnNumbers = bdnNumbers;
+    }
+
+    public long getReportId() { return reportId; }
+    public int getShipId() { return shipId; }
+    public long getVoyageId() { return voyageId; }
+    public long getVoyageLegId() { return voyageLegId; }
+    public String getReportDateUtc() { return reportDateUtc; }
+    public double getDistanceNm() { return distanceNm; }
+    public int getFuelCount() { return fuelTypes.length; }
+    public String getFuelType(int i) { return fuelTypes[i]; }
+    public double getConsumedMt(int i) { return consumedMt[i]; }
+    public String getBdnNumber(int i) { return bdnNumbers != null ? bdnNumbers[i] : null; }
+
+    // Calendar year of the report, or 0 when the date is missing
+    public int getYear() {
+        if (reportDateUtc == null || reportDateUtc.length() < 4) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(reportDateUtc.substring(0, 4));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    public double getCo2Tonnes() {
+        double co2 = 0;
+        for (int i = 0; i < fuelTypes.length; i++) {
+            co2 += consumedMt[i] * FuelFactors.co2Factor(fuelTypes[i]);
+        }
+        return co2;
+    }
+}
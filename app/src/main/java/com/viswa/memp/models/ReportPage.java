@@ -0,0 +1,11 @@
+package com.viswa.memp.models;
+
+import java.util.List;
+
+public class ReportPage {
+    private int totalCount;
+    private List<VesselReport> reports;
+
+    public int getTotalCount() { return totalCount; }
+    public List<VesselReport> getReports() { return reports; }
+}
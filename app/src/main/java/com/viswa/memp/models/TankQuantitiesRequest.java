@@ -0,0 +1,16 @@
+package com.viswa.memp.models;
+
+import com.google.gson.annotations.SerializedName;
+import java.util.List;
+
+// Body of tank-service's POST /tanks/current-quantities
+public class TankQuantitiesRequest {
+    @SerializedName("tankIds")
+    private final List<Long> tankIds;
+
+    public TankQuantitiesRequest(List<Long> tankIds) {
+        this.tankIds = tankIds;
+    }
+
+    public List<Long> getTankIds() { return tankIds; }
+}
@@ -0,0 +1,27 @@
+package com.viswa.memp.models;
+
+import com.google.gson.annotations.SerializedName;
+
+// A member as listed by team-service's GET /team
+public class TeamMember {
+    @SerializedName("Team_Id")
+    private int id;
+    @SerializedName("Member_Name")
+    private String name;
+    @SerializedName("Role")
+    private String role;
+    @SerializedName("Email")
+    private String email;
+    @SerializedName("ImageFilename")
+    private String imageFilename;
+    @SerializedName("IsActive")
+    private Boolean active;
+
+    public int getId() { return id; }
+    public String getName() { return name; }
+    public String getRole() { return role; }
+    public String getEmail() { return email; }
+    // Served from team/member_images/; null when the member has no photo
+    public String getImageFilename() { return imageFilename; }
+    public boolean isActive() { return active == null || active; }
+}
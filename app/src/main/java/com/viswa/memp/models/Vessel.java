@@ -1,14 +1,25 @@
 package com.viswa.memp.models;
 
+import com.google.gson.annotations.SerializedName;
+import java.util.Objects;
+
 public class Vessel {
+    @SerializedName("ShipID")
     private int id;
+    @SerializedName("ShipName")
     private String name;
+    @SerializedName("IMO_Number")
     private String imo;
+    @SerializedName("FlagState")
     private String flag;
+    @SerializedName("VesselTypeKey")
     private String type;
-    private int grossTonnage;
+    @SerializedName("CapacityGT")
+    private double grossTonnage;
+    @SerializedName("CapacityDWT")
+    private Double deadweight;
 
-    public Vessel(int id, String name, String imo, String flag, String type, int grossTonnage) {
+    public Vessel(int id, String name, String imo, String flag, String type, double grossTonnage) {
         this.id = id;
         this.name = name;
         this.imo = imo;
@@ -22,5 +33,20 @@ public class Vessel {
     public String getImo() { return imo; }
     public String getFlag() { return flag; }
     public String getType() { return type; }
-    public int getGrossTonnage() { return grossTonnage; }
-}
\ No newline at end of file
+    public double getGrossTonnage() { return grossTonnage; }
+    public Double getDeadweight() { return deadweight; }
+
+    // Capacity used for CII, deadweight where known and gross tonnage otherwise, as on the server
+    public double getCiiCapacity() {
+        return deadweight != null && deadweight > 0 ? deadweight : grossTonnage;
+    }
+
+    // True when everything the vessel list row shows is unchanged
+    public boolean hasSameListContents(Vessel other) {
+        return Objects.equals(name, other.name)
+            && Objects.equals(imo, other.imo)
+            && Objects.equals(flag, other.flag)
+            && Objects.equals(type, other.type)
+            && Double.compare(grossTonnage, other.grossTonnage) == 0;
+    }
+}
@@ -0,0 +1,28 @@
+package com.viswa.memp.models;
+
+// Last known position of a vessel as returned by /ships/recent-locations
+public class VesselLocation {
+    private int vesselId;
+    private String vesselName;
+    private String imoNumber;
+    private String fleetName;
+    private Double latitude;
+    private Double longitude;
+    private String timestamp;
+    private double speed;
+    private String status;
+
+    public int getVesselId() { return vesselId; }
+    public String getVesselName() { return vesselName; }
+    public String getImoNumber() { return imoNumber; }
+    public String getFleetName() { return fleetName; }
+    public Double getLatitude() { return latitude; }
+    public Double getLongitude() { return longitude; }
+    public String getTimestamp() { return timestamp; }
+    public double getSpeed() { return speed; }
+    public String getStatus() { return status; }
+
+    public boolean hasPosition() {
+        return latitude != null && longitude != null && !latitude.isNaN() && !longitude.isNaN();
+    }
+}
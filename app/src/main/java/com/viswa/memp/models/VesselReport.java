@@ -0,0 +1,47 @@
+package com.viswa.memp.models;
+
+import com.google.gson.annotations.SerializedName;
+
+// Summary row of a vessel daily report as listed by /reporting/ship/:shipId/reports
+public class VesselReport {
+    @SerializedName("ReportID")
+    private long id;
+    @SerializedName("ShipID")
+    private int shipId;
+    @SerializedName("VoyageID")
+    private long voyageId;
+    @SerializedName("VoyageLegID")
+    private long voyageLegId;
+    @SerializedName("ReportTypeKey")
+    private String reportType;
+    @SerializedName("ReportDateTimeUTC")
+    private String reportDateUtc;
+    @SerializedName("VesselActivity")
+    private String vesselActivity;
+    @SerializedName("Latitude")
+    private Double latitude;
+    @SerializedName("Longitude")
+    private Double longitude;
+    @SerializedName("ReportStatus")
+    private String status;
+    @SerializedName("VoyageNumber")
+    private String voyageNumber;
+    @SerializedName("DeparturePortCode")
+    private String departurePortCode;
+    @SerializedName("ArrivalPortCode")
+    private String arrivalPortCode;
+
+    public long getId() { return id; }
+    public int getShipId() { return shipId; }
+    public long getVoyageId() { return voyageId; }
+    public long getVoyageLegId() { return voyageLegId; }
+    public String getReportType() { return reportType; }
+    public String getReportDateUtc() { return reportDateUtc; }
+    public String getVesselActivity() { return vesselActivity; }
+    public Double getLatitude() { return latitude; }
+    public Double getLongitude() { return longitude; }
+    public String getStatus() { return status; }
+    public String getVoyageNumber() { return voyageNumber; }
+    public String getDeparturePortCode() { return departurePortCode; }
+    public String getArrivalPortCode() { return arrivalPortCode; }
+}
@@ -0,0 +1,31 @@
+package com.viswa.memp.models;
+
+import com.google.gson.annotations.SerializedName;
+
+// An active tank of a vessel as tank-service's GET /tanks lists them; the vessel is named by IMO only
+public class VesselTank {
+    @SerializedName("VesselTankID")
+    private long id;
+    @SerializedName("Tank_Name")
+    private String name;
+    @SerializedName("IMO_Number")
+    private String imo;
+    @SerializedName("CapacityM3")
+    private Double capacityM3;
+    // FUEL, LO, WATER, ...
+    @SerializedName("ContentCategory")
+    private String contentCategory;
+    @SerializedName("ContentTypeKey")
+    private String contentTypeKey;
+    // As of when the list was loaded; TankRepository keeps the current figure
+    @SerializedName("CurrentQuantityMT")
+    private Double quantityMt;
+
+    public long getId() { return id; }
+    public String getName() { return name; }
+    public String getImo() { return imo; }
+    public Double getCapacityM3() { return capacityM3; }
+    public String getContentCategory() { return contentCategory; }
+    public String getContentTypeKey() { return contentTypeKey; }
+    public Double getQuantityMt() { return quantityMt; }
+}
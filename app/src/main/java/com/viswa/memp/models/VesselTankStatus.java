@@ -0,0 +1,38 @@
+package com.viswa.memp.models;
+
+import java.util.List;
+
+/**
+ * The tanks of one vessel with their current quantities in MT, in tank order; a
+ * quantity is NaN when none is known yet. Stale when some quantity is older than
+ * the repository's TTL and a refresh is under way.
+ */
+public class VesselTankStatus {
+    private final int shipId;
+    private final List<VesselTank> tanks;
+    private final double[] quantityMt;
+    private final boolean stale;
+
+    public VesselTankStatus(int shipId, List<VesselTank> tanks, double[] quantityMt, boolean stale) {
+        this.shipId = shipId;
+        this.tanks = tanks;
+        this.quantityMt = quantityMt;
+        this.stale = stale;
+    }
+
+    public int getShipId() { return shipId; }
+    public int getTankCount() { return tanks.size(); }
+    public VesselTank getTank(int i) { return tanks.get(i); }
+    public double getQuantityMt(int i) { return quantityMt[i]; }
+    public boolean isStale() { return stale; }
+
+    public double getTotalMt() {
+        double total = 0;
+        for (double quantity : quantityMt) {
+            if (!Double.isNaN(quantity)) {
+                total += quantity;
+            }
+        }
+        return total;
+    }
+}
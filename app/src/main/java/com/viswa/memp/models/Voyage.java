@@ -0,0 +1,41 @@
+package com.viswa.memp.models;
+
+import com.google.gson.annotations.SerializedName;
+
+public class Voyage {
+    @SerializedName("VoyageID")
+    private long id;
+    @SerializedName("ShipID")
+    private int shipId;
+    @SerializedName("VoyageNumber")
+    private String voyageNumber;
+    @SerializedName("Departure_Port")
+    private String departurePort;
+    @SerializedName("Arrival_Port")
+    private String arrivalPort;
+    @SerializedName("VoyageStatus")
+    private String status;
+    @SerializedName("ATD")
+    private String atd;
+    @SerializedName("ETD_UTC")
+    private String etd;
+    @SerializedName("ETA_UTC")
+    private String eta;
+    @SerializedName("Voyage_Completed")
+    private String completed;
+    // false once the voyage is deleted; GET /voyages still lists it
+    @SerializedName("IsActive")
+    private Boolean active;
+
+    public long getId() { return id; }
+    public int getShipId() { return shipId; }
+    public String getVoyageNumber() { return voyageNumber; }
+    public String getDeparturePort() { return departurePort; }
+    public String getArrivalPort() { return arrivalPort; }
+    public String getStatus() { return status; }
+    public String getAtd() { return atd; }
+    public String getEtd() { return etd; }
+    public String getEta() { return eta; }
+    public boolean isCompleted() { return "Yes".equalsIgnoreCase(completed); }
+    public boolean isActive() { return active == null || active; }
+}
@@ -0,0 +1,38 @@
+package com.viswa.memp.models;
+
+import com.google.gson.annotations.SerializedName;
+
+// A leg as listed by voyage-service's GET /voyages/:id/legs; times are UTC "yyyy-MM-ddTHH:mm:ss"
+public class VoyageLeg {
+    @SerializedName("VoyageLegID")
+    private long id;
+    @SerializedName("VoyageID")
+    private long voyageId;
+    @SerializedName("LegNumber")
+    private int legNumber;
+    @SerializedName("LegName")
+    private String name;
+    @SerializedName("Departure_Port_Name")
+    private String departurePort;
+    @SerializedName("Arrival_Port_Name")
+    private String arrivalPort;
+    @SerializedName("ETD_UTC")
+    private String etd;
+    @SerializedName("ATD_UTC")
+    private String atd;
+    @SerializedName("ETA_UTC")
+    private String eta;
+    @SerializedName("ATA_UTC")
+    private String ata;
+
+    public long getId() { return id; }
+    public long getVoyageId() { return voyageId; }
+    public int getLegNumber() { return legNumber; }
+    public String getName() { return name; }
+    public String getDeparturePort() { return departurePort; }
+    public String getArrivalPort() { return arrivalPort; }
+    public String getEtd() { return etd; }
+    public String getAtd() { return atd; }
+    public String getEta() { return eta; }
+    public String getAta() { return ata; }
+}
@@ -0,0 +1,41 @@
+package com.viswa.memp.search;
+
+import java.util.Arrays;
+
+// Growable int array; posting lists are appended in ascending slot order so they stay sorted
+final class IntList {
+
+    private int[] values;
+    private int size;
+
+    IntList() {
+        values = new int[4];
+    }
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    int get(int index) {
+        return values[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int last() {
+        return values[size - 1];
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    boolean containsSorted(int value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+}
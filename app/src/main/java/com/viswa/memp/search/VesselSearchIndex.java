@@ -0,0 +1,474 @@
+package com.viswa.memp.search;
+
+import com.viswa.memp.models.Vessel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-keystroke vessel search by name or IMO number, with flag and type facets.
+ *
+ * Names are lower-cased, punctuation folded to single spaces, and indexed by
+ * trigram. Each name is padded with a leading space so word starts form grams of
+ * their own (" e", " ev"): one- and two-letter queries match word prefixes instead
+ * of every name containing the letter. Longer queries intersect the postings of
+ * their trigrams, smallest first, and confirm the few survivors with contains().
+ * IMO numbers go into a digit trie, so an all-digit query is a walk down it. Flag
+ * and type are dictionary-coded per slot and checked as plain int compares.
+ *
+ * Every vessel has a slot. A put() that changes the indexed text retires the old
+ * slot and appends a new one; the index is rebuilt once retired slots outnumber
+ * live ones. Thread-safe.
+ */
+public class VesselSearchIndex {
+
+    public static final int NO_LIMIT = Integer.MAX_VALUE;
+
+    private static final int COMPACT_MIN_DEAD = 64;
+    private static final int NO_CODE = -1;
+    private static final char START = '\u0001';
+
+    // Per slot; vessels[slot] is null once the slot is retired
+    private Vessel[] vessels = new Vessel[64];
+    private String[] names = new String[64];
+    private int[] flagCodes = new int[64];
+    private int[] typeCodes = new int[64];
+    private int slotCount;
+    private int deadCount;
+    private final Map<Integer, Integer> slotOfShip = new HashMap<>();
+
+    private final Map<String, Integer> flagDictionary = new HashMap<>();
+    private final Map<String, Integer> typeDictionary = new HashMap<>();
+    private final List<String> flagValues = new ArrayList<>();
+    private final List<String> typeValues = new ArrayList<>();
+
+    // Gram key (up to three chars packed 16 bits each) -> ascending slots
+    private final Map<Long, IntList> grams = new HashMap<>();
+
+    // IMO digit trie: children[node * 10 + digit] is the child node, 0 if none; node 0 is the root
+    private int[] children = new int[10 * 64];
+    private IntList[] nodeSlots = new IntList[64];
+    private int nodeCount = 1;
+
+    // Brings the index in line with a freshly synced list; vessels whose text is unchanged keep their slot
+    public synchronized void replaceAll(List<Vessel> list) {
+        if (slotOfShip.isEmpty()) {
+            rebuild(list);
+            return;
+        }
+        Set<Integer> listed = new HashSet<>(list.size() * 2);
+        for (Vessel vessel : list) {
+            listed.add(vessel.getId());
+            putSlot(vessel);
+        }
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (vessels[slot] != null && !listed.contains(vessels[slot].getId())) {
+                retire(slot);
+            }
+        }
+        compactIfNeeded();
+    }
+
+    public synchronized void put(Vessel vessel) {
+        putSlot(vessel);
+        compactIfNeeded();
+    }
+
+    public synchronized boolean remove(int shipId) {
+        Integer slot = slotOfShip.get(shipId);
+        if (slot == null) {
+            return false;
+        }
+        retire(slot);
+        compactIfNeeded();
+        return true;
+    }
+
+    public synchronized int size() {
+        return slotOfShip.size();
+    }
+
+    /**
+     * Vessels matching the query (blank matches all), restricted to a flag and a
+     * type when those are not null. Names that start with the query come first;
+     * otherwise vessels keep the order they were added in. Stops as soon as limit
+     * results are certain, so a one-letter query costs no more than a specific one.
+     */
+    public synchronized List<Vessel> search(String query, String flag, String type, final int limit) {
+        final String normalized = normalize(query);
+        final int flagCode = codeOf(flagDictionary, flag);
+        final int typeCode = codeOf(typeDictionary, type);
+        final boolean anyFlag = flag == null;
+        final boolean anyType = type == null;
+        final List<Vessel> results = new ArrayList<>();
+        if ((!anyFlag && flagCode == NO_CODE) || (!anyType && typeCode == NO_CODE) || limit <= 0) {
+            return results;
+        }
+        if (normalized.isEmpty() || isImoQuery(normalized)) {
+            visitMatches(normalized, slot -> {
+                if ((anyFlag || flagCodes[slot] == flagCode) && (anyType || typeCodes[slot] == typeCode)) {
+                    results.add(vessels[slot]);
+                }
+                return results.size() < limit;
+            });
+            return results;
+        }
+
+        // Names starting with the query, found through the grams of the name start
+        IntList starts = grams.get(startKey(normalized));
+        for (int i = 0; starts != null && i < starts.size() && results.size() < limit; i++) {
+            int slot = starts.get(i);
+            if (vessels[slot] != null && names[slot].startsWith(normalized)
+                    && (anyFlag || flagCodes[slot] == flagCode) && (anyType || typeCodes[slot] == typeCode)) {
+                results.add(vessels[slot]);
+            }
+        }
+        if (results.size() < limit) {
+            visitMatches(normalized, slot -> {
+                if (!names[slot].startsWith(normalized)
+                        && (anyFlag || flagCodes[slot] == flagCode) && (anyType || typeCodes[slot] == typeCode)) {
+                    results.add(vessels[slot]);
+                }
+                return results.size() < limit;
+            });
+        }
+        return results;
+    }
+
+    // Matches per flag for the query within a type (null for any), most common first
+    public synchronized Map<String, Integer> countByFlag(String query, String type) {
+        return countFacet(query, flagCodes, flagValues, typeCodes, codeOf(typeDictionary, type), type != null);
+    }
+
+    // Matches per vessel type for the query within a flag (null for any), most common first
+    public synchronized Map<String, Integer> countByType(String query, String flag) {
+        return countFacet(query, typeCodes, typeValues, flagCodes, codeOf(flagDictionary, flag), flag != null);
+    }
+
+    private Map<String, Integer> countFacet(String query, final int[] facetCodes, List<String> facetValues,
+                                            final int[] filterCodes, final int filterCode, final boolean filtered) {
+        final int[] counts = new int[facetValues.size()];
+        if (!filtered || filterCode != NO_CODE) {
+            visitMatches(normalize(query), slot -> {
+                if ((!filtered || filterCodes[slot] == filterCode) && facetCodes[slot] != NO_CODE) {
+                    counts[facetCodes[slot]]++;
+                }
+                return true;
+            });
+        }
+        List<Integer> codes = new ArrayList<>();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                codes.add(code);
+            }
+        }
+        Collections.sort(codes, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return counts[b] - counts[a];
+            }
+        });
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (int code : codes) {
+            result.put(facetValues.get(code), counts[code]);
+        }
+        return result;
+    }
+
+    private interface SlotVisitor {
+        // Return false to stop
+        boolean visit(int slot);
+    }
+
+    // Visits the live slots matching the normalized query in ascending order
+    private void visitMatches(String query, SlotVisitor visitor) {
+        if (query.isEmpty()) {
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (vessels[slot] != null && !visitor.visit(slot)) {
+                    return;
+                }
+            }
+            return;
+        }
+        if (isImoQuery(query)) {
+            int node = 0;
+            for (int i = imoStart(query); i < query.length(); i++) {
+                node = children[node * 10 + query.charAt(i) - '0'];
+                if (node == 0) {
+                    return;
+                }
+            }
+            visitLive(nodeSlots[node], visitor);
+            return;
+        }
+        if (query.length() <= 2) {
+            // Word prefix: the gram that starts with the padding space
+            visitLive(grams.get(query.length() == 1 ? gramKey(' ', query.charAt(0))
+                : gramKey(' ', query.charAt(0), query.charAt(1))), visitor);
+            return;
+        }
+
+        IntList[] postings = new IntList[query.length() - 2];
+        for (int i = 0; i < postings.length; i++) {
+            postings[i] = grams.get(gramKey(query.charAt(i), query.charAt(i + 1), query.charAt(i + 2)));
+            if (postings[i] == null) {
+                return;
+            }
+        }
+        Arrays.sort(postings, new Comparator<IntList>() {
+            @Override
+            public int compare(IntList a, IntList b) {
+                return a.size() - b.size();
+            }
+        });
+        IntList smallest = postings[0];
+        candidates:
+        for (int i = 0; i < smallest.size(); i++) {
+            int slot = smallest.get(i);
+            if (vessels[slot] == null) {
+                continue;
+            }
+            for (int p = 1; p < postings.length; p++) {
+                if (!postings[p].containsSorted(slot)) {
+                    continue candidates;
+                }
+            }
+            // Every trigram being present does not mean they are adjacent
+            if (names[slot].contains(query) && !visitor.visit(slot)) {
+                return;
+            }
+        }
+    }
+
+    private void visitLive(IntList slots, SlotVisitor visitor) {
+        for (int i = 0; slots != null && i < slots.size(); i++) {
+            int slot = slots.get(i);
+            if (vessels[slot] != null && !visitor.visit(slot)) {
+                return;
+            }
+        }
+    }
+
+    private void putSlot(Vessel vessel) {
+        Integer slot = slotOfShip.get(vessel.getId());
+        if (slot != null) {
+            if (sameIndexedText(vessels[slot], vessel)) {
+                vessels[slot] = vessel;
+                return;
+            }
+            retire(slot);
+        }
+        add(vessel);
+    }
+
+    private void add(Vessel vessel) {
+        ensureSlots(slotCount + 1);
+        int slot = slotCount++;
+        String name = normalize(vessel.getName());
+        vessels[slot] = vessel;
+        names[slot] = name;
+        flagCodes[slot] = intern(flagDictionary, flagValues, vessel.getFlag());
+        typeCodes[slot] = intern(typeDictionary, typeValues, vessel.getType());
+        slotOfShip.put(vessel.getId(), slot);
+
+        // Name starts get grams of their own, behind a marker no name contains, to rank prefix matches first
+        if (!name.isEmpty()) {
+            post(startKey(name.substring(0, 1)), slot);
+        }
+        if (name.length() > 1) {
+            post(startKey(name), slot);
+        }
+        String padded = " " + name;
+        for (int i = 0; i < padded.length(); i++) {
+            if (padded.charAt(i) == ' ' && i + 1 < padded.length()) {
+                post(gramKey(' ', padded.charAt(i + 1)), slot);
+            }
+            if (i + 2 < padded.length()) {
+                post(gramKey(padded.charAt(i), padded.charAt(i + 1), padded.charAt(i + 2)), slot);
+            }
+        }
+
+        String imo = vessel.getImo();
+        int node = 0;
+        for (int i = 0; imo != null && i < imo.length(); i++) {
+            char c = imo.charAt(i);
+            if (c < '0' || c > '9') {
+                continue;
+            }
+            int index = node * 10 + c - '0';
+            if (children[index] == 0) {
+                ensureNodes(nodeCount + 1);
+                nodeSlots[nodeCount] = new IntList();
+                children[index] = nodeCount++;
+            }
+            node = children[index];
+            nodeSlots[node].add(slot);
+        }
+    }
+
+    private void post(long key, int slot) {
+        IntList slots = grams.get(key);
+        if (slots == null) {
+            slots = new IntList();
+            grams.put(key, slots);
+        }
+        // A name repeating a gram would otherwise post the same slot twice in a row
+        if (slots.size() == 0 || slots.last() != slot) {
+            slots.add(slot);
+        }
+    }
+
+    private void retire(int slot) {
+        slotOfShip.remove(vessels[slot].getId());
+        vessels[slot] = null;
+        names[slot] = null;
+        deadCount++;
+    }
+
+    private void compactIfNeeded() {
+        if (deadCount < COMPACT_MIN_DEAD || deadCount < slotOfShip.size()) {
+            return;
+        }
+        List<Vessel> live = new ArrayList<>(slotOfShip.size());
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (vessels[slot] != null) {
+                live.add(vessels[slot]);
+            }
+        }
+        rebuild(live);
+    }
+
+    private void rebuild(List<Vessel> list) {
+        clear();
+        for (Vessel vessel : list) {
+            add(vessel);
+        }
+    }
+
+    private void clear() {
+        Arrays.fill(vessels, 0, slotCount, null);
+        Arrays.fill(names, 0, slotCount, null);
+        slotCount = 0;
+        deadCount = 0;
+        slotOfShip.clear();
+        flagDictionary.clear();
+        typeDictionary.clear();
+        flagValues.clear();
+        typeValues.clear();
+        grams.clear();
+        Arrays.fill(children, 0, nodeCount * 10, 0);
+        Arrays.fill(nodeSlots, 0, nodeCount, null);
+        nodeCount = 1;
+    }
+
+    private void ensureSlots(int capacity) {
+        if (capacity <= vessels.length) {
+            return;
+        }
+        int grown = Math.max(capacity, vessels.length * 2);
+        vessels = Arrays.copyOf(vessels, grown);
+        names = Arrays.copyOf(names, grown);
+        flagCodes = Arrays.copyOf(flagCodes, grown);
+        typeCodes = Arrays.copyOf(typeCodes, grown);
+    }
+
+    private void ensureNodes(int capacity) {
+        if (capacity <= nodeSlots.length) {
+            return;
+        }
+        int grown = Math.max(capacity, nodeSlots.length * 2);
+        nodeSlots = Arrays.copyOf(nodeSlots, grown);
+        children = Arrays.copyOf(children, grown * 10);
+    }
+
+    private static boolean sameIndexedText(Vessel a, Vessel b) {
+        return equal(a.getName(), b.getName()) && equal(a.getImo(), b.getImo())
+            && equal(a.getFlag(), b.getFlag()) && equal(a.getType(), b.getType());
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static int intern(Map<String, Integer> dictionary, List<String> values, String value) {
+        if (value == null) {
+            return NO_CODE;
+        }
+        Integer code = dictionary.get(value);
+        if (code == null) {
+            code = values.size();
+            dictionary.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    private static int codeOf(Map<String, Integer> dictionary, String value) {
+        Integer code = value != null ? dictionary.get(value) : null;
+        return code != null ? code : NO_CODE;
+    }
+
+    // "9321483" or "imo 9321483"
+    private static boolean isImoQuery(String query) {
+        int start = imoStart(query);
+        if (start == query.length()) {
+            return false;
+        }
+        for (int i = start; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int imoStart(String query) {
+        if (query.startsWith("imo ")) {
+            return 4;
+        }
+        return query.startsWith("imo") ? 3 : 0;
+    }
+
+    // Lower case, letters and digits only, single spaces between words
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (space && out.length() > 0) {
+                    out.append(' ');
+                }
+                out.append(Character.toLowerCase(c));
+                space = false;
+            } else {
+                space = true;
+            }
+        }
+        return out.toString();
+    }
+
+    // The first one or two characters of a name or query
+    private static long startKey(String text) {
+        return text.length() == 1 ? gramKey(START, text.charAt(0)) : gramKey(START, text.charAt(0), text.charAt(1));
+    }
+
+    private static long gramKey(char a, char b) {
+        return ((long) a << 16) | b;
+    }
+
+    private static long gramKey(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+}
@@ -0,0 +1,173 @@
+package com.viswa.memp.timeline;
+
+import java.util.List;
+
+/**
+ * Half-open intervals [start, end) in an AVL tree ordered by start, each node
+ * also holding the largest end in its subtree. That bound lets a query skip
+ * every subtree that ends before the time asked about, so "what contains T"
+ * and "what overlaps [from, to)" cost O(log n + matches) instead of a scan.
+ *
+ * Intervals can be added at any time, so a timeline can grow as its parts are
+ * loaded. Use Long.MAX_VALUE as the end of an interval that has not ended.
+ * Not thread-safe.
+ */
+public class IntervalTree<T> {
+
+    private static final class Node<T> {
+        final long start;
+        final long end;
+        final T value;
+        Node<T> left;
+        Node<T> right;
+        int height = 1;
+        long maxEnd;
+
+        Node(long start, long end, T value) {
+            this.start = start;
+            this.end = end;
+            this.value = value;
+            this.maxEnd = end;
+        }
+    }
+
+    private Node<T> root;
+    private int size;
+
+    // Intervals with the same start are kept in the order they were added
+    public void add(long start, long end, T value) {
+        if (end < start) {
+            throw new IllegalArgumentException("end " + end + " before start " + start);
+        }
+        root = insert(root, new Node<>(start, end, value));
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Of the intervals containing the time, the one that started last; null if none
+    public T at(long time) {
+        Node<T> node = latestContaining(root, time);
+        return node == null ? null : node.value;
+    }
+
+    // Every interval containing the time, by start
+    public void allAt(long time, List<T> out) {
+        overlapping(time, time + 1, out);
+    }
+
+    // Every interval with start < to and end > from, by start
+    public void overlapping(long from, long to, List<T> out) {
+        collect(root, from, to, out);
+    }
+
+    // The start of the first interval, Long.MAX_VALUE when empty
+    public long firstStart() {
+        Node<T> node = root;
+        if (node == null) {
+            return Long.MAX_VALUE;
+        }
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node.start;
+    }
+
+    private static <T> Node<T> latestContaining(Node<T> node, long time) {
+        if (node == null || node.maxEnd <= time) {
+            return null;
+        }
+        if (node.start > time) {
+            return latestContaining(node.left, time);
+        }
+        // Later starts first: the right subtree, then this node, then the left subtree
+        Node<T> found = latestContaining(node.right, time);
+        if (found != null) {
+            return found;
+        }
+        if (node.end > time) {
+            return node;
+        }
+        return latestContaining(node.left, time);
+    }
+
+    private static <T> void collect(Node<T> node, long from, long to, List<T> out) {
+        if (node == null || node.maxEnd <= from) {
+            return;
+        }
+        collect(node.left, from, to, out);
+        if (node.start >= to) {
+            return; // this node and everything right of it starts too late
+        }
+        if (node.end > from) {
+            out.add(node.value);
+        }
+        collect(node.right, from, to, out);
+    }
+
+    private static <T> Node<T> insert(Node<T> node, Node<T> added) {
+        if (node == null) {
+            return added;
+        }
+        if (added.start < node.start) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return balance(node);
+    }
+
+    private static <T> Node<T> balance(Node<T> node) {
+        update(node);
+        int skew = height(node.left) - height(node.right);
+        if (skew > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (skew < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static <T> Node<T> rotateRight(Node<T> node) {
+        Node<T> top = node.left;
+        node.left = top.right;
+        top.right = node;
+        update(node);
+        update(top);
+        return top;
+    }
+
+    private static <T> Node<T> rotateLeft(Node<T> node) {
+        Node<T> top = node.right;
+        node.right = top.left;
+        top.left = node;
+        update(node);
+        update(top);
+        return top;
+    }
+
+    private static <T> void update(Node<T> node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long maxEnd = node.end;
+        if (node.left != null) {
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+}
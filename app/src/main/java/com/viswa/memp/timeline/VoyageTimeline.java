@@ -0,0 +1,128 @@
+package com.viswa.memp.timeline;
+
+import com.viswa.memp.api.ReportStreamParser;
+import com.viswa.memp.models.Voyage;
+import com.viswa.memp.models.VoyageLeg;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * One vessel's voyage history on two interval trees, one of voyages and one
+ * of legs, in minutes since the epoch (UTC).
+ *
+ * Years of voyages are cheap to hold, their legs are not: each voyage's legs
+ * are a request of their own. The voyages are indexed up front and the legs
+ * of a voyage are added once something asks for them, typically the voyages
+ * unexpandedBetween() the part of the history on screen.
+ *
+ * A voyage or leg runs from its actual departure (else the estimated one) to
+ * its actual arrival (else the estimated one); one with no arrival yet is open
+ * ended. Anything without a readable departure is left out of the trees.
+ * Main thread only.
+ */
+public class VoyageTimeline {
+
+    public static final long OPEN = Long.MAX_VALUE;
+
+    private final IntervalTree<Voyage> voyages = new IntervalTree<>();
+    private final IntervalTree<VoyageLeg> legs = new IntervalTree<>();
+    // Latest departure first, for a list
+    private final List<Voyage> history;
+    private final Set<Long> expanded = new HashSet<>();
+
+    public VoyageTimeline(List<Voyage> shipVoyages) {
+        List<Voyage> dated = new ArrayList<>(shipVoyages.size());
+        for (Voyage voyage : shipVoyages) {
+            long start = startOf(voyage);
+            if (start != Long.MIN_VALUE) {
+                voyages.add(start, Math.max(start, endOf(voyage)), voyage);
+                dated.add(voyage);
+            }
+        }
+        Collections.sort(dated, (a, b) -> Long.compare(startOf(b), startOf(a)));
+        history = Collections.unmodifiableList(dated);
+    }
+
+    public List<Voyage> getHistory() {
+        return history;
+    }
+
+    public boolean isExpanded(long voyageId) {
+        return expanded.contains(voyageId);
+    }
+
+    // Adds a voyage's legs; a second call for the same voyage is ignored
+    public void addLegs(long voyageId, List<VoyageLeg> voyageLegs) {
+        if (!expanded.add(voyageId)) {
+            return;
+        }
+        for (VoyageLeg leg : voyageLegs) {
+            long start = startOf(leg);
+            if (start != Long.MIN_VALUE) {
+                legs.add(start, Math.max(start, endOf(leg)), leg);
+            }
+        }
+    }
+
+    // The voyage under way at the minute, the latest departed one if several overlap
+    public Voyage voyageAt(long minute) {
+        return voyages.at(minute);
+    }
+
+    // The leg under way at the minute; null also when its voyage's legs are not loaded yet
+    public VoyageLeg legAt(long minute) {
+        return legs.at(minute);
+    }
+
+    // Voyages overlapping [from, to), earliest departure first
+    public List<Voyage> voyagesBetween(long from, long to) {
+        List<Voyage> found = new ArrayList<>();
+        voyages.overlapping(from, to, found);
+        return found;
+    }
+
+    // Loaded legs overlapping [from, to), earliest departure first
+    public List<VoyageLeg> legsBetween(long from, long to) {
+        List<VoyageLeg> found = new ArrayList<>();
+        legs.overlapping(from, to, found);
+        return found;
+    }
+
+    // Voyages overlapping [from, to) whose legs still have to be loaded
+    public List<Voyage> unexpandedBetween(long from, long to) {
+        List<Voyage> found = voyagesBetween(from, to);
+        for (int i = found.size() - 1; i >= 0; i--) {
+            if (expanded.contains(found.get(i).getId())) {
+                found.remove(i);
+            }
+        }
+        return found;
+    }
+
+    public static long startOf(Voyage voyage) {
+        return firstReadable(voyage.getAtd(), voyage.getEtd());
+    }
+
+    // The voyage list carries no actual arrival; the estimate is the best there is
+    public static long endOf(Voyage voyage) {
+        long end = firstReadable(voyage.getEta(), null);
+        return end == Long.MIN_VALUE ? OPEN : end;
+    }
+
+    public static long startOf(VoyageLeg leg) {
+        return firstReadable(leg.getAtd(), leg.getEtd());
+    }
+
+    public static long endOf(VoyageLeg leg) {
+        long end = firstReadable(leg.getAta(), leg.getEta());
+        return end == Long.MIN_VALUE ? OPEN : end;
+    }
+
+    private static long firstReadable(String actual, String estimated) {
+        long minute = ReportStreamParser.epochMinute(actual);
+        return minute != Long.MIN_VALUE ? minute : ReportStreamParser.epochMinute(estimated);
+    }
+}
@@ -0,0 +1,93 @@
+package com.viswa.memp.analytics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.viswa.memp.models.ReportMetrics;
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CiiEngineTest {
+
+    private static final int SHIP = 7;
+    private static final double CAPACITY = 50000;
+    private static final double HFO = FuelFactors.co2Factor("HFO");
+
+    private CiiEngine engine;
+
+    @Before
+    public void setUp() throws IOException {
+        CiiTables tables = CiiTables.read(new StringReader("{\"requiredCii\": [{\"VesselTypeKey\": \"TANKER\","
+            + " \"CapacityMin\": 0, \"CapacityMax\": 9999999, \"CalendarYear\": 2023, \"RequiredCII\": 6.2,"
+            + " \"Boundary_A\": 4.96, \"Boundary_B\": 5.58, \"Boundary_C\": 6.2, \"Boundary_D\": 6.82}],"
+            + " \"reductionFactors\": []}"));
+        engine = new CiiEngine(tables);
+        engine.setVessel(SHIP, "TANKER", CAPACITY);
+    }
+
+    @Test
+    public void reportAddedTwiceCountsOnce() {
+        engine.addReport(report(1, 1000, 100));
+        engine.addReport(report(2, 1000, 60));
+        engine.addReport(report(1, 1000, 100));
+
+        assertEquals(attained(160, 2000), engine.attained(SHIP, 2023), 1e-9);
+    }
+
+    // As after an edit: the report's metrics are fetched again with new figures
+    @Test
+    public void editedCopyReplacesTheOriginal() {
+        engine.addReport(report(1, 1000, 100));
+        engine.addReport(report(2, 1000, 60));
+        assertEquals('B', engine.rating(SHIP, 2023));
+
+        engine.addReport(report(1, 1200, 100));
+        engine.addReport(report(1, 1200, 80));
+
+        assertEquals(attained(140, 2200), engine.attained(SHIP, 2023), 1e-9);
+        assertEquals('A', engine.rating(SHIP, 2023));
+    }
+
+    @Test
+    public void editMovingTheReportToAnotherYearLeavesTheOldYear() {
+        engine.addReport(report(1, 1000, 100));
+
+        engine.addReport(new ReportMetrics(1, SHIP, 1, 1, "2024-01-02T12:00:00", 1000, new String[] {"HFO"},
+            new double[] {100}));
+
+        assertTrue(Double.isNaN(engine.attained(SHIP, 2023)));
+        assertEquals(attained(100, 1000), engine.attained(SHIP, 2024), 1e-9);
+    }
+
+    @Test
+    public void removedReportLeavesNothingBehind() {
+        engine.addReport(report(1, 1000, 100));
+        engine.addReport(report(2, 500, 40));
+
+        engine.removeReport(1);
+        engine.removeReport(1);
+
+        assertEquals(attained(40, 500), engine.attained(SHIP, 2023), 1e-9);
+    }
+
+    @Test
+    public void clearedEngineTakesTheSameReportsAgain() {
+        engine.addReport(report(1, 1000, 100));
+        engine.clearActivity();
+
+        engine.addReport(report(1, 1000, 100));
+
+        assertEquals(attained(100, 1000), engine.attained(SHIP, 2023), 1e-9);
+    }
+
+    private static double attained(double hfoMt, double distanceNm) {
+        return hfoMt * HFO * 1_000_000 / (CAPACITY * distanceNm);
+    }
+
+    private static ReportMetrics report(long reportId, double distanceNm, double hfoMt) {
+        return new ReportMetrics(reportId, SHIP, 1, 1, "2023-06-0" + (1 + reportId % 9) + "T12:00:00", distanceNm,
+            new String[] {"HFO"}, new double[] {hfoMt});
+    }
+}
@@ -0,0 +1,135 @@
+package com.viswa.memp.analytics;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.gson.Gson;
+import com.viswa.memp.models.Vessel;
+import com.viswa.memp.models.VesselReport;
+import com.viswa.memp.models.Voyage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+public class KpiAggregatorTest {
+
+    private final Gson gson = new Gson();
+    private final KpiAggregator kpis = new KpiAggregator();
+
+    @Test
+    public void sameRecordsPutTwiceCountOnce() {
+        List<Vessel> vessels = Arrays.asList(vessel(1), vessel(2), vessel(3));
+        List<Voyage> voyages = Arrays.asList(voyage(10, 1, "No"), voyage(11, 2, "No"));
+        List<VesselReport> reports = Arrays.asList(report(100, "Submitted"), report(101, "Draft"));
+
+        for (int i = 0; i < 2; i++) {
+            kpis.replaceVessels(vessels);
+            kpis.putVessel(2);
+            kpis.replaceVoyages(voyages);
+            kpis.putVoyage(10, true);
+            kpis.putReports(reports);
+            kpis.putReport(100, true);
+        }
+
+        KpiSnapshot snapshot = kpis.snapshot();
+        assertEquals(3, snapshot.getTotalVessels());
+        assertEquals(2, snapshot.getActiveVoyages());
+        assertEquals(2, snapshot.getTotalReports());
+        assertEquals(1, snapshot.getSubmittedReports());
+        assertEquals(50.0, snapshot.getComplianceRate(), 1e-9);
+    }
+
+    // Seeding from the store and a live sync may overlap in either order
+    @Test
+    public void seedAndSyncOverlapSafely() {
+        kpis.putVoyage(10, true);
+        kpis.putVoyage(11, true);
+        kpis.putReport(100, false);
+        kpis.replaceVoyages(Arrays.asList(voyage(10, 1, "Yes"), voyage(11, 1, "No")));
+        kpis.putReports(Collections.singletonList(report(100, "Submitted")));
+
+        assertEquals(1, kpis.snapshot().getActiveVoyages());
+        assertEquals(1, kpis.snapshot().getSubmittedReports());
+    }
+
+    @Test
+    public void completedVoyageLeavesTheActiveCount() {
+        kpis.replaceVoyages(Arrays.asList(voyage(10, 1, "No"), voyage(11, 1, "No"), voyage(12, 2, "No")));
+        assertEquals(3, kpis.snapshot().getActiveVoyages());
+
+        kpis.replaceVoyages(Arrays.asList(voyage(10, 1, "Yes"), voyage(11, 1, "No"), voyage(12, 2, "No")));
+        assertEquals(2, kpis.snapshot().getActiveVoyages());
+
+        // Gone from the list altogether, e.g. deleted on the server
+        kpis.replaceVoyages(Arrays.asList(voyage(10, 1, "Yes"), voyage(11, 1, "No")));
+        assertEquals(1, kpis.snapshot().getActiveVoyages());
+    }
+
+    @Test
+    public void draftMovesToSubmittedAndBack() {
+        kpis.putReports(Arrays.asList(report(100, "Draft"), report(101, "Draft")));
+        assertEquals(2, kpis.snapshot().getTotalReports());
+        assertEquals(0, kpis.snapshot().getSubmittedReports());
+
+        kpis.putReports(Collections.singletonList(report(100, "submitted")));
+        assertEquals(2, kpis.snapshot().getTotalReports());
+        assertEquals(1, kpis.snapshot().getSubmittedReports());
+
+        kpis.putReports(Collections.singletonList(report(100, "Draft")));
+        assertEquals(2, kpis.snapshot().getTotalReports());
+        assertEquals(0, kpis.snapshot().getSubmittedReports());
+    }
+
+    @Test
+    public void shipListIsReplacedWhole() {
+        kpis.replaceVessels(Arrays.asList(vessel(1), vessel(2), vessel(3)));
+        kpis.replaceVessels(Arrays.asList(vessel(2), vessel(4)));
+
+        assertEquals(2, kpis.snapshot().getTotalVessels());
+    }
+
+    @Test
+    public void emptyAggregatorHasNoComplianceRate() {
+        assertEquals(Double.NaN, kpis.snapshot().getComplianceRate(), 0);
+    }
+
+    // Thousands of records, every one applied twice in between, as a full sync over a seeded store would
+    @Test
+    public void largeFleetCountsMatchTheRecords() {
+        List<Voyage> voyages = new ArrayList<>();
+        List<VesselReport> reports = new ArrayList<>();
+        int active = 0;
+        int submitted = 0;
+        for (int i = 0; i < 5000; i++) {
+            boolean completed = i % 3 == 0;
+            active += completed ? 0 : 1;
+            voyages.add(voyage(i, i % 200, completed ? "Yes" : "No"));
+            boolean isSubmitted = i % 4 != 0;
+            submitted += isSubmitted ? 1 : 0;
+            reports.add(report(i, isSubmitted ? "Submitted" : "Draft"));
+        }
+        kpis.replaceVoyages(voyages);
+        kpis.putReports(reports);
+        kpis.putReports(reports);
+        kpis.replaceVoyages(voyages);
+
+        assertEquals(active, kpis.snapshot().getActiveVoyages());
+        assertEquals(5000, kpis.snapshot().getTotalReports());
+        assertEquals(submitted, kpis.snapshot().getSubmittedReports());
+    }
+
+    private static Vessel vessel(int id) {
+        return new Vessel(id, "MV " + id, String.valueOf(9000000 + id), "Panama", "TANKER", 30000);
+    }
+
+    private Voyage voyage(long id, int shipId, String completed) {
+        return gson.fromJson("{\"VoyageID\":" + id + ",\"ShipID\":" + shipId + ",\"Voyage_Completed\":\""
+            + completed + "\"}", Voyage.class);
+    }
+
+    private VesselReport report(long id, String status) {
+        return gson.fromJson("{\"ReportID\":" + id + ",\"ShipID\":1,\"ReportStatus\":\"" + status + "\"}",
+            VesselReport.class);
+    }
+}
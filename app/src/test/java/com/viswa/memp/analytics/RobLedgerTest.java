@@ -0,0 +1,288 @@
+package com.viswa.memp.analytics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.viswa.memp.models.BunkerRecord;
+import com.viswa.memp.models.ReportMetrics;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Six hundred random bunkerings, debunkerings and noon reports over three fuels,
+ * fed to the ledger in various ways and checked against a plain running sum of
+ * the same events: what the backend's Bunker_ROB per BDN and DailyROB per fuel
+ * come to.
+ */
+public class RobLedgerTest {
+
+    private static final String[] FUELS = {"HFO", "MGO", "VLSFO"};
+    private static final int SHIP = 3;
+
+    private final Gson gson = new Gson();
+    private final Random random = new Random(7);
+    // Reports and bunker records, in the order they happened
+    private final List<Object> events = new ArrayList<>();
+    private final List<BunkerRecord> bunkerings = new ArrayList<>();
+    private final Map<String, List<String>> openBdns = new HashMap<>();
+    // The running sums: fuel -> total, and fuel -> BDN -> MT left
+    private final Map<String, Double> expectedTotal = new TreeMap<>();
+    private final Map<String, Map<String, Double>> expectedBdn = new TreeMap<>();
+    private long minute = 28_000_000L;
+    private long nextReportId = 1;
+
+    @Before
+    public void setUp() {
+        for (String fuel : FUELS) {
+            openBdns.put(fuel, new ArrayList<String>());
+        }
+        int bdnSeq = 0;
+        for (int step = 0; step < 600; step++) {
+            minute += 60 + random.nextInt(1440);
+            int kind = random.nextInt(10);
+            String fuel = FUELS[random.nextInt(FUELS.length)];
+            List<String> open = openBdns.get(fuel);
+            if (kind < 2 || open.isEmpty()) {
+                String bdn = "BDN-" + (++bdnSeq);
+                double mt = 200 + random.nextInt(800) + random.nextInt(1000) / 1000.0;
+                String operation = random.nextBoolean() ? "BUNKER" : "INITIAL_FILL";
+                BunkerRecord record = bunker(1000 + step, bdn, fuel, mt, operation);
+                events.add(record);
+                bunkerings.add(record);
+                open.add(bdn);
+                expect(fuel, bdn, mt, true);
+            } else if (kind == 2) {
+                String bdn = open.get(random.nextInt(open.size()));
+                double mt = random.nextInt(20) + 0.5;
+                BunkerRecord record = bunker(1000 + step, bdn, fuel, mt, "DEBUNKER");
+                events.add(record);
+                bunkerings.add(record);
+                expect(fuel, bdn, -mt, false);
+            } else {
+                // Consumption rows, some naming the BDN burnt from, some not
+                int rows = 1 + random.nextInt(3);
+                String[] fuels = new String[rows];
+                double[] consumed = new double[rows];
+                String[] bdns = new String[rows];
+                for (int i = 0; i < rows; i++) {
+                    fuels[i] = FUELS[random.nextInt(FUELS.length)];
+                    consumed[i] = random.nextInt(4) == 0 ? 0 : random.nextInt(30000) / 1000.0;
+                    List<String> candidates = openBdns.get(fuels[i]);
+                    bdns[i] = candidates.isEmpty() || random.nextInt(5) == 0
+                        ? null : candidates.get(random.nextInt(candidates.size()));
+                    expect(fuels[i], consumed[i] > 0 ? bdns[i] : null, -consumed[i], false);
+                }
+                events.add(report(nextReportId++, fuels, consumed, bdns));
+            }
+        }
+    }
+
+    @Test
+    public void inOrderMatchesTheRunningSums() {
+        assertMatches(inOrder().balances(SHIP));
+    }
+
+    // Reports and bunker lists arrive in any order, reports more than once, with reads in between
+    @Test
+    public void shuffledAndDuplicatedArrivalMatchesToo() {
+        List<Object> shuffled = new ArrayList<>(events);
+        Collections.shuffle(shuffled, random);
+        RobLedger ledger = new RobLedger();
+        List<BunkerRecord> seen = new ArrayList<>();
+        for (Object event : shuffled) {
+            if (event instanceof ReportMetrics) {
+                ledger.addReport((ReportMetrics) event);
+                ledger.addReport((ReportMetrics) event);
+            } else {
+                seen.add((BunkerRecord) event);
+                ledger.replaceBunkerings(SHIP, seen);
+            }
+            if (random.nextInt(50) == 0) {
+                ledger.balances(SHIP);
+            }
+        }
+
+        assertMatches(ledger.balances(SHIP));
+    }
+
+    @Test
+    public void editedReportReplacesItsConsumption() {
+        RobLedger ledger = inOrder();
+        String[] fuels = {"HFO"};
+        String[] bdns = {lastOpen("HFO")};
+        long reportId = nextReportId++;
+        minute += 600;
+
+        ledger.addReport(report(reportId, fuels, new double[] {4.25}, bdns));
+        ledger.addReport(report(reportId, fuels, new double[] {5.25}, bdns));
+        expect("HFO", bdns[0], -5.25, false);
+
+        assertMatches(ledger.balances(SHIP));
+    }
+
+    // Corrections made on the server that no synced record shows
+    @Test
+    public void reconcileTakesOnTheServerBalances() {
+        RobLedger ledger = inOrder();
+        correctOnServer();
+
+        double worst = 0;
+        for (String fuel : FUELS) {
+            worst = Math.max(worst, reconcile(ledger, fuel));
+        }
+
+        assertEquals(12.5, worst, 1e-6);
+        assertMatches(ledger.balances(SHIP));
+        for (String fuel : FUELS) {
+            assertEquals(0, reconcile(ledger, fuel), 1e-6);
+        }
+    }
+
+    // Adjustments are stored as JSON and the movements replayed from scratch, then new reports come on top
+    @Test
+    public void adjustmentsSurviveARestart() {
+        RobLedger ledger = inOrder();
+        correctOnServer();
+        for (String fuel : FUELS) {
+            reconcile(ledger, fuel);
+        }
+        String json = gson.toJson(ledger.getAdjustments(SHIP));
+
+        RobLedger restarted = new RobLedger();
+        for (Object event : events) {
+            if (event instanceof ReportMetrics) {
+                restarted.addReport((ReportMetrics) event);
+            }
+        }
+        restarted.replaceBunkerings(SHIP, bunkerings);
+        restarted.setAdjustments(SHIP, gson.<Map<String, Map<String, Double>>>fromJson(json,
+            new TypeToken<Map<String, Map<String, Double>>>() { }.getType()));
+        assertMatches(restarted.balances(SHIP));
+
+        String[] fuels = {"HFO"};
+        String[] bdns = {lastOpen("HFO")};
+        minute += 600;
+        restarted.addReport(report(nextReportId++, fuels, new double[] {4.25}, bdns));
+        expect("HFO", bdns[0], -4.25, false);
+        assertMatches(restarted.balances(SHIP));
+    }
+
+    private RobLedger inOrder() {
+        RobLedger ledger = new RobLedger();
+        List<BunkerRecord> seen = new ArrayList<>();
+        for (Object event : events) {
+            if (event instanceof ReportMetrics) {
+                ledger.addReport((ReportMetrics) event);
+            } else {
+                seen.add((BunkerRecord) event);
+                ledger.replaceBunkerings(SHIP, seen);
+            }
+        }
+        return ledger;
+    }
+
+    private void correctOnServer() {
+        expect("HFO", null, 12.5, false);
+        expect("MGO", openBdns.get("MGO").get(0), -3.0, false);
+    }
+
+    // What the server lists: the fuel's total, and every BDN with fuel left
+    private double reconcile(RobLedger ledger, String fuel) {
+        Map<String, Double> serverBdns = new HashMap<>();
+        Map<String, Double> bdns = expectedBdn.get(fuel);
+        if (bdns != null) {
+            for (Map.Entry<String, Double> entry : bdns.entrySet()) {
+                if (entry.getValue() > 0) {
+                    serverBdns.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return ledger.reconcile(SHIP, fuel, Math.max(total(expectedTotal, fuel), 0), serverBdns);
+    }
+
+    private void expect(String fuel, String bdn, double mt, boolean delivery) {
+        expectedTotal.put(fuel, total(expectedTotal, fuel) + mt);
+        if (bdn != null) {
+            Map<String, Double> bdns = expectedBdn.get(fuel);
+            if (bdns == null) {
+                bdns = new TreeMap<>();
+                expectedBdn.put(fuel, bdns);
+            }
+            bdns.put(bdn, delivery ? mt : total(bdns, bdn) + mt);
+        }
+    }
+
+    private void assertMatches(List<RobBalance> balances) {
+        Map<String, Double> totals = new TreeMap<>();
+        Map<String, Map<String, Double>> bdns = new TreeMap<>();
+        for (RobBalance balance : balances) {
+            totals.put(balance.getFuelTypeKey(), balance.getTotal());
+            Map<String, Double> fuelBdns = new TreeMap<>();
+            for (int i = 0; i < balance.getBdnCount(); i++) {
+                fuelBdns.put(balance.getBdnNumber(i), balance.getBdnRob(i));
+            }
+            bdns.put(balance.getFuelTypeKey(), fuelBdns);
+        }
+        for (String fuel : FUELS) {
+            double expected = total(expectedTotal, fuel);
+            if (expected > RobLedger.EPSILON) {
+                assertEquals(fuel, expected, total(totals, fuel), 1e-6);
+            } else {
+                assertEquals(fuel, 0, total(totals, fuel), 1e-6);
+            }
+            Map<String, Double> expectedBdns = expectedBdn.containsKey(fuel)
+                ? expectedBdn.get(fuel) : new TreeMap<String, Double>();
+            Map<String, Double> shown = bdns.containsKey(fuel) ? bdns.get(fuel) : new TreeMap<String, Double>();
+            for (Map.Entry<String, Double> entry : expectedBdns.entrySet()) {
+                if (entry.getValue() > RobLedger.EPSILON) {
+                    assertEquals(fuel + "/" + entry.getKey(), entry.getValue(), total(shown, entry.getKey()), 1e-6);
+                }
+            }
+            // An emptied delivery is not listed
+            for (String bdn : shown.keySet()) {
+                assertTrue(fuel + "/" + bdn, total(expectedBdns, bdn) > RobLedger.EPSILON);
+            }
+        }
+    }
+
+    private String lastOpen(String fuel) {
+        List<String> open = openBdns.get(fuel);
+        return open.get(open.size() - 1);
+    }
+
+    private ReportMetrics report(long reportId, String[] fuels, double[] consumed, String[] bdns) {
+        return new ReportMetrics(reportId, SHIP, 1, 1, date(minute), 100, fuels, consumed, bdns);
+    }
+
+    private BunkerRecord bunker(long id, String bdn, String fuel, double mt, String operation) {
+        return gson.fromJson(String.format(Locale.US, "{\"BunkerRecordID\":%d,\"BunkerDate\":\"%s\","
+            + "\"BDN_Number\":\"%s\",\"FuelTypeKey\":\"%s\",\"Bunkered_Quantity\":%.3f,\"OperationType\":\"%s\","
+            + "\"BunkerCategory\":\"FUEL\",\"IsActive\":1}", id, date(minute), bdn, fuel, mt, operation),
+            BunkerRecord.class);
+    }
+
+    private static double total(Map<String, Double> values, String key) {
+        Double value = values.get(key);
+        return value != null ? value : 0;
+    }
+
+    private static String date(long minute) {
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        calendar.setTimeInMillis(minute * 60000L);
+        return String.format(Locale.US, "%04d-%02d-%02dT%02d:%02d:00.000Z", calendar.get(Calendar.YEAR),
+            calendar.get(Calendar.MONTH) + 1, calendar.get(Calendar.DAY_OF_MONTH),
+            calendar.get(Calendar.HOUR_OF_DAY), calendar.get(Calendar.MINUTE));
+    }
+}
@@ -0,0 +1,103 @@
+package com.viswa.memp.api;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+// The disk cache and the counters as ApiClient wires them, against a local stand-in for the gateway
+public class CacheStatsInterceptorTest {
+
+    private static final String BODY = repeat("{\"ShipID\":1,\"ShipName\":\"Test vessel\"},", 200);
+
+    private final MockWebServer server = new MockWebServer();
+    private final CacheStatsInterceptor stats = new CacheStatsInterceptor();
+    private File cacheDir;
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server.start();
+        cacheDir = Files.createTempDirectory("http-cache").toFile();
+        client = new OkHttpClient.Builder()
+            .addInterceptor(stats)
+            .cache(new Cache(cacheDir, 1024 * 1024))
+            .build();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+        client.cache().delete();
+    }
+
+    @Test
+    public void unchangedListIsRevalidatedWithEtagAndServedFromCache() throws Exception {
+        server.enqueue(new MockResponse().setHeader("ETag", "\"v1\"").setBody(BODY));
+        server.enqueue(new MockResponse().setResponseCode(304).setHeader("ETag", "\"v1\""));
+
+        assertEquals(BODY, get("ships"));
+        assertEquals(BODY, get("ships"));
+
+        server.takeRequest();
+        RecordedRequest revalidation = server.takeRequest();
+        assertEquals("\"v1\"", revalidation.getHeader("If-None-Match"));
+        assertEquals(2, stats.getRequestCount());
+        assertEquals(1, stats.getNetworkCount());
+        assertEquals(1, stats.getNotModifiedCount());
+        assertEquals(BODY.length(), stats.getBytesSaved());
+    }
+
+    @Test
+    public void changedListIsDownloadedAgain() throws Exception {
+        server.enqueue(new MockResponse().setHeader("ETag", "\"v1\"").setBody(BODY));
+        server.enqueue(new MockResponse().setHeader("ETag", "\"v2\"").setBody("[]"));
+
+        get("ships");
+        assertEquals("[]", get("ships"));
+
+        assertEquals(2, stats.getNetworkCount());
+        assertEquals(0, stats.getNotModifiedCount());
+        assertEquals(0, stats.getBytesSaved());
+    }
+
+    @Test
+    public void postsAreNotCounted() throws Exception {
+        server.enqueue(new MockResponse().setBody("{}"));
+
+        Request request = new Request.Builder().url(server.url("/api/auth/login"))
+            .post(okhttp3.RequestBody.create("{}", okhttp3.MediaType.get("application/json")))
+            .build();
+        try (Response response = client.newCall(request).execute()) {
+            response.body().string();
+        }
+
+        assertEquals(0, stats.getRequestCount());
+    }
+
+    private String get(String path) throws IOException {
+        Request request = new Request.Builder().url(server.url("/api/" + path)).build();
+        try (Response response = client.newCall(request).execute()) {
+            return response.body().string();
+        }
+    }
+
+    private static String repeat(String s, int times) {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < times; i++) {
+            builder.append(s);
+        }
+        return builder.append("{}]").toString();
+    }
+}
@@ -0,0 +1,103 @@
+package com.viswa.memp.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+// The call tracker as ApiClient installs it: per-task byte metering and cancellation by tag
+public class RequestDispatcherTest {
+
+    private final MockWebServer server = new MockWebServer();
+    private final RequestDispatcher dispatcher = new RequestDispatcher();
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server.start();
+        client = new OkHttpClient.Builder().addInterceptor(dispatcher.callTracker()).build();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void bytesReadCountsWhatTheTaskReadOverAllItsCalls() throws Exception {
+        server.enqueue(new MockResponse().setBody(new Buffer().write(new byte[10000])));
+        server.enqueue(new MockResponse().setBody(new Buffer().write(new byte[2500])));
+        final AtomicLong before = new AtomicLong(-1);
+        final AtomicLong after = new AtomicLong(-1);
+        final CountDownLatch done = new CountDownLatch(1);
+
+        dispatcher.execute(RequestDispatcher.Priority.PREFETCH, RequestDispatcher.REPORTING, null, () -> {
+            try {
+                before.set(dispatcher.bytesRead());
+                drain("reports");
+                drain("reports");
+                after.set(dispatcher.bytesRead());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            } finally {
+                done.countDown();
+            }
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(0, before.get());
+        assertEquals(12500, after.get());
+        // Off a dispatcher thread nothing is metered
+        assertEquals(0, dispatcher.bytesRead());
+    }
+
+    @Test
+    public void cancelByTagAbortsABodyBeingStreamed() throws Exception {
+        server.enqueue(new MockResponse()
+            .setBody(new Buffer().write(new byte[64 * 1024]))
+            .throttleBody(1024, 100, TimeUnit.MILLISECONDS));
+        final Object tag = new Object();
+        final CountDownLatch reading = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicReference<IOException> failure = new AtomicReference<>();
+
+        dispatcher.execute(RequestDispatcher.Priority.PREFETCH, RequestDispatcher.REPORTING, tag, () -> {
+            try (Response response = client.newCall(request("reports")).execute()) {
+                reading.countDown();
+                response.body().source().readByteArray();
+            } catch (IOException e) {
+                failure.set(e);
+            } finally {
+                done.countDown();
+            }
+        });
+
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+        dispatcher.cancel(tag);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(failure.get() != null);
+    }
+
+    private void drain(String path) throws IOException {
+        try (Response response = client.newCall(request(path)).execute()) {
+            response.body().source().readByteArray();
+        }
+    }
+
+    private Request request(String path) {
+        return new Request.Builder().url(server.url("/" + path)).build();
+    }
+}
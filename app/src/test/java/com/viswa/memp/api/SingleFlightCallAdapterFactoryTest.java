@@ -0,0 +1,119 @@
+package com.viswa.memp.api;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.gson.JsonElement;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+// Coalescing with the token added by the interceptor, as ApiClient wires them
+public class SingleFlightCallAdapterFactoryTest {
+
+    private final MockWebServer server = new MockWebServer();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final TestSession session = new TestSession();
+    private final SingleFlightCallAdapterFactory singleFlight = new SingleFlightCallAdapterFactory();
+    private final ExecutorService callers = Executors.newFixedThreadPool(2);
+    private ApiService api;
+
+    @Before
+    public void setUp() throws IOException {
+        // Every response waits for release, so calls made meanwhile find the first one in flight
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                release.await(10, TimeUnit.SECONDS);
+                return new MockResponse().setBody("{\"Authorization\":\"" + request.getHeader("Authorization") + "\"}");
+            }
+        });
+        server.start();
+        TokenAuthenticator tokenAuthenticator = new TokenAuthenticator();
+        tokenAuthenticator.setSession(session);
+        singleFlight.setSession(session);
+        OkHttpClient client = new OkHttpClient.Builder()
+            .addInterceptor(tokenAuthenticator)
+            .authenticator(tokenAuthenticator)
+            .build();
+        api = new Retrofit.Builder()
+            .baseUrl(server.url("/api/"))
+            .addConverterFactory(GsonConverterFactory.create())
+            .addCallAdapterFactory(singleFlight)
+            .client(client)
+            .build()
+            .create(ApiService.class);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        release.countDown();
+        callers.shutdownNow();
+        server.shutdown();
+    }
+
+    @Test
+    public void sameTokenSharesOneRequest() throws Exception {
+        session.token = "a";
+        Future<Response<JsonElement>> first = callers.submit(() -> api.getLookup("ports").execute());
+        server.takeRequest(10, TimeUnit.SECONDS);
+        Future<Response<JsonElement>> second = callers.submit(() -> api.getLookup("ports").execute());
+        awaitRequests(2);
+        release.countDown();
+
+        assertEquals(first.get(10, TimeUnit.SECONDS).body(), second.get(10, TimeUnit.SECONDS).body());
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, singleFlight.getCoalescedCount());
+    }
+
+    @Test
+    public void newTokenDoesNotJoinTheOldOne() throws Exception {
+        session.token = "a";
+        Future<Response<JsonElement>> first = callers.submit(() -> api.getLookup("ports").execute());
+        server.takeRequest(10, TimeUnit.SECONDS);
+        session.token = "b";
+        Future<Response<JsonElement>> second = callers.submit(() -> api.getLookup("ports").execute());
+        server.takeRequest(10, TimeUnit.SECONDS);
+        release.countDown();
+
+        assertEquals("Bearer a", first.get(10, TimeUnit.SECONDS).body().getAsJsonObject()
+            .get("Authorization").getAsString());
+        assertEquals("Bearer b", second.get(10, TimeUnit.SECONDS).body().getAsJsonObject()
+            .get("Authorization").getAsString());
+        assertEquals(0, singleFlight.getCoalescedCount());
+    }
+
+    private void awaitRequests(long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (singleFlight.getRequestCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static final class TestSession implements TokenAuthenticator.Session {
+        volatile String token;
+
+        @Override
+        public String getToken() {
+            return token;
+        }
+
+        @Override
+        public String renewToken() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.viswa.memp.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.viswa.memp.models.TeamMember;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+// The team list as TeamRepository loads it, against a local stand-in for the gateway
+public class StaleWhileRevalidateTest {
+
+    private static final String ALICE = "[{\"Team_Id\":1,\"Member_Name\":\"Alice\",\"IsActive\":true}]";
+    private static final String ALICE_AND_BOB = "[{\"Team_Id\":1,\"Member_Name\":\"Alice\",\"IsActive\":true},"
+        + "{\"Team_Id\":2,\"Member_Name\":\"Bob\",\"IsActive\":true}]";
+
+    private final MockWebServer server = new MockWebServer();
+    private final CacheStatsInterceptor stats = new CacheStatsInterceptor();
+    private final List<String> deliveries = new ArrayList<>();
+    private Cache cache;
+    private ApiService network;
+    private ApiService cacheOnly;
+
+    @Before
+    public void setUp() throws IOException {
+        server.start();
+        File cacheDir = Files.createTempDirectory("http-cache").toFile();
+        cache = new Cache(cacheDir, 1024 * 1024);
+        OkHttpClient client = new OkHttpClient.Builder().addInterceptor(stats).cache(cache).build();
+        network = retrofit(client).create(ApiService.class);
+        cacheOnly = retrofit(StaleWhileRevalidate.cacheOnly(client)).create(ApiService.class);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+        cache.delete();
+    }
+
+    @Test
+    public void nothingCachedWaitsForTheNetwork() throws Exception {
+        server.enqueue(new MockResponse().setHeader("ETag", "\"v1\"").setBody(ALICE));
+
+        load();
+
+        assertEquals(Arrays.asList("network:Alice"), deliveries);
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void staleCopyComesFirstThenTheChangedList() throws Exception {
+        server.enqueue(new MockResponse().setHeader("ETag", "\"v1\"").setBody(ALICE));
+        server.enqueue(new MockResponse().setHeader("ETag", "\"v2\"").setBody(ALICE_AND_BOB));
+        load();
+        deliveries.clear();
+
+        load();
+
+        assertEquals(Arrays.asList("cache:Alice", "network:Alice,Bob"), deliveries);
+        server.takeRequest();
+        RecordedRequest revalidation = server.takeRequest();
+        assertEquals("\"v1\"", revalidation.getHeader("If-None-Match"));
+        // The cache reads are not requests of their own
+        assertEquals(2, stats.getRequestCount());
+    }
+
+    @Test
+    public void notModifiedDeliversOnlyTheCachedCopy() throws Exception {
+        server.enqueue(new MockResponse().setHeader("ETag", "\"v1\"").setBody(ALICE));
+        server.enqueue(new MockResponse().setResponseCode(304).setHeader("ETag", "\"v1\""));
+        load();
+        deliveries.clear();
+
+        load();
+
+        assertEquals(Arrays.asList("cache:Alice"), deliveries);
+        assertEquals(1, stats.getNotModifiedCount());
+    }
+
+    @Test
+    public void offlineKeepsTheCachedCopyWithoutAnError() throws Exception {
+        server.enqueue(new MockResponse().setHeader("ETag", "\"v1\"").setBody(ALICE));
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+        load();
+        deliveries.clear();
+
+        load();
+
+        assertEquals(Arrays.asList("cache:Alice"), deliveries);
+    }
+
+    @Test
+    public void serverErrorWithNothingCachedIsThrown() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(500));
+
+        try {
+            load();
+            fail("expected the HTTP error");
+        } catch (IOException expected) {
+            assertEquals("HTTP 500", expected.getMessage());
+        }
+        assertEquals(0, deliveries.size());
+    }
+
+    private void load() throws IOException {
+        StaleWhileRevalidate.load(cacheOnly, network, ApiService::getTeamMembers, (members, fromCache) -> {
+            StringBuilder names = new StringBuilder(fromCache ? "cache:" : "network:");
+            for (TeamMember member : members) {
+                names.append(names.charAt(names.length() - 1) == ':' ? "" : ",").append(member.getName());
+            }
+            deliveries.add(names.toString());
+        });
+    }
+
+    private Retrofit retrofit(OkHttpClient client) {
+        return new Retrofit.Builder()
+            .baseUrl(server.url("/api/"))
+            .addConverterFactory(GsonConverterFactory.create())
+            .client(client)
+            .build();
+    }
+}
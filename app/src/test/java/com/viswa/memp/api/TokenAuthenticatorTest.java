@@ -0,0 +1,180 @@
+package com.viswa.memp.api;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+// A hundred parallel requests on an expired token, against a local stand-in for the gateway
+public class TokenAuthenticatorTest {
+
+    private static final int PARALLEL = 100;
+
+    private final MockWebServer server = new MockWebServer();
+    private final TokenAuthenticator authenticator = new TokenAuthenticator();
+    private final TestSession session = new TestSession();
+    private final AtomicInteger logins = new AtomicInteger();
+    private final ExecutorService callers = Executors.newFixedThreadPool(PARALLEL);
+    private volatile String validToken = "t0";
+    private volatile boolean loginAccepted = true;
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                if (request.getPath().startsWith("/api/auth/login")) {
+                    logins.incrementAndGet();
+                    // Slow enough that every other request hits its 401 while this is out
+                    Thread.sleep(100);
+                    if (!loginAccepted) {
+                        return new MockResponse().setResponseCode(401);
+                    }
+                    validToken = "t" + logins.get();
+                    return new MockResponse().setBody(validToken);
+                }
+                if (("Bearer " + validToken).equals(request.getHeader("Authorization"))) {
+                    return new MockResponse().setBody("ok");
+                }
+                return new MockResponse().setResponseCode(401);
+            }
+        });
+        server.start();
+        authenticator.setSession(session);
+        okhttp3.Dispatcher dispatcher = new okhttp3.Dispatcher();
+        dispatcher.setMaxRequests(PARALLEL);
+        dispatcher.setMaxRequestsPerHost(PARALLEL);
+        client = new OkHttpClient.Builder()
+            .dispatcher(dispatcher)
+            .addInterceptor(authenticator)
+            .authenticator(authenticator)
+            .build();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        callers.shutdownNow();
+        server.shutdown();
+    }
+
+    @Test
+    public void expiredTokenIsRenewedOnceForAHundredRequests() throws Exception {
+        session.token = "expired";
+
+        List<Integer> codes = getInParallel();
+
+        for (int code : codes) {
+            assertEquals(200, code);
+        }
+        assertEquals(1, logins.get());
+        assertEquals(1, authenticator.getRenewalCount());
+        assertEquals("t1", session.token);
+    }
+
+    @Test
+    public void failedRenewalIsNotRetriedByTheQueuedRequests() throws Exception {
+        session.token = "expired";
+        loginAccepted = false;
+
+        List<Integer> codes = getInParallel();
+
+        for (int code : codes) {
+            assertEquals(401, code);
+        }
+        assertEquals(1, logins.get());
+        // Still within RETRY_AFTER_MS: the next request on the same token does not log in again
+        assertEquals(401, get());
+        assertEquals(1, logins.get());
+    }
+
+    @Test
+    public void validTokenNeedsNoRenewal() throws Exception {
+        session.token = "t0";
+
+        List<Integer> codes = getInParallel();
+
+        for (int code : codes) {
+            assertEquals(200, code);
+        }
+        assertEquals(0, logins.get());
+        assertEquals(PARALLEL, server.getRequestCount());
+    }
+
+    @Test
+    public void signedOutRequestsAreNotRenewed() throws Exception {
+        session.token = null;
+
+        assertEquals(401, get());
+        assertEquals(0, logins.get());
+    }
+
+    private List<Integer> getInParallel() throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>(PARALLEL);
+        for (int i = 0; i < PARALLEL; i++) {
+            results.add(callers.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    start.await();
+                    return get();
+                }
+            }));
+        }
+        start.countDown();
+        List<Integer> codes = new ArrayList<>(PARALLEL);
+        for (Future<Integer> result : results) {
+            codes.add(result.get(30, TimeUnit.SECONDS));
+        }
+        return codes;
+    }
+
+    private int get() throws IOException {
+        Request request = new Request.Builder().url(server.url("/api/ships")).build();
+        try (Response response = client.newCall(request).execute()) {
+            return response.code();
+        }
+    }
+
+    // Renews by logging in through the same client, as SessionHolder does
+    private final class TestSession implements TokenAuthenticator.Session {
+        volatile String token;
+
+        @Override
+        public String getToken() {
+            return token;
+        }
+
+        @Override
+        public String renewToken() throws IOException {
+            Request login = new Request.Builder().url(server.url("/api/auth/login"))
+                .post(okhttp3.RequestBody.create("{}", okhttp3.MediaType.get("application/json")))
+                .build();
+            try (Response response = client.newCall(login).execute()) {
+                if (!response.isSuccessful()) {
+                    return null; // the old token stays, as it would until the user signs out
+                }
+                token = response.body().string();
+                return token;
+            }
+        }
+    }
+}
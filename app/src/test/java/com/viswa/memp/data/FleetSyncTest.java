@@ -0,0 +1,200 @@
+package com.viswa.memp.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FleetSyncTest {
+
+    private final MockWebServer server = new MockWebServer();
+    private final FakeClock clock = new FakeClock();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    // Ships whose latest report the stand-in server has changed since it was last fetched
+    private final Set<Integer> changedShips = Collections.synchronizedSet(new HashSet<Integer>());
+    private final Set<Integer> failingShips = Collections.synchronizedSet(new HashSet<Integer>());
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        // Each ship's latest report, with an ETag that only moves when the ship is marked changed
+        server.setDispatcher(new Dispatcher() {
+            private final int[] versions = new int[1000];
+
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                int shipId = Integer.parseInt(request.getPath().split("/")[3]);
+                if (failingShips.contains(shipId)) {
+                    return new MockResponse().setResponseCode(503);
+                }
+                int version;
+                synchronized (versions) {
+                    if (changedShips.remove(shipId)) {
+                        versions[shipId]++;
+                    }
+                    version = versions[shipId];
+                }
+                Thread.sleep(5);
+                String etag = "\"" + shipId + "-" + version + "\"";
+                if (etag.equals(request.getHeader("If-None-Match"))) {
+                    return new MockResponse().setResponseCode(304).setHeader("ETag", etag);
+                }
+                return new MockResponse().setHeader("ETag", etag)
+                    .setBody("{\"ShipID\":" + shipId + ",\"Version\":" + version + "}");
+            }
+        });
+        server.start();
+        File cacheDir = Files.createTempDirectory("fleet-sync").toFile();
+        client = new OkHttpClient.Builder().cache(new Cache(cacheDir, 1024 * 1024)).build();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+        client.cache().delete();
+    }
+
+    // Like FleetRepository.syncReports: an unchanged ship costs one revalidation and changes nothing
+    private boolean syncShip(int shipId) throws IOException {
+        int running = inFlight.incrementAndGet();
+        maxInFlight.accumulateAndGet(running, Math::max);
+        Request request = new Request.Builder().url(server.url("/reporting/ship/" + shipId + "/latest")).build();
+        try (Response response = client.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException("HTTP " + response.code());
+            }
+            response.body().string();
+            return response.networkResponse() == null || response.networkResponse().code() != 304;
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    @Test
+    public void worksOffTheFleetOnAtMostThreeLanes() throws Exception {
+        FleetSync sync = new FleetSync(this::syncShip, clock);
+
+        FleetSync.Result result = sync.run(ships(60));
+
+        assertEquals(60, result.synced);
+        assertEquals(60, result.changed);
+        assertEquals(0, result.failed);
+        assertEquals(60, server.getRequestCount());
+        assertEquals(FleetSync.MAX_CONCURRENT, maxInFlight.get());
+    }
+
+    @Test
+    public void unchangedShipsAreA304AndNoChange() throws Exception {
+        FleetSync sync = new FleetSync(this::syncShip, clock);
+        sync.run(ships(20));
+        changedShips.add(3);
+        changedShips.add(11);
+
+        FleetSync.Result result = sync.run(ships(20));
+
+        assertEquals(20, result.synced);
+        assertEquals(2, result.changed);
+        assertEquals(40, server.getRequestCount());
+    }
+
+    @Test
+    public void failingShipBacksOffDoublingUpToTheCapAndResetsOnSuccess() throws Exception {
+        FleetSync sync = new FleetSync(this::syncShip, clock);
+        failingShips.add(2);
+
+        long expected = FleetSync.BASE_BACKOFF_MS;
+        for (int pass = 0; pass < 12; pass++) {
+            FleetSync.Result result = sync.run(ships(3));
+            assertEquals(1, result.failed);
+            assertEquals(expected, sync.retryDelay(2));
+
+            // Not due yet: skipped without a request
+            clock.advance(expected - 1);
+            int requests = server.getRequestCount();
+            result = sync.run(ships(3));
+            assertEquals(1, result.backedOff);
+            assertEquals(0, result.failed);
+            assertEquals(requests + 2, server.getRequestCount());
+
+            clock.advance(1);
+            expected = Math.min(FleetSync.MAX_BACKOFF_MS, expected * 2);
+        }
+        assertEquals(FleetSync.MAX_BACKOFF_MS, expected);
+
+        failingShips.clear();
+        FleetSync.Result result = sync.run(ships(3));
+        assertEquals(3, result.synced);
+        assertEquals(0, sync.retryDelay(2));
+
+        // The next failure starts over from the base delay
+        failingShips.add(2);
+        sync.run(ships(3));
+        assertEquals(FleetSync.BASE_BACKOFF_MS, sync.retryDelay(2));
+    }
+
+    @Test
+    public void gatewayDownFailsThePassSoItIsRetried() throws Exception {
+        FleetSync sync = new FleetSync(this::syncShip, clock);
+        for (int shipId : ships(5)) {
+            failingShips.add(shipId);
+        }
+
+        FleetSync.Result result = sync.run(ships(5));
+        assertTrue(result.allFailed());
+
+        // Everything backing off is not a failure: nothing was attempted
+        result = sync.run(ships(5));
+        assertEquals(5, result.backedOff);
+        assertFalse(result.allFailed());
+
+        // Back up: one ship through is enough for the pass to count
+        failingShips.remove(4);
+        clock.advance(FleetSync.BASE_BACKOFF_MS);
+        result = sync.run(ships(5));
+        assertEquals(1, result.synced);
+        assertEquals(4, result.failed);
+        assertFalse(result.allFailed());
+    }
+
+    private static List<Integer> ships(int count) {
+        List<Integer> ids = new ArrayList<>(count);
+        for (int id = 1; id <= count; id++) {
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    private static final class FakeClock implements FleetSync.Clock {
+        private long now = 1_700_000_000_000L;
+
+        @Override
+        public synchronized long now() {
+            return now;
+        }
+
+        synchronized void advance(long ms) {
+            now += ms;
+        }
+    }
+}
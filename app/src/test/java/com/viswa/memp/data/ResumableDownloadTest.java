@@ -0,0 +1,220 @@
+package com.viswa.memp.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import okio.Buffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+// Against a stand-in for the attachment download that honours Range and If-Range and can cut bodies off
+public class ResumableDownloadTest {
+
+    private static final String ETAG = "\"v1\"";
+
+    private final MockWebServer server = new MockWebServer();
+    private final OkHttpClient client = new OkHttpClient();
+    private final Random random = new Random(23);
+    // Responses left to cut off mid-body
+    private final AtomicInteger drops = new AtomicInteger();
+    // The Range header of each request, "-" for none
+    private final List<String> ranges = Collections.synchronizedList(new ArrayList<String>());
+    private volatile byte[] content;
+    private volatile int status;
+    private File dir;
+    private String url;
+
+    @Before
+    public void setUp() throws IOException {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String range = request.getHeader("Range");
+                ranges.add(range == null ? "-" : range);
+                if (status != 0) {
+                    return new MockResponse().setResponseCode(status);
+                }
+                MockResponse response = new MockResponse().setHeader("ETag", ETAG);
+                int from = 0;
+                if (range != null && ETAG.equals(request.getHeader("If-Range"))) {
+                    from = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+                    if (from >= content.length) {
+                        return response.setResponseCode(416).setHeader("Content-Range", "bytes */" + content.length);
+                    }
+                    response.setResponseCode(206).setHeader("Content-Range",
+                        "bytes " + from + "-" + (content.length - 1) + "/" + content.length);
+                }
+                response.setBody(new Buffer().write(content, from, content.length - from));
+                if (drops.getAndDecrement() > 0) {
+                    response.setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY);
+                }
+                return response;
+            }
+        });
+        server.start();
+        url = server.url("/voyages/attachments/1/download").toString();
+        dir = Files.createTempDirectory("attachments").toFile();
+        content = randomBytes(300_000);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void dropsMidBodyResumeWithRanges() throws IOException {
+        drops.set(3);
+        File target = new File(dir, "a/report.pdf");
+        final long[] last = {0, 0};
+
+        File file = new ResumableDownload(client, url, target).run((bytes, total) -> {
+            last[0] = bytes;
+            last[1] = total;
+        });
+
+        assertArrayEquals(content, Files.readAllBytes(file.toPath()));
+        assertFalse(new File(target + ".part").exists());
+        assertFalse(new File(target + ".meta").exists());
+        assertEquals(content.length, last[0]);
+        assertEquals(content.length, last[1]);
+        assertEquals(4, ranges.size());
+        assertEquals("-", ranges.get(0));
+        for (int i = 1; i < 4; i++) {
+            assertTrue(ranges.get(i).startsWith("bytes="));
+        }
+        // Every resume starts where the one before left off
+        assertTrue(offsetOf(ranges.get(1)) <= offsetOf(ranges.get(2)));
+        assertTrue(offsetOf(ranges.get(2)) <= offsetOf(ranges.get(3)));
+    }
+
+    @Test
+    public void manyDropsOnALargeFileStillComplete() throws IOException {
+        content = randomBytes(2_000_000);
+        drops.set(12);
+
+        File file = new ResumableDownload(client, url, new File(dir, "large.pdf")).run(null);
+
+        assertArrayEquals(content, Files.readAllBytes(file.toPath()));
+        assertEquals(13, ranges.size());
+    }
+
+    // The part was of an older version of the file: If-Range does not match, so the whole new file comes back
+    @Test
+    public void ifRangeMismatchStartsOver() throws IOException {
+        File target = new File(dir, "changed.pdf");
+        byte[] old = randomBytes(200_000);
+        leftover(target, Arrays.copyOf(old, 1000), "\"v0\"", old.length);
+        content = randomBytes(120_000);
+
+        File file = new ResumableDownload(client, url, target).run(null);
+
+        assertArrayEquals(content, Files.readAllBytes(file.toPath()));
+        assertEquals(Collections.singletonList("bytes=1000-"), ranges);
+    }
+
+    // What a restart in the middle of a download leaves behind
+    @Test
+    public void resumesFromALeftoverPart() throws IOException {
+        File target = new File(dir, "restarted.pdf");
+        leftover(target, Arrays.copyOf(content, 50_000), ETAG, content.length);
+
+        File file = new ResumableDownload(client, url, target).run(null);
+
+        assertArrayEquals(content, Files.readAllBytes(file.toPath()));
+        assertEquals(Collections.singletonList("bytes=50000-"), ranges);
+    }
+
+    @Test
+    public void partWithoutMetaIsFetchedWhole() throws IOException {
+        File target = new File(dir, "nometa.pdf");
+        Files.write(new File(target + ".part").toPath(), Arrays.copyOf(content, 50_000));
+
+        File file = new ResumableDownload(client, url, target).run(null);
+
+        assertArrayEquals(content, Files.readAllBytes(file.toPath()));
+        assertEquals(Collections.singletonList("-"), ranges);
+    }
+
+    // The rename was interrupted: the part holds everything and the server answers 416
+    @Test
+    public void completePartIsMovedInPlaceOn416() throws IOException {
+        File target = new File(dir, "complete.pdf");
+        leftover(target, content, ETAG, content.length);
+
+        File file = new ResumableDownload(client, url, target).run(null);
+
+        assertArrayEquals(content, Files.readAllBytes(file.toPath()));
+        assertEquals(1, ranges.size());
+        assertFalse(new File(target + ".meta").exists());
+    }
+
+    @Test
+    public void notFoundIsNotRetried() throws IOException {
+        status = 404;
+        long started = System.nanoTime();
+        try {
+            new ResumableDownload(client, url, new File(dir, "missing.pdf")).run(null);
+            fail();
+        } catch (ResumableDownload.StatusException e) {
+            assertEquals(404, e.code);
+        }
+        assertEquals(1, ranges.size());
+        assertTrue(System.nanoTime() - started < ResumableDownload.RETRY_DELAY_MS * 1_000_000L);
+    }
+
+    @Test
+    public void existingTargetIsNotFetched() throws IOException {
+        File target = new File(dir, "done.pdf");
+        Files.write(target.toPath(), content);
+
+        new ResumableDownload(client, url, target).run(null);
+
+        assertEquals(0, server.getRequestCount());
+    }
+
+    @Test
+    public void contentRangeParsing() {
+        assertArrayEquals(new long[] {5, 10}, ResumableDownload.contentRange("bytes 5-9/10"));
+        assertArrayEquals(new long[] {-1, 10}, ResumableDownload.contentRange("bytes */10"));
+        assertNull(ResumableDownload.contentRange("bytes 5-9/*"));
+        assertNull(ResumableDownload.contentRange(null));
+    }
+
+    private void leftover(File target, byte[] part, String validator, long total) throws IOException {
+        Files.write(new File(target + ".part").toPath(), part);
+        Files.write(new File(target + ".meta").toPath(),
+            (validator + "\n" + total + "\n").getBytes(Charset.forName("UTF-8")));
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static long offsetOf(String range) {
+        return Long.parseLong(range.substring("bytes=".length(), range.length() - 1));
+    }
+}
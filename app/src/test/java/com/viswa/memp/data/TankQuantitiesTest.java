@@ -0,0 +1,303 @@
+package com.viswa.memp.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.viswa.memp.api.ApiService;
+import com.viswa.memp.models.Vessel;
+import com.viswa.memp.models.VesselTank;
+import com.viswa.memp.models.VesselTankStatus;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+// TankRepository's batching against a stand-in tank-service, through the same calls the repository makes
+public class TankQuantitiesTest {
+
+    private static final long TTL_MS = 60 * 1000L;
+    private static final long NOW = 1_700_000_000_000L;
+
+    private final MockWebServer server = new MockWebServer();
+    // Tank ids of every current-quantities call, in the order they arrived
+    private final List<List<Long>> quantityCalls = Collections.synchronizedList(new ArrayList<List<Long>>());
+    private final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+    private volatile int[] tankCounts = new int[0];
+    private volatile boolean listHasQuantities;
+    // Calls asking for this tank fail with 500
+    private volatile long failingTank = -1;
+    private final AtomicInteger listCalls = new AtomicInteger();
+    private ApiService api;
+
+    @Before
+    public void setUp() throws IOException {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                JsonArray rows = new JsonArray();
+                if (request.getPath().equals("/api/tanks")) {
+                    listCalls.incrementAndGet();
+                    for (int vessel = 0; vessel < tankCounts.length; vessel++) {
+                        for (int t = 0; t < tankCounts[vessel]; t++) {
+                            rows.add(tank(vessel, t));
+                        }
+                    }
+                } else if (request.getPath().equals("/api/tanks/current-quantities")) {
+                    JsonObject body = new JsonParser().parse(request.getBody().readUtf8()).getAsJsonObject();
+                    List<Long> ids = new ArrayList<>();
+                    for (JsonElement id : body.getAsJsonArray("tankIds")) {
+                        ids.add(id.getAsLong());
+                    }
+                    quantityCalls.add(ids);
+                    if (ids.contains(failingTank)) {
+                        return new MockResponse().setResponseCode(500);
+                    }
+                    for (long id : ids) {
+                        JsonObject row = new JsonObject();
+                        // mssql sends BigInt as a string
+                        row.addProperty("VesselTankID", String.valueOf(id));
+                        row.addProperty("CurrentQuantityMT", quantityOf(id));
+                        rows.add(row);
+                    }
+                } else {
+                    return new MockResponse().setResponseCode(404);
+                }
+                return new MockResponse().setBody(rows.toString());
+            }
+        });
+        server.start();
+        api = new Retrofit.Builder()
+            .baseUrl(server.url("/api/"))
+            .addConverterFactory(GsonConverterFactory.create())
+            .build()
+            .create(ApiService.class);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void coldFleetIsDeliveredStaleThenRefreshedInOneCall() throws Exception {
+        fleet(40, 24);
+        TankQuantities quantities = quantities(2000);
+
+        stream(quantities, indexed(quantities), NOW, Runnable::run);
+
+        assertEquals(1, listCalls.get());
+        assertEquals(1, quantityCalls.size());
+        assertEquals(40 * 24, quantityCalls.get(0).size());
+        assertEquals(Arrays.asList("rows 0-39 stale", "rows 0-39", "complete"), events);
+    }
+
+    @Test
+    public void batchesHoldWholeVesselsUpToTheLimit() throws Exception {
+        fleet(10, 24);
+        TankQuantities quantities = quantities(100);
+
+        stream(quantities, indexed(quantities), NOW, Runnable::run);
+
+        // 4 vessels of 24 tanks fit in 100; the first batch runs last, on the calling thread
+        assertEquals(Arrays.asList(48, 96, 96), callSizes());
+        assertEquals(Arrays.asList("rows 0-9 stale", "rows 8-9", "rows 4-7", "rows 0-3", "complete"), events);
+    }
+
+    @Test
+    public void batchesOnParallelLanesAllArriveBeforeComplete() throws Exception {
+        fleet(10, 24);
+        TankQuantities quantities = quantities(100);
+        ExecutorService lanes = Executors.newFixedThreadPool(3);
+        try {
+            stream(quantities, indexed(quantities), NOW, lanes);
+        } finally {
+            lanes.shutdown();
+        }
+
+        assertEquals(3, quantityCalls.size());
+        assertEquals(5, events.size());
+        assertEquals("rows 0-9 stale", events.get(0));
+        assertEquals(new HashSet<>(Arrays.asList("rows 0-3", "rows 4-7", "rows 8-9")),
+            new HashSet<>(events.subList(1, 4)));
+        assertEquals("complete", events.get(4));
+    }
+
+    @Test
+    public void vesselOverTheLimitIsSplitAcrossCallsButDeliveredOnce() throws Exception {
+        fleet(1, 250);
+        TankQuantities quantities = quantities(100);
+
+        stream(quantities, indexed(quantities), NOW, Runnable::run);
+
+        assertEquals(Arrays.asList(100, 100, 50), callSizes());
+        assertEquals(Arrays.asList("rows 0-0 stale", "rows 0-0", "complete"), events);
+    }
+
+    @Test
+    public void quantitiesAreReadAgainOnlyOnceTheTtlIsPast() throws Exception {
+        fleet(5, 24);
+        TankQuantities quantities = quantities(2000);
+        Map<String, List<VesselTank>> byImo = indexed(quantities);
+        List<VesselTankStatus> refreshed = stream(quantities, byImo, NOW, Runnable::run);
+        assertEquals(quantityOf(tankId(3, 7)), refreshed.get(3).getQuantityMt(7), 1e-9);
+        events.clear();
+
+        stream(quantities, byImo, NOW + TTL_MS, Runnable::run);
+        assertEquals(1, quantityCalls.size());
+        assertEquals(Arrays.asList("rows 0-4", "complete"), events);
+        events.clear();
+
+        stream(quantities, byImo, NOW + TTL_MS + 1, Runnable::run);
+        assertEquals(2, quantityCalls.size());
+        assertEquals(Arrays.asList("rows 0-4 stale", "rows 0-4", "complete"), events);
+    }
+
+    @Test
+    public void quantitiesInTheTankListCountAsReadWhenItLoaded() throws Exception {
+        fleet(5, 24);
+        listHasQuantities = true;
+        TankQuantities quantities = quantities(2000);
+
+        List<VesselTankStatus> known = stream(quantities, indexed(quantities), NOW + 1000, Runnable::run);
+
+        assertEquals(0, quantityCalls.size());
+        assertEquals(Arrays.asList("rows 0-4", "complete"), events);
+        assertEquals(123.5, known.get(0).getQuantityMt(0), 1e-9);
+    }
+
+    @Test
+    public void failedBatchEndsTheStreamWithAnErrorAfterTheOthers() throws Exception {
+        fleet(10, 24);
+        failingTank = tankId(5, 0);
+        TankQuantities quantities = quantities(100);
+
+        stream(quantities, indexed(quantities), NOW, Runnable::run);
+
+        assertEquals(3, quantityCalls.size());
+        assertEquals(Arrays.asList("rows 0-9 stale", "rows 8-9", "rows 0-3", "error HTTP 500"), events);
+    }
+
+    private TankQuantities quantities(int maxTanksPerCall) {
+        // As TankRepository wires it
+        return new TankQuantities(request -> {
+            Response<JsonElement> response = api.getCurrentTankQuantities(request).execute();
+            if (!response.isSuccessful() || response.body() == null) {
+                throw new IOException("HTTP " + response.code());
+            }
+            return response.body();
+        }, maxTanksPerCall, TTL_MS);
+    }
+
+    private Map<String, List<VesselTank>> indexed(TankQuantities quantities) throws IOException {
+        return quantities.index(api.getLookup("tanks").execute().body(), NOW);
+    }
+
+    // Streams the fleet and waits for the end; returns the last rows delivered per vessel
+    private List<VesselTankStatus> stream(TankQuantities quantities, Map<String, List<VesselTank>> byImo, long now,
+                                          Executor lanes) throws InterruptedException {
+        List<Vessel> vessels = new ArrayList<>();
+        for (int vessel = 0; vessel < tankCounts.length; vessel++) {
+            vessels.add(new Vessel(vessel, "Vessel " + vessel, imoOf(vessel), "PA", "TANKER", 30000));
+        }
+        final VesselTankStatus[] latest = new VesselTankStatus[vessels.size()];
+        final CountDownLatch done = new CountDownLatch(1);
+        quantities.stream(vessels, byImo, now, lanes, Runnable::run, new StreamCallback<VesselTankStatus>() {
+            @Override
+            public void onRows(List<VesselTankStatus> rows) {
+                boolean stale = false;
+                for (VesselTankStatus status : rows) {
+                    stale |= status.isStale();
+                    synchronized (latest) {
+                        latest[status.getShipId()] = status;
+                    }
+                }
+                events.add("rows " + rows.get(0).getShipId() + "-" + rows.get(rows.size() - 1).getShipId()
+                    + (stale ? " stale" : ""));
+            }
+
+            @Override
+            public void onComplete() {
+                events.add("complete");
+                done.countDown();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                events.add("error " + t.getMessage());
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        synchronized (latest) {
+            return Arrays.asList(latest);
+        }
+    }
+
+    private void fleet(int vessels, int tanksEach) {
+        int[] counts = new int[vessels];
+        Arrays.fill(counts, tanksEach);
+        tankCounts = counts;
+    }
+
+    private List<Integer> callSizes() {
+        List<Integer> sizes = new ArrayList<>();
+        Set<Long> asked = new HashSet<>();
+        for (List<Long> ids : quantityCalls) {
+            sizes.add(ids.size());
+            for (Long id : ids) {
+                assertTrue("tank " + id + " asked for twice", asked.add(id));
+            }
+        }
+        return sizes;
+    }
+
+    private JsonObject tank(int vessel, int t) {
+        JsonObject tank = new JsonObject();
+        tank.addProperty("VesselTankID", String.valueOf(tankId(vessel, t)));
+        tank.addProperty("Tank_Name", "T" + t);
+        tank.addProperty("IMO_Number", imoOf(vessel));
+        tank.addProperty("CapacityM3", 500);
+        tank.addProperty("ContentCategory", t % 3 == 0 ? "LO" : "FUEL");
+        tank.addProperty("ContentTypeKey", "HFO");
+        if (listHasQuantities) {
+            tank.addProperty("CurrentQuantityMT", 123.5);
+        }
+        return tank;
+    }
+
+    private static long tankId(int vessel, int t) {
+        return vessel * 1000L + t + 1;
+    }
+
+    private static String imoOf(int vessel) {
+        return "9" + (100000 + vessel);
+    }
+
+    private static double quantityOf(long tankId) {
+        return (tankId % 97) * 1.5;
+    }
+}
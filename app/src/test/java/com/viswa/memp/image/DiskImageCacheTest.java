@@ -0,0 +1,73 @@
+package com.viswa.memp.image;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DiskImageCacheTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("images").toFile();
+    }
+
+    // A file removed behind the cache's back frees the bytes it was indexed with, not the 0 it has now
+    @Test
+    public void missingFileFreesWhatItTook() throws IOException {
+        DiskImageCache cache = new DiskImageCache(dir, 1000);
+        File file = cache.put("https://example.com/a.jpg", bytes(400));
+        assertEquals(400, cache.bytes());
+
+        file.delete();
+        assertNull(cache.get("https://example.com/a.jpg"));
+
+        assertEquals(0, cache.bytes());
+    }
+
+    @Test
+    public void rewrittenUrlIsCountedOnce() throws IOException {
+        DiskImageCache cache = new DiskImageCache(dir, 1000);
+        cache.put("https://example.com/a.jpg", bytes(400));
+
+        cache.put("https://example.com/a.jpg", bytes(300));
+
+        assertEquals(300, cache.bytes());
+        assertEquals(1, dir.listFiles().length);
+    }
+
+    @Test
+    public void evictsDownToTheBoundAndDeletesTheFiles() throws IOException {
+        DiskImageCache cache = new DiskImageCache(dir, 1000);
+        for (int i = 0; i < 5; i++) {
+            cache.put("https://example.com/" + i + ".jpg", bytes(300));
+        }
+
+        assertEquals(900, cache.bytes());
+        assertEquals(3, dir.listFiles().length);
+        assertNull(cache.get("https://example.com/0.jpg"));
+    }
+
+    @Test
+    public void reindexesWhatAnEarlierProcessLeft() throws IOException {
+        new DiskImageCache(dir, 1000).put("https://example.com/a.jpg", bytes(250));
+        new File(dir, "partial.tmp").createNewFile();
+
+        DiskImageCache cache = new DiskImageCache(dir, 1000);
+
+        assertEquals(250, cache.get("https://example.com/a.jpg").length());
+        assertEquals(250, cache.bytes());
+        assertEquals(1, dir.listFiles().length);
+    }
+
+    private static ByteArrayInputStream bytes(int length) {
+        return new ByteArrayInputStream(new byte[length]);
+    }
+}
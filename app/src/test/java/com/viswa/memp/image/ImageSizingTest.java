@@ -0,0 +1,35 @@
+package com.viswa.memp.image;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class ImageSizingTest {
+
+    @Test
+    public void halvesWhileBothSidesStayAtLeastTheRequest() {
+        // 4000x3000 into 500x500: 8 gives 500x375, too short; 4 gives 1000x750
+        assertEquals(4, ImageSizing.sampleSize(4000, 3000, 500, 500));
+        assertEquals(8, ImageSizing.sampleSize(4000, 3000, 500, 375));
+        assertEquals(1, ImageSizing.sampleSize(4000, 3000, 3000, 100));
+    }
+
+    @Test
+    public void smallerSourceIsNotSampled() {
+        assertEquals(1, ImageSizing.sampleSize(200, 100, 400, 400));
+    }
+
+    @Test
+    public void zeroLeavesASideUnconstrained() {
+        assertEquals(4, ImageSizing.sampleSize(4000, 3000, 1000, 0));
+        assertEquals(8, ImageSizing.sampleSize(4000, 3000, 0, 300));
+        assertEquals(1, ImageSizing.sampleSize(4000, 3000, 0, 0));
+    }
+
+    @Test
+    public void sampledSideRoundsUp() {
+        assertEquals(375, ImageSizing.sampledSide(3000, 8));
+        assertEquals(376, ImageSizing.sampledSide(3001, 8));
+        assertEquals(1, ImageSizing.sampledSide(1, 4));
+    }
+}
@@ -0,0 +1,126 @@
+package com.viswa.memp.image;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class LruByteCacheTest {
+
+    // Values are byte arrays sized by their length; every value that leaves is recorded by key
+    private final List<String> evicted = new ArrayList<>();
+    private final LruByteCache<String, byte[]> cache =
+        new LruByteCache<>(100, value -> value.length, (key, value) -> evicted.add(key));
+
+    @Test
+    public void staysWithinTheByteBound() {
+        for (int i = 0; i < 10; i++) {
+            cache.put("k" + i, new byte[30]);
+        }
+
+        assertEquals(90, cache.bytes());
+        assertEquals(3, cache.size());
+        assertEquals(7, cache.evictionCount());
+        assertEquals(Arrays.asList("k0", "k1", "k2", "k3", "k4", "k5", "k6"), evicted);
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsedNotTheOldest() {
+        cache.put("a", new byte[40]);
+        cache.put("b", new byte[40]);
+        cache.get("a");
+
+        cache.put("c", new byte[40]);
+
+        assertEquals(Arrays.asList("b"), evicted);
+        assertEquals(40, cache.get("a").length);
+        assertNull(cache.get("b"));
+        assertEquals(2, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    public void valueLargerThanTheCacheIsRejectedAndHandedBack() {
+        cache.put("small", new byte[10]);
+
+        cache.put("huge", new byte[101]);
+
+        assertNull(cache.get("huge"));
+        assertEquals(10, cache.bytes());
+        assertEquals(Arrays.asList("huge"), evicted);
+        // Rejecting it did not push anything else out
+        assertEquals(0, cache.evictionCount());
+    }
+
+    @Test
+    public void oversizeReplacementDropsTheOldValueToo() {
+        cache.put("k", new byte[10]);
+
+        cache.put("k", new byte[200]);
+
+        assertNull(cache.get("k"));
+        assertEquals(0, cache.bytes());
+        assertEquals(Arrays.asList("k", "k"), evicted);
+    }
+
+    @Test
+    public void replacingAKeyReplacesItsBytes() {
+        byte[] first = new byte[60];
+        cache.put("k", first);
+        byte[] second = new byte[20];
+
+        cache.put("k", second);
+
+        assertSame(second, cache.get("k"));
+        assertEquals(20, cache.bytes());
+        assertEquals(1, cache.size());
+        // The old value is handed back, but it was replaced, not evicted
+        assertEquals(Arrays.asList("k"), evicted);
+        assertEquals(0, cache.evictionCount());
+    }
+
+    @Test
+    public void puttingTheSameValueAgainIsNotAnEviction() {
+        byte[] value = new byte[50];
+        cache.put("k", value);
+
+        cache.put("k", value);
+
+        assertEquals(50, cache.bytes());
+        assertEquals(0, evicted.size());
+    }
+
+    @Test
+    public void trimToDropsTheLeastRecentlyUsedDownToTheTarget() {
+        cache.put("a", new byte[25]);
+        cache.put("b", new byte[25]);
+        cache.put("c", new byte[25]);
+        cache.put("d", new byte[25]);
+        cache.get("a");
+
+        cache.trimTo(50);
+
+        assertEquals(50, cache.bytes());
+        assertEquals(Arrays.asList("b", "c"), evicted);
+        cache.trimTo(0);
+        assertEquals(0, cache.bytes());
+        assertEquals(0, cache.size());
+        assertEquals(Arrays.asList("b", "c", "d", "a"), evicted);
+    }
+
+    @Test
+    public void removeFreesTheBytesAndNotifies() {
+        cache.put("a", new byte[30]);
+
+        cache.remove("a");
+        cache.remove("missing");
+
+        assertEquals(0, cache.bytes());
+        assertEquals(Arrays.asList("a"), evicted);
+        assertEquals(0, cache.evictionCount());
+    }
+}
@@ -0,0 +1,305 @@
+package com.viswa.memp.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.viswa.memp.models.Vessel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+// The index against a plain scan of the vessels in the order the index keeps them, through churn that forces compaction
+public class VesselSearchIndexTest {
+
+    private static final String[] WORDS = { "Ever", "Given", "MSC", "Anna", "Nord", "Star", "Maersk", "Evergreen",
+        "Ocean", "Pearl", "Sea", "Spirit", "Stena", "Nave", "Aurora", "Ever-Star", "St.", "Vessel" };
+    private static final String[] FLAGS = { "Panama", "Liberia", "Malta", "Singapore", null };
+    private static final String[] TYPES = { "TANKER", "BULK", "CONTAINER", null };
+    private static final int[] LIMITS = { VesselSearchIndex.NO_LIMIT, 1, 5, 0 };
+
+    private final Random random = new Random(16);
+    private final VesselSearchIndex index = new VesselSearchIndex();
+    // What the index should hold, in its order: unchanged text keeps its place, changed text moves to the end
+    private final LinkedHashMap<Integer, Vessel> expected = new LinkedHashMap<>();
+    private int nextId = 1;
+
+    @Test
+    public void prefixMatchesComeFirstThenOthersInInsertionOrder() {
+        index.replaceAll(Arrays.asList(
+            vessel(1, "Ocean Star", "9000001", "Panama", "TANKER"),
+            vessel(2, "Star of the Sea", "9000002", "Malta", "BULK"),
+            vessel(3, "Northern Star", "9000003", "Panama", "BULK"),
+            vessel(4, "STAR-LIGHT", "9000004", "Liberia", "TANKER")));
+
+        assertEquals(Arrays.asList(2, 4, 1, 3), ids(index.search("star", null, null, VesselSearchIndex.NO_LIMIT)));
+        assertEquals(Arrays.asList(2, 4, 1, 3), ids(index.search("st", null, null, VesselSearchIndex.NO_LIMIT)));
+        assertEquals(Arrays.asList(2, 4), ids(index.search("star", null, null, 2)));
+        assertEquals(Arrays.asList(1, 3), ids(index.search("Star", "Panama", null, VesselSearchIndex.NO_LIMIT)));
+        assertEquals(Arrays.asList(3), ids(index.search("imo 9000003", null, null, VesselSearchIndex.NO_LIMIT)));
+        assertEquals(0, index.search("star", "Atlantis", null, VesselSearchIndex.NO_LIMIT).size());
+        // One letter matches word starts, not every name containing it
+        assertEquals(Arrays.asList(2), ids(index.search("t", null, null, VesselSearchIndex.NO_LIMIT)));
+    }
+
+    @Test
+    public void facetsCountMatchesMostCommonFirst() {
+        index.replaceAll(Arrays.asList(
+            vessel(1, "Ocean Star", "9000001", "Panama", "TANKER"),
+            vessel(2, "Star of the Sea", "9000002", "Malta", "BULK"),
+            vessel(3, "Northern Star", "9000003", "Panama", "BULK"),
+            vessel(4, "Sea Pearl", "9000004", "Liberia", "TANKER")));
+
+        Map<String, Integer> flags = index.countByFlag("star", null);
+        assertEquals(Arrays.asList("Panama", "Malta"), new ArrayList<>(flags.keySet()));
+        assertEquals(2, (int) flags.get("Panama"));
+        Map<String, Integer> types = index.countByType("", "Panama");
+        assertEquals(1, (int) types.get("TANKER"));
+        assertEquals(1, (int) types.get("BULK"));
+        assertTrue(index.countByType("", "Atlantis").isEmpty());
+    }
+
+    @Test
+    public void matchesAPlainScanThroughChurn() {
+        replaceAll(randomFleet(300));
+        check();
+        for (int round = 0; round < 40; round++) {
+            for (int op = 0; op < 25; op++) {
+                churn();
+            }
+            check();
+        }
+        // A sync that drops most of the fleet and renames some of the rest
+        List<Vessel> synced = new ArrayList<>();
+        for (Vessel vessel : expected.values()) {
+            if (random.nextInt(4) == 0) {
+                synced.add(random.nextBoolean() ? vessel : renamed(vessel));
+            }
+        }
+        synced.addAll(randomFleet(20));
+        replaceAll(synced);
+        check();
+    }
+
+    private void churn() {
+        List<Vessel> live = new ArrayList<>(expected.values());
+        switch (random.nextInt(6)) {
+            case 0:
+                put(randomVessel(nextId++));
+                break;
+            case 1:
+                if (!live.isEmpty()) {
+                    put(renamed(live.get(random.nextInt(live.size()))));
+                }
+                break;
+            case 2:
+                if (!live.isEmpty()) {
+                    // Same indexed text, new object: the vessel keeps its place
+                    Vessel vessel = live.get(random.nextInt(live.size()));
+                    put(vessel(vessel.getId(), vessel.getName(), vessel.getImo(), vessel.getFlag(), vessel.getType()));
+                }
+                break;
+            case 3:
+                if (!live.isEmpty()) {
+                    Vessel vessel = live.get(random.nextInt(live.size()));
+                    // Reflagged: a facet change moves it to the end like a rename
+                    put(vessel(vessel.getId(), vessel.getName(), vessel.getImo(), pick(FLAGS), vessel.getType()));
+                }
+                break;
+            default:
+                // Now and then an id the index never had
+                int shipId = live.isEmpty() || random.nextInt(10) == 0
+                    ? nextId + 1000 : live.get(random.nextInt(live.size())).getId();
+                assertEquals(expected.remove(shipId) != null, index.remove(shipId));
+                break;
+        }
+    }
+
+    private void put(Vessel vessel) {
+        index.put(vessel);
+        expectPut(vessel);
+    }
+
+    private void replaceAll(List<Vessel> list) {
+        index.replaceAll(list);
+        Map<Integer, Boolean> listed = new HashMap<>();
+        for (Vessel vessel : list) {
+            listed.put(vessel.getId(), true);
+            expectPut(vessel);
+        }
+        for (Iterator<Integer> it = expected.keySet().iterator(); it.hasNext(); ) {
+            if (!listed.containsKey(it.next())) {
+                it.remove();
+            }
+        }
+    }
+
+    private void expectPut(Vessel vessel) {
+        Vessel old = expected.get(vessel.getId());
+        if (old != null && sameText(old, vessel)) {
+            expected.put(vessel.getId(), vessel);
+        } else {
+            expected.remove(vessel.getId());
+            expected.put(vessel.getId(), vessel);
+        }
+    }
+
+    private void check() {
+        assertEquals(expected.size(), index.size());
+        List<String> queries = new ArrayList<>(Arrays.asList("", "  ", "e", "S", "ev", "st", "sea", "ever star",
+            "EVER-STAR", "st star", "zzz", "9", "91", "imo 9", "imo912", "9123456789"));
+        List<Vessel> live = new ArrayList<>(expected.values());
+        for (int i = 0; i < 15 && !live.isEmpty(); i++) {
+            Vessel vessel = live.get(random.nextInt(live.size()));
+            String name = vessel.getName();
+            int from = random.nextInt(name.length());
+            queries.add(name.substring(from, Math.min(name.length(), from + 1 + random.nextInt(8))));
+            if (vessel.getImo() != null) {
+                queries.add(vessel.getImo().substring(0, 1 + random.nextInt(vessel.getImo().length())));
+            }
+        }
+        for (String query : queries) {
+            for (String flag : new String[] { null, "Malta", "Atlantis" }) {
+                for (String type : new String[] { null, "TANKER" }) {
+                    for (int limit : LIMITS) {
+                        assertEquals(query + " / " + flag + " / " + type + " / " + limit,
+                            ids(scan(query, flag, type, limit)), ids(index.search(query, flag, type, limit)));
+                    }
+                }
+            }
+            checkFacet(index.countByFlag(query, null), scanCount(query, true, null));
+            checkFacet(index.countByFlag(query, "BULK"), scanCount(query, true, "BULK"));
+            checkFacet(index.countByType(query, "Panama"), scanCount(query, false, "Panama"));
+        }
+    }
+
+    // Same counts, and the most common first; ties may come in any order
+    private static void checkFacet(Map<String, Integer> actual, Map<String, Integer> expected) {
+        assertEquals(expected, new HashMap<>(actual));
+        int previous = Integer.MAX_VALUE;
+        for (int count : actual.values()) {
+            assertTrue(count <= previous);
+            previous = count;
+        }
+    }
+
+    private List<Vessel> scan(String query, String flag, String type, int limit) {
+        String normalized = VesselSearchIndex.normalize(query);
+        List<Vessel> starts = new ArrayList<>();
+        List<Vessel> others = new ArrayList<>();
+        for (Vessel vessel : expected.values()) {
+            if ((flag != null && !flag.equals(vessel.getFlag())) || (type != null && !type.equals(vessel.getType()))
+                    || !matches(vessel, normalized)) {
+                continue;
+            }
+            boolean nameQuery = !normalized.isEmpty() && imoDigits(normalized) == null;
+            if (nameQuery && VesselSearchIndex.normalize(vessel.getName()).startsWith(normalized)) {
+                starts.add(vessel);
+            } else {
+                others.add(vessel);
+            }
+        }
+        starts.addAll(others);
+        return starts.subList(0, Math.max(0, Math.min(limit, starts.size())));
+    }
+
+    private Map<String, Integer> scanCount(String query, boolean byFlag, String filter) {
+        String normalized = VesselSearchIndex.normalize(query);
+        Map<String, Integer> counts = new HashMap<>();
+        for (Vessel vessel : expected.values()) {
+            String facet = byFlag ? vessel.getFlag() : vessel.getType();
+            String other = byFlag ? vessel.getType() : vessel.getFlag();
+            if (facet == null || (filter != null && !filter.equals(other)) || !matches(vessel, normalized)) {
+                continue;
+            }
+            Integer count = counts.get(facet);
+            counts.put(facet, count == null ? 1 : count + 1);
+        }
+        return counts;
+    }
+
+    private static boolean matches(Vessel vessel, String query) {
+        if (query.isEmpty()) {
+            return true;
+        }
+        String digits = imoDigits(query);
+        if (digits != null) {
+            return vessel.getImo() != null && vessel.getImo().replaceAll("[^0-9]", "").startsWith(digits);
+        }
+        String name = VesselSearchIndex.normalize(vessel.getName());
+        if (query.length() > 2) {
+            return name.contains(query);
+        }
+        for (String word : name.split(" ")) {
+            if (word.startsWith(query)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The digits of "9123" or "imo 9123", else null
+    private static String imoDigits(String query) {
+        String digits = query.startsWith("imo ") ? query.substring(4) : query.startsWith("imo") ? query.substring(3)
+            : query;
+        return !digits.isEmpty() && digits.matches("[0-9]+") ? digits : null;
+    }
+
+    private List<Vessel> randomFleet(int count) {
+        List<Vessel> fleet = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            fleet.add(randomVessel(nextId++));
+        }
+        return fleet;
+    }
+
+    private Vessel randomVessel(int id) {
+        String imo = random.nextInt(20) == 0 ? null : "9" + (100000 + random.nextInt(900000));
+        return vessel(id, randomName(), imo, pick(FLAGS), pick(TYPES));
+    }
+
+    private Vessel renamed(Vessel vessel) {
+        return vessel(vessel.getId(), randomName(), vessel.getImo(), vessel.getFlag(), vessel.getType());
+    }
+
+    private String randomName() {
+        StringBuilder name = new StringBuilder(pick(WORDS));
+        for (int words = random.nextInt(3); words > 0; words--) {
+            name.append(random.nextBoolean() ? " " : " - ").append(pick(WORDS));
+        }
+        if (random.nextInt(3) == 0) {
+            name.append(' ').append(random.nextInt(30));
+        }
+        return random.nextBoolean() ? name.toString() : name.toString().toUpperCase();
+    }
+
+    private <T> T pick(T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static boolean sameText(Vessel a, Vessel b) {
+        return same(a.getName(), b.getName()) && same(a.getImo(), b.getImo()) && same(a.getFlag(), b.getFlag())
+            && same(a.getType(), b.getType());
+    }
+
+    private static boolean same(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static Vessel vessel(int id, String name, String imo, String flag, String type) {
+        return new Vessel(id, name, imo, flag, type, 30000);
+    }
+
+    private static List<Integer> ids(List<Vessel> vessels) {
+        List<Integer> ids = new ArrayList<>(vessels.size());
+        for (Vessel vessel : vessels) {
+            ids.add(vessel.getId());
+        }
+        return ids;
+    }
+}
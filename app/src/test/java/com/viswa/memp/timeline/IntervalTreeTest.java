@@ -0,0 +1,135 @@
+package com.viswa.memp.timeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class IntervalTreeTest {
+
+    private static final long DAY = 1440;
+    private static final long YEAR = 365 * DAY;
+
+    @Test
+    public void halfOpenBounds() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.add(100, 200, "a");
+
+        assertNull(tree.at(99));
+        assertEquals("a", tree.at(100));
+        assertEquals("a", tree.at(199));
+        assertNull(tree.at(200));
+        assertEquals(0, overlapping(tree, 200, 300).size());
+        assertEquals(0, overlapping(tree, 0, 100).size());
+        assertEquals(1, overlapping(tree, 199, 200).size());
+    }
+
+    @Test
+    public void latestStartWinsWhenSeveralContainTheTime() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.add(0, 1000, "long");
+        tree.add(300, 400, "short");
+        tree.add(350, VoyageTimeline.OPEN, "open");
+
+        assertEquals("long", tree.at(299));
+        assertEquals("short", tree.at(320));
+        assertEquals("open", tree.at(390));
+        assertEquals("open", tree.at(5000));
+        List<String> all = new ArrayList<>();
+        tree.allAt(360, all);
+        assertEquals(3, all.size());
+        assertEquals("long", all.get(0));
+    }
+
+    @Test
+    public void sameStartKeepsInsertionOrder() {
+        IntervalTree<Integer> tree = new IntervalTree<>();
+        for (int i = 0; i < 50; i++) {
+            tree.add(10, 20 + i, i);
+        }
+
+        List<Integer> found = overlapping(tree, 0, 100);
+        for (int i = 0; i < 50; i++) {
+            assertEquals(Integer.valueOf(i), found.get(i));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void endBeforeStartIsRejected() {
+        new IntervalTree<String>().add(10, 9, "x");
+    }
+
+    @Test
+    public void emptyTree() {
+        IntervalTree<String> tree = new IntervalTree<>();
+
+        assertNull(tree.at(0));
+        assertEquals(Long.MAX_VALUE, tree.firstStart());
+        assertEquals(0, overlapping(tree, Long.MIN_VALUE, Long.MAX_VALUE).size());
+    }
+
+    // Ten years of voyages of days to months, some open ended, added out of order, against a scan
+    @Test
+    public void tenYearsMatchALinearScan() {
+        Random random = new Random(21);
+        long epoch = 26_000_000L; // early 2019 in minutes
+        List<long[]> intervals = new ArrayList<>();
+        IntervalTree<Integer> tree = new IntervalTree<>();
+        for (int i = 0; i < 3000; i++) {
+            long start = epoch + (long) (random.nextDouble() * 10 * YEAR);
+            long end = random.nextInt(50) == 0 ? VoyageTimeline.OPEN : start + DAY + random.nextInt((int) (90 * DAY));
+            intervals.add(new long[] {start, end});
+            tree.add(start, end, i);
+        }
+        assertEquals(3000, tree.size());
+
+        long firstStart = Long.MAX_VALUE;
+        for (long[] interval : intervals) {
+            firstStart = Math.min(firstStart, interval[0]);
+        }
+        assertEquals(firstStart, tree.firstStart());
+
+        for (int q = 0; q < 2000; q++) {
+            long from = epoch - YEAR + (long) (random.nextDouble() * 12 * YEAR);
+            long to = from + random.nextInt((int) (60 * DAY));
+
+            List<Integer> expected = new ArrayList<>();
+            long latestStart = Long.MIN_VALUE;
+            Integer latest = null;
+            for (int i = 0; i < intervals.size(); i++) {
+                long[] interval = intervals.get(i);
+                if (interval[0] < to && interval[1] > from) {
+                    expected.add(i);
+                }
+                if (interval[0] <= from && interval[1] > from && interval[0] >= latestStart) {
+                    latestStart = interval[0];
+                    latest = i;
+                }
+            }
+            List<Integer> found = overlapping(tree, from, to);
+            assertEquals(expected.size(), found.size());
+            assertEquals(new HashSet<>(expected), new HashSet<>(found));
+            for (int i = 1; i < found.size(); i++) {
+                assertTrue(intervals.get(found.get(i - 1))[0] <= intervals.get(found.get(i))[0]);
+            }
+            Integer at = tree.at(from);
+            if (latest == null) {
+                assertNull(at);
+            } else {
+                // Ties on start can go either way; the start is what has to match
+                assertEquals(latestStart, intervals.get(at)[0]);
+            }
+        }
+    }
+
+    private static <T> List<T> overlapping(IntervalTree<T> tree, long from, long to) {
+        List<T> found = new ArrayList<>();
+        tree.overlapping(from, to, found);
+        return found;
+    }
+}
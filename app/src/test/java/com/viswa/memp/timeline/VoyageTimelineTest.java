@@ -0,0 +1,164 @@
+package com.viswa.memp.timeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.gson.Gson;
+import com.viswa.memp.api.ReportStreamParser;
+import com.viswa.memp.models.Voyage;
+import com.viswa.memp.models.VoyageLeg;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import org.junit.Before;
+import org.junit.Test;
+
+// Six years of back-to-back voyages of one ship, with three legs each
+public class VoyageTimelineTest {
+
+    private static final long DAY = 1440;
+    private static final int VOYAGES = 6 * 24;
+    // Each voyage departs every 15 days and is under way for 14
+    private static final long PERIOD = 15 * DAY;
+    private static final long LENGTH = 14 * DAY;
+
+    private final Gson gson = new Gson();
+    private final SimpleDateFormat iso = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.US);
+    private long first;
+    private List<Voyage> voyages;
+
+    @Before
+    public void setUp() {
+        iso.setTimeZone(TimeZone.getTimeZone("UTC"));
+        first = ReportStreamParser.epochMinute("2019-01-01T06:00:00");
+        voyages = new ArrayList<>();
+        for (int i = 0; i < VOYAGES; i++) {
+            long start = first + i * PERIOD;
+            boolean last = i == VOYAGES - 1;
+            // Older voyages departed on time; some only carry the estimate
+            String atd = i % 3 == 0 ? null : format(start);
+            voyages.add(voyage(i, atd, format(start), last ? null : format(start + LENGTH)));
+        }
+    }
+
+    @Test
+    public void historyIsLatestDepartureFirstWithUndatedLeftOut() {
+        List<Voyage> all = new ArrayList<>(voyages);
+        all.add(voyage(9999, null, null, format(first)));
+
+        VoyageTimeline timeline = new VoyageTimeline(all);
+
+        assertEquals(VOYAGES, timeline.getHistory().size());
+        assertEquals(VOYAGES - 1, timeline.getHistory().get(0).getId());
+        assertEquals(0, timeline.getHistory().get(VOYAGES - 1).getId());
+    }
+
+    @Test
+    public void voyageAtFindsTheOneUnderWay() {
+        VoyageTimeline timeline = new VoyageTimeline(voyages);
+
+        for (int i = 0; i < VOYAGES - 1; i++) {
+            long start = first + i * PERIOD;
+            assertEquals(i, timeline.voyageAt(start).getId());
+            assertEquals(i, timeline.voyageAt(start + LENGTH - 1).getId());
+            // The day in port between two voyages
+            assertNull(timeline.voyageAt(start + LENGTH));
+        }
+        assertNull(timeline.voyageAt(first - 1));
+    }
+
+    @Test
+    public void lastVoyageWithNoArrivalIsOpenEnded() {
+        VoyageTimeline timeline = new VoyageTimeline(voyages);
+        Voyage last = voyages.get(VOYAGES - 1);
+
+        assertEquals(VoyageTimeline.OPEN, VoyageTimeline.endOf(last));
+        assertEquals(last.getId(), timeline.voyageAt(first + 10 * 365 * DAY).getId());
+    }
+
+    @Test
+    public void aMonthOnScreenListsItsVoyagesOnly() {
+        VoyageTimeline timeline = new VoyageTimeline(voyages);
+        long from = ReportStreamParser.epochMinute("2022-03-01T00:00:00");
+        long to = ReportStreamParser.epochMinute("2022-04-01T00:00:00");
+
+        List<Voyage> found = timeline.voyagesBetween(from, to);
+
+        List<Long> expected = new ArrayList<>();
+        for (Voyage voyage : voyages) {
+            if (VoyageTimeline.startOf(voyage) < to && VoyageTimeline.endOf(voyage) > from) {
+                expected.add(voyage.getId());
+            }
+        }
+        assertTrue(expected.size() >= 2);
+        assertEquals(expected.size(), found.size());
+        for (int i = 0; i < found.size(); i++) {
+            assertEquals((long) expected.get(i), found.get(i).getId());
+        }
+    }
+
+    @Test
+    public void legsAreLoadedPerVoyageAsTheyComeOnScreen() {
+        VoyageTimeline timeline = new VoyageTimeline(voyages);
+        long from = first + 100 * PERIOD;
+        long to = from + 2 * PERIOD;
+
+        List<Voyage> pending = timeline.unexpandedBetween(from, to);
+        assertEquals(2, pending.size());
+        assertNull(timeline.legAt(from + DAY));
+
+        for (Voyage voyage : pending) {
+            timeline.addLegs(voyage.getId(), legs(voyage.getId(), VoyageTimeline.startOf(voyage)));
+        }
+
+        assertTrue(timeline.unexpandedBetween(from, to).isEmpty());
+        assertTrue(timeline.isExpanded(100));
+        assertFalse(timeline.isExpanded(99));
+        assertEquals(1, timeline.unexpandedBetween(from - PERIOD, to).size());
+        assertEquals(6, timeline.legsBetween(from, to).size());
+        assertEquals(2, timeline.legAt(from + 5 * DAY).getLegNumber());
+        assertEquals(100, timeline.legAt(from + DAY).getVoyageId());
+    }
+
+    @Test
+    public void secondLoadOfTheSameLegsIsIgnored() {
+        VoyageTimeline timeline = new VoyageTimeline(voyages);
+        long start = first + 50 * PERIOD;
+
+        timeline.addLegs(50, legs(50, start));
+        timeline.addLegs(50, legs(50, start));
+
+        assertEquals(3, timeline.legsBetween(start, start + PERIOD).size());
+    }
+
+    // Three legs of 4, 5 and 5 days; the last one has no actual arrival yet
+    private List<VoyageLeg> legs(long voyageId, long start) {
+        List<VoyageLeg> legs = new ArrayList<>();
+        long[] bounds = {start, start + 4 * DAY, start + 9 * DAY, start + LENGTH};
+        for (int leg = 0; leg < 3; leg++) {
+            String ata = leg == 2 ? null : "\"" + format(bounds[leg + 1]) + "\"";
+            legs.add(gson.fromJson("{\"VoyageLegID\":" + (voyageId * 10 + leg) + ",\"VoyageID\":" + voyageId
+                + ",\"LegNumber\":" + (leg + 1) + ",\"ATD_UTC\":\"" + format(bounds[leg])
+                + "\",\"ETA_UTC\":\"" + format(bounds[leg + 1]) + "\",\"ATA_UTC\":" + ata + "}", VoyageLeg.class));
+        }
+        return legs;
+    }
+
+    private Voyage voyage(long id, String atd, String etd, String eta) {
+        return gson.fromJson("{\"VoyageID\":" + id + ",\"ShipID\":7,\"ATD\":" + quoted(atd) + ",\"ETD_UTC\":"
+            + quoted(etd) + ",\"ETA_UTC\":" + quoted(eta) + "}", Voyage.class);
+    }
+
+    private static String quoted(String value) {
+        return value == null ? "null" : "\"" + value + "\"";
+    }
+
+    private String format(long minute) {
+        return iso.format(new Date(minute * 60000L));
+    }
+}
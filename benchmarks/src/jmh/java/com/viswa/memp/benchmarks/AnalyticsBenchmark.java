@@ -0,0 +1,99 @@
+package com.viswa.memp.benchmarks;
+
+import com.viswa.memp.analytics.CiiEngine;
+import com.viswa.memp.analytics.CiiTables;
+import com.viswa.memp.analytics.EmissionTotals;
+import com.viswa.memp.analytics.EmissionsLedger;
+import com.viswa.memp.analytics.KpiAggregator;
+import com.viswa.memp.analytics.KpiSnapshot;
+import com.viswa.memp.models.ReportMetrics;
+import com.viswa.memp.models.Vessel;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// The on-device engines over a fleet with a year of daily reports per vessel
+@State(Scope.Benchmark)
+public class AnalyticsBenchmark {
+
+    private static final int YEAR = 2024;
+
+    @Param({ "100", "300" })
+    public int vessels;
+
+    private CiiTables tables;
+    private CiiEngine engine;
+    private EmissionsLedger ledger;
+    private KpiAggregator kpis;
+    private List<ReportMetrics> metrics;
+    private int fromDay;
+    private int toDay;
+    private long nextReportId;
+    private final double[] totals = new double[3];
+    private final double[] band = new double[5];
+
+    @Setup
+    public void setUp() throws IOException {
+        try (Reader in = new InputStreamReader(getClass().getResourceAsStream("/cii_tables.json"), "UTF-8")) {
+            tables = CiiTables.read(in);
+        }
+        List<Vessel> fleet = Fixtures.vessels(vessels, 8);
+        metrics = Fixtures.reportMetrics(vessels, YEAR);
+        engine = new CiiEngine(tables);
+        engine.setVessels(fleet);
+        ledger = new EmissionsLedger();
+        kpis = new KpiAggregator();
+        kpis.replaceVessels(fleet);
+        for (ReportMetrics report : metrics) {
+            engine.addReport(report);
+            ledger.addReport(report);
+            kpis.putReport(report.getReportId(), report.getReportId() % 3 != 0);
+        }
+        fromDay = EmissionsLedger.epochDay(YEAR, 1, 1);
+        toDay = EmissionsLedger.epochDay(YEAR, 12, 31);
+        nextReportId = metrics.size();
+    }
+
+    @Benchmark
+    public Object ciiRateFleet() {
+        return engine.rateFleet(YEAR);
+    }
+
+    @Benchmark
+    public boolean ciiTableLookup() {
+        return tables.lookup(tables.typeCode("BULK_CARRIER"), 82000, YEAR, band);
+    }
+
+    @Benchmark
+    public double emissionsFleetYear() {
+        ledger.totals(EmissionsLedger.ALL_SHIPS, fromDay, toDay, totals);
+        return totals[1];
+    }
+
+    @Benchmark
+    public EmissionTotals emissionsByVoyage() {
+        return ledger.totalsBy(EmissionsLedger.GROUP_BY_VOYAGE, EmissionsLedger.ALL_SHIPS, fromDay, toDay);
+    }
+
+    // An edited report replacing its earlier copy in the ledger
+    @Benchmark
+    public int emissionsReplaceReport() {
+        ReportMetrics report = metrics.get((int) (nextReportId++ % metrics.size()));
+        ledger.addReport(report);
+        return ledger.rowCount();
+    }
+
+    // A status change on a stored report
+    @Benchmark
+    public KpiSnapshot kpiPutReport() {
+        long reportId = nextReportId++;
+        kpis.putReport(1 + reportId % metrics.size(), (reportId & 1) == 0);
+        return kpis.snapshot();
+    }
+}
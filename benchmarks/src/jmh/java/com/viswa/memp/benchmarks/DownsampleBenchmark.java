@@ -0,0 +1,50 @@
+package com.viswa.memp.benchmarks;
+
+import com.viswa.memp.chart.Lttb;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// The re-sample a chart does on every zoom or pan frame, to a 1080 px wide plot
+@State(Scope.Benchmark)
+public class DownsampleBenchmark {
+
+    private static final int PIXELS = 1080;
+
+    // A year of noon reports per engine up to a year of hourly engine logs
+    @Param({ "365", "8760", "100000" })
+    public int points;
+
+    private float[] x;
+    private float[] y;
+    private final float[] outX = new float[PIXELS];
+    private final float[] outY = new float[PIXELS];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(11);
+        x = new float[points];
+        y = new float[points];
+        for (int i = 0; i < points; i++) {
+            x[i] = i * 60f;
+            y[i] = 175 + (float) Math.sin(i / 50.0) * 10 + random.nextFloat() * 4;
+        }
+    }
+
+    @Benchmark
+    public int wholeSeries() {
+        return Lttb.downsample(x, y, 0, points, PIXELS, outX, outY);
+    }
+
+    // Zoomed to the middle tenth: two binary searches, then the slice
+    @Benchmark
+    public int zoomedSlice() {
+        float span = x[points - 1];
+        int from = Lttb.lowerBound(x, points, span * 0.45f);
+        int to = Lttb.upperBound(x, points, span * 0.55f);
+        return Lttb.downsample(x, y, from, to, PIXELS, outX, outY);
+    }
+}
@@ -0,0 +1,273 @@
+package com.viswa.memp.benchmarks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+import com.viswa.memp.models.ReportMetrics;
+import com.viswa.memp.models.Vessel;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Synthetic fleet data shaped like the gateway's responses; seeded so every run measures the same input
+final class Fixtures {
+
+    static final String[] VESSEL_TYPES = {
+        "BULK_CARRIER", "TANKER", "GAS_CARRIER", "CONTAINER", "GENERAL_CARGO",
+        "REFRIGERATED_CARGO", "COMBINATION_CARRIER", "RORO_VEHICLE", "RORO_PASSENGER", "CRUISE_PASSENGER_SHIP"
+    };
+    static final String[] FUEL_TYPES = { "HFO", "LFO", "DIESEL_GAS_OIL", "LNG", "METHANOL" };
+    static final String[] STATUSES = { "Submitted", "Draft", "Approved" };
+
+    private Fixtures() {
+    }
+
+    static String loginJson() {
+        JsonObject user = new JsonObject();
+        user.addProperty("id", 42);
+        user.addProperty("email", "superintendent@example.com");
+        user.addProperty("name", "Fleet Superintendent");
+        JsonObject login = new JsonObject();
+        login.addProperty("success", true);
+        login.addProperty("message", "Login successful");
+        login.addProperty("token", "eyJhbGciOiJIUzI1NiJ9.eyJpZCI6NDJ9.c2lnbmF0dXJlLXBsYWNlaG9sZGVy");
+        login.add("user", user);
+        return login.toString();
+    }
+
+    static String vesselsJson(int count) {
+        JsonArray array = new JsonArray();
+        Random random = new Random(1);
+        for (int i = 1; i <= count; i++) {
+            JsonObject vessel = new JsonObject();
+            vessel.addProperty("ShipID", i);
+            vessel.addProperty("ShipName", "MV Vessel " + i);
+            vessel.addProperty("IMO_Number", String.valueOf(9000000 + i));
+            vessel.addProperty("FlagState", i % 3 == 0 ? "Panama" : "Liberia");
+            vessel.addProperty("VesselTypeKey", VESSEL_TYPES[random.nextInt(VESSEL_TYPES.length)]);
+            vessel.addProperty("CapacityGT", 5000 + random.nextInt(150000));
+            vessel.addProperty("CapacityDWT", 8000 + random.nextInt(200000));
+            array.add(vessel);
+        }
+        return array.toString();
+    }
+
+    /**
+     * A report page of at least minBytes as UTF-8, the rows shaped as in
+     * reportPageJson; written as it is generated, so building it never holds the
+     * rows as objects.
+     */
+    static byte[] reportPageBytes(int minBytes) {
+        ByteArrayOutputStream rows = new ByteArrayOutputStream(minBytes + 4096);
+        Random random = new Random(2);
+        int count = 0;
+        try (JsonWriter writer = new JsonWriter(new OutputStreamWriter(rows, StandardCharsets.UTF_8))) {
+            writer.beginArray();
+            while (rows.size() < minBytes) {
+                for (int batch = 0; batch < 1000; batch++) {
+                    int i = ++count;
+                    writer.beginObject()
+                        .name("ReportID").value(100000 + i)
+                        .name("ShipID").value(7)
+                        .name("VoyageID").value(300 + i / 20)
+                        .name("VoyageLegID").value(3000 + i / 5)
+                        .name("ReportTypeKey").value(i % 2 == 0 ? "NOON" : "DEPARTURE")
+                        .name("ReportDateTimeUTC").value(date(i % 365) + "T12:00:00.000Z")
+                        .name("VesselActivity").value("AT_SEA")
+                        .name("Latitude").value(random.nextDouble() * 120 - 60)
+                        .name("Longitude").value(random.nextDouble() * 360 - 180)
+                        .name("ReportStatus").value(STATUSES[random.nextInt(STATUSES.length)])
+                        .name("VoyageNumber").value("V" + (300 + i / 20))
+                        .name("DeparturePortCode").value("SGSIN")
+                        .name("ArrivalPortCode").value("NLRTM")
+                        .endObject();
+                }
+                writer.flush();
+            }
+            writer.endArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] head = ("{\"totalCount\":" + count + ",\"reports\":").getBytes(StandardCharsets.UTF_8);
+        byte[] body = rows.toByteArray();
+        byte[] page = new byte[head.length + body.length + 1];
+        System.arraycopy(head, 0, page, 0, head.length);
+        System.arraycopy(body, 0, page, head.length, body.length);
+        page[page.length - 1] = '}';
+        return page;
+    }
+
+    static String reportPageJson(int count) {
+        JsonArray reports = new JsonArray();
+        Random random = new Random(2);
+        for (int i = 1; i <= count; i++) {
+            JsonObject report = new JsonObject();
+            report.addProperty("ReportID", 100000 + i);
+            report.addProperty("ShipID", 7);
+            report.addProperty("VoyageID", 300 + i / 20);
+            report.addProperty("VoyageLegID", 3000 + i / 5);
+            report.addProperty("ReportTypeKey", i % 2 == 0 ? "NOON" : "DEPARTURE");
+            report.addProperty("ReportDateTimeUTC", date(i % 365) + "T12:00:00.000Z");
+            report.addProperty("VesselActivity", "AT_SEA");
+            report.addProperty("Latitude", random.nextDouble() * 120 - 60);
+            report.addProperty("Longitude", random.nextDouble() * 360 - 180);
+            report.addProperty("ReportStatus", STATUSES[random.nextInt(STATUSES.length)]);
+            report.addProperty("VoyageNumber", "V" + (300 + i / 20));
+            report.addProperty("DeparturePortCode", "SGSIN");
+            report.addProperty("ArrivalPortCode", "NLRTM");
+            reports.add(report);
+        }
+        JsonObject page = new JsonObject();
+        page.addProperty("totalCount", count);
+        page.add("reports", reports);
+        return page.toString();
+    }
+
+    // One full report with its tabs, as returned by reporting/reports/:reportId
+    static String fullReportJson(int rowsPerTab) {
+        Random random = new Random(3);
+        JsonObject report = new JsonObject();
+        report.addProperty("ReportID", 100001);
+        report.addProperty("ShipID", 7);
+        report.addProperty("VoyageID", 301);
+        report.addProperty("VoyageLegID", 3001);
+        report.addProperty("ReportDateTimeUTC", "2024-06-01T12:00:00.000Z");
+        report.addProperty("DistanceSinceLastReportNM", 312.5);
+        report.addProperty("Remarks", "Fair weather, all machinery normal");
+        JsonArray fuel = new JsonArray();
+        JsonArray machinery = new JsonArray();
+        JsonArray rob = new JsonArray();
+        for (int i = 0; i < rowsPerTab; i++) {
+            JsonObject consumption = new JsonObject();
+            consumption.addProperty("FuelTypeKey", FUEL_TYPES[i % FUEL_TYPES.length]);
+            consumption.addProperty("ConsumedMT", random.nextDouble() * 30);
+            consumption.addProperty("BDN_Number", "BDN-" + i);
+            fuel.add(consumption);
+
+            JsonObject machine = new JsonObject();
+            machine.addProperty("MachineryName", "Engine " + i);
+            machine.addProperty("RunningHours", 24);
+            machine.addProperty("PowerKW", random.nextInt(20000));
+            machine.addProperty("RPM", 60 + random.nextInt(60));
+            machinery.add(machine);
+
+            JsonObject tank = new JsonObject();
+            tank.addProperty("TankName", "Tank " + i);
+            tank.addProperty("FuelTypeKey", FUEL_TYPES[i % FUEL_TYPES.length]);
+            tank.addProperty("RobMT", random.nextDouble() * 800);
+            rob.add(tank);
+        }
+        report.add("fuelConsumptions", fuel);
+        report.add("machineryData", machinery);
+        report.add("robEntries", rob);
+        return report.toString();
+    }
+
+    static List<Vessel> vessels(int count, long seed) {
+        Random random = new Random(seed);
+        List<Vessel> vessels = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            vessels.add(new Vessel(i, "MV Vessel " + i, String.valueOf(9000000 + i), i % 3 == 0 ? "Panama" : "Liberia",
+                VESSEL_TYPES[random.nextInt(VESSEL_TYPES.length)], 5000 + random.nextInt(15000000) / 100.0));
+        }
+        return vessels;
+    }
+
+    // A year of daily reports for each vessel, one or two fuel rows per report
+    static List<ReportMetrics> reportMetrics(int vessels, int year) {
+        Random random = new Random(4);
+        List<ReportMetrics> metrics = new ArrayList<>(vessels * 365);
+        long reportId = 0;
+        for (int ship = 1; ship <= vessels; ship++) {
+            for (int day = 0; day < 365; day++) {
+                int fuels = 1 + random.nextInt(2);
+                String[] fuelTypes = new String[fuels];
+                double[] consumed = new double[fuels];
+                for (int i = 0; i < fuels; i++) {
+                    fuelTypes[i] = FUEL_TYPES[random.nextInt(FUEL_TYPES.length)];
+                    consumed[i] = random.nextDouble() * 30;
+                }
+                metrics.add(new ReportMetrics(++reportId, ship, ship * 100L + day / 30, ship * 1000L + day / 10,
+                    year + date(day).substring(4) + "T12:00:00.000Z", 200 + random.nextDouble() * 200, fuelTypes, consumed));
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * A vessel's voyages back to-back for the given number of years up to 2025,
+     * as voyage-service lists them: {"voyages": [...], "legs": [...]}. Voyages
+     * take 10 to 40 days with a few days in port between; each has one to four
+     * legs. The last leg is still under way.
+     */
+    static JsonObject voyageHistoryJson(int years) {
+        Random random = new Random(12);
+        JsonArray voyages = new JsonArray();
+        JsonArray legs = new JsonArray();
+        long end = LocalDateTime.of(2025, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC) / 60;
+        long minute = end - years * 365L * 1440;
+        long legId = 0;
+        for (int voyageId = 1; minute < end; voyageId++) {
+            long departure = minute + random.nextInt(4 * 1440);
+            long duration = (10 + random.nextInt(31)) * 1440L;
+            JsonObject voyage = new JsonObject();
+            voyage.addProperty("VoyageID", voyageId);
+            voyage.addProperty("ShipID", 7);
+            voyage.addProperty("VoyageNumber", "V" + voyageId);
+            voyage.addProperty("Departure_Port", "Port " + random.nextInt(50));
+            voyage.addProperty("Arrival_Port", "Port " + random.nextInt(50));
+            voyage.addProperty("VoyageStatus", departure + duration < end ? "Completed" : "In Progress");
+            voyage.addProperty("ATD", isoMinute(departure) + ".000Z");
+            voyage.addProperty("ETD_UTC", isoMinute(departure - 180));
+            voyage.addProperty("ETA_UTC", isoMinute(departure + duration));
+            voyages.add(voyage);
+            int legCount = 1 + random.nextInt(4);
+            long legStart = departure;
+            for (int leg = 1; leg <= legCount; leg++) {
+                long legEnd = leg == legCount ? departure + duration : legStart + duration / legCount;
+                JsonObject row = new JsonObject();
+                row.addProperty("VoyageLegID", ++legId);
+                row.addProperty("VoyageID", voyageId);
+                row.addProperty("LegNumber", leg);
+                row.addProperty("LegName", "V" + voyageId + "-L" + leg);
+                row.addProperty("ETD_UTC", isoMinute(legStart - 60));
+                row.addProperty("ATD_UTC", isoMinute(legStart));
+                row.addProperty("ETA_UTC", isoMinute(legEnd));
+                if (legEnd < end) {
+                    row.addProperty("ATA_UTC", isoMinute(legEnd));
+                }
+                legs.add(row);
+                legStart = legEnd;
+            }
+            minute = departure + duration;
+        }
+        JsonObject history = new JsonObject();
+        history.add("voyages", voyages);
+        history.add("legs", legs);
+        return history;
+    }
+
+    // yyyy-MM-ddTHH:mm:ss for minutes since the epoch, UTC
+    static String isoMinute(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC).toString() + ":00";
+    }
+
+    // yyyy-MM-dd for a day of 2024
+    private static String date(int dayOfYear) {
+        int[] monthDays = { 31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 };
+        int month = 0;
+        int day = dayOfYear;
+        while (day >= monthDays[month]) {
+            day -= monthDays[month];
+            month++;
+        }
+        return String.format("2024-%02d-%02d", month + 1, day + 1);
+    }
+}
@@ -0,0 +1,82 @@
+package com.viswa.memp.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.reflect.TypeToken;
+import com.viswa.memp.api.ReportStreamParser;
+import com.viswa.memp.models.LoginResponse;
+import com.viswa.memp.models.ReportPage;
+import com.viswa.memp.models.Vessel;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.Type;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Response decoding with a default Gson, as GsonConverterFactory.create() sets it up in ApiClient
+@State(Scope.Benchmark)
+public class JsonDecodeBenchmark {
+
+    private static final Type VESSEL_LIST = new TypeToken<List<Vessel>>() { }.getType();
+
+    @Param({ "50", "2000" })
+    public int rows;
+
+    private final Gson gson = new Gson();
+    private String loginJson;
+    private String vesselsJson;
+    private String reportPageJson;
+    private String fullReportJson;
+
+    @Setup
+    public void setUp() {
+        loginJson = Fixtures.loginJson();
+        vesselsJson = Fixtures.vesselsJson(rows);
+        reportPageJson = Fixtures.reportPageJson(rows);
+        fullReportJson = Fixtures.fullReportJson(rows / 10);
+    }
+
+    @Benchmark
+    public LoginResponse loginResponse() {
+        return gson.fromJson(loginJson, LoginResponse.class);
+    }
+
+    @Benchmark
+    public List<Vessel> vesselList() {
+        return gson.fromJson(vesselsJson, VESSEL_LIST);
+    }
+
+    @Benchmark
+    public ReportPage reportPage() {
+        return gson.fromJson(reportPageJson, ReportPage.class);
+    }
+
+    @Benchmark
+    public int reportPageStreamed() throws IOException {
+        final int[] count = new int[1];
+        ReportStreamParser.readReportPage(new StringReader(reportPageJson), gson, 50, rows -> count[0] += rows.size());
+        return count[0];
+    }
+
+    @Benchmark
+    public int fullReportStreamed() throws IOException {
+        final int[] count = new int[1];
+        ReportStreamParser.readFullReport(new StringReader(fullReportJson), gson, new ReportStreamParser.SectionListener() {
+            @Override
+            public void onField(String name, JsonElement value) {
+                count[0]++;
+            }
+
+            @Override
+            public void onSectionRow(String section, JsonObject row) {
+                count[0]++;
+            }
+        });
+        return count[0];
+    }
+}
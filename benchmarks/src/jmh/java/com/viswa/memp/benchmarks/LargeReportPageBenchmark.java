@@ -0,0 +1,156 @@
+package com.viswa.memp.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+import com.viswa.memp.api.ReportStreamParser;
+import com.viswa.memp.models.ReportPage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A report page of about 50 MB decoded the way GsonConverterFactory does it,
+ * the whole page into one ReportPage, against ReportStreamParser handing rows
+ * on in batches the way syncReports stores them. The body is read through a
+ * Reader over its bytes, as from ResponseBody.charStream().
+ *
+ * Besides time, each call reports peakLiveMb: the most heap still live after
+ * any GC during the call, over what was live after a full GC just before it.
+ * Run with the gc profiler (on for every run in build.gradle) for allocation
+ * per call. On a desktop JDK 17, -Xmx1g, 3 measured calls each:
+ *
+ *   converter  1559 ms/op, peakLiveMb 222, 335 MB allocated per op, 8.4 s in GC
+ *   streamed    806 ms/op, peakLiveMb  27, 334 MB allocated per op, 1.2 s in GC
+ *
+ * Allocation is the same work either way; what streaming saves is holding
+ * every row at once. The converter's collections have to copy the growing
+ * page, which is where its time goes, and its live set is what decides
+ * whether a large sync fits the heap of a small device. The times vary a lot
+ * from call to call; the live sizes do not.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class LargeReportPageBenchmark {
+
+    private static final int PAYLOAD_BYTES = 50 * 1024 * 1024;
+    private static final int BATCH_SIZE = 50;
+
+    private final Gson gson = new Gson();
+    private byte[] page;
+
+    /**
+     * Largest heap in use right after any GC during a call, over what was in use
+     * after a full GC just before it: the rows a decoder keeps alive, without the
+     * garbage it has made and not yet collected.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Heap implements NotificationListener {
+        public long peakLiveMb;
+        private volatile long liveAfterGc;
+        private long baseline;
+
+        @Setup(Level.Trial)
+        public void listen() {
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                ((NotificationEmitter) collector).addNotificationListener(this, null, null);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void stopListening() throws ListenerNotFoundException {
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                ((NotificationEmitter) collector).removeNotificationListener(this);
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void reset() {
+            System.gc();
+            baseline = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            liveAfterGc = baseline;
+        }
+
+        @TearDown(Level.Invocation)
+        public void record() {
+            peakLiveMb = Math.max(peakLiveMb, (liveAfterGc - baseline) / (1024 * 1024));
+        }
+
+        @Override
+        public void handleNotification(Notification notification, Object handback) {
+            if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                return;
+            }
+            GcInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData())
+                .getGcInfo();
+            long used = 0;
+            for (MemoryUsage pool : info.getMemoryUsageAfterGc().values()) {
+                used += pool.getUsed();
+            }
+            liveAfterGc = Math.max(liveAfterGc, used);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        page = Fixtures.reportPageBytes(PAYLOAD_BYTES);
+    }
+
+    // GsonConverterFactory's response converter, step for step
+    @Benchmark
+    public int converter(Heap heap) throws IOException {
+        TypeAdapter<ReportPage> adapter = gson.getAdapter(ReportPage.class);
+        try (Reader body = body()) {
+            JsonReader reader = gson.newJsonReader(body);
+            ReportPage result = adapter.read(reader);
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonIOException("JSON document was not fully consumed.");
+            }
+            return result.getReports().size();
+        }
+    }
+
+    @Benchmark
+    public int streamed(Heap heap) throws IOException {
+        final int[] count = new int[1];
+        ReportStreamParser.readReportPage(body(), gson, BATCH_SIZE, rows -> count[0] += rows.size());
+        return count[0];
+    }
+
+    private Reader body() {
+        return new InputStreamReader(new ByteArrayInputStream(page), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,200 @@
+package com.viswa.memp.benchmarks;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * The diff DiffUtil.calculateDiff(callback, true) runs, for measuring on the JVM:
+ * Myers' linear-space variant finds the longest run of items that are the same by
+ * id (the middle snake, split and recursed on both sides), matched rows are then
+ * compared by contents, and each removed row is looked up among the added ones to
+ * become a move. DiffUtil ships in an AAR, so this follows its structure step for
+ * step rather than calling it; the number of callback calls is the same.
+ */
+final class MyersDiff {
+
+    interface Callback {
+        int oldSize();
+
+        int newSize();
+
+        boolean areItemsTheSame(int oldPosition, int newPosition);
+
+        boolean areContentsTheSame(int oldPosition, int newPosition);
+    }
+
+    static final class Result {
+        int inserted;
+        int removed;
+        int changed;
+        int moved;
+
+        int updates() {
+            return inserted + removed + changed + moved;
+        }
+    }
+
+    private MyersDiff() {
+    }
+
+    static Result calculate(Callback callback) {
+        int oldSize = callback.oldSize();
+        int newSize = callback.newSize();
+        // newPositionOf[old] and oldPositionOf[new] are -1 until matched by a snake or a move
+        int[] newPositionOf = filled(oldSize);
+        int[] oldPositionOf = filled(newSize);
+
+        int max = (oldSize + newSize + 1) / 2;
+        int[] forward = new int[max * 2 + 1];
+        int[] backward = new int[max * 2 + 1];
+        int[] snake = new int[5];
+        Deque<int[]> ranges = new ArrayDeque<>();
+        ranges.push(new int[] {0, oldSize, 0, newSize});
+        while (!ranges.isEmpty()) {
+            int[] range = ranges.pop();
+            if (!midPoint(range, callback, forward, backward, max, snake)) {
+                continue;
+            }
+            // snake: {startX, startY, endX, endY, reverse}; one insertion or removal and a matched run,
+            // the run last when found going forward and first when found going backward
+            int length = Math.min(snake[2] - snake[0], snake[3] - snake[1]);
+            int x = snake[4] == 1 ? snake[0] : snake[2] - length;
+            int y = snake[4] == 1 ? snake[1] : snake[3] - length;
+            for (int i = 0; i < length; i++) {
+                newPositionOf[x + i] = y + i;
+                oldPositionOf[y + i] = x + i;
+            }
+            ranges.push(new int[] {range[0], snake[0], range[2], snake[1]});
+            ranges.push(new int[] {snake[2], range[1], snake[3], range[3]});
+        }
+
+        Result result = new Result();
+        for (int oldPosition = 0; oldPosition < oldSize; oldPosition++) {
+            int newPosition = newPositionOf[oldPosition];
+            if (newPosition >= 0 && !callback.areContentsTheSame(oldPosition, newPosition)) {
+                result.changed++;
+            }
+        }
+        // Move detection: a removed row that is the same item as an added one
+        for (int oldPosition = 0; oldPosition < oldSize; oldPosition++) {
+            if (newPositionOf[oldPosition] >= 0) {
+                continue;
+            }
+            for (int newPosition = 0; newPosition < newSize; newPosition++) {
+                if (oldPositionOf[newPosition] < 0 && callback.areItemsTheSame(oldPosition, newPosition)) {
+                    newPositionOf[oldPosition] = newPosition;
+                    oldPositionOf[newPosition] = oldPosition;
+                    result.moved++;
+                    if (!callback.areContentsTheSame(oldPosition, newPosition)) {
+                        result.changed++;
+                    }
+                    break;
+                }
+            }
+            if (newPositionOf[oldPosition] < 0) {
+                result.removed++;
+            }
+        }
+        for (int newPosition = 0; newPosition < newSize; newPosition++) {
+            if (oldPositionOf[newPosition] < 0) {
+                result.inserted++;
+            }
+        }
+        return result;
+    }
+
+    // range: {oldStart, oldEnd, newStart, newEnd}; fills snake and returns true when one was found
+    private static boolean midPoint(int[] range, Callback callback, int[] forward, int[] backward, int max,
+                                    int[] snake) {
+        int oldLength = range[1] - range[0];
+        int newLength = range[3] - range[2];
+        if (oldLength < 1 || newLength < 1) {
+            return false;
+        }
+        int limit = (oldLength + newLength + 1) / 2;
+        forward[max + 1] = range[0];
+        backward[max + 1] = range[1];
+        for (int d = 0; d < limit; d++) {
+            if (forward(range, callback, forward, backward, max, d, snake)
+                || backward(range, callback, forward, backward, max, d, snake)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean forward(int[] range, Callback callback, int[] forward, int[] backward, int max, int d,
+                                   int[] snake) {
+        int delta = (range[1] - range[0]) - (range[3] - range[2]);
+        boolean overlapPossible = Math.abs(delta) % 2 == 1;
+        for (int k = -d; k <= d; k += 2) {
+            int startX;
+            int x;
+            if (k == -d || (k != d && forward[max + k + 1] > forward[max + k - 1])) {
+                x = forward[max + k + 1];
+                startX = x;
+            } else {
+                startX = forward[max + k - 1];
+                x = startX + 1;
+            }
+            int y = range[2] + (x - range[0]) - k;
+            int startY = d == 0 || x != startX ? y : y - 1;
+            while (x < range[1] && y < range[3] && callback.areItemsTheSame(x, y)) {
+                x++;
+                y++;
+            }
+            forward[max + k] = x;
+            int backwardK = delta - k;
+            if (overlapPossible && backwardK >= -d + 1 && backwardK <= d - 1 && backward[max + backwardK] <= x) {
+                setSnake(snake, startX, startY, x, y, false);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean backward(int[] range, Callback callback, int[] forward, int[] backward, int max, int d,
+                                    int[] snake) {
+        int delta = (range[1] - range[0]) - (range[3] - range[2]);
+        boolean overlapPossible = delta % 2 == 0;
+        for (int k = -d; k <= d; k += 2) {
+            int startX;
+            int x;
+            if (k == -d || (k != d && backward[max + k + 1] < backward[max + k - 1])) {
+                x = backward[max + k + 1];
+                startX = x;
+            } else {
+                startX = backward[max + k - 1];
+                x = startX - 1;
+            }
+            int y = range[3] - ((range[1] - x) - k);
+            int startY = d == 0 || x != startX ? y : y + 1;
+            while (x > range[0] && y > range[2] && callback.areItemsTheSame(x - 1, y - 1)) {
+                x--;
+                y--;
+            }
+            backward[max + k] = x;
+            int forwardK = delta - k;
+            if (overlapPossible && forwardK >= -d && forwardK <= d && forward[max + forwardK] >= x) {
+                setSnake(snake, x, y, startX, startY, true);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void setSnake(int[] snake, int startX, int startY, int endX, int endY, boolean reverse) {
+        snake[0] = startX;
+        snake[1] = startY;
+        snake[2] = endX;
+        snake[3] = endY;
+        snake[4] = reverse ? 1 : 0;
+    }
+
+    private static int[] filled(int size) {
+        int[] positions = new int[size];
+        Arrays.fill(positions, -1);
+        return positions;
+    }
+}
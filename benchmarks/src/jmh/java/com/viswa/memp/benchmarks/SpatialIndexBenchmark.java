@@ -0,0 +1,80 @@
+package com.viswa.memp.benchmarks;
+
+import com.viswa.memp.geo.FleetSpatialIndex;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+public class SpatialIndexBenchmark {
+
+    @Param({ "2000", "20000" })
+    public int vessels;
+
+    private final FleetSpatialIndex index = new FleetSpatialIndex();
+    private double[] latitudes;
+    private double[] longitudes;
+    private final int[] nearestIds = new int[10];
+    private final double[] nearestDistances = new double[10];
+    private final int[] visited = new int[1];
+    private final FleetSpatialIndex.Visitor counter = (vesselId, latitude, longitude) -> visited[0]++;
+    private final Random random = new Random(6);
+
+    @Setup
+    public void setUp() {
+        Random positions = new Random(7);
+        latitudes = new double[vessels];
+        longitudes = new double[vessels];
+        for (int i = 0; i < vessels; i++) {
+            latitudes[i] = positions.nextDouble() * 140 - 70;
+            longitudes[i] = positions.nextDouble() * 360 - 180;
+            index.put(i + 1, latitudes[i], longitudes[i]);
+        }
+    }
+
+    // The whole fleet's positions into an empty index, as on the first load of the map
+    @Benchmark
+    public FleetSpatialIndex build() {
+        FleetSpatialIndex built = new FleetSpatialIndex();
+        for (int i = 0; i < vessels; i++) {
+            built.put(i + 1, latitudes[i], longitudes[i]);
+        }
+        return built;
+    }
+
+    // Roughly the North Sea and the Channel, as a map viewport would ask
+    @Benchmark
+    public int viewport() {
+        visited[0] = 0;
+        index.visitViewport(48, -6, 60, 10, counter);
+        return visited[0];
+    }
+
+    @Benchmark
+    public int viewportAcrossAntimeridian() {
+        visited[0] = 0;
+        index.visitViewport(-20, 170, 10, -170, counter);
+        return visited[0];
+    }
+
+    @Benchmark
+    public int withinRadius() {
+        visited[0] = 0;
+        index.visitWithinRadius(1.26, 103.8, 300, counter);
+        return visited[0];
+    }
+
+    @Benchmark
+    public int nearestTen() {
+        return index.nearest(51.9, 4.1, 10, nearestIds, nearestDistances);
+    }
+
+    // A position report for one vessel, as applied on every refresh
+    @Benchmark
+    public void move() {
+        index.put(1 + random.nextInt(vessels), random.nextDouble() * 140 - 70, random.nextDouble() * 360 - 180);
+    }
+}
@@ -0,0 +1,137 @@
+package com.viswa.memp.benchmarks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.viswa.memp.data.StreamCallback;
+import com.viswa.memp.data.TankQuantities;
+import com.viswa.memp.models.Vessel;
+import com.viswa.memp.models.VesselTankStatus;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A cold fleet's tank quantities through TankQuantities, against a stand-in
+ * tank-service where every call costs SERVER_MS (gateway, service and one SQL
+ * round trip). tanksPerCall at the tanks of one vessel is the old request per
+ * vessel; 2000 is what TankRepository sends. lanes is how many calls may run
+ * at once: 1 runs every batch on the calling thread, 3 is the TANKS service
+ * limit of the dispatcher. 40 vessels of 24 tanks, SERVER_MS 30, JDK 17:
+ *
+ *   per vessel, 1 lane   1224 ms/op
+ *   per vessel, 3 lanes   610 ms/op (the calling thread takes only the first batch)
+ *   batched, either        33 ms/op
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class TankBatchingBenchmark {
+
+    private static final int VESSELS = 40;
+    private static final int TANKS = 24;
+    private static final long SERVER_MS = 30;
+
+    @Param({ "24", "2000" })
+    public int tanksPerCall;
+
+    @Param({ "1", "3" })
+    public int lanes;
+
+    private final List<Vessel> vessels = new ArrayList<>();
+    private JsonArray tankList;
+    private ExecutorService pool;
+
+    @Setup
+    public void setUp() {
+        tankList = new JsonArray();
+        for (int vessel = 0; vessel < VESSELS; vessel++) {
+            String imo = "9" + (100000 + vessel);
+            vessels.add(new Vessel(vessel, "Vessel " + vessel, imo, "PA", "TANKER", 30000));
+            for (int t = 0; t < TANKS; t++) {
+                JsonObject tank = new JsonObject();
+                tank.addProperty("VesselTankID", String.valueOf(vessel * 1000L + t + 1));
+                tank.addProperty("Tank_Name", "T" + t);
+                tank.addProperty("IMO_Number", imo);
+                tank.addProperty("CapacityM3", 500);
+                tankList.add(tank);
+            }
+        }
+        pool = lanes > 1 ? Executors.newFixedThreadPool(lanes - 1) : null;
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public int coldFleet() throws Exception {
+        TankQuantities quantities = new TankQuantities(request -> {
+            try {
+                Thread.sleep(SERVER_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            JsonArray rows = new JsonArray();
+            for (Long id : request.getTankIds()) {
+                JsonObject row = new JsonObject();
+                row.addProperty("VesselTankID", String.valueOf(id));
+                row.addProperty("CurrentQuantityMT", (id % 97) * 1.5);
+                rows.add(row);
+            }
+            return rows;
+        }, tanksPerCall, 60 * 1000L);
+
+        final int[] delivered = new int[1];
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        quantities.stream(vessels, quantities.index(tankList, 0), System.currentTimeMillis(),
+            pool != null ? pool : Runnable::run, Runnable::run, new StreamCallback<VesselTankStatus>() {
+                @Override
+                public void onRows(List<VesselTankStatus> rows) {
+                    synchronized (delivered) {
+                        delivered[0] += rows.size();
+                    }
+                }
+
+                @Override
+                public void onComplete() {
+                    done.countDown();
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    failure.set(t);
+                    done.countDown();
+                }
+            });
+        done.await();
+        if (failure.get() != null) {
+            throw new IllegalStateException(failure.get());
+        }
+        synchronized (delivered) {
+            return delivered[0];
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.viswa.memp.benchmarks;
+
+import com.viswa.memp.models.Vessel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * What VesselAdapter's AsyncListDiffer computes off the main thread when a
+ * refreshed list arrives. diff runs DiffUtil's algorithm (MyersDiff) with the
+ * adapter's callbacks; matchById is the hash join on ShipID that a keyed list
+ * could use instead, as the lower bound.
+ */
+@State(Scope.Benchmark)
+public class VesselListDiffBenchmark {
+
+    @Param({ "200", "2000", "10000" })
+    public int vessels;
+
+    private List<Vessel> oldList;
+    private List<Vessel> newList;
+    private MyersDiff.Callback callback;
+
+    @Setup
+    public void setUp() {
+        oldList = Fixtures.vessels(vessels, 5);
+        // Same vessels with a few renamed, one in a hundred sold and as many new ones
+        newList = new ArrayList<>(vessels);
+        for (Vessel vessel : oldList) {
+            int id = vessel.getId();
+            if (id % 100 == 0) {
+                continue;
+            }
+            String name = id % 20 == 0 ? vessel.getName() + " II" : vessel.getName();
+            newList.add(new Vessel(id, name, vessel.getImo(), vessel.getFlag(), vessel.getType(),
+                vessel.getGrossTonnage()));
+        }
+        for (int i = 1; i <= vessels / 100; i++) {
+            newList.add(new Vessel(vessels + i, "MV New " + i, String.valueOf(9800000 + i), "Malta", "TANKER", 30000));
+        }
+        // Same as VesselAdapter's DiffUtil.ItemCallback
+        callback = new MyersDiff.Callback() {
+            @Override
+            public int oldSize() {
+                return oldList.size();
+            }
+
+            @Override
+            public int newSize() {
+                return newList.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldPosition, int newPosition) {
+                return oldList.get(oldPosition).getId() == newList.get(newPosition).getId();
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldPosition, int newPosition) {
+                return oldList.get(oldPosition).hasSameListContents(newList.get(newPosition));
+            }
+        };
+    }
+
+    // Returns the number of updates dispatched to the adapter
+    @Benchmark
+    public int diff() {
+        return MyersDiff.calculate(callback).updates();
+    }
+
+    // Returns inserted + removed + changed rows
+    @Benchmark
+    public int matchById() {
+        Map<Integer, Vessel> previous = new HashMap<>(oldList.size() * 2);
+        for (Vessel vessel : oldList) {
+            previous.put(vessel.getId(), vessel);
+        }
+        int inserted = 0;
+        int changed = 0;
+        for (Vessel vessel : newList) {
+            Vessel old = previous.remove(vessel.getId());
+            if (old == null) {
+                inserted++;
+            } else if (!old.hasSameListContents(vessel)) {
+                changed++;
+            }
+        }
+        return inserted + previous.size() + changed;
+    }
+}
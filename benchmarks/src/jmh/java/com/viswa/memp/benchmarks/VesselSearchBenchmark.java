@@ -0,0 +1,66 @@
+package com.viswa.memp.benchmarks;
+
+import com.viswa.memp.models.Vessel;
+import com.viswa.memp.search.VesselSearchIndex;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// One keystroke of the Vessel Info search: the index against scanning the list
+@State(Scope.Benchmark)
+public class VesselSearchBenchmark {
+
+    private static final int LIMIT = 50;
+
+    @Param({ "10000" })
+    public int vessels;
+
+    // Successive keystrokes of a name and of an IMO number
+    @Param({ "v", "ve", "vessel 12", "9001", "900123" })
+    public String query;
+
+    private List<Vessel> list;
+    private final VesselSearchIndex index = new VesselSearchIndex();
+
+    @Setup
+    public void setUp() {
+        list = Fixtures.vessels(vessels, 9);
+        index.replaceAll(list);
+    }
+
+    @Benchmark
+    public List<Vessel> index() {
+        return index.search(query, null, null, LIMIT);
+    }
+
+    @Benchmark
+    public List<Vessel> indexWithFlagFacet() {
+        return index.search(query, "Panama", null, LIMIT);
+    }
+
+    @Benchmark
+    public List<Vessel> listScan() {
+        String needle = query.toLowerCase(Locale.ROOT);
+        List<Vessel> results = new ArrayList<>();
+        for (Vessel vessel : list) {
+            if (vessel.getName().toLowerCase(Locale.ROOT).contains(needle) || vessel.getImo().startsWith(needle)) {
+                results.add(vessel);
+                if (results.size() == LIMIT) {
+                    break;
+                }
+            }
+        }
+        return results;
+    }
+
+    @Benchmark
+    public int indexUpdateOnSync() {
+        index.replaceAll(list);
+        return index.size();
+    }
+}
@@ -0,0 +1,112 @@
+package com.viswa.memp.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.reflect.TypeToken;
+import com.viswa.memp.models.Voyage;
+import com.viswa.memp.models.VoyageLeg;
+import com.viswa.memp.timeline.VoyageTimeline;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// The voyage timeline's queries over years of synthetic history, against the scan they replace
+@State(Scope.Benchmark)
+public class VoyageTimelineBenchmark {
+
+    private static final long QUARTER = 91L * 1440;
+
+    @Param({ "1", "10", "50" })
+    public int years;
+
+    private List<Voyage> voyages;
+    private Map<Long, List<VoyageLeg>> legsByVoyage;
+    private List<VoyageLeg> allLegs;
+    // Leg times for the scan, parsed once so it is not charged for parsing
+    private long[] legStarts;
+    private long[] legEnds;
+    private VoyageTimeline timeline;
+    private long[] times;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Gson gson = new Gson();
+        JsonObject history = Fixtures.voyageHistoryJson(years);
+        voyages = gson.fromJson(history.get("voyages"), new TypeToken<List<Voyage>>() { }.getType());
+        allLegs = gson.fromJson(history.get("legs"), new TypeToken<List<VoyageLeg>>() { }.getType());
+        legsByVoyage = new HashMap<>();
+        for (VoyageLeg leg : allLegs) {
+            List<VoyageLeg> legs = legsByVoyage.get(leg.getVoyageId());
+            if (legs == null) {
+                legs = new ArrayList<>();
+                legsByVoyage.put(leg.getVoyageId(), legs);
+            }
+            legs.add(leg);
+        }
+        legStarts = new long[allLegs.size()];
+        legEnds = new long[allLegs.size()];
+        for (int i = 0; i < allLegs.size(); i++) {
+            legStarts[i] = VoyageTimeline.startOf(allLegs.get(i));
+            legEnds[i] = VoyageTimeline.endOf(allLegs.get(i));
+        }
+        timeline = build();
+        long first = VoyageTimeline.startOf(voyages.get(0));
+        long span = VoyageTimeline.endOf(voyages.get(voyages.size() - 1)) - first;
+        Random random = new Random(13);
+        times = new long[1024];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = first + (long) (random.nextDouble() * span);
+        }
+    }
+
+    // Indexing every voyage and expanding all their legs
+    @Benchmark
+    public VoyageTimeline buildFullyExpanded() {
+        return build();
+    }
+
+    @Benchmark
+    public VoyageLeg legAt() {
+        return timeline.legAt(nextTime());
+    }
+
+    @Benchmark
+    public List<VoyageLeg> legsInQuarter() {
+        long from = nextTime();
+        return timeline.legsBetween(from, from + QUARTER);
+    }
+
+    // What the tree replaces: every leg checked per query
+    @Benchmark
+    public VoyageLeg legAtScan() {
+        long time = nextTime();
+        int found = -1;
+        for (int i = 0; i < legStarts.length; i++) {
+            if (legStarts[i] <= time && time < legEnds[i] && (found < 0 || legStarts[i] > legStarts[found])) {
+                found = i;
+            }
+        }
+        return found < 0 ? null : allLegs.get(found);
+    }
+
+    private VoyageTimeline build() {
+        VoyageTimeline built = new VoyageTimeline(voyages);
+        for (Voyage voyage : voyages) {
+            List<VoyageLeg> legs = legsByVoyage.get(voyage.getId());
+            built.addLegs(voyage.getId(), legs != null ? legs : new ArrayList<VoyageLeg>());
+        }
+        return built;
+    }
+
+    private long nextTime() {
+        return times[next++ & (times.length - 1)];
+    }
+}